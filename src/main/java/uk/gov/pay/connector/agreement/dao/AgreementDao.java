@@ -3,9 +3,13 @@ package uk.gov.pay.connector.agreement.dao;
 import com.google.inject.Provider;
 import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public class AgreementDao extends JpaDao<AgreementEntity> {
@@ -42,4 +46,55 @@ public class AgreementDao extends JpaDao<AgreementEntity> {
                 .setParameter("externalId", externalId)
                 .getResultList().stream().findFirst();
     }
+
+    /**
+     * Returns agreements of the gateway account that have an active payment instrument, ordered by payment instrument
+     * id and starting after afterPaymentInstrumentId, so the caller can page through them.
+     */
+    public List<AgreementEntity> findWithActivePaymentInstrumentByGatewayAccountId(long gatewayAccountId,
+                                                                                  long afterPaymentInstrumentId,
+                                                                                  int limit) {
+        String query = "SELECT ae FROM AgreementEntity ae JOIN ae.paymentInstrument pi " +
+                "WHERE ae.gatewayAccount.id = :gatewayAccountId " +
+                "AND pi.status = :status " +
+                "AND pi.id > :afterPaymentInstrumentId " +
+                "ORDER BY pi.id";
+
+        return entityManager.get()
+                .createQuery(query, AgreementEntity.class)
+                .setParameter("gatewayAccountId", gatewayAccountId)
+                .setParameter("status", PaymentInstrumentStatus.ACTIVE)
+                .setParameter("afterPaymentInstrumentId", afterPaymentInstrumentId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Like {@link #findWithActivePaymentInstrumentByGatewayAccountId} but for the given agreements.
+     */
+    public List<AgreementEntity> findWithActivePaymentInstrumentByExternalIds(Collection<String> externalIds,
+                                                                             long afterPaymentInstrumentId,
+                                                                             int limit) {
+        String query = "SELECT ae FROM AgreementEntity ae JOIN ae.paymentInstrument pi " +
+                "WHERE ae.externalId IN :externalIds " +
+                "AND pi.status = :status " +
+                "AND pi.id > :afterPaymentInstrumentId " +
+                "ORDER BY pi.id";
+
+        return entityManager.get()
+                .createQuery(query, AgreementEntity.class)
+                .setParameter("externalIds", externalIds)
+                .setParameter("status", PaymentInstrumentStatus.ACTIVE)
+                .setParameter("afterPaymentInstrumentId", afterPaymentInstrumentId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int updateCancelledDate(Collection<Long> agreementIds, Instant cancelledDate) {
+        return entityManager.get()
+                .createQuery("UPDATE AgreementEntity ae SET ae.cancelledDate = :cancelledDate WHERE ae.id IN :ids")
+                .setParameter("cancelledDate", cancelledDate)
+                .setParameter("ids", agreementIds)
+                .executeUpdate();
+    }
 }
@@ -0,0 +1,98 @@
+package uk.gov.pay.connector.agreement.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionJobEntity;
+import uk.gov.pay.connector.common.dao.JpaDao;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Optional;
+
+@Transactional
+public class StoredPaymentDetailsDeletionJobDao extends JpaDao<StoredPaymentDetailsDeletionJobEntity> {
+
+    @Inject
+    public StoredPaymentDetailsDeletionJobDao(Provider<EntityManager> entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * Jobs are updated with native statements, possibly by another instance, so the cached entity is refreshed from
+     * the database.
+     */
+    public Optional<StoredPaymentDetailsDeletionJobEntity> findById(long id) {
+        return entityManager.get()
+                .createQuery("SELECT j FROM StoredPaymentDetailsDeletionJobEntity j WHERE j.id = :id",
+                        StoredPaymentDetailsDeletionJobEntity.class)
+                .setParameter("id", id)
+                .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<StoredPaymentDetailsDeletionJobEntity> findLatest() {
+        return entityManager.get()
+                .createQuery("SELECT j FROM StoredPaymentDetailsDeletionJobEntity j ORDER BY j.id DESC",
+                        StoredPaymentDetailsDeletionJobEntity.class)
+                .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Starts a job unless another one is running. A running job whose progress has not been recorded for longer than
+     * abandonedAfter is taken to have stopped with the instance running it, and is completed first.
+     *
+     * @return the id of the new job, or empty if another job is running
+     */
+    public Optional<Long> start(Long gatewayAccountId, Integer agreementCount, Duration abandonedAfter) {
+        entityManager.get()
+                .createNativeQuery("UPDATE stored_payment_details_deletion_jobs " +
+                        "SET completed_date = (now() at time zone 'utc') " +
+                        "WHERE completed_date IS NULL " +
+                        "AND updated_date < (now() at time zone 'utc') - ?1 * interval '1 second'")
+                .setParameter(1, abandonedAfter.toSeconds())
+                .executeUpdate();
+
+        return entityManager.get()
+                .createNativeQuery("INSERT INTO stored_payment_details_deletion_jobs (gateway_account_id, agreement_count) " +
+                        "VALUES (CAST(?1 AS bigint), CAST(?2 AS integer)) " +
+                        "ON CONFLICT DO NOTHING " +
+                        "RETURNING id")
+                .setParameter(1, gatewayAccountId)
+                .setParameter(2, agreementCount)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(id -> ((Number) id).longValue());
+    }
+
+    public void recordBatch(long id, long lastPaymentInstrumentId, int deleted, int failed) {
+        entityManager.get()
+                .createNativeQuery("UPDATE stored_payment_details_deletion_jobs " +
+                        "SET last_payment_instrument_id = ?2, deleted = deleted + ?3, failed = failed + ?4, " +
+                        "updated_date = (now() at time zone 'utc') " +
+                        "WHERE id = ?1")
+                .setParameter(1, id)
+                .setParameter(2, lastPaymentInstrumentId)
+                .setParameter(3, deleted)
+                .setParameter(4, failed)
+                .executeUpdate();
+    }
+
+    public void markAsCompleted(long id) {
+        entityManager.get()
+                .createNativeQuery("UPDATE stored_payment_details_deletion_jobs " +
+                        "SET completed_date = (now() at time zone 'utc'), updated_date = (now() at time zone 'utc') " +
+                        "WHERE id = ?1")
+                .setParameter(1, id)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,107 @@
+package uk.gov.pay.connector.agreement.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "stored_payment_details_deletion_jobs")
+@Access(AccessType.FIELD)
+public class StoredPaymentDetailsDeletionJobEntity {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "gateway_account_id")
+    private Long gatewayAccountId;
+
+    @Column(name = "agreement_count")
+    private Integer agreementCount;
+
+    @Column(name = "deleted", nullable = false)
+    private int deleted;
+
+    @Column(name = "failed", nullable = false)
+    private int failed;
+
+    @Column(name = "last_payment_instrument_id", nullable = false)
+    private long lastPaymentInstrumentId;
+
+    @Column(name = "started_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant startedDate;
+
+    @Column(name = "updated_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant updatedDate;
+
+    @Column(name = "completed_date")
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant completedDate;
+
+    public StoredPaymentDetailsDeletionJobEntity() {
+        // For JPA
+    }
+
+    public StoredPaymentDetailsDeletionJobEntity(Long id, Long gatewayAccountId, Integer agreementCount, int deleted,
+                                                 int failed, long lastPaymentInstrumentId, Instant startedDate,
+                                                 Instant updatedDate, Instant completedDate) {
+        this.id = id;
+        this.gatewayAccountId = gatewayAccountId;
+        this.agreementCount = agreementCount;
+        this.deleted = deleted;
+        this.failed = failed;
+        this.lastPaymentInstrumentId = lastPaymentInstrumentId;
+        this.startedDate = startedDate;
+        this.updatedDate = updatedDate;
+        this.completedDate = completedDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getGatewayAccountId() {
+        return gatewayAccountId;
+    }
+
+    public Integer getAgreementCount() {
+        return agreementCount;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getLastPaymentInstrumentId() {
+        return lastPaymentInstrumentId;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public Instant getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public Instant getCompletedDate() {
+        return completedDate;
+    }
+
+    public boolean isCompleted() {
+        return completedDate != null;
+    }
+}
@@ -0,0 +1,97 @@
+package uk.gov.pay.connector.agreement.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import uk.gov.service.payments.commons.api.json.ApiResponseInstantSerializer;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk deletion of stored payment details, as recorded by the deletion job after each batch. A job that
+ * has not recorded progress since abandonedBefore stopped with the instance running it and is reported as abandoned.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StoredPaymentDetailsDeletionProgress {
+
+    private final Long gatewayAccountId;
+    private final Integer agreementCount;
+    private final Instant startedDate;
+    private final Instant completedDate;
+    private final int deleted;
+    private final int failed;
+    private final long lastPaymentInstrumentId;
+    private final boolean abandoned;
+
+    private StoredPaymentDetailsDeletionProgress(StoredPaymentDetailsDeletionJobEntity job, Instant abandonedBefore) {
+        this.gatewayAccountId = job.getGatewayAccountId();
+        this.agreementCount = job.getAgreementCount();
+        this.startedDate = job.getStartedDate();
+        this.completedDate = job.getCompletedDate();
+        this.deleted = job.getDeleted();
+        this.failed = job.getFailed();
+        this.lastPaymentInstrumentId = job.getLastPaymentInstrumentId();
+        this.abandoned = job.getCompletedDate() == null && job.getUpdatedDate().isBefore(abandonedBefore);
+    }
+
+    public static StoredPaymentDetailsDeletionProgress from(StoredPaymentDetailsDeletionJobEntity job, Instant abandonedBefore) {
+        return new StoredPaymentDetailsDeletionProgress(job, abandonedBefore);
+    }
+
+    @JsonProperty("gateway_account_id")
+    @Schema(example = "1")
+    public Long getGatewayAccountId() {
+        return gatewayAccountId;
+    }
+
+    @JsonProperty("agreement_count")
+    @Schema(example = "100")
+    public Integer getAgreementCount() {
+        return agreementCount;
+    }
+
+    @JsonProperty("started_date")
+    @JsonSerialize(using = ApiResponseInstantSerializer.class)
+    @Schema(example = "2022-06-27T13:07:57.580Z")
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    @JsonProperty("completed_date")
+    @JsonSerialize(using = ApiResponseInstantSerializer.class)
+    @Schema(example = "2022-06-27T13:17:57.580Z")
+    public Instant getCompletedDate() {
+        return completedDate;
+    }
+
+    @JsonProperty("deleted")
+    @Schema(example = "98")
+    public int getDeleted() {
+        return deleted;
+    }
+
+    @JsonProperty("failed")
+    @Schema(example = "2")
+    public int getFailed() {
+        return failed;
+    }
+
+    @JsonProperty("last_payment_instrument_id")
+    @Schema(example = "1234")
+    public long getLastPaymentInstrumentId() {
+        return lastPaymentInstrumentId;
+    }
+
+    @JsonProperty("abandoned")
+    @Schema(example = "false")
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    @JsonIgnore
+    public boolean isCompleted() {
+        return completedDate != null || abandoned;
+    }
+}
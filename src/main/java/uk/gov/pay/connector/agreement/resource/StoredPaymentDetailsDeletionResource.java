@@ -0,0 +1,92 @@
+package uk.gov.pay.connector.agreement.resource;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionProgress;
+import uk.gov.pay.connector.agreement.service.StoredPaymentDetailsDeletionService;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Optional;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import static javax.ws.rs.core.Response.Status.OK;
+
+@Path("/")
+@Tag(name = "Tasks")
+public class StoredPaymentDetailsDeletionResource {
+
+    private final StoredPaymentDetailsDeletionService storedPaymentDetailsDeletionService;
+
+    @Inject
+    public StoredPaymentDetailsDeletionResource(StoredPaymentDetailsDeletionService storedPaymentDetailsDeletionService) {
+        this.storedPaymentDetailsDeletionService = storedPaymentDetailsDeletionService;
+    }
+
+    @POST
+    @Path("/v1/tasks/delete-stored-payment-details")
+    @Produces(APPLICATION_JSON)
+    @Operation(
+            summary = "Delete stored payment details for a gateway account or a set of agreements",
+            description = "Deletes stored payment details with the payment provider and cancels the payment instruments " +
+                    "of agreements that have an active payment instrument. Either gateway_account_id or agreement_id must be given. <br>" +
+                    "The task can be started again to retry deletions that failed. <br>" +
+                    " Note: Task is executed in the background. ",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Accepted",
+                            content = @Content(schema = @Schema(implementation = StoredPaymentDetailsDeletionProgress.class))),
+                    @ApiResponse(responseCode = "400", description = "Neither or both of gateway_account_id and agreement_id given"),
+                    @ApiResponse(responseCode = "409", description = "A deletion is already running",
+                            content = @Content(schema = @Schema(implementation = StoredPaymentDetailsDeletionProgress.class)))
+            }
+    )
+    public Response deleteStoredPaymentDetails(@Parameter(example = "1", description = "Gateway account ID whose agreements' stored payment details should be deleted")
+                                               @QueryParam("gateway_account_id") Long gatewayAccountId,
+                                               @Parameter(example = "iaouobo39hiv0m2560q45j3p04", description = "Agreement ID whose stored payment details should be deleted. May be repeated")
+                                               @QueryParam("agreement_id") List<String> agreementIds) {
+        if ((gatewayAccountId == null) == agreementIds.isEmpty()) {
+            return Response.status(BAD_REQUEST).build();
+        }
+
+        Optional<StoredPaymentDetailsDeletionProgress> progress = gatewayAccountId != null
+                ? storedPaymentDetailsDeletionService.startForGatewayAccount(gatewayAccountId)
+                : storedPaymentDetailsDeletionService.startForAgreements(agreementIds);
+
+        return progress
+                .map(startedJob -> Response.status(ACCEPTED).entity(startedJob).build())
+                .orElseGet(() -> Response.status(CONFLICT)
+                        .entity(storedPaymentDetailsDeletionService.getProgress().orElse(null))
+                        .build());
+    }
+
+    @GET
+    @Path("/v1/tasks/delete-stored-payment-details")
+    @Produces(APPLICATION_JSON)
+    @Operation(
+            summary = "Get the progress of the running or last deletion of stored payment details",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = StoredPaymentDetailsDeletionProgress.class))),
+                    @ApiResponse(responseCode = "404", description = "No deletion has been started")
+            }
+    )
+    public Response getStoredPaymentDetailsDeletionProgress() {
+        StoredPaymentDetailsDeletionProgress progress = storedPaymentDetailsDeletionService.getProgress()
+                .orElseThrow(NotFoundException::new);
+        return Response.status(OK).entity(progress).build();
+    }
+}
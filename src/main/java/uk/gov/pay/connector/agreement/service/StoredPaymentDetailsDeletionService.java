@@ -0,0 +1,269 @@
+package uk.gov.pay.connector.agreement.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.persist.Transactional;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.agreement.dao.AgreementDao;
+import uk.gov.pay.connector.agreement.dao.StoredPaymentDetailsDeletionJobDao;
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionJobEntity;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionProgress;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.StoredPaymentDetailsDeletionConfig;
+import uk.gov.pay.connector.events.EventService;
+import uk.gov.pay.connector.events.model.agreement.AgreementCancelledByService;
+import uk.gov.pay.connector.gateway.GatewayException;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.gateway.PaymentProvider;
+import uk.gov.pay.connector.gateway.PaymentProviders;
+import uk.gov.pay.connector.gateway.model.request.DeleteStoredPaymentDetailsGatewayRequest;
+import uk.gov.pay.connector.paymentinstrument.dao.PaymentInstrumentDao;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import static java.util.stream.Collectors.toList;
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static uk.gov.service.payments.logging.LoggingKeys.AGREEMENT_EXTERNAL_ID;
+
+/**
+ * Deletes the stored payment details of many agreements at once, for example when a service that uses recurring
+ * card payments is decommissioned. Agreements with an active payment instrument are read in batches ordered by payment
+ * instrument id. Deletions with the payment provider run a few at a time, at a rate limited per payment provider.
+ * Payment instruments whose details were deleted are then cancelled together, so a job that stops part way can simply
+ * be started again: only payment instruments that are still active are picked up. The agreement cancelled events are
+ * recorded with the cancellation, so any that cannot be sent are sent again by the emitted events sweeper. Details that were deleted by a
+ * job that stopped before cancelling them are treated as deleted when the payment provider no longer has them.
+ * <p>
+ * Jobs are recorded in the database, so only one runs at a time across all instances, and their progress can be read
+ * from any instance while they run and after they have completed. A job that has not recorded progress for longer than
+ * the abandoned job timeout is reported as abandoned.
+ */
+@Singleton
+public class StoredPaymentDetailsDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoredPaymentDetailsDeletionService.class);
+
+    private final AgreementDao agreementDao;
+    private final StoredPaymentDetailsDeletionJobDao jobDao;
+    private final PaymentInstrumentDao paymentInstrumentDao;
+    private final PaymentProviders providers;
+    private final EventService eventService;
+    private final StoredPaymentDetailsDeletionConfig config;
+    private final ExecutorService jobExecutorService;
+    private final ExecutorService deletionExecutorService;
+    private final Clock clock;
+    private final Map<String, RateLimiter> paymentProviderRateLimiters = new ConcurrentHashMap<>();
+
+    @Inject
+    public StoredPaymentDetailsDeletionService(AgreementDao agreementDao,
+                                               StoredPaymentDetailsDeletionJobDao jobDao,
+                                               PaymentInstrumentDao paymentInstrumentDao,
+                                               PaymentProviders providers,
+                                               EventService eventService,
+                                               ConnectorConfiguration configuration,
+                                               Environment environment,
+                                               Clock clock) {
+        this(agreementDao, jobDao, paymentInstrumentDao, providers, eventService,
+                configuration.getStoredPaymentDetailsDeletionConfig(),
+                environment.lifecycle().executorService("stored-payment-details-deletion-job-%d")
+                        .minThreads(1)
+                        .maxThreads(1)
+                        .build(),
+                environment.lifecycle().executorService("stored-payment-details-deletion-%d")
+                        .minThreads(configuration.getStoredPaymentDetailsDeletionConfig().getMaximumConcurrentDeletions())
+                        .maxThreads(configuration.getStoredPaymentDetailsDeletionConfig().getMaximumConcurrentDeletions())
+                        .build(),
+                clock);
+    }
+
+    StoredPaymentDetailsDeletionService(AgreementDao agreementDao,
+                                        StoredPaymentDetailsDeletionJobDao jobDao,
+                                        PaymentInstrumentDao paymentInstrumentDao,
+                                        PaymentProviders providers,
+                                        EventService eventService,
+                                        StoredPaymentDetailsDeletionConfig config,
+                                        ExecutorService jobExecutorService,
+                                        ExecutorService deletionExecutorService,
+                                        Clock clock) {
+        this.agreementDao = agreementDao;
+        this.jobDao = jobDao;
+        this.paymentInstrumentDao = paymentInstrumentDao;
+        this.providers = providers;
+        this.eventService = eventService;
+        this.config = config;
+        this.jobExecutorService = jobExecutorService;
+        this.deletionExecutorService = deletionExecutorService;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the progress of the running job, or of the last job if none is running
+     */
+    public Optional<StoredPaymentDetailsDeletionProgress> getProgress() {
+        return jobDao.findLatest().map(this::progressOf);
+    }
+
+    /**
+     * @return the progress of the new job, or empty if a job is already running
+     */
+    public Optional<StoredPaymentDetailsDeletionProgress> startForGatewayAccount(long gatewayAccountId) {
+        return start(gatewayAccountId, null,
+                afterPaymentInstrumentId -> agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(
+                        gatewayAccountId, afterPaymentInstrumentId, config.getBatchSize()));
+    }
+
+    /**
+     * @return the progress of the new job, or empty if a job is already running
+     */
+    public Optional<StoredPaymentDetailsDeletionProgress> startForAgreements(Collection<String> agreementExternalIds) {
+        List<String> externalIds = List.copyOf(agreementExternalIds);
+        return start(null, externalIds.size(),
+                afterPaymentInstrumentId -> agreementDao.findWithActivePaymentInstrumentByExternalIds(
+                        externalIds, afterPaymentInstrumentId, config.getBatchSize()));
+    }
+
+    private Optional<StoredPaymentDetailsDeletionProgress> start(Long gatewayAccountId, Integer agreementCount,
+                                                                 LongFunction<List<AgreementEntity>> nextBatch) {
+        Optional<Long> jobId = jobDao.start(gatewayAccountId, agreementCount, config.getAbandonedJobTimeout());
+        if (jobId.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<StoredPaymentDetailsDeletionProgress> progress = jobDao.findById(jobId.get()).map(this::progressOf);
+        jobExecutorService.execute(() -> run(jobId.get(), nextBatch));
+        return progress;
+    }
+
+    private StoredPaymentDetailsDeletionProgress progressOf(StoredPaymentDetailsDeletionJobEntity job) {
+        return StoredPaymentDetailsDeletionProgress.from(job, clock.instant().minus(config.getAbandonedJobTimeout()));
+    }
+
+    private void run(long jobId, LongFunction<List<AgreementEntity>> nextBatch) {
+        long lastPaymentInstrumentId = 0L;
+        try {
+            List<AgreementEntity> batch;
+            do {
+                batch = nextBatch.apply(lastPaymentInstrumentId);
+                if (!batch.isEmpty()) {
+                    lastPaymentInstrumentId = processBatch(jobId, batch);
+                }
+            } while (batch.size() == config.getBatchSize());
+        } catch (RuntimeException e) {
+            logger.error("Bulk deletion of stored payment details stopped after payment instrument {}: {}",
+                    lastPaymentInstrumentId, e.getMessage(), e);
+        } finally {
+            try {
+                jobDao.markAsCompleted(jobId);
+                logger.info("Bulk deletion of stored payment details finished after payment instrument {}",
+                        lastPaymentInstrumentId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to mark bulk deletion of stored payment details as completed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the id of the last payment instrument in the batch
+     */
+    private long processBatch(long jobId, List<AgreementEntity> batch) {
+        List<Map.Entry<AgreementEntity, Future<Boolean>>> deletions = batch.stream()
+                .map(agreement -> Map.entry(agreement, submitDeletion(agreement)))
+                .collect(toList());
+
+        List<AgreementEntity> deleted = new ArrayList<>();
+        for (Map.Entry<AgreementEntity, Future<Boolean>> deletion : deletions) {
+            if (isDeleted(deletion.getValue())) {
+                deleted.add(deletion.getKey());
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            Instant cancelledDate = clock.instant();
+            markAsCancelled(deleted, cancelledDate);
+        }
+
+        long lastPaymentInstrumentId = batch.get(batch.size() - 1).getPaymentInstrument()
+                .map(PaymentInstrumentEntity::getId)
+                .orElseThrow();
+        jobDao.recordBatch(jobId, lastPaymentInstrumentId, deleted.size(), batch.size() - deleted.size());
+        logger.info("Deleted stored payment details for {} of {} agreements up to payment instrument {}",
+                deleted.size(), batch.size(), lastPaymentInstrumentId);
+        return lastPaymentInstrumentId;
+    }
+
+    /**
+     * Builds the gateway request on the job thread, where the agreement's entities were loaded, and leaves only the
+     * call to the payment provider to the deletion thread.
+     */
+    private Future<Boolean> submitDeletion(AgreementEntity agreement) {
+        try {
+            String paymentProviderName = agreement.getGatewayAccount().getGatewayName();
+            PaymentProvider paymentProvider = providers.byName(PaymentGatewayName.valueFrom(paymentProviderName));
+            var request = DeleteStoredPaymentDetailsGatewayRequest.from(agreement, agreement.getPaymentInstrument().orElseThrow());
+            RateLimiter rateLimiter = rateLimiterFor(paymentProviderName);
+            return deletionExecutorService.submit(() -> {
+                rateLimiter.acquire();
+                try {
+                    paymentProvider.deleteStoredPaymentDetails(request);
+                    return true;
+                } catch (GatewayException | RuntimeException e) {
+                    logDeletionFailure(request.getAgreementExternalId(), e);
+                    return false;
+                }
+            });
+        } catch (RuntimeException e) {
+            logDeletionFailure(agreement.getExternalId(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private static void logDeletionFailure(String agreementExternalId, Exception e) {
+        logger.warn("Failed to delete stored payment details for agreement {}: {}", agreementExternalId, e.getMessage(),
+                kv(AGREEMENT_EXTERNAL_ID, agreementExternalId));
+    }
+
+    private RateLimiter rateLimiterFor(String paymentProviderName) {
+        return paymentProviderRateLimiters.computeIfAbsent(paymentProviderName,
+                name -> RateLimiter.create(config.getDeletionsPerSecond(name)));
+    }
+
+    private static boolean isDeleted(Future<Boolean> deletion) {
+        try {
+            return deletion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stored payment details to be deleted", e);
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    @Transactional
+    public void markAsCancelled(List<AgreementEntity> agreements, Instant cancelledDate) {
+        paymentInstrumentDao.updateStatus(agreements.stream()
+                .map(agreement -> agreement.getPaymentInstrument().orElseThrow().getId())
+                .collect(toList()), PaymentInstrumentStatus.CANCELLED);
+        agreementDao.updateCancelledDate(agreements.stream().map(AgreementEntity::getId).collect(toList()), cancelledDate);
+        eventService.emitAndRecordEvents(agreements.stream()
+                .map(agreement -> AgreementCancelledByService.from(agreement, cancelledDate))
+                .collect(toList()));
+    }
+}
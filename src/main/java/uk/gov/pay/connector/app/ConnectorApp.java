@@ -19,12 +19,16 @@ import io.dropwizard.setup.Environment;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.dropwizard.DropwizardExports;
 import io.prometheus.client.exporter.MetricsServlet;
+import org.eclipse.persistence.jpa.JpaHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.agreement.exception.AgreementNotFoundExceptionMapper;
 import uk.gov.pay.connector.agreement.exception.RecurringCardPaymentsNotAllowedExceptionMapper;
 import uk.gov.pay.connector.agreement.resource.AgreementsApiResource;
+import uk.gov.pay.connector.agreement.resource.StoredPaymentDetailsDeletionResource;
 import uk.gov.pay.connector.cardtype.resource.CardTypesResource;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
+import uk.gov.pay.connector.cardtype.tasks.ReloadCardTypesTask;
 import uk.gov.pay.connector.charge.exception.AgreementIdWithIncompatibleOtherOptionsExceptionMapper;
 import uk.gov.pay.connector.charge.exception.AgreementMissingPaymentInstrumentExceptionMapper;
 import uk.gov.pay.connector.charge.exception.AgreementNotFoundBadRequestExceptionMapper;
@@ -55,10 +59,15 @@ import uk.gov.pay.connector.charge.resource.ChargesFrontendResource;
 import uk.gov.pay.connector.charge.resource.GatewayCleanupResource;
 import uk.gov.pay.connector.chargeevent.resource.ChargeEventsResource;
 import uk.gov.pay.connector.command.RenderStateTransitionGraphCommand;
+import uk.gov.pay.connector.common.cache.EntityCacheInvalidationListener;
+import uk.gov.pay.connector.common.dao.ConnectionPoolMetrics;
+import uk.gov.pay.connector.common.dao.ReadReplica;
 import uk.gov.pay.connector.common.exception.ConstraintViolationExceptionMapper;
+import uk.gov.pay.connector.common.exception.DatabaseBulkheadFullExceptionMapper;
 import uk.gov.pay.connector.common.exception.UnsupportedOperationExceptionMapper;
 import uk.gov.pay.connector.common.exception.ValidationExceptionMapper;
 import uk.gov.pay.connector.events.resource.EmittedEventResource;
+import uk.gov.pay.connector.expunge.managed.PartitionMaintenanceScheduler;
 import uk.gov.pay.connector.expunge.resource.ExpungeResource;
 import uk.gov.pay.connector.filters.LoggingMDCRequestFilter;
 import uk.gov.pay.connector.filters.LoggingMDCResponseFilter;
@@ -77,7 +86,9 @@ import uk.gov.pay.connector.healthcheck.SQSHealthCheck;
 import uk.gov.pay.connector.healthcheck.resource.HealthCheckResource;
 import uk.gov.pay.connector.paymentprocessor.resource.CardResource;
 import uk.gov.pay.connector.paymentprocessor.resource.DiscrepancyResource;
+import uk.gov.pay.connector.paymentprocessor.resource.RecurringAuthorisationBatchResource;
 import uk.gov.pay.connector.queue.managed.CaptureMessageReceiver;
+import uk.gov.pay.connector.queue.managed.NotificationInboxReceiver;
 import uk.gov.pay.connector.queue.managed.PayoutReconcileMessageReceiver;
 import uk.gov.pay.connector.queue.managed.StateTransitionMessageReceiver;
 import uk.gov.pay.connector.queue.managed.TaskQueueMessageReceiver;
@@ -97,7 +108,9 @@ import uk.gov.service.payments.logging.GovUkPayDropwizardRequestJsonLogLayoutFac
 import uk.gov.service.payments.logging.LoggingFilter;
 import uk.gov.service.payments.logging.LogstashConsoleAppenderFactory;
 
+import javax.persistence.EntityManagerFactory;
 import java.net.URI;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.EnumSet.of;
@@ -144,6 +157,7 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
         environment.jersey().register(new ConstraintViolationExceptionMapper());
         environment.jersey().register(new ValidationExceptionMapper());
         environment.jersey().register(new UnsupportedOperationExceptionMapper());
+        environment.jersey().register(new DatabaseBulkheadFullExceptionMapper());
         environment.jersey().register(new LoggingExceptionMapper<>() {});
         environment.jersey().register(new JsonProcessingExceptionMapper());
         environment.jersey().register(new EarlyEofExceptionMapper());
@@ -193,6 +207,7 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
         environment.jersey().register(injector.getInstance(RefundsResource.class));
         environment.jersey().register(injector.getInstance(NotificationResource.class));
         environment.jersey().register(injector.getInstance(CardResource.class));
+        environment.jersey().register(injector.getInstance(RecurringAuthorisationBatchResource.class));
         environment.jersey().register(injector.getInstance(CardTypesResource.class));
         environment.jersey().register(injector.getInstance(HealthCheckResource.class));
         environment.jersey().register(injector.getInstance(EmailNotificationResource.class));
@@ -206,12 +221,20 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
         environment.jersey().register(injector.getInstance(LoggingMDCRequestFilter.class));
         environment.jersey().register(injector.getInstance(LoggingMDCResponseFilter.class));
         environment.jersey().register(injector.getInstance(AgreementsApiResource.class));
+        environment.jersey().register(injector.getInstance(StoredPaymentDetailsDeletionResource.class));
 
         if (configuration.getCaptureProcessConfig().getBackgroundProcessingEnabled()) {
             setupSchedulers(environment, injector);
         }
         environment.lifecycle().manage(injector.getInstance(PayoutReconcileMessageReceiver.class));
         environment.lifecycle().manage(injector.getInstance(TaskQueueMessageReceiver.class));
+        environment.lifecycle().manage(injector.getInstance(NotificationInboxReceiver.class));
+        environment.lifecycle().manage(injector.getInstance(CardTypeRegistry.class));
+        environment.admin().addTask(injector.getInstance(ReloadCardTypesTask.class));
+        environment.lifecycle().manage(injector.getInstance(EntityCacheInvalidationListener.class));
+        environment.lifecycle().manage(injector.getInstance(ReadReplica.class));
+        ConnectionPoolMetrics.register(environment.metrics(), "primary", () ->
+                Optional.of(JpaHelper.getServerSession(injector.getInstance(EntityManagerFactory.class))));
 
         environment.servlets().addFilter("LoggingFilter", injector.getInstance(LoggingFilter.class))
                 .addMappingForUrlPatterns(of(REQUEST), true, "/v1/*");
@@ -273,5 +296,6 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
     private void setupSchedulers(Environment environment, Injector injector) {
         environment.lifecycle().manage(injector.getInstance(CaptureMessageReceiver.class));
         environment.lifecycle().manage(injector.getInstance(StateTransitionMessageReceiver.class));
+        environment.lifecycle().manage(injector.getInstance(PartitionMaintenanceScheduler.class));
     }
 }
@@ -6,11 +6,17 @@ import io.dropwizard.client.JerseyClientConfiguration;
 import io.dropwizard.db.DataSourceFactory;
 import uk.gov.pay.connector.app.config.Authorisation3dsConfig;
 import uk.gov.pay.connector.app.config.AuthorisationConfig;
+import uk.gov.pay.connector.app.config.DatabaseBulkheadConfig;
 import uk.gov.pay.connector.app.config.EmittedEventSweepConfig;
+import uk.gov.pay.connector.app.config.EntityCacheConfig;
 import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.app.config.NotificationInboxConfig;
 import uk.gov.pay.connector.app.config.PayoutReconcileProcessConfig;
+import uk.gov.pay.connector.app.config.ReadReplicaConfig;
+import uk.gov.pay.connector.app.config.RecurringAuthorisationConfig;
 import uk.gov.pay.connector.app.config.RestClientConfig;
+import uk.gov.pay.connector.app.config.StoredPaymentDetailsDeletionConfig;
 import uk.gov.pay.connector.app.config.TaskQueueConfig;
 import uk.gov.pay.connector.gateway.PaymentGatewayName;
 
@@ -127,6 +133,36 @@ public class ConnectorConfiguration extends Configuration {
     @JsonProperty("taskQueue")
     private TaskQueueConfig taskQueueConfig;
 
+    @Valid
+    @NotNull
+    @JsonProperty("notificationInbox")
+    private NotificationInboxConfig notificationInboxConfig;
+
+    @Valid
+    @NotNull
+    @JsonProperty("recurringAuthorisation")
+    private RecurringAuthorisationConfig recurringAuthorisationConfig;
+
+    @Valid
+    @NotNull
+    @JsonProperty("storedPaymentDetailsDeletion")
+    private StoredPaymentDetailsDeletionConfig storedPaymentDetailsDeletionConfig;
+
+    @Valid
+    @NotNull
+    @JsonProperty("entityCache")
+    private EntityCacheConfig entityCacheConfig;
+
+    @Valid
+    @NotNull
+    @JsonProperty("readReplica")
+    private ReadReplicaConfig readReplicaConfig;
+
+    @Valid
+    @NotNull
+    @JsonProperty("databaseBulkhead")
+    private DatabaseBulkheadConfig databaseBulkheadConfig;
+
     @Valid
     @NotNull
     private RestClientConfig restClientConfig;
@@ -288,6 +324,30 @@ public class ConnectorConfiguration extends Configuration {
         return taskQueueConfig;
     }
 
+    public NotificationInboxConfig getNotificationInboxConfig() {
+        return notificationInboxConfig;
+    }
+
+    public RecurringAuthorisationConfig getRecurringAuthorisationConfig() {
+        return recurringAuthorisationConfig;
+    }
+
+    public StoredPaymentDetailsDeletionConfig getStoredPaymentDetailsDeletionConfig() {
+        return storedPaymentDetailsDeletionConfig;
+    }
+
+    public EntityCacheConfig getEntityCacheConfig() {
+        return entityCacheConfig;
+    }
+
+    public ReadReplicaConfig getReadReplicaConfig() {
+        return readReplicaConfig;
+    }
+
+    public DatabaseBulkheadConfig getDatabaseBulkheadConfig() {
+        return databaseBulkheadConfig;
+    }
+
     public Boolean getRejectPaymentLinkPaymentsWithCardNumberInReference() {
         return rejectPaymentLinkPaymentsWithCardNumberInReference;
     }
@@ -10,12 +10,15 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.setup.Environment;
 import org.apache.commons.validator.routines.InetAddressValidator;
 import uk.gov.pay.connector.charge.service.Worldpay3dsFlexJwtService;
 import uk.gov.pay.connector.charge.util.JwtGenerator;
+import uk.gov.pay.connector.common.cache.SharedEntityCache;
+import uk.gov.pay.connector.common.dao.ReadReplica;
 import uk.gov.pay.connector.common.validator.RequestValidator;
 import uk.gov.pay.connector.gateway.GatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClientFactory;
@@ -36,14 +39,18 @@ import uk.gov.pay.connector.wallets.applepay.ApplePayDecrypter;
 import uk.gov.service.payments.commons.queue.sqs.SqsQueueService;
 
 import javax.inject.Singleton;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
 import javax.ws.rs.client.Client;
 import java.net.URI;
 import java.time.Clock;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static uk.gov.pay.connector.common.dao.ReadReplica.READ_REPLICA_PERSISTENCE_UNIT;
 import static uk.gov.pay.connector.gateway.GatewayOperation.AUTHORISE;
 import static uk.gov.pay.connector.gateway.GatewayOperation.CANCEL;
 import static uk.gov.pay.connector.gateway.GatewayOperation.CAPTURE;
@@ -75,12 +82,49 @@ public class ConnectorModule extends AbstractModule {
         bind(InetAddressValidator.class).in(Singleton.class);
 
         install(jpaModule(configuration));
+        if (configuration.getReadReplicaConfig().getReadReplicaEnabled()) {
+            bind(EntityManagerFactory.class)
+                    .annotatedWith(Names.named(ReadReplica.READ_REPLICA))
+                    .toInstance(Persistence.createEntityManagerFactory(READ_REPLICA_PERSISTENCE_UNIT,
+                            readReplicaProperties(configuration)));
+        }
         install(new FactoryModuleBuilder().build(GatewayAccountServicesFactory.class));
     }
 
     private JpaPersistModule jpaModule(ConnectorConfiguration configuration) {
-        DataSourceFactory dbConfig = configuration.getDataSourceFactory();
+        final Properties properties = jpaProperties(configuration, configuration.getDataSourceFactory());
+        properties.put("eclipselink.query-results-cache", configuration.getJpaConfiguration().getCacheSharedDefault());
+        properties.put("eclipselink.cache.shared.default", configuration.getJpaConfiguration().getCacheSharedDefault());
+
+        // Read-mostly entities can be shared between entity managers, all other entities follow cacheSharedDefault
+        String entityCacheEnabled = String.valueOf(configuration.getEntityCacheConfig().getEntityCacheEnabled());
+        SharedEntityCache.CACHED_ENTITIES.forEach(entityClass ->
+                properties.put("eclipselink.cache.shared." + entityClass.getSimpleName(), entityCacheEnabled));
+
+        final JpaPersistModule jpaModule = new JpaPersistModule("ConnectorUnit");
+        jpaModule.properties(properties);
+
+        return jpaModule;
+    }
+
+    private Properties readReplicaProperties(ConnectorConfiguration configuration) {
+        DataSourceFactory dbConfig = configuration.getReadReplicaConfig().getDataSourceFactory();
+        final Properties properties = jpaProperties(configuration, dbConfig);
 
+        // Nothing invalidates a shared cache on the replica, so its entities are never shared
+        properties.put("eclipselink.query-results-cache", "false");
+        properties.put("eclipselink.cache.shared.default", "false");
+
+        for (String pool : List.of("default", "read")) {
+            properties.put("eclipselink.connection-pool." + pool + ".initial", String.valueOf(dbConfig.getInitialSize()));
+            properties.put("eclipselink.connection-pool." + pool + ".min", String.valueOf(dbConfig.getMinSize()));
+            properties.put("eclipselink.connection-pool." + pool + ".max", String.valueOf(dbConfig.getMaxSize()));
+        }
+
+        return properties;
+    }
+
+    private Properties jpaProperties(ConnectorConfiguration configuration, DataSourceFactory dbConfig) {
         final Properties properties = new Properties();
         properties.put("javax.persistence.jdbc.driver", dbConfig.getDriverClass());
         properties.put("javax.persistence.jdbc.url", dbConfig.getUrl());
@@ -90,9 +134,11 @@ public class ConnectorModule extends AbstractModule {
         JPAConfiguration jpaConfiguration = configuration.getJpaConfiguration();
         properties.put("eclipselink.logging.level", jpaConfiguration.getJpaLoggingLevel());
         properties.put("eclipselink.logging.level.sql", jpaConfiguration.getSqlLoggingLevel());
-        properties.put("eclipselink.query-results-cache", jpaConfiguration.getCacheSharedDefault());
-        properties.put("eclipselink.cache.shared.default", jpaConfiguration.getCacheSharedDefault());
         properties.put("eclipselink.ddl-generation.output-mode", jpaConfiguration.getDdlGenerationOutputMode());
+        properties.put("eclipselink.jdbc.batch-writing", jpaConfiguration.getBatchWriting());
+        properties.put("eclipselink.jdbc.batch-writing.size", String.valueOf(jpaConfiguration.getBatchWritingSize()));
+        properties.put("eclipselink.jdbc.cache-statements", String.valueOf(jpaConfiguration.getCacheStatements()));
+        properties.put("eclipselink.jdbc.cache-statements.size", String.valueOf(jpaConfiguration.getCacheStatementsSize()));
 
         if (configuration.isXrayEnabled()) {
             properties.put("eclipselink.session.customizer", "uk.gov.pay.connector.util.ConnectorSessionCustomiserWithXrayProfiling");
@@ -100,10 +146,7 @@ public class ConnectorModule extends AbstractModule {
             properties.put("eclipselink.session.customizer", "uk.gov.pay.connector.util.ConnectorSessionCustomiser");
         }
 
-        final JpaPersistModule jpaModule = new JpaPersistModule("ConnectorUnit");
-        jpaModule.properties(properties);
-
-        return jpaModule;
+        return properties;
     }
 
     @Provides
@@ -9,6 +9,10 @@ public class JPAConfiguration extends Configuration {
     private String ddlGenerationOutputMode;
     private String queryResultsCache;
     private String cacheSharedDefault;
+    private String batchWriting = "JDBC";
+    private int batchWritingSize = 100;
+    private boolean cacheStatements = true;
+    private int cacheStatementsSize = 100;
 
     public String getJpaLoggingLevel() {
         return jpaLoggingLevel;
@@ -29,4 +33,20 @@ public class JPAConfiguration extends Configuration {
     public String getCacheSharedDefault() {
         return cacheSharedDefault;
     }
+
+    public String getBatchWriting() {
+        return batchWriting;
+    }
+
+    public int getBatchWritingSize() {
+        return batchWritingSize;
+    }
+
+    public boolean getCacheStatements() {
+        return cacheStatements;
+    }
+
+    public int getCacheStatementsSize() {
+        return cacheStatementsSize;
+    }
 }
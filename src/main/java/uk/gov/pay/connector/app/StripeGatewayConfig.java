@@ -22,6 +22,10 @@ public class StripeGatewayConfig extends Configuration {
     @Valid
     @NotNull
     private List<String> webhookSigningSecrets;
+
+    @Valid
+    @NotNull
+    private List<String> connectWebhookSigningSecrets = List.of();
     
     @Valid
     private Double feePercentage;
@@ -54,6 +58,18 @@ public class StripeGatewayConfig extends Configuration {
     @Valid
     private Instant rechargeServicesForTestPaymentDisputesFromDate;
 
+    @Min(1)
+    private int authorisationThreads = 8;
+
+    @Min(1)
+    private int feeCollectionThreads = 4;
+
+    @Min(1)
+    private int maximumConcurrentFeeTransfersPerAccount = 2;
+
+    @Min(1)
+    private int disputeLedgerLookupThreads = 4;
+
     public String getUrl() {
         return url;
     }
@@ -66,6 +82,10 @@ public class StripeGatewayConfig extends Configuration {
         return webhookSigningSecrets.stream().filter(s -> !s.isBlank()).collect(Collectors.toList());
     }
 
+    public List<String> getConnectWebhookSigningSecrets() {
+        return connectWebhookSigningSecrets.stream().filter(s -> !s.isBlank()).collect(Collectors.toList());
+    }
+
     public Boolean isCollectFee() {
         return collectFee;
     }
@@ -78,6 +98,22 @@ public class StripeGatewayConfig extends Configuration {
         return notification3dsWaitDelay;
     }
 
+    public int getAuthorisationThreads() {
+        return authorisationThreads;
+    }
+
+    public int getFeeCollectionThreads() {
+        return feeCollectionThreads;
+    }
+
+    public int getMaximumConcurrentFeeTransfersPerAccount() {
+        return maximumConcurrentFeeTransfersPerAccount;
+    }
+
+    public int getDisputeLedgerLookupThreads() {
+        return disputeLedgerLookupThreads;
+    }
+
     public List<String> getAllowedCidrs() {
         return allowedCidrs;
     }
@@ -0,0 +1,49 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.Min;
+
+public class DatabaseBulkheadConfig {
+
+    @Min(1)
+    private int expirySweepMaxConnections;
+    @Min(1)
+    private int expungeMaxConnections;
+    @Min(1)
+    private int parityCheckMaxConnections;
+    @Min(1)
+    private int historicalEventEmissionMaxConnections;
+    @Min(1)
+    private int emittedEventSweepMaxConnections;
+    @Min(1)
+    private int totalMaxConnections;
+    @Min(1)
+    private int maxWaitForConnectionInSeconds;
+
+    public int getExpirySweepMaxConnections() {
+        return expirySweepMaxConnections;
+    }
+
+    public int getExpungeMaxConnections() {
+        return expungeMaxConnections;
+    }
+
+    public int getParityCheckMaxConnections() {
+        return parityCheckMaxConnections;
+    }
+
+    public int getHistoricalEventEmissionMaxConnections() {
+        return historicalEventEmissionMaxConnections;
+    }
+
+    public int getEmittedEventSweepMaxConnections() {
+        return emittedEventSweepMaxConnections;
+    }
+
+    public int getTotalMaxConnections() {
+        return totalMaxConnections;
+    }
+
+    public int getMaxWaitForConnectionInSeconds() {
+        return maxWaitForConnectionInSeconds;
+    }
+}
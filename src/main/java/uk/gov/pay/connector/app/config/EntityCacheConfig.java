@@ -0,0 +1,26 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class EntityCacheConfig {
+
+    @NotNull
+    private Boolean entityCacheEnabled;
+    @Min(1)
+    private int expiryInSeconds;
+    @Min(1)
+    private int listenerReconnectDelayInSeconds;
+
+    public Boolean getEntityCacheEnabled() {
+        return entityCacheEnabled;
+    }
+
+    public int getExpiryInSeconds() {
+        return expiryInSeconds;
+    }
+
+    public int getListenerReconnectDelayInSeconds() {
+        return listenerReconnectDelayInSeconds;
+    }
+}
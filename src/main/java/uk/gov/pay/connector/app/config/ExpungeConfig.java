@@ -8,6 +8,10 @@ import javax.validation.constraints.NotNull;
 
 public class ExpungeConfig extends Configuration {
 
+    static final int DEFAULT_MINIMUM_AGE_OF_PROCESSED_STRIPE_NOTIFICATION_IN_DAYS = 14;
+    static final int DEFAULT_MINIMUM_AGE_OF_RECURRING_AUTHORISATION_BATCH_IN_DAYS = 30;
+    static final int DEFAULT_MINIMUM_AGE_OF_PROCESSED_INBOX_NOTIFICATION_IN_DAYS = 14;
+
     @Valid
     @NotNull
     private int minimumAgeOfChargeInDays;
@@ -30,6 +34,36 @@ public class ExpungeConfig extends Configuration {
     @Min(1)
     private int numberOfRefundsToExpunge;
 
+    @Valid
+    @NotNull
+    @Min(1)
+    private int chargesExpungeBatchSize;
+
+    @Valid
+    @NotNull
+    @Min(1)
+    private int expungeLockTimeoutInMillis;
+
+    @Valid
+    @NotNull
+    @Min(1)
+    private int refundsExpungeBatchSize;
+
+    @Valid
+    @NotNull
+    @Min(1)
+    private int expungeClaimDurationInMinutes;
+
+    @Valid
+    @NotNull
+    @Min(1)
+    private int partitionsCreatedAheadInMonths;
+
+    @Valid
+    @NotNull
+    @Min(1)
+    private int partitionMaintenanceIntervalInMinutes;
+
     @Valid
     @NotNull
     @Min(0)
@@ -43,6 +77,18 @@ public class ExpungeConfig extends Configuration {
     @NotNull
     private int minimumAgeOfRefundInDays;
 
+    @Valid
+    @Min(1)
+    private int minimumAgeOfProcessedStripeNotificationInDays = DEFAULT_MINIMUM_AGE_OF_PROCESSED_STRIPE_NOTIFICATION_IN_DAYS;
+
+    @Valid
+    @Min(1)
+    private int minimumAgeOfRecurringAuthorisationBatchInDays = DEFAULT_MINIMUM_AGE_OF_RECURRING_AUTHORISATION_BATCH_IN_DAYS;
+
+    @Valid
+    @Min(1)
+    private int minimumAgeOfProcessedInboxNotificationInDays = DEFAULT_MINIMUM_AGE_OF_PROCESSED_INBOX_NOTIFICATION_IN_DAYS;
+
     public int getMinimumAgeOfChargeInDays() {
         return minimumAgeOfChargeInDays;
     }
@@ -55,6 +101,30 @@ public class ExpungeConfig extends Configuration {
         return numberOfRefundsToExpunge;
     }
 
+    public int getChargesExpungeBatchSize() {
+        return chargesExpungeBatchSize;
+    }
+
+    public int getExpungeLockTimeoutInMillis() {
+        return expungeLockTimeoutInMillis;
+    }
+
+    public int getRefundsExpungeBatchSize() {
+        return refundsExpungeBatchSize;
+    }
+
+    public int getExpungeClaimDurationInMinutes() {
+        return expungeClaimDurationInMinutes;
+    }
+
+    public int getPartitionsCreatedAheadInMonths() {
+        return partitionsCreatedAheadInMonths;
+    }
+
+    public int getPartitionMaintenanceIntervalInMinutes() {
+        return partitionMaintenanceIntervalInMinutes;
+    }
+
     public int getExcludeChargesOrRefundsParityCheckedWithInDays() {
         return excludeChargesOrRefundsParityCheckedWithInDays;
     }
@@ -78,4 +148,16 @@ public class ExpungeConfig extends Configuration {
     public int getMinimumAgeOfRefundInDays() {
         return minimumAgeOfRefundInDays;
     }
+
+    public int getMinimumAgeOfProcessedStripeNotificationInDays() {
+        return minimumAgeOfProcessedStripeNotificationInDays;
+    }
+
+    public int getMinimumAgeOfRecurringAuthorisationBatchInDays() {
+        return minimumAgeOfRecurringAuthorisationBatchInDays;
+    }
+
+    public int getMinimumAgeOfProcessedInboxNotificationInDays() {
+        return minimumAgeOfProcessedInboxNotificationInDays;
+    }
 }
@@ -0,0 +1,50 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+public class NotificationInboxConfig {
+
+    @NotNull
+    private Boolean notificationInboxEnabled;
+    @Min(1)
+    private int numberOfWorkerThreads;
+    @Min(1)
+    private int pollDelayInMilliseconds;
+    @Min(1)
+    private int batchSize;
+    @Min(1)
+    private int claimTimeoutInSeconds;
+    @Min(1)
+    private int maximumAttempts;
+    @Min(1)
+    private int retryDelayInSeconds;
+
+    public Boolean getNotificationInboxEnabled() {
+        return notificationInboxEnabled;
+    }
+
+    public int getNumberOfWorkerThreads() {
+        return numberOfWorkerThreads;
+    }
+
+    public int getPollDelayInMilliseconds() {
+        return pollDelayInMilliseconds;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getClaimTimeoutInSeconds() {
+        return claimTimeoutInSeconds;
+    }
+
+    public int getMaximumAttempts() {
+        return maximumAttempts;
+    }
+
+    public int getRetryDelayInSeconds() {
+        return retryDelayInSeconds;
+    }
+}
@@ -13,6 +13,10 @@ public class PayoutReconcileProcessConfig {
     private int queueSchedulerThreadDelayInSeconds;
     @Min(1)
     private int queueSchedulerNumberOfThreads;
+    @Min(1)
+    private int payoutProcessingThreads;
+    @Min(1)
+    private int balanceTransactionsPerCheckpoint;
 
     public Boolean getPayoutReconcileQueueEnabled() {
         return payoutReconcileQueueEnabled;
@@ -29,4 +33,12 @@ public class PayoutReconcileProcessConfig {
     public int getQueueSchedulerNumberOfThreads() {
         return queueSchedulerNumberOfThreads;
     }
+
+    public int getPayoutProcessingThreads() {
+        return payoutProcessingThreads;
+    }
+
+    public int getBalanceTransactionsPerCheckpoint() {
+        return balanceTransactionsPerCheckpoint;
+    }
 }
@@ -0,0 +1,26 @@
+package uk.gov.pay.connector.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.db.DataSourceFactory;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+public class ReadReplicaConfig {
+
+    @NotNull
+    private Boolean readReplicaEnabled;
+
+    @Valid
+    @NotNull
+    @JsonProperty("database")
+    private DataSourceFactory dataSourceFactory;
+
+    public Boolean getReadReplicaEnabled() {
+        return readReplicaEnabled;
+    }
+
+    public DataSourceFactory getDataSourceFactory() {
+        return dataSourceFactory;
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import java.util.Map;
+import java.util.Optional;
+
+public class RecurringAuthorisationConfig {
+
+    @Min(1)
+    private int maximumConcurrentAuthorisationsPerGatewayAccount;
+    @Valid
+    private Map<String, RecurringAuthorisationProviderConfig> paymentProviders = Map.of();
+
+    public int getMaximumConcurrentAuthorisationsPerGatewayAccount() {
+        return maximumConcurrentAuthorisationsPerGatewayAccount;
+    }
+
+    public Map<String, RecurringAuthorisationProviderConfig> getPaymentProviders() {
+        return paymentProviders;
+    }
+
+    /**
+     * @return the limits for the payment provider, or empty if recurring authorisations for it are not limited beyond
+     * the per gateway account limit
+     */
+    public Optional<RecurringAuthorisationProviderConfig> getPaymentProviderConfig(String paymentProvider) {
+        return Optional.ofNullable(paymentProviders.get(paymentProvider));
+    }
+}
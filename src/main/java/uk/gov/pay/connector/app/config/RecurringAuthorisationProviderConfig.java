@@ -0,0 +1,20 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+
+public class RecurringAuthorisationProviderConfig {
+
+    @Min(1)
+    private int maximumConcurrentAuthorisations;
+    @DecimalMin("0.1")
+    private double authorisationsPerSecond;
+
+    public int getMaximumConcurrentAuthorisations() {
+        return maximumConcurrentAuthorisations;
+    }
+
+    public double getAuthorisationsPerSecond() {
+        return authorisationsPerSecond;
+    }
+}
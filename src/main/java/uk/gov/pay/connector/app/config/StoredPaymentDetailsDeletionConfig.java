@@ -0,0 +1,42 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import java.time.Duration;
+import java.util.Map;
+
+public class StoredPaymentDetailsDeletionConfig {
+
+    static final double DEFAULT_DELETIONS_PER_SECOND = 10;
+    static final int DEFAULT_ABANDONED_JOB_TIMEOUT_IN_MINUTES = 15;
+
+    @Min(1)
+    private int batchSize;
+    @Min(1)
+    private int maximumConcurrentDeletions;
+    private Map<String, @DecimalMin("0.1") Double> deletionsPerSecond = Map.of();
+    @Min(1)
+    private int abandonedJobTimeoutInMinutes = DEFAULT_ABANDONED_JOB_TIMEOUT_IN_MINUTES;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaximumConcurrentDeletions() {
+        return maximumConcurrentDeletions;
+    }
+
+    /**
+     * @return the rate at which stored payment details may be deleted with the payment provider by a bulk deletion
+     */
+    public double getDeletionsPerSecond(String paymentProvider) {
+        return deletionsPerSecond.getOrDefault(paymentProvider, DEFAULT_DELETIONS_PER_SECOND);
+    }
+
+    /**
+     * @return how long a running job may go without recording progress before another job may be started in its place
+     */
+    public Duration getAbandonedJobTimeout() {
+        return Duration.ofMinutes(abandonedJobTimeoutInMinutes);
+    }
+}
@@ -1,6 +1,11 @@
 package uk.gov.pay.connector.app.config;
 
 import io.dropwizard.Configuration;
+import uk.gov.pay.connector.queue.tasks.TaskType;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import java.util.Map;
 
 public class TaskQueueConfig extends Configuration {
 
@@ -10,6 +15,12 @@ public class TaskQueueConfig extends Configuration {
     private int failedMessageRetryDelayInSeconds;
     private int queueSchedulerShutdownTimeoutInSeconds;
     private int deliveryDelayInSeconds;
+    @Min(1)
+    private int visibilityTimeoutExtensionInSeconds = 60;
+    @Min(1)
+    private int busyTaskTypeRetryDelayInSeconds = 5;
+    @Valid
+    private Map<String, TaskTypeConfig> taskTypes = Map.of();
 
     public Boolean getTaskQueueEnabled() {
         return taskQueueEnabled;
@@ -34,4 +45,23 @@ public class TaskQueueConfig extends Configuration {
     public int getDeliveryDelayInSeconds() {
         return deliveryDelayInSeconds;
     }
+
+    /**
+     * How long a message being processed is kept hidden from other consumers each time its visibility timeout is
+     * extended. Extensions are made every half of this period until the task finishes.
+     */
+    public int getVisibilityTimeoutExtensionInSeconds() {
+        return visibilityTimeoutExtensionInSeconds;
+    }
+
+    /**
+     * How long a message is hidden for when every worker for its task type is busy.
+     */
+    public int getBusyTaskTypeRetryDelayInSeconds() {
+        return busyTaskTypeRetryDelayInSeconds;
+    }
+
+    public TaskTypeConfig getTaskTypeConfig(TaskType taskType) {
+        return taskTypes.getOrDefault(taskType.getName(), TaskTypeConfig.DEFAULT);
+    }
 }
@@ -0,0 +1,27 @@
+package uk.gov.pay.connector.app.config;
+
+import javax.validation.constraints.Min;
+
+/**
+ * How messages of one task type are consumed from the task queue. Task types without an entry get one worker and
+ * priority zero.
+ */
+public class TaskTypeConfig {
+
+    static final TaskTypeConfig DEFAULT = new TaskTypeConfig();
+
+    @Min(1)
+    private int threads = 1;
+    private int priority = 0;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Messages of task types with a higher priority are dispatched first from each batch received from the queue.
+     */
+    public int getPriority() {
+        return priority;
+    }
+}
@@ -7,6 +7,8 @@ import uk.gov.pay.connector.common.dao.JpaDao;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +25,20 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
         return super.findById(CardTypeEntity.class, id);
     }
 
+    public List<CardTypeEntity> findByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String query = "SELECT ct FROM CardTypeEntity ct " +
+                "WHERE ct.id IN :ids";
+
+        return entityManager.get()
+                .createQuery(query, CardTypeEntity.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<CardTypeEntity> findAll() {
         String query = "SELECT ct FROM CardTypeEntity ct";
 
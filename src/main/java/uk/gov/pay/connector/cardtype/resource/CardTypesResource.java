@@ -4,7 +4,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
@@ -18,11 +18,11 @@ import static uk.gov.pay.connector.util.ResponseUtil.successResponseWithEntity;
 @Path("/")
 public class CardTypesResource {
 
-    private final CardTypeDao cardTypeDao;
+    private final CardTypeRegistry cardTypeRegistry;
 
     @Inject
-    public CardTypesResource(CardTypeDao cardTypeDao) {
-        this.cardTypeDao = cardTypeDao;
+    public CardTypesResource(CardTypeRegistry cardTypeRegistry) {
+        this.cardTypeRegistry = cardTypeRegistry;
     }
 
     @GET
@@ -36,6 +36,6 @@ public class CardTypesResource {
             }
     )
     public Response getCardTypes() {
-        return successResponseWithEntity(CardTypesResponse.of(cardTypeDao.findAll()));
+        return successResponseWithEntity(CardTypesResponse.of(cardTypeRegistry.findAll()));
     }
 }
@@ -0,0 +1,112 @@
+package uk.gov.pay.connector.cardtype.service;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.model.domain.CardType;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Immutable in-memory view of the card types seeded from card_types.csv. The card types are loaded when the
+ * application starts and only change if {@link #reload()} is called.
+ * <p>
+ * Entities returned here are detached, so they must not be added to JPA relationships. Use {@link CardTypeDao}
+ * to get managed instances when updating the card types accepted by a gateway account.
+ */
+@Singleton
+public class CardTypeRegistry implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CardTypeRegistry.class);
+
+    private final CardTypeDao cardTypeDao;
+    private volatile Snapshot snapshot;
+
+    @Inject
+    public CardTypeRegistry(CardTypeDao cardTypeDao) {
+        this.cardTypeDao = cardTypeDao;
+    }
+
+    @Override
+    public void start() {
+        try {
+            reload();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load card types on startup, they will be loaded when first used [error={}]", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    public void reload() {
+        snapshot = new Snapshot(cardTypeDao.findAll());
+        LOGGER.info("Loaded {} card types", snapshot.all.size());
+    }
+
+    public List<CardTypeEntity> findAll() {
+        return snapshot().all;
+    }
+
+    public Optional<CardTypeEntity> findById(UUID id) {
+        return Optional.ofNullable(snapshot().byId.get(id));
+    }
+
+    public List<CardTypeEntity> findByBrand(String brand) {
+        return snapshot().byBrand.getOrDefault(brand, List.of());
+    }
+
+    public List<CardTypeEntity> findByType(CardType type) {
+        return snapshot().byType.getOrDefault(type, List.of());
+    }
+
+    public List<CardTypeEntity> findAllNon3ds() {
+        return snapshot().non3ds;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final List<CardTypeEntity> all;
+        private final Map<UUID, CardTypeEntity> byId;
+        private final Map<String, List<CardTypeEntity>> byBrand;
+        private final Map<CardType, List<CardTypeEntity>> byType;
+        private final List<CardTypeEntity> non3ds;
+
+        private Snapshot(List<CardTypeEntity> cardTypes) {
+            this.all = List.copyOf(cardTypes);
+            this.byId = all.stream().collect(collectingAndThen(
+                    toMap(CardTypeEntity::getId, Function.identity()), Map::copyOf));
+            this.byBrand = all.stream().collect(collectingAndThen(
+                    groupingBy(CardTypeEntity::getBrand, toUnmodifiableList()), Map::copyOf));
+            this.byType = all.stream().collect(collectingAndThen(
+                    groupingBy(CardTypeEntity::getType, toUnmodifiableList()), Map::copyOf));
+            this.non3ds = all.stream().filter(cardType -> !cardType.isRequires3ds()).collect(toUnmodifiableList());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.pay.connector.cardtype.tasks;
+
+import io.dropwizard.servlets.tasks.Task;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
+
+import javax.inject.Inject;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin task to reload {@link CardTypeRegistry} after the card_types table has been changed, without restarting.
+ * Run with {@code POST /tasks/reload-card-types} on the admin port.
+ */
+public class ReloadCardTypesTask extends Task {
+
+    private final CardTypeRegistry cardTypeRegistry;
+
+    @Inject
+    public ReloadCardTypesTask(CardTypeRegistry cardTypeRegistry) {
+        super("reload-card-types");
+        this.cardTypeRegistry = cardTypeRegistry;
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        cardTypeRegistry.reload();
+        output.println("Reloaded " + cardTypeRegistry.findAll().size() + " card types");
+    }
+}
@@ -2,10 +2,15 @@ package uk.gov.pay.connector.charge.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
+import uk.gov.pay.connector.common.model.domain.UTCDateTimeConverter;
 import uk.gov.pay.connector.events.model.ResourceType;
 import uk.gov.service.payments.commons.model.AuthorisationMode;
 
@@ -18,12 +23,15 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED_RETRY;
@@ -43,6 +51,28 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                     "    ce.updated >= :cutoffDate " +
                     ") ";
 
+    private static final String EXPUNGE_CHARGES_QUERY =
+            "WITH expunged_charges AS (SELECT id, external_id FROM charges WHERE id = ANY(?1)), " +
+                    "deleted_charge_events AS (DELETE FROM charge_events WHERE charge_id IN (SELECT id FROM expunged_charges)), " +
+                    "deleted_tokens AS (DELETE FROM tokens WHERE charge_id IN (SELECT id FROM expunged_charges)), " +
+                    "deleted_emitted_events AS (DELETE FROM emitted_events WHERE resource_type = ?2 " +
+                    "    AND resource_external_id IN (SELECT external_id FROM expunged_charges)), " +
+                    "deleted_fees AS (DELETE FROM fees WHERE charge_id IN (SELECT id FROM expunged_charges)) " +
+                    "DELETE FROM charges WHERE id IN (SELECT id FROM expunged_charges)";
+
+    private static final String CLAIM_CHARGES_TO_EXPUNGE_QUERY =
+            "UPDATE charges SET expunge_claimed_until = now() + ?1 * interval '1 second' " +
+                    "WHERE id IN (" +
+                    "  SELECT id FROM charges " +
+                    "  WHERE (parity_check_date IS NULL OR parity_check_date < ?2) " +
+                    "    AND created_date < ?3 " +
+                    "    AND (created_date, id) > (?4, ?5) " +
+                    "    AND (expunge_claimed_until IS NULL OR expunge_claimed_until < now()) " +
+                    "  ORDER BY created_date, id " +
+                    "  LIMIT ?6 " +
+                    "  FOR UPDATE SKIP LOCKED" +
+                    ") RETURNING id";
+
     @Inject
     public ChargeDao(final Provider<EntityManager> entityManager) {
         super(entityManager);
@@ -53,12 +83,28 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
     }
 
     public Optional<ChargeEntity> findByExternalId(String externalId) {
+        return findByExternalId(externalId, ChargeFetchPlan.DEFAULT);
+    }
+
+    public Optional<ChargeEntity> findByExternalId(String externalId, ChargeFetchPlan fetchPlan) {
 
         String query = "SELECT c FROM ChargeEntity c " +
                 "WHERE c.externalId = :externalId";
 
+        return fetchPlan.applyTo(entityManager.get()
+                        .createQuery(query, ChargeEntity.class))
+                .setParameter("externalId", externalId)
+                .getResultList().stream().findFirst();
+    }
+
+    public Optional<ChargeLoggingContext> findLoggingContextByExternalId(String externalId) {
+        String query = "SELECT new uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext(" +
+                "c.externalId, c.paymentProvider, c.authorisationMode, a.externalId, g.id, g.type) " +
+                "FROM ChargeEntity c JOIN c.gatewayAccount g LEFT JOIN c.agreementEntity a " +
+                "WHERE c.externalId = :externalId";
+
         return entityManager.get()
-                .createQuery(query, ChargeEntity.class)
+                .createQuery(query, ChargeLoggingContext.class)
                 .setParameter("externalId", externalId)
                 .getResultList().stream().findFirst();
     }
@@ -99,13 +145,18 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
     }
 
     public Optional<ChargeEntity> findByExternalIdAndGatewayAccount(String chargeExternalId, Long accountId) {
+        return findByExternalIdAndGatewayAccount(chargeExternalId, accountId, ChargeFetchPlan.DEFAULT);
+    }
+
+    public Optional<ChargeEntity> findByExternalIdAndGatewayAccount(String chargeExternalId, Long accountId,
+                                                                    ChargeFetchPlan fetchPlan) {
 
         String query = "SELECT c FROM ChargeEntity c " +
                 "WHERE c.externalId = :externalId " +
                 "AND c.gatewayAccount.id = :accountId";
 
-        return entityManager.get()
-                .createQuery(query, ChargeEntity.class)
+        return fetchPlan.applyTo(entityManager.get()
+                        .createQuery(query, ChargeEntity.class))
                 .setParameter("externalId", chargeExternalId)
                 .setParameter("accountId", accountId)
                 .getResultList().stream().findFirst();
@@ -132,9 +183,9 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         cq.select(charge)
                 .where(predicates.toArray(new Predicate[]{}))
                 .orderBy(cb.desc(charge.get(CREATED_DATE)));
-        Query query = entityManager.get().createQuery(cq);
+        Query query = ChargeFetchPlan.EXPIRY.applyTo(entityManager.get().createQuery(cq));
 
-        return query.getResultList();
+        return withInlinedParameters(query).getResultList();
     }
 
     public List<ChargeEntity> findChargesByCreatedUpdatedDatesAndWithStatusIn(Instant createdBeforeDate,
@@ -156,9 +207,9 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         cq.select(charge)
                 .where(predicates.toArray(new Predicate[]{}))
                 .orderBy(cb.desc(charge.get(CREATED_DATE)));
-        Query query = entityManager.get().createQuery(cq);
+        Query query = ChargeFetchPlan.EXPIRY.applyTo(entityManager.get().createQuery(cq));
 
-        return query.getResultList();
+        return withInlinedParameters(query).getResultList();
     }
 
     private List<Predicate> buildParamPredicates(CriteriaBuilder cb, Root<ChargeEntity> charge,
@@ -182,8 +233,7 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                 .minus(notAttemptedWithin)
                 .withZoneSameInstant(ZoneId.of("UTC"));
 
-        var count = (Number) entityManager.get()
-                .createQuery(query)
+        var count = (Number) withInlinedParameters(entityManager.get().createQuery(query))
                 .setParameter("captureApprovedStatus", CAPTURE_APPROVED.getValue())
                 .setParameter("captureApprovedRetryStatus", CAPTURE_APPROVED_RETRY.getValue())
                 .setParameter("eventStatus", CAPTURE_APPROVED_RETRY)
@@ -192,6 +242,15 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return count.intValue();
     }
 
+    /**
+     * The expiry and capture scans are served by partial indexes over the charges in non-terminal statuses. Postgres
+     * only uses a partial index when it can prove the query's statuses are covered by the index, which it cannot do
+     * for a generic plan over bound parameters, so these queries are sent with their values inlined.
+     */
+    private static Query withInlinedParameters(Query query) {
+        return query.setHint(QueryHints.BIND_PARAMETERS, HintValues.FALSE);
+    }
+
     public int countCaptureRetriesForChargeExternalId(String externalId) {
         String query = "SELECT count(ce) FROM ChargeEventEntity ce WHERE " +
                 "    ce.chargeEntity.externalId = :externalId AND " +
@@ -243,53 +302,58 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                 .getResultList();
     }
 
-    public Optional<ChargeEntity> findChargeToExpunge(int minimumAgeOfChargeInDays,
-                                                      int excludeChargesParityCheckedWithInDays) {
-        String query = "SELECT c FROM ChargeEntity c " +
-                "WHERE (c.parityCheckDate is null or c.parityCheckDate < :parityCheckedBeforeDate)" +
-                " AND c.createdDate < :createdBeforeDate " +
-                " ORDER BY c.createdDate asc";
-
-        ZonedDateTime parityCheckedBeforeDate = ZonedDateTime.now()
-                .minus(Duration.ofDays(excludeChargesParityCheckedWithInDays))
-                .withZoneSameInstant(ZoneId.of("UTC"));
-
+    /**
+     * Claims the next charges old enough to expunge, in {@code (created_date, id)} order after the cursor. Rows another
+     * expunger has locked are skipped, and claimed rows are hidden from other expungers until the claim expires, so
+     * concurrent expungers work through different charges.
+     */
+    public List<ChargeEntity> claimChargesToExpunge(int minimumAgeOfChargeInDays,
+                                                    int excludeChargesParityCheckedWithInDays,
+                                                    KeysetCursor after,
+                                                    int maximumNumberOfCharges,
+                                                    Duration claimDuration) {
+        ZonedDateTime parityCheckedBeforeDate = ZonedDateTime.now(ZoneOffset.UTC)
+                .minus(Duration.ofDays(excludeChargesParityCheckedWithInDays));
         Instant createdBeforeDate = Instant.now().minus(Duration.ofDays(minimumAgeOfChargeInDays));
 
-        return entityManager.get()
-                .createQuery(query, ChargeEntity.class)
-                .setParameter("parityCheckedBeforeDate", parityCheckedBeforeDate)
-                .setParameter("createdBeforeDate", createdBeforeDate)
-                .setMaxResults(1)
-                .getResultList().stream().findFirst();
-    }
-
-    public void expungeCharge(Long id, String externalId) {
+        List<?> claimedIds = entityManager.get()
+                .createNativeQuery(CLAIM_CHARGES_TO_EXPUNGE_QUERY)
+                .setParameter(1, claimDuration.toSeconds())
+                .setParameter(2, new UTCDateTimeConverter().convertToDatabaseColumn(parityCheckedBeforeDate))
+                .setParameter(3, LocalDateTime.ofInstant(createdBeforeDate, ZoneOffset.UTC))
+                .setParameter(4, LocalDateTime.ofInstant(after.getCreatedDate(), ZoneOffset.UTC))
+                .setParameter(5, after.getId())
+                .setParameter(6, maximumNumberOfCharges)
+                .getResultList();
 
-        entityManager.get()
-                .createNativeQuery("delete from charge_events where charge_id = ?1")
-                .setParameter(1, id)
-                .executeUpdate();
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
 
-        entityManager.get()
-                .createNativeQuery("delete from tokens where charge_id = ?1")
-                .setParameter(1, id)
-                .executeUpdate();
+        String query = "SELECT c FROM ChargeEntity c " +
+                "WHERE c.id IN :ids " +
+                "ORDER BY c.createdDate, c.id";
 
-        entityManager.get()
-                .createNativeQuery("delete from emitted_events where resource_type = ?1 AND resource_external_id = ?2")
-                .setParameter(1, ResourceType.PAYMENT.getLowercase())
-                .setParameter(2, externalId)
-                .executeUpdate();
+        return ChargeFetchPlan.EXPUNGE.applyTo(entityManager.get()
+                        .createQuery(query, ChargeEntity.class))
+                .setParameter("ids", claimedIds.stream().map(id -> ((Number) id).longValue()).collect(toList()))
+                .getResultList();
+    }
 
+    /**
+     * Deletes the charges and everything that depends on them in a single statement. The lock timeout applies to the
+     * rest of the transaction, so a batch that would wait on rows locked by live traffic fails instead of blocking it.
+     */
+    public int expungeCharges(List<Long> chargeIds, Duration lockTimeout) {
         entityManager.get()
-                .createNativeQuery("delete from fees where charge_id = ?1")
-                .setParameter(1, id)
-                .executeUpdate();
+                .createNativeQuery("SELECT set_config('lock_timeout', ?1, true)")
+                .setParameter(1, lockTimeout.toMillis() + "ms")
+                .getSingleResult();
 
-        entityManager.get()
-                .createNativeQuery("delete from charges where id = ?1")
-                .setParameter(1, id)
+        return entityManager.get()
+                .createNativeQuery(EXPUNGE_CHARGES_QUERY)
+                .setParameter(1, chargeIds.toArray(new Long[0]))
+                .setParameter(2, ResourceType.PAYMENT.getLowercase())
                 .executeUpdate();
     }
 
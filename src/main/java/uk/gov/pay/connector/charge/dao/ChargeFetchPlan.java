@@ -0,0 +1,60 @@
+package uk.gov.pay.connector.charge.dao;
+
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
+
+import javax.persistence.Query;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The associations of a {@link uk.gov.pay.connector.charge.model.domain.ChargeEntity} needed by each use case.
+ * <p>
+ * Without weaving EclipseLink loads single-valued associations eagerly with a statement each, whatever the mapping
+ * says, so the ones a use case needs are left join fetched into the charge query instead. Collections are lazy and
+ * are batch fetched with one IN query per collection, so the number of statements does not grow with the number of
+ * charges returned. Queries must use {@code c} as the charge alias.
+ */
+public enum ChargeFetchPlan {
+
+    DEFAULT(List.of(), List.of()),
+    FRONTEND_STATUS(withGatewayAccount("gatewayAccountCredentialsEntity", "agreementEntity", "paymentInstrument"),
+            List.of("fees")),
+    API_RESPONSE(withGatewayAccount("gatewayAccountCredentialsEntity", "agreementEntity", "paymentInstrument"),
+            List.of("fees", "events")),
+    CAPTURE(withGatewayAccount("gatewayAccountCredentialsEntity", "agreementEntity"),
+            List.of("fees", "events")),
+    EXPIRY(withGatewayAccount("gatewayAccountCredentialsEntity", "agreementEntity"),
+            List.of()),
+    EXPUNGE(withGatewayAccount(),
+            List.of("fees", "events"));
+
+    private static final String CHARGE_ALIAS = "c.";
+
+    private final List<String> joinFetched;
+    private final List<String> batchFetched;
+
+    ChargeFetchPlan(List<String> joinFetched, List<String> batchFetched) {
+        this.joinFetched = joinFetched;
+        this.batchFetched = batchFetched;
+    }
+
+    public <Q extends Query> Q applyTo(Q query) {
+        joinFetched.forEach(attribute -> query.setHint(QueryHints.LEFT_FETCH, CHARGE_ALIAS + attribute));
+        batchFetched.forEach(attribute -> query.setHint(QueryHints.BATCH, CHARGE_ALIAS + attribute));
+        if (!batchFetched.isEmpty()) {
+            query.setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN);
+        }
+        return query;
+    }
+
+    private static List<String> withGatewayAccount(String... attributes) {
+        return Stream.concat(
+                Stream.of("gatewayAccount",
+                        "gatewayAccount.notificationCredentials",
+                        "gatewayAccount.worldpay3dsFlexCredentialsEntity"),
+                Stream.of(attributes)
+        ).collect(Collectors.toUnmodifiableList());
+    }
+}
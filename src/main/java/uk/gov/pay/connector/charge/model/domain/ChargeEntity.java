@@ -76,7 +76,7 @@ import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER;
 @Table(name = "charges")
 @Access(AccessType.FIELD)
 @SequenceGenerator(name = "charges_charge_id_seq",
-        sequenceName = "charges_charge_id_seq", allocationSize = 1)
+        sequenceName = "charges_charge_id_seq", allocationSize = 50)
 public class ChargeEntity extends AbstractVersionedEntity {
     private static final Logger logger = LoggerFactory.getLogger(ChargeEntity.class);
 
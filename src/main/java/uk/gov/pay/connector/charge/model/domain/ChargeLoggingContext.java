@@ -0,0 +1,52 @@
+package uk.gov.pay.connector.charge.model.domain;
+
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
+import uk.gov.service.payments.commons.model.AuthorisationMode;
+
+import java.util.Optional;
+
+/**
+ * The charge and gateway account fields added to the logging MDC, loaded without the rest of the charge.
+ */
+public class ChargeLoggingContext {
+    private final String externalId;
+    private final String paymentProvider;
+    private final AuthorisationMode authorisationMode;
+    private final String agreementExternalId;
+    private final Long gatewayAccountId;
+    private final GatewayAccountType gatewayAccountType;
+
+    public ChargeLoggingContext(String externalId, String paymentProvider, AuthorisationMode authorisationMode,
+                                String agreementExternalId, Long gatewayAccountId, GatewayAccountType gatewayAccountType) {
+        this.externalId = externalId;
+        this.paymentProvider = paymentProvider;
+        this.authorisationMode = authorisationMode;
+        this.agreementExternalId = agreementExternalId;
+        this.gatewayAccountId = gatewayAccountId;
+        this.gatewayAccountType = gatewayAccountType;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public String getPaymentProvider() {
+        return paymentProvider;
+    }
+
+    public AuthorisationMode getAuthorisationMode() {
+        return authorisationMode;
+    }
+
+    public Optional<String> getAgreementExternalId() {
+        return Optional.ofNullable(agreementExternalId);
+    }
+
+    public Long getGatewayAccountId() {
+        return gatewayAccountId;
+    }
+
+    public GatewayAccountType getGatewayAccountType() {
+        return gatewayAccountType;
+    }
+}
@@ -1,9 +1,13 @@
 package uk.gov.pay.connector.charge.model.domain;
 
-import org.apache.commons.lang3.StringUtils;
 import uk.gov.pay.connector.common.model.Status;
 import uk.gov.pay.connector.common.model.api.ExternalChargeState;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static uk.gov.pay.connector.common.model.api.ExternalChargeState.EXTERNAL_CANCELLED;
 import static uk.gov.pay.connector.common.model.api.ExternalChargeState.EXTERNAL_CAPTURABLE;
 import static uk.gov.pay.connector.common.model.api.ExternalChargeState.EXTERNAL_CREATED;
@@ -65,6 +69,9 @@ public enum ChargeStatus implements Status {
     AUTHORISATION_ERROR_REJECTED("AUTHORISATION ERROR REJECTED", EXTERNAL_ERROR_GATEWAY, true),
     AUTHORISATION_ERROR_CHARGE_MISSING("AUTHORISATION ERROR CHARGE MISSING", EXTERNAL_ERROR_GATEWAY, true);
 
+    private static final Map<String, ChargeStatus> STATUSES_BY_VALUE = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(ChargeStatus::getValue, Function.identity()));
+
     private String value;
     private ExternalChargeState externalStatus;
     private boolean expungeable;
@@ -92,11 +99,10 @@ public enum ChargeStatus implements Status {
     }
 
     public static ChargeStatus fromString(String status) {
-        for (ChargeStatus stat : values()) {
-            if (StringUtils.equals(stat.getValue(), status)) {
-                return stat;
-            }
+        ChargeStatus chargeStatus = status == null ? null : STATUSES_BY_VALUE.get(status);
+        if (chargeStatus == null) {
+            throw new IllegalArgumentException("charge status not recognized: " + status);
         }
-        throw new IllegalArgumentException("charge status not recognized: " + status);
+        return chargeStatus;
     }
 }
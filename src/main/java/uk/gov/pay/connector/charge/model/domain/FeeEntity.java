@@ -25,7 +25,7 @@ import java.time.ZonedDateTime;
 @Table(name = "fees")
 @Access(AccessType.FIELD)
 @SequenceGenerator(name = "charges_charge_id_seq",
-        sequenceName = "charges_charge_id_seq", allocationSize = 1)
+        sequenceName = "charges_charge_id_seq", allocationSize = 50)
 public class FeeEntity {
     
     public FeeEntity() {
@@ -13,9 +13,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.agreement.model.AgreementResponse;
 import uk.gov.pay.connector.agreement.service.AgreementService;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.Worldpay3dsFlexJwtCredentialsException;
 import uk.gov.pay.connector.charge.model.ChargeResponse;
 import uk.gov.pay.connector.charge.model.FrontendChargeResponse;
@@ -63,19 +64,19 @@ public class ChargesFrontendResource {
     private static final Logger logger = LoggerFactory.getLogger(ChargesFrontendResource.class);
     private final ChargeDao chargeDao;
     private final ChargeService chargeService;
-    private final CardTypeDao cardTypeDao;
+    private final CardTypeRegistry cardTypeRegistry;
     private final Worldpay3dsFlexJwtService worldpay3dsFlexJwtService;
     private final AgreementService agreementService;
     private final ExternalTransactionStateFactory externalTransactionStateFactory;
 
     @Inject
-    public ChargesFrontendResource(ChargeDao chargeDao, ChargeService chargeService, CardTypeDao cardTypeDao,
+    public ChargesFrontendResource(ChargeDao chargeDao, ChargeService chargeService, CardTypeRegistry cardTypeRegistry,
                                    Worldpay3dsFlexJwtService worldpay3dsFlexJwtService,
                                    AgreementService agreementService,
                                    ExternalTransactionStateFactory externalTransactionStateFactory) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
-        this.cardTypeDao = cardTypeDao;
+        this.cardTypeRegistry = cardTypeRegistry;
         this.worldpay3dsFlexJwtService = worldpay3dsFlexJwtService;
         this.agreementService = agreementService;
         this.externalTransactionStateFactory = externalTransactionStateFactory;
@@ -95,7 +96,7 @@ public class ChargesFrontendResource {
     public Response getCharge(@Parameter(example = "b02b63b370fd35418ad66b0101", description = "Charge external ID")
                               @PathParam("chargeId") String chargeId, @Context UriInfo uriInfo) {
 
-        return chargeDao.findByExternalId(chargeId)
+        return chargeDao.findByExternalId(chargeId, ChargeFetchPlan.FRONTEND_STATUS)
                 .map(charge -> Response.ok(chargeService.buildChargeResponse(uriInfo, charge)).build())
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
@@ -214,7 +215,7 @@ public class ChargesFrontendResource {
             return Optional.empty();
         }
 
-        return cardTypeDao.findByBrand(cardBrand)
+        return cardTypeRegistry.findByBrand(cardBrand)
                 .stream()
                 .findFirst()
                 .map(CardTypeEntity::getLabel);
@@ -14,6 +14,8 @@ import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.model.domain.ExpirableChargeStatus;
 import uk.gov.pay.connector.charge.model.domain.ExpirableChargeStatus.AuthorisationStage;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
 import uk.gov.pay.connector.common.exception.ConflictRuntimeException;
 import uk.gov.pay.connector.common.exception.IllegalStateRuntimeException;
 import uk.gov.pay.connector.common.exception.InvalidForceStateTransitionException;
@@ -53,6 +55,7 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.EXPIRE_CANCE
 import static uk.gov.pay.connector.charge.model.domain.ExpirableChargeStatus.AuthorisationStage.DURING_AUTHORISATION;
 import static uk.gov.pay.connector.charge.model.domain.ExpirableChargeStatus.AuthorisationStage.POST_AUTHORISATION;
 import static uk.gov.pay.connector.charge.service.StatusFlow.EXPIRE_FLOW;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.EXPIRY_SWEEP;
 import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_ACCOUNT_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER;
@@ -70,6 +73,7 @@ public class ChargeExpiryService {
     private final QueryService queryService;
     private final ChargeSweepConfig chargeSweepConfig;
     private final Clock clock;
+    private final DatabaseBulkhead databaseBulkhead;
 
     @Inject
     public ChargeExpiryService(ChargeDao chargeDao,
@@ -79,7 +83,8 @@ public class ChargeExpiryService {
                                PaymentProviders providers,
                                QueryService queryService,
                                ConnectorConfiguration config,
-                               Clock clock) {
+                               Clock clock,
+                               DatabaseBulkhead databaseBulkhead) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
         this.tokenDao = tokenDao;
@@ -88,6 +93,7 @@ public class ChargeExpiryService {
         this.chargeSweepConfig = config.getChargeSweepConfig();
         this.queryService = queryService;
         this.clock = clock;
+        this.databaseBulkhead = databaseBulkhead;
     }
 
     private enum expiryMethod {
@@ -133,6 +139,12 @@ public class ChargeExpiryService {
     }
 
     public Map<String, Integer> sweepAndExpireChargesAndTokensAndIdempotencyKeys() {
+        try (Permit permit = databaseBulkhead.acquire(EXPIRY_SWEEP)) {
+            return sweepAndExpire();
+        }
+    }
+
+    private Map<String, Integer> sweepAndExpire() {
         List<ChargeEntity> chargesToExpire = new ImmutableList.Builder<ChargeEntity>()
                 .addAll(getChargesToExpireWithRegularExpiryThreshold())
                 .addAll(getChargesToExpireWithDelayedExpiryThreshold())
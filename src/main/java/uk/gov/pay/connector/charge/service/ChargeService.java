@@ -12,9 +12,10 @@ import uk.gov.pay.connector.agreement.model.AgreementResponse;
 import uk.gov.pay.connector.app.CaptureProcessConfig;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.AgreementMissingPaymentInstrumentException;
 import uk.gov.pay.connector.charge.exception.AgreementNotFoundBadRequestException;
 import uk.gov.pay.connector.charge.exception.CardNumberInPaymentLinkReferenceException;
@@ -152,7 +153,7 @@ public class ChargeService {
 
     private final ChargeDao chargeDao;
     private final ChargeEventDao chargeEventDao;
-    private final CardTypeDao cardTypeDao;
+    private final CardTypeRegistry cardTypeRegistry;
     private final TokenDao tokenDao;
     private final AgreementDao agreementDao;
     private final GatewayAccountDao gatewayAccountDao;
@@ -182,7 +183,7 @@ public class ChargeService {
     public ChargeService(TokenDao tokenDao,
                          ChargeDao chargeDao,
                          ChargeEventDao chargeEventDao,
-                         CardTypeDao cardTypeDao,
+                         CardTypeRegistry cardTypeRegistry,
                          AgreementDao agreementDao,
                          GatewayAccountDao gatewayAccountDao,
                          ConnectorConfiguration config,
@@ -203,7 +204,7 @@ public class ChargeService {
         this.tokenDao = tokenDao;
         this.chargeDao = chargeDao;
         this.chargeEventDao = chargeEventDao;
-        this.cardTypeDao = cardTypeDao;
+        this.cardTypeRegistry = cardTypeRegistry;
         this.gatewayAccountDao = gatewayAccountDao;
         this.agreementDao = agreementDao;
         this.linksConfig = config.getLinks();
@@ -455,7 +456,7 @@ public class ChargeService {
     @Transactional
     public Optional<ChargeResponse> findChargeForAccount(String chargeId, Long accountId, UriInfo uriInfo) {
         return chargeDao
-                .findByExternalIdAndGatewayAccount(chargeId, accountId)
+                .findByExternalIdAndGatewayAccount(chargeId, accountId, ChargeFetchPlan.API_RESPONSE)
                 .map(chargeEntity -> populateResponseBuilderWith(aChargeResponseBuilder(), uriInfo, chargeEntity).build());
     }
 
@@ -871,7 +872,8 @@ public class ChargeService {
 
     @Transactional
     public ChargeEntity lockChargeForProcessing(String chargeId, OperationType operationType) {
-        return chargeDao.findByExternalId(chargeId).map(chargeEntity -> {
+        ChargeFetchPlan fetchPlan = operationType == OperationType.CAPTURE ? ChargeFetchPlan.CAPTURE : ChargeFetchPlan.DEFAULT;
+        return chargeDao.findByExternalId(chargeId, fetchPlan).map(chargeEntity -> {
             try {
 
                 GatewayAccountEntity gatewayAccount = chargeEntity.getGatewayAccount();
@@ -998,7 +1000,7 @@ public class ChargeService {
             return Optional.empty();
         }
 
-        return cardTypeDao.findByBrand(cardBrand)
+        return cardTypeRegistry.findByBrand(cardBrand)
                 .stream()
                 .findFirst()
                 .map(CardTypeEntity::getLabel);
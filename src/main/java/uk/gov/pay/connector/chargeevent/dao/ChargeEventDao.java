@@ -10,7 +10,9 @@ import uk.gov.pay.connector.common.dao.JpaDao;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 import static uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity.ChargeEventEntityBuilder.aChargeEventEntity;
 
@@ -34,6 +36,24 @@ public class ChargeEventDao extends JpaDao<ChargeEventEntity> {
         return chargeEventEntity;
     }
 
+    /**
+     * Finds a charge event by id when it is known roughly when the event was written. charge_events is partitioned by
+     * month on updated, so bounding updated lets Postgres look in one partition instead of probing each of them.
+     */
+    public Optional<ChargeEventEntity> findByIdUpdatedAround(Long id, ZonedDateTime updated) {
+        String query = "SELECT ce FROM ChargeEventEntity ce " +
+                "WHERE ce.id = :id AND ce.updated >= :updatedFrom AND ce.updated <= :updatedTo";
+
+        return entityManager.get()
+                .createQuery(query, ChargeEventEntity.class)
+                .setParameter("id", id)
+                .setParameter("updatedFrom", updated.minus(1, ChronoUnit.SECONDS))
+                .setParameter("updatedTo", updated.plus(1, ChronoUnit.SECONDS))
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
     public List<ChargeEventEntity> findChargeEvents(ZonedDateTime startDate, ZonedDateTime endDate, int page, int size) {
         String query = "SELECT ce FROM ChargeEventEntity ce " +
                 "WHERE ce.updated >= :startDate and ce.updated <= :endDate" +
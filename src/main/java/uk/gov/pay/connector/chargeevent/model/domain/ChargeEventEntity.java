@@ -23,7 +23,7 @@ import java.util.Optional;
 @Entity
 @Table(name = "charge_events")
 @SequenceGenerator(name = "charge_events_id_seq",
-        sequenceName = "charge_events_id_seq", allocationSize = 1)
+        sequenceName = "charge_events_id_seq", allocationSize = 50)
 public class ChargeEventEntity extends AbstractVersionedEntity {
 
     @Id
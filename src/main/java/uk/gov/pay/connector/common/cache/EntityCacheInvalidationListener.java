@@ -0,0 +1,179 @@
+package uk.gov.pay.connector.common.cache;
+
+import com.codahale.metrics.Counter;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.server.Server;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EntityCacheConfig;
+import uk.gov.pay.connector.common.cache.SharedEntityCache.CachedTable;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.pay.connector.common.cache.SharedEntityCache.CACHED_ENTITIES;
+import static uk.gov.pay.connector.common.cache.SharedEntityCache.CACHED_ENTITIES_BY_TABLE;
+import static uk.gov.pay.connector.common.cache.SharedEntityCache.INVALIDATION_CHANNEL;
+
+/**
+ * Listens for notifications sent by the entity cache invalidation triggers and evicts the changed entities from the
+ * shared cache. Cached entities also expire after {@link EntityCacheConfig#getExpiryInSeconds()}, which bounds how
+ * long an instance can serve a stale entity if it misses a notification. Everything is evicted whenever the listener
+ * (re)connects, because notifications sent while it was not listening are lost.
+ */
+public class EntityCacheInvalidationListener implements Managed {
+
+    private static final String ENTITY_CACHE_INVALIDATION_LISTENER_THREAD_NAME = "entity-cache-invalidation-listener-%d";
+    private static final int POLL_TIMEOUT_IN_MILLISECONDS = 1000;
+    private static final int SHUTDOWN_TIMEOUT_IN_SECONDS = 5;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityCacheInvalidationListener.class);
+
+    private final Provider<EntityManagerFactory> entityManagerFactory;
+    private final EntityCacheConfig entityCacheConfig;
+    private final DataSourceFactory dataSourceFactory;
+    private final ExecutorService listenerExecutorService;
+    private final Counter invalidationsCounter;
+    private volatile boolean running;
+
+    @Inject
+    public EntityCacheInvalidationListener(Provider<EntityManagerFactory> entityManagerFactory, Environment environment,
+                                           ConnectorConfiguration connectorConfiguration) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityCacheConfig = connectorConfiguration.getEntityCacheConfig();
+        this.dataSourceFactory = connectorConfiguration.getDataSourceFactory();
+        this.invalidationsCounter = environment.metrics().counter("entity-cache.invalidations");
+
+        listenerExecutorService = environment
+                .lifecycle()
+                .executorService(ENTITY_CACHE_INVALIDATION_LISTENER_THREAD_NAME)
+                .minThreads(1)
+                .maxThreads(1)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        if (entityCacheConfig.getEntityCacheEnabled()) {
+            setExpiry();
+            running = true;
+            listenerExecutorService.submit(this::listen);
+        }
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Shutting down entity cache invalidation listener");
+        running = false;
+        listenerExecutorService.shutdown();
+        try {
+            if (!listenerExecutorService.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                listenerExecutorService.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            listenerExecutorService.shutdownNow();
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Evicts the entity identified by a notification in the form {@code <table>:<id>}. A notification that only names
+     * a table, or whose id cannot be parsed, evicts every entity of that class.
+     */
+    void evict(String notification) {
+        int separator = notification.indexOf(':');
+        String tableName = separator < 0 ? notification : notification.substring(0, separator);
+        String primaryKey = separator < 0 ? null : notification.substring(separator + 1);
+
+        CachedTable cachedTable = CACHED_ENTITIES_BY_TABLE.get(tableName);
+        if (cachedTable == null) {
+            LOGGER.warn("Received entity cache invalidation for unknown table [table={}]", tableName);
+            return;
+        }
+
+        Class<?> entityClass = cachedTable.getEntityClass();
+        Optional<Object> parsedPrimaryKey = parsePrimaryKey(cachedTable, primaryKey);
+        parsedPrimaryKey.ifPresentOrElse(
+                id -> entityManagerFactory.get().getCache().evict(entityClass, id),
+                () -> entityManagerFactory.get().getCache().evict(entityClass));
+        invalidationsCounter.inc();
+        LOGGER.debug("Evicted {} [id={}] from the entity cache after a change to {}", entityClass.getSimpleName(),
+                parsedPrimaryKey.map(Object::toString).orElse("all"), tableName);
+    }
+
+    private static Optional<Object> parsePrimaryKey(CachedTable cachedTable, String primaryKey) {
+        if (primaryKey == null || primaryKey.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(cachedTable.parsePrimaryKey(primaryKey));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Received entity cache invalidation with an invalid id [id={}]", primaryKey);
+            return Optional.empty();
+        }
+    }
+
+    void evictAll() {
+        CACHED_ENTITIES.forEach(entityClass -> entityManagerFactory.get().getCache().evict(entityClass));
+    }
+
+    private void setExpiry() {
+        Server server = JpaHelper.getServerSession(entityManagerFactory.get());
+        long expiryInMilliseconds = TimeUnit.SECONDS.toMillis(entityCacheConfig.getExpiryInSeconds());
+        CACHED_ENTITIES.forEach(entityClass -> server.getDescriptor(entityClass)
+                .setCacheInvalidationPolicy(new TimeToLiveCacheInvalidationPolicy(expiryInMilliseconds)));
+    }
+
+    private void listen() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try (Connection connection = DriverManager.getConnection(dataSourceFactory.getUrl(),
+                    dataSourceFactory.getUser(), dataSourceFactory.getPassword());
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + INVALIDATION_CHANNEL);
+                evictAll();
+                LOGGER.info("Listening for entity cache invalidations");
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_IN_MILLISECONDS);
+                    if (notifications != null) {
+                        Arrays.stream(notifications)
+                                .map(PGNotification::getParameter)
+                                .distinct()
+                                .forEach(this::evict);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Entity cache invalidation listener disconnected, evicting cached entities and reconnecting [error={}]",
+                        e.getMessage());
+                evictAll();
+                sleepBeforeReconnecting();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnecting() {
+        try {
+            TimeUnit.SECONDS.sleep(entityCacheConfig.getListenerReconnectDelayInSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package uk.gov.pay.connector.common.cache;
+
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The read-mostly entities held in the EclipseLink shared (second-level) cache when the entity cache is enabled.
+ * Charges and other frequently updated entities are never cached.
+ * <p>
+ * Row-level triggers on the cached tables send a notification on {@link #INVALIDATION_CHANNEL} whenever a row
+ * changes, in the form {@code <table>:<id>}, so every connector instance can evict the affected entity. A change to
+ * a row that belongs to a cached entity held in another table (such as an accepted card type or credentials of a
+ * gateway account) also notifies the owning entity. See {@link EntityCacheInvalidationListener}.
+ */
+public final class SharedEntityCache {
+
+    public static final String INVALIDATION_CHANNEL = "entity_cache_invalidation";
+
+    public static final List<Class<?>> CACHED_ENTITIES = List.of(
+            GatewayAccountEntity.class,
+            GatewayAccountCredentialsEntity.class,
+            CardTypeEntity.class,
+            AgreementEntity.class,
+            PaymentInstrumentEntity.class);
+
+    static final Map<String, CachedTable> CACHED_ENTITIES_BY_TABLE = Map.of(
+            "gateway_accounts", new CachedTable(GatewayAccountEntity.class, Long::valueOf),
+            "gateway_account_credentials", new CachedTable(GatewayAccountCredentialsEntity.class, Long::valueOf),
+            "card_types", new CachedTable(CardTypeEntity.class, UUID::fromString),
+            "agreements", new CachedTable(AgreementEntity.class, Long::valueOf),
+            "payment_instruments", new CachedTable(PaymentInstrumentEntity.class, Long::valueOf));
+
+    private SharedEntityCache() {
+    }
+
+    static final class CachedTable {
+        private final Class<?> entityClass;
+        private final Function<String, Object> primaryKeyParser;
+
+        private CachedTable(Class<?> entityClass, Function<String, Object> primaryKeyParser) {
+            this.entityClass = entityClass;
+            this.primaryKeyParser = primaryKeyParser;
+        }
+
+        Class<?> getEntityClass() {
+            return entityClass;
+        }
+
+        Object parsePrimaryKey(String primaryKey) {
+            return primaryKeyParser.apply(primaryKey);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.google.inject.Inject;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Provider;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs actions once the current transaction has committed, for work that must not see, or be seen before, changes
+ * that could still be rolled back. Actions are dropped if the transaction does not commit, and run straight away when
+ * there is no transaction.
+ */
+public class AfterCommit {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AfterCommit.class);
+    private static final String PENDING_ACTIONS_PROPERTY = AfterCommit.class.getName();
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public AfterCommit(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void run(Runnable action) {
+        EntityManager currentEntityManager = entityManager.get();
+        if (!currentEntityManager.getTransaction().isActive()) {
+            action.run();
+            return;
+        }
+
+        UnitOfWork unitOfWork = currentEntityManager.unwrap(UnitOfWork.class);
+        PendingActions pendingActions = (PendingActions) unitOfWork.getProperty(PENDING_ACTIONS_PROPERTY);
+        if (pendingActions == null) {
+            pendingActions = new PendingActions();
+            unitOfWork.setProperty(PENDING_ACTIONS_PROPERTY, pendingActions);
+            unitOfWork.getEventManager().addListener(pendingActions);
+        }
+        pendingActions.add(action);
+    }
+
+    /**
+     * Stays registered for the life of the unit of work, which can be resumed for further transactions, and only
+     * holds the actions of the transaction in progress.
+     */
+    static class PendingActions extends SessionEventAdapter {
+
+        private final List<Runnable> actions = new ArrayList<>();
+
+        void add(Runnable action) {
+            actions.add(action);
+        }
+
+        @Override
+        public void postCommitUnitOfWork(SessionEvent event) {
+            List<Runnable> committedActions = List.copyOf(actions);
+            actions.clear();
+            committedActions.forEach(PendingActions::runSafely);
+        }
+
+        @Override
+        public void postReleaseUnitOfWork(SessionEvent event) {
+            actions.clear();
+        }
+
+        private static void runSafely(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to run action after commit: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
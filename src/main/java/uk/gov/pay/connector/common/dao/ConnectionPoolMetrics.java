@@ -0,0 +1,43 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.persistence.sessions.server.ConnectionPool;
+import org.eclipse.persistence.sessions.server.Server;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import static java.lang.String.format;
+
+/**
+ * Gauges for the EclipseLink write and read connection pools of a persistence unit, named
+ * {@code database.connection-pools.<persistence unit>.<pool>.<metric>}.
+ */
+public final class ConnectionPoolMetrics {
+
+    private static final Map<String, Function<Server, ConnectionPool>> POOLS = Map.of(
+            "write", Server::getDefaultConnectionPool,
+            "read", Server::getReadConnectionPool);
+
+    private static final Map<String, ToIntFunction<ConnectionPool>> METRICS = Map.of(
+            "total", ConnectionPool::getTotalNumberOfConnections,
+            "available", pool -> pool.getConnectionsAvailable().size(),
+            "in-use", pool -> pool.getTotalNumberOfConnections() - pool.getConnectionsAvailable().size(),
+            "max", ConnectionPool::getMaxNumberOfConnections);
+
+    private ConnectionPoolMetrics() {
+    }
+
+    public static void register(MetricRegistry metricRegistry, String persistenceUnit, Supplier<Optional<Server>> server) {
+        POOLS.forEach((poolName, pool) -> METRICS.forEach((metricName, metric) ->
+                metricRegistry.gauge(format("database.connection-pools.%s.%s.%s", persistenceUnit, poolName, metricName),
+                        () -> (Gauge<Integer>) () -> server.get()
+                                .map(pool)
+                                .map(connectionPool -> metric.applyAsInt(connectionPool))
+                                .orElse(null))));
+    }
+}
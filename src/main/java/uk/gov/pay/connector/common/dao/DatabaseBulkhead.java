@@ -0,0 +1,136 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.DatabaseBulkheadConfig;
+import uk.gov.pay.connector.common.exception.DatabaseBulkheadFullException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Limits how many database connections each background job can hold at once, so a long sweep or backfill cannot use
+ * up the connection pool needed by API requests. A job holds a {@link Permit} for its workload while it uses the
+ * database and waits up to the configured time for one to become free. All background jobs together are also limited
+ * to {@link DatabaseBulkheadConfig#getTotalMaxConnections()}, which must leave part of the pool for API requests.
+ * <p>
+ * A thread which already holds a permit is not limited again, so jobs which call other jobs cannot deadlock on
+ * their own quota.
+ */
+@Singleton
+public class DatabaseBulkhead {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseBulkhead.class);
+    private static final Permit ALREADY_HELD = () -> {};
+
+    private final Map<DatabaseWorkload, Quota> quotas = new EnumMap<>(DatabaseWorkload.class);
+    private final ThreadLocal<Boolean> holdingPermit = ThreadLocal.withInitial(() -> false);
+    private final Semaphore totalPermits;
+    private final long maxWaitForConnectionInNanos;
+
+    @Inject
+    public DatabaseBulkhead(ConnectorConfiguration configuration, Environment environment) {
+        DatabaseBulkheadConfig config = configuration.getDatabaseBulkheadConfig();
+        int poolMaxSize = configuration.getDataSourceFactory().getMaxSize();
+        if (config.getTotalMaxConnections() >= poolMaxSize) {
+            throw new IllegalArgumentException(format("databaseBulkhead.totalMaxConnections (%d) must be less than the " +
+                    "database pool maxSize (%d) to leave connections for API requests", config.getTotalMaxConnections(), poolMaxSize));
+        }
+
+        this.maxWaitForConnectionInNanos = SECONDS.toNanos(config.getMaxWaitForConnectionInSeconds());
+        this.totalPermits = new Semaphore(config.getTotalMaxConnections(), true);
+        environment.metrics().gauge("database.bulkhead.total.available", () -> totalPermits::availablePermits);
+        for (DatabaseWorkload workload : DatabaseWorkload.values()) {
+            quotas.put(workload, new Quota(workload, maxConnectionsFor(workload, config), environment.metrics()));
+        }
+    }
+
+    public Permit acquire(DatabaseWorkload workload) {
+        if (holdingPermit.get()) {
+            return ALREADY_HELD;
+        }
+
+        Quota quota = quotas.get(workload);
+        try (Timer.Context ignored = quota.waitTime.time()) {
+            long deadline = System.nanoTime() + maxWaitForConnectionInNanos;
+            if (!quota.permits.tryAcquire(maxWaitForConnectionInNanos, NANOSECONDS)) {
+                throw reject(workload, quota);
+            }
+            if (!totalPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), NANOSECONDS)) {
+                quota.permits.release();
+                throw reject(workload, quota);
+            }
+        } catch (InterruptedException e) {
+            // The job is being stopped rather than being refused a connection, so this is not counted as a rejection
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(format("Interrupted waiting for a database connection for %s", workload.getMetricName()), e);
+        }
+
+        holdingPermit.set(true);
+        return () -> {
+            holdingPermit.set(false);
+            totalPermits.release();
+            quota.permits.release();
+        };
+    }
+
+    private static DatabaseBulkheadFullException reject(DatabaseWorkload workload, Quota quota) {
+        quota.rejections.inc();
+        LOGGER.warn("Timed out waiting for a database connection for background job [workload={}, max_connections={}]",
+                workload.getMetricName(), quota.maxConnections);
+        return new DatabaseBulkheadFullException(workload.getMetricName());
+    }
+
+    private static int maxConnectionsFor(DatabaseWorkload workload, DatabaseBulkheadConfig config) {
+        switch (workload) {
+            case EXPIRY_SWEEP:
+                return config.getExpirySweepMaxConnections();
+            case EXPUNGE:
+                return config.getExpungeMaxConnections();
+            case PARITY_CHECK:
+                return config.getParityCheckMaxConnections();
+            case HISTORICAL_EVENT_EMISSION:
+                return config.getHistoricalEventEmissionMaxConnections();
+            case EMITTED_EVENT_SWEEP:
+                return config.getEmittedEventSweepMaxConnections();
+            default:
+                throw new IllegalArgumentException("No connection quota configured for " + workload);
+        }
+    }
+
+    /**
+     * Returned to the pool when closed. Must be closed by the thread which acquired it.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Quota {
+        private final int maxConnections;
+        private final Semaphore permits;
+        private final Timer waitTime;
+        private final Counter rejections;
+
+        private Quota(DatabaseWorkload workload, int maxConnections, MetricRegistry metricRegistry) {
+            this.maxConnections = maxConnections;
+            this.permits = new Semaphore(maxConnections, true);
+            String prefix = "database.bulkhead." + workload.getMetricName();
+            this.waitTime = metricRegistry.timer(prefix + ".wait-time");
+            this.rejections = metricRegistry.counter(prefix + ".rejected");
+            metricRegistry.gauge(prefix + ".available", () -> permits::availablePermits);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package uk.gov.pay.connector.common.dao;
+
+/**
+ * Background jobs which are given their own quota of database connections by {@link DatabaseBulkhead}.
+ */
+public enum DatabaseWorkload {
+
+    EXPIRY_SWEEP("expiry-sweep"),
+    EXPUNGE("expunge"),
+    PARITY_CHECK("parity-check"),
+    HISTORICAL_EVENT_EMISSION("historical-event-emission"),
+    EMITTED_EVENT_SWEEP("emitted-event-sweep");
+
+    private final String metricName;
+
+    DatabaseWorkload(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
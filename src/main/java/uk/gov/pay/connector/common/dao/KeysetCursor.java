@@ -0,0 +1,55 @@
+package uk.gov.pay.connector.common.dao;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Position in a scan ordered by {@code (created_date, id)}. Each page starts strictly after the last row of the
+ * previous one, so a long scan never re-reads or re-sorts the rows it has already passed.
+ */
+public final class KeysetCursor {
+
+    private static final KeysetCursor START = new KeysetCursor(Instant.EPOCH, 0L);
+
+    private final Instant createdDate;
+    private final long id;
+
+    private KeysetCursor(Instant createdDate, long id) {
+        this.createdDate = Objects.requireNonNull(createdDate);
+        this.id = id;
+    }
+
+    public static KeysetCursor start() {
+        return START;
+    }
+
+    public static KeysetCursor after(Instant createdDate, long id) {
+        return new KeysetCursor(createdDate, id);
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && createdDate.equals(that.createdDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(createdDate, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{createdDate=" + createdDate + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.codahale.metrics.Counter;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Runs read-only reporting, search and background scan queries on the read replica when one is configured, so they
+ * do not compete with payment operations for connections to the primary. Queries run on the primary when no replica
+ * is configured or when the replica cannot be used.
+ * <p>
+ * Replica results can lag behind the primary and are detached from the caller's entity manager, so they must not be
+ * modified or used to decide what to write.
+ */
+@Singleton
+public class ReadReplica implements Managed {
+
+    public static final String READ_REPLICA = "readReplica";
+    public static final String READ_REPLICA_PERSISTENCE_UNIT = "ConnectorReadReplicaUnit";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadReplica.class);
+
+    private final Provider<EntityManager> primaryEntityManager;
+    private EntityManagerFactory replicaEntityManagerFactory;
+    private Counter fallbacksCounter;
+    private volatile boolean replicaConnected;
+
+    @Inject
+    public ReadReplica(Provider<EntityManager> primaryEntityManager) {
+        this.primaryEntityManager = primaryEntityManager;
+    }
+
+    @Inject(optional = true)
+    void setReplica(@Named(READ_REPLICA) EntityManagerFactory replicaEntityManagerFactory, Environment environment) {
+        this.replicaEntityManagerFactory = replicaEntityManagerFactory;
+        this.fallbacksCounter = environment.metrics().counter("read-replica.fallbacks");
+        ConnectionPoolMetrics.register(environment.metrics(), "read-replica", this::replicaServer);
+    }
+
+    public <T> T read(Function<EntityManager, T> query) {
+        if (replicaEntityManagerFactory == null) {
+            return query.apply(primaryEntityManager.get());
+        }
+
+        try {
+            EntityManager entityManager = replicaEntityManagerFactory.createEntityManager();
+            replicaConnected = true;
+            try {
+                return query.apply(entityManager);
+            } finally {
+                entityManager.close();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Read replica query failed, running it on the primary database instead [error={}]", e.getMessage());
+            fallbacksCounter.inc();
+            return query.apply(primaryEntityManager.get());
+        }
+    }
+
+    public boolean isReplicaConfigured() {
+        return replicaEntityManagerFactory != null;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        if (replicaEntityManagerFactory != null && replicaEntityManagerFactory.isOpen()) {
+            replicaEntityManagerFactory.close();
+        }
+    }
+
+    // The replica only logs in when first used, so do not make metric reporting try to connect to it
+    private Optional<Server> replicaServer() {
+        return replicaConnected ? Optional.of(JpaHelper.getServerSession(replicaEntityManagerFactory)) : Optional.empty();
+    }
+}
@@ -0,0 +1,10 @@
+package uk.gov.pay.connector.common.exception;
+
+import static java.lang.String.format;
+
+public class DatabaseBulkheadFullException extends RuntimeException {
+
+    public DatabaseBulkheadFullException(String workload) {
+        super(format("No database connections available for %s, all background job connections are in use", workload));
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.pay.connector.common.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.common.model.api.ErrorResponse;
+import uk.gov.service.payments.commons.model.ErrorIdentifier;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+public class DatabaseBulkheadFullExceptionMapper implements ExceptionMapper<DatabaseBulkheadFullException> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseBulkheadFullExceptionMapper.class);
+
+    @Override
+    public Response toResponse(DatabaseBulkheadFullException exception) {
+        LOGGER.warn(exception.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(ErrorIdentifier.GENERIC, List.of(exception.getMessage()));
+
+        return Response.status(SERVICE_UNAVAILABLE)
+                .entity(errorResponse)
+                .type(APPLICATION_JSON)
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package uk.gov.pay.connector.common.model.domain;
 
 import com.google.common.graph.ImmutableValueGraph;
 import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraph;
 import com.google.common.graph.ValueGraphBuilder;
 import org.apache.commons.lang3.tuple.Triple;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
@@ -44,6 +45,8 @@ import uk.gov.pay.connector.events.model.charge.UserApprovedForCapture;
 import uk.gov.pay.connector.events.model.charge.UserApprovedForCaptureAwaitingServiceApproval;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -90,26 +93,35 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.USER_CANCEL_
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.USER_CANCEL_READY;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.USER_CANCEL_SUBMITTED;
 
+/**
+ * The charge state machine. Transitions are modelled as a graph, which is also used to render the state diagram.
+ * Lookups used on every state change (valid transitions, next and intermediate statuses) are precomputed from the
+ * graph into {@link EnumMap}s when the class is loaded, so they do not walk the graph.
+ */
 public class PaymentGatewayStateTransitions {
-    private static PaymentGatewayStateTransitions instance;
 
-    private static Map<ChargeStatus, ModelledTypedEvent> eventsForForceUpdatingStatus = Map.of(
+    private static final Map<ChargeStatus, ModelledTypedEvent> eventsForForceUpdatingStatus = Map.of(
             CAPTURED, new ModelledTypedEvent<>(StatusCorrectedToCapturedToMatchGatewayStatus.class),
             AUTHORISATION_REJECTED, new ModelledTypedEvent<>(StatusCorrectedToAuthorisationRejectedToMatchGatewayStatus.class),
             AUTHORISATION_ERROR, new ModelledTypedEvent<>(StatusCorrectedToAuthorisationErrorToMatchGatewayStatus.class)
     );
 
+    private static final PaymentGatewayStateTransitions INSTANCE = new PaymentGatewayStateTransitions();
+
     public static PaymentGatewayStateTransitions getInstance() {
-        if (instance == null) {
-            instance = new PaymentGatewayStateTransitions();
-        }
-        return instance;
+        return INSTANCE;
     }
 
-    private ImmutableValueGraph<ChargeStatus, ModelledEvent> graph;
+    private final ImmutableValueGraph<ChargeStatus, ModelledEvent> graph;
+    private final Map<ChargeStatus, Map<ChargeStatus, ModelledEvent>> transitions;
+    private final Map<ChargeStatus, List<ChargeStatus>> nextStatuses;
+    private final Map<ChargeStatus, Map<ChargeStatus, ChargeStatus>> intermediateStatuses;
 
     private PaymentGatewayStateTransitions() {
         graph = buildGraph();
+        transitions = buildTransitions(graph);
+        nextStatuses = buildNextStatuses(graph);
+        intermediateStatuses = buildIntermediateStatuses(graph);
     }
 
     private static ImmutableValueGraph<ChargeStatus, ModelledEvent> buildGraph() {
@@ -234,6 +246,60 @@ public class PaymentGatewayStateTransitions {
         return ImmutableValueGraph.copyOf(graph);
     }
 
+    private static Map<ChargeStatus, Map<ChargeStatus, ModelledEvent>> buildTransitions(
+            ValueGraph<ChargeStatus, ModelledEvent> graph) {
+        Map<ChargeStatus, Map<ChargeStatus, ModelledEvent>> transitions = new EnumMap<>(ChargeStatus.class);
+        for (ChargeStatus fromStatus : graph.nodes()) {
+            Map<ChargeStatus, ModelledEvent> targets = new EnumMap<>(ChargeStatus.class);
+            graph.successors(fromStatus).forEach(toStatus ->
+                    targets.put(toStatus, graph.edgeValue(fromStatus, toStatus).orElseThrow()));
+            transitions.put(fromStatus, Collections.unmodifiableMap(targets));
+        }
+        return Collections.unmodifiableMap(transitions);
+    }
+
+    private static Map<ChargeStatus, List<ChargeStatus>> buildNextStatuses(ValueGraph<ChargeStatus, ModelledEvent> graph) {
+        Map<ChargeStatus, List<ChargeStatus>> nextStatuses = new EnumMap<>(ChargeStatus.class);
+        graph.nodes().forEach(status -> nextStatuses.put(status, List.copyOf(graph.successors(status))));
+        return Collections.unmodifiableMap(nextStatuses);
+    }
+
+    private static Map<ChargeStatus, Map<ChargeStatus, ChargeStatus>> buildIntermediateStatuses(
+            ValueGraph<ChargeStatus, ModelledEvent> graph) {
+        Map<ChargeStatus, Map<ChargeStatus, ChargeStatus>> intermediateStatuses = new EnumMap<>(ChargeStatus.class);
+        for (ChargeStatus fromStatus : graph.nodes()) {
+            Map<ChargeStatus, ChargeStatus> intermediates = new EnumMap<>(ChargeStatus.class);
+            for (ChargeStatus toStatus : graph.nodes()) {
+                deriveIntermediateChargeStatus(graph, fromStatus, toStatus)
+                        .ifPresent(intermediate -> intermediates.put(toStatus, intermediate));
+            }
+            intermediateStatuses.put(fromStatus, Collections.unmodifiableMap(intermediates));
+        }
+        return Collections.unmodifiableMap(intermediateStatuses);
+    }
+
+    private static Optional<ChargeStatus> deriveIntermediateChargeStatus(ValueGraph<ChargeStatus, ModelledEvent> graph,
+                                                                         ChargeStatus fromStatus, ChargeStatus toStatus) {
+        // Multiple intermediate states possible : (EXPIRE CANCEL READY, AUTHORISATION 3DS READY)
+        if (fromStatus.equals(AUTHORISATION_3DS_REQUIRED) && toStatus.equals(EXPIRED)) {
+            return Optional.of(EXPIRE_CANCEL_READY);
+        }
+
+        // Multiple intermediate states possible : (CAPTURE READY, CAPTURE APPROVED)
+        if (fromStatus.equals(AUTHORISATION_SUCCESS) && toStatus.equals(CAPTURE_ERROR)) {
+            return Optional.of(CAPTURE_READY);
+        }
+
+        return graph.successors(fromStatus)
+                .stream()
+                .filter(chargeStatus -> graph.predecessors(toStatus).contains(chargeStatus))
+                .findFirst();
+    }
+
+    ValueGraph<ChargeStatus, ?> graph() {
+        return graph;
+    }
+
     public Set<ChargeStatus> allStatuses() {
         return graph.nodes();
     }
@@ -250,7 +316,7 @@ public class PaymentGatewayStateTransitions {
     }
 
     public <T extends Event> Optional<Class<T>> getEventForTransition(ChargeStatus fromStatus, ChargeStatus toStatus) {
-        return graph.edgeValue(fromStatus, toStatus)
+        return findTransition(fromStatus, toStatus)
                 .map(modelledEvent -> {
                     try {
                         ModelledTypedEvent<T> modelledTypedEvent = (ModelledTypedEvent) modelledEvent;
@@ -262,7 +328,7 @@ public class PaymentGatewayStateTransitions {
     }
 
     public <T extends Event> List<ChargeStatus> getNextStatus(ChargeStatus fromStatus) {
-        return new ArrayList<>(graph.successors(fromStatus));
+        return new ArrayList<>(nextStatuses.get(fromStatus));
     }
 
     public static List<Class> getAllEventsResultingInTerminalState() {
@@ -282,21 +348,7 @@ public class PaymentGatewayStateTransitions {
     }
 
     public Optional<ChargeStatus> getIntermediateChargeStatus(ChargeStatus fromStatus, ChargeStatus toStatus) {
-
-        // Multiple intermediate states possible : (EXPIRE CANCEL READY, AUTHORISATION 3DS READY)
-        if (fromStatus.equals(AUTHORISATION_3DS_REQUIRED) && toStatus.equals(EXPIRED)) {
-            return Optional.of(EXPIRE_CANCEL_READY);
-        }
-
-        // Multiple intermediate states possible : (CAPTURE READY, CAPTURE APPROVED)
-        if (fromStatus.equals(AUTHORISATION_SUCCESS) && toStatus.equals(CAPTURE_ERROR)) {
-            return Optional.of(CAPTURE_READY);
-        }
-
-        return graph.successors(fromStatus)
-                .stream()
-                .filter(chargeStatus -> graph.predecessors(toStatus).contains(chargeStatus))
-                .findFirst();
+        return Optional.ofNullable(intermediateStatuses.get(fromStatus).get(toStatus));
     }
 
     public static <T extends Event> Optional<Class<T>> getEventForForceUpdate(ChargeStatus targetChargeStatus) {
@@ -305,13 +357,17 @@ public class PaymentGatewayStateTransitions {
     }
 
     private boolean isValidTransitionImpl(ChargeStatus state, ChargeStatus targetState, Event event) {
-        return graph.edgeValue(state, targetState)
+        return findTransition(state, targetState)
                 .map(modelledEvent ->
                         (event instanceof UnspecifiedEvent) || modelledEvent.permits(event)
                 )
                 .orElse(false);
     }
 
+    private Optional<ModelledEvent> findTransition(ChargeStatus fromStatus, ChargeStatus toStatus) {
+        return Optional.ofNullable(transitions.get(fromStatus).get(toStatus));
+    }
+
     private static abstract class ModelledEvent {
         public abstract boolean permits(Event event);
 
@@ -17,7 +17,7 @@ import java.time.ZonedDateTime;
 @Entity
 @Table(name = "emitted_events")
 @SequenceGenerator(name = "emitted_events_id_seq",
-        sequenceName = "emitted_events_id_seq", allocationSize = 1)
+        sequenceName = "emitted_events_id_seq", allocationSize = 50)
 public class EmittedEventEntity {
 
     @Id
@@ -4,12 +4,18 @@ import com.google.inject.persist.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import uk.gov.pay.connector.agreement.dao.AgreementDao;
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.EmittedEventSweepConfig;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.ResourceType;
+import uk.gov.pay.connector.events.model.agreement.AgreementCancelledByService;
 import uk.gov.pay.connector.refund.dao.RefundDao;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.tasks.HistoricalEventEmitter;
@@ -20,6 +26,8 @@ import java.time.ZonedDateTime;
 
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.now;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.EMITTED_EVENT_SWEEP;
+import static uk.gov.service.payments.logging.LoggingKeys.AGREEMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 
 public class EmittedEventsBackfillService {
@@ -30,22 +38,36 @@ public class EmittedEventsBackfillService {
     private final ChargeService chargeService;
     private final HistoricalEventEmitter historicalEventEmitter;
     private RefundDao refundDao;
+    private final AgreementDao agreementDao;
+    private final EventService eventService;
     private final EmittedEventSweepConfig sweepConfig;
+    private final DatabaseBulkhead databaseBulkhead;
     private long doNotRetryEmittingEventUntilDurationInSeconds;
 
     @Inject
     public EmittedEventsBackfillService(EmittedEventDao emittedEventDao, ChargeService chargeService, RefundDao refundDao,
-                                        HistoricalEventEmitter historicalEventEmitter, ConnectorConfiguration configuration) {
+                                        AgreementDao agreementDao, EventService eventService,
+                                        HistoricalEventEmitter historicalEventEmitter, ConnectorConfiguration configuration,
+                                        DatabaseBulkhead databaseBulkhead) {
         this.emittedEventDao = emittedEventDao;
         this.chargeService = chargeService;
         this.refundDao = refundDao;
+        this.agreementDao = agreementDao;
+        this.eventService = eventService;
         this.sweepConfig = configuration.getEmittedEventSweepConfig();
         this.doNotRetryEmittingEventUntilDurationInSeconds = configuration.getEventEmitterConfig()
                 .getDefaultDoNotRetryEmittingEventUntilDurationInSeconds();
         this.historicalEventEmitter = historicalEventEmitter;
+        this.databaseBulkhead = databaseBulkhead;
     }
 
     public void backfillNotEmittedEvents() {
+        try (Permit permit = databaseBulkhead.acquire(EMITTED_EVENT_SWEEP)) {
+            backfillEventsInBatches();
+        }
+    }
+
+    private void backfillEventsInBatches() {
         EmittedEventBatchIterator emittedEventBatchIterator = new EmittedEventBatchIterator(emittedEventDao, sweepConfig, 0L, PAGE_SIZE, now());
 
         emittedEventBatchIterator.forEachRemaining(batch -> {
@@ -67,14 +89,19 @@ public class EmittedEventsBackfillService {
     @Transactional
     public void backfillEvent(EmittedEventEntity event) {
         try {
-            String chargeId = chargeIdForEvent(event);
-
-            MDC.put(PAYMENT_EXTERNAL_ID, chargeId);
-            if (isPaymentEvent(event)) {
-                ChargeEntity chargeEntity = chargeService.findChargeByExternalId(chargeId);
-                historicalEventEmitter.processPaymentEvents(chargeEntity, true);
+            if (isAgreementEvent(event)) {
+                MDC.put(AGREEMENT_EXTERNAL_ID, event.getResourceExternalId());
+                eventService.emitEvent(agreementEventFor(event), false);
             } else {
-                historicalEventEmitter.emitEventsForRefund(event.getResourceExternalId(), true);
+                String chargeId = chargeIdForEvent(event);
+
+                MDC.put(PAYMENT_EXTERNAL_ID, chargeId);
+                if (isPaymentEvent(event)) {
+                    ChargeEntity chargeEntity = chargeService.findChargeByExternalId(chargeId);
+                    historicalEventEmitter.processPaymentEvents(chargeEntity, true);
+                } else {
+                    historicalEventEmitter.emitEventsForRefund(event.getResourceExternalId(), true);
+                }
             }
             event.setEmittedDate(Instant.now());
         } catch (Exception e) {
@@ -89,9 +116,23 @@ public class EmittedEventsBackfillService {
             event.setDoNotRetryEmitUntil(ZonedDateTime.now(UTC).plusSeconds(doNotRetryEmittingEventUntilDurationInSeconds));
         } finally {
             MDC.remove(PAYMENT_EXTERNAL_ID);
+            MDC.remove(AGREEMENT_EXTERNAL_ID);
         }
     }
 
+    /**
+     * Only agreement events that are recorded before being sent, those of agreements cancelled by bulk deletion of
+     * stored payment details, can be sent again. They are rebuilt from the agreement's cancelled date.
+     */
+    private Event agreementEventFor(EmittedEventEntity event) {
+        if (!event.getEventType().equals(Event.eventTypeForClass(AgreementCancelledByService.class))) {
+            throw new IllegalArgumentException("Cannot send agreement event of type " + event.getEventType() + " again");
+        }
+        AgreementEntity agreement = agreementDao.findByExternalId(event.getResourceExternalId())
+                .orElseThrow(() -> new IllegalStateException("Agreement not found"));
+        return AgreementCancelledByService.from(agreement, agreement.getCancelledDate());
+    }
+
     private String chargeIdForEvent(EmittedEventEntity event) {
         if (isPaymentEvent(event)) {
             return event.getResourceExternalId();
@@ -103,6 +144,10 @@ public class EmittedEventsBackfillService {
         }
     }
 
+    private boolean isAgreementEvent(EmittedEventEntity event) {
+        return ResourceType.valueOf(event.getResourceType().toUpperCase()).equals(ResourceType.AGREEMENT);
+    }
+
     private boolean isPaymentEvent(EmittedEventEntity event) {
         return ResourceType.valueOf(event.getResourceType().toUpperCase()).equals(ResourceType.PAYMENT);
     }
@@ -1,5 +1,11 @@
 package uk.gov.pay.connector.events;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.events.model.Event;
@@ -7,19 +13,31 @@ import uk.gov.service.payments.commons.queue.exception.QueueException;
 import uk.gov.service.payments.commons.queue.sqs.SqsQueueService;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
 
 public class EventQueue {
 
+    /**
+     * The most messages SQS accepts in a single SendMessageBatch request.
+     */
+    static final int MAXIMUM_BATCH_SIZE = 10;
+
     private final SqsQueueService sqsQueueService;
+    private final AmazonSQS sqsClient;
     private final String eventQueueUrl;
     private final Boolean eventQueueEnabled;
 
     @Inject
     public EventQueue (
             SqsQueueService sqsQueueService,
+            AmazonSQS sqsClient,
             ConnectorConfiguration connectorConfiguration
     ) {
         this.sqsQueueService = sqsQueueService;
+        this.sqsClient = sqsClient;
         this.eventQueueUrl = connectorConfiguration.getSqsConfig().getEventQueueUrl();
         this.eventQueueEnabled = connectorConfiguration.getEventQueueConfig().getEventQueueEnabled();
     }
@@ -33,4 +51,40 @@ public class EventQueue {
             }
         }
     }
+
+    /**
+     * Sends the events in batches of up to {@link #MAXIMUM_BATCH_SIZE}, one SQS request per batch. If any event in
+     * a batch is not accepted a QueueException is thrown and later batches are not sent; events that were accepted
+     * are not rolled back, so callers retrying a failed call may send some events twice.
+     */
+    public void emitEvents(List<Event> events) throws QueueException {
+        if (!eventQueueEnabled) {
+            return;
+        }
+
+        for (int from = 0; from < events.size(); from += MAXIMUM_BATCH_SIZE) {
+            List<Event> batch = events.subList(from, Math.min(from + MAXIMUM_BATCH_SIZE, events.size()));
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    entries.add(new SendMessageBatchRequestEntry(String.valueOf(i), batch.get(i).toJsonString()));
+                } catch (JsonProcessingException e) {
+                    throw new QueueException(String.format("Error serialising event to json: %s", e.getMessage()));
+                }
+            }
+
+            SendMessageBatchResult result;
+            try {
+                result = sqsClient.sendMessageBatch(new SendMessageBatchRequest(eventQueueUrl, entries));
+            } catch (AmazonClientException e) {
+                throw new QueueException(e.getMessage());
+            }
+
+            if (!result.getFailed().isEmpty()) {
+                throw new QueueException(String.format("Failed to send %d of %d events to SQS: %s",
+                        result.getFailed().size(), entries.size(),
+                        result.getFailed().stream().map(BatchResultErrorEntry::getMessage).distinct().collect(joining(", "))));
+            }
+        }
+    }
 }
@@ -10,6 +10,7 @@ import uk.gov.service.payments.commons.queue.exception.QueueException;
 import javax.inject.Inject;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 public class EventService {
     private static final Logger logger = LoggerFactory.getLogger(EventService.class);
@@ -61,6 +62,27 @@ public class EventService {
         }
     }
 
+    /**
+     * Emits the events in as few SQS requests as possible. Like {@link #emitEvent(Event, boolean)} the emissions are
+     * not recorded in EmittedEventDao.
+     */
+    public void emitEvents(List<Event> events, boolean swallowException) throws QueueException {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            eventQueue.emitEvents(events);
+        } catch (QueueException e) {
+            logger.error("Failed to emit batch of {} events due to {} [firstExternalId={}]", events.size(),
+                    e.getMessage(),
+                    events.get(0).getResourceExternalId());
+            if (!swallowException) {
+                throw e;
+            }
+        }
+    }
+
     public void emitAndRecordEvent(Event event, ZonedDateTime doNotRetryEmitUntilDate) {
         try {
             eventQueue.emitEvent(event);
@@ -77,6 +99,26 @@ public class EventService {
         this.emitAndRecordEvent(event, null);
     }
 
+    /**
+     * Emits the events in as few SQS requests as possible and records their emission together. If sending fails, the
+     * events are recorded as not emitted so they are picked up by the emitted events sweeper.
+     */
+    public void emitAndRecordEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            eventQueue.emitEvents(events);
+            emittedEventDao.recordEmissions(events, Instant.now());
+        } catch (QueueException e) {
+            emittedEventDao.recordEmissions(events, null);
+            logger.error("Failed to emit batch of {} events due to {} [firstExternalId={}]", events.size(),
+                    e.getMessage(),
+                    events.get(0).getResourceExternalId());
+        }
+    }
+
     public void emitAndMarkEventAsEmitted(Event event) throws QueueException {
         eventQueue.emitEvent(event);
         emittedEventDao.markEventAsEmitted(event);
@@ -13,6 +13,8 @@ import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.chargeevent.dao.ChargeEventDao;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionService;
 import uk.gov.pay.connector.refund.dao.RefundDao;
@@ -26,6 +28,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
 
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.HISTORICAL_EVENT_EMISSION;
 import static uk.gov.service.payments.logging.LoggingKeys.MDC_REQUEST_ID_KEY;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 
@@ -42,13 +45,14 @@ public class HistoricalEventEmitterService {
     private final RefundDao refundDao;
     private HistoricalEventEmitter historicalEventEmitter;
     private final EventEmitterConfig eventEmitterConfig;
+    private final DatabaseBulkhead databaseBulkhead;
     private long maxId;
 
     @Inject
     HistoricalEventEmitterService(ChargeDao chargeDao, RefundDao refundDao, ChargeEventDao chargeEventDao,
                                   EmittedEventDao emittedEventDao, StateTransitionService stateTransitionService,
                                   EventService eventService, ChargeService chargeService,
-                                  ConnectorConfiguration connectorConfiguration) {
+                                  ConnectorConfiguration connectorConfiguration, DatabaseBulkhead databaseBulkhead) {
         this.chargeDao = chargeDao;
         this.refundDao = refundDao;
         this.chargeEventDao = chargeEventDao;
@@ -57,10 +61,11 @@ public class HistoricalEventEmitterService {
         this.eventService = eventService;
         this.chargeService = chargeService;
         this.eventEmitterConfig = connectorConfiguration.getEventEmitterConfig();
+        this.databaseBulkhead = databaseBulkhead;
     }
 
     public void emitHistoricEventsById(Long startId, OptionalLong maybeMaxId, Long doNotRetryEmitUntilDuration) {
-        try {
+        try (Permit permit = databaseBulkhead.acquire(HISTORICAL_EVENT_EMISSION)) {
             MDC.put(MDC_REQUEST_ID_KEY, "HistoricalEventEmitterWorker-" + RandomUtils.nextLong(0, 10000));
             initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
             maxId = maybeMaxId.orElseGet(chargeDao::findMaxId);
@@ -88,12 +93,20 @@ public class HistoricalEventEmitterService {
         initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
         logger.info("Starting to emit events from date range {} up to {}", startDate, endDate);
 
-        processChargeEvents(startDate, endDate);
-        processRefundEvents(startDate, endDate);
+        try (Permit permit = databaseBulkhead.acquire(HISTORICAL_EVENT_EMISSION)) {
+            processChargeEvents(startDate, endDate);
+            processRefundEvents(startDate, endDate);
+        } catch (Exception e) {
+            logger.error("Error attempting to process events on job [start_date={}] [end_date={}] [error={}]", startDate, endDate, e);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID_KEY);
+        }
+
+        logger.info("Terminating");
     }
 
     public void emitRefundEventsOnlyById(Long startId, OptionalLong maybeMaxId, Long doNotRetryEmitUntilDuration) {
-        try {
+        try (Permit permit = databaseBulkhead.acquire(HISTORICAL_EVENT_EMISSION)) {
             MDC.put(MDC_REQUEST_ID_KEY, "HistoricalEventEmitterWorker-" + RandomUtils.nextLong(0, 10000));
             initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
 
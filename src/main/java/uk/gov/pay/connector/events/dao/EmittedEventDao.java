@@ -64,6 +64,19 @@ public class EmittedEventDao extends JpaDao<EmittedEventEntity> {
         persist(emittedEvent);
     }
 
+    /**
+     * Records several events in one transaction, so their rows are written with batched inserts. Pass a null
+     * emittedDate to record events that have not been emitted.
+     */
+    public void recordEmissions(List<Event> events, Instant emittedDate) {
+        events.forEach(event -> persist(new EmittedEventEntity(event.getResourceType().getLowercase(),
+                event.getResourceExternalId(),
+                event.getEventType(),
+                event.getTimestamp(),
+                emittedDate,
+                null)));
+    }
+
     @Transactional
     public void markEventAsEmitted(Event event) {
         Query query = entityManager.get()
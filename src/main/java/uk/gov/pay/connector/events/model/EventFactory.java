@@ -96,7 +96,9 @@ public class EventFactory {
     }
 
     private List<Event> createPaymentEvents(PaymentStateTransition paymentStateTransition) throws EventCreationException {
-        ChargeEventEntity chargeEvent = chargeEventDao.findById(ChargeEventEntity.class, paymentStateTransition.getChargeEventId())
+        ChargeEventEntity chargeEvent = paymentStateTransition.getChargeEventUpdated()
+                .flatMap(updated -> chargeEventDao.findByIdUpdatedAround(paymentStateTransition.getChargeEventId(), updated))
+                .or(() -> chargeEventDao.findById(ChargeEventEntity.class, paymentStateTransition.getChargeEventId()))
                 .orElseThrow(() -> new EventCreationException(String.valueOf(paymentStateTransition.getChargeEventId())));
 
         PaymentEvent paymentEvent = createPaymentEvent(chargeEvent, paymentStateTransition.getStateTransitionEventClass());
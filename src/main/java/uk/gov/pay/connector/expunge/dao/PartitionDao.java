@@ -0,0 +1,162 @@
+package uk.gov.pay.connector.expunge.dao;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+@Transactional
+public class PartitionDao {
+
+    private static final String FIND_PARTITIONS_QUERY = "SELECT partition.relname FROM pg_inherits i" +
+            " JOIN pg_class partition ON partition.oid = i.inhrelid" +
+            " JOIN pg_class parent ON parent.oid = i.inhparent" +
+            " WHERE parent.relname = ?1";
+
+    private static final String FIND_PARTITION_BOUND_QUERY = "SELECT pg_get_expr(relpartbound, oid) FROM pg_class" +
+            " WHERE relname = ?1 AND relispartition";
+
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})");
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public PartitionDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public List<YearMonth> findMonthlyPartitions(PartitionedTable table) {
+        @SuppressWarnings("unchecked")
+        List<String> partitionNames = entityManager.get()
+                .createNativeQuery(FIND_PARTITIONS_QUERY)
+                .setParameter(1, table.getTableName())
+                .getResultList();
+
+        return partitionNames.stream()
+                .map(table::monthOfPartition)
+                .flatMap(Optional::stream)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The legacy partition is the table as it was before partitioning, bounded from MINVALUE up to the first monthly
+     * partition. Returns empty once it has been dropped.
+     */
+    public Optional<LocalDate> findLegacyPartitionUpperBound(PartitionedTable table) {
+        @SuppressWarnings("unchecked")
+        List<String> bounds = entityManager.get()
+                .createNativeQuery(FIND_PARTITION_BOUND_QUERY)
+                .setParameter(1, table.legacyPartitionName())
+                .getResultList();
+
+        return bounds.stream()
+                .map(UPPER_BOUND::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> LocalDate.parse(matcher.group(1)))
+                .findFirst();
+    }
+
+    /**
+     * Creates the partition for the month unless another instance already has, moving any rows for that month out of
+     * the default partition into it. The whole table is locked while this happens, as attaching a partition needs
+     * that anyway, and nothing can then be written to the default partition between the rows being moved and the
+     * partition being attached. Returns the number of rows moved.
+     */
+    public int createMonthlyPartition(PartitionedTable table, YearMonth month, Duration lockTimeout) {
+        String partitionName = table.monthlyPartitionName(month);
+
+        lockTable(table, lockTimeout);
+
+        if (partitionExists(partitionName)) {
+            return 0;
+        }
+
+        entityManager.get()
+                .createNativeQuery(format("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS, PRIMARY KEY (id))",
+                        partitionName, table.getTableName()))
+                .executeUpdate();
+
+        int movedRows = entityManager.get()
+                .createNativeQuery(format("WITH moved AS (DELETE FROM %s WHERE %s >= '%s' AND %s < '%s' RETURNING *)" +
+                                " INSERT INTO %s SELECT * FROM moved",
+                        table.defaultPartitionName(), table.getPartitionKey(), month.atDay(1),
+                        table.getPartitionKey(), month.plusMonths(1).atDay(1), partitionName))
+                .executeUpdate();
+
+        entityManager.get()
+                .createNativeQuery(format("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                        table.getTableName(), partitionName, month.atDay(1), month.plusMonths(1).atDay(1)))
+                .executeUpdate();
+
+        return movedRows;
+    }
+
+    /**
+     * Drops the partition only if it holds no rows. The partition is first checked without a lock, so a partition
+     * that still has rows does not hold up writers to the whole table. Only if it looks empty is the table locked and
+     * the partition checked again, so that nothing can have been written to it before it is dropped; if the lock
+     * cannot be taken within the timeout the transaction fails instead of queueing writers behind it.
+     */
+    public boolean dropMonthlyPartitionIfEmpty(PartitionedTable table, YearMonth month, Duration lockTimeout) {
+        return dropPartitionIfEmpty(table, table.monthlyPartitionName(month), lockTimeout);
+    }
+
+    public boolean dropLegacyPartitionIfEmpty(PartitionedTable table, Duration lockTimeout) {
+        return dropPartitionIfEmpty(table, table.legacyPartitionName(), lockTimeout);
+    }
+
+    private boolean dropPartitionIfEmpty(PartitionedTable table, String partitionName, Duration lockTimeout) {
+        if (!isExistingEmptyPartition(partitionName)) {
+            return false;
+        }
+
+        lockTable(table, lockTimeout);
+
+        if (!isExistingEmptyPartition(partitionName)) {
+            return false;
+        }
+
+        entityManager.get()
+                .createNativeQuery(format("DROP TABLE %s", partitionName))
+                .executeUpdate();
+        return true;
+    }
+
+    private boolean isExistingEmptyPartition(String partitionName) {
+        return partitionExists(partitionName) && entityManager.get()
+                .createNativeQuery(format("SELECT 1 FROM %s LIMIT 1", partitionName))
+                .getResultList()
+                .isEmpty();
+    }
+
+    private void lockTable(PartitionedTable table, Duration lockTimeout) {
+        entityManager.get()
+                .createNativeQuery("SELECT set_config('lock_timeout', ?1, true)")
+                .setParameter(1, lockTimeout.toMillis() + "ms")
+                .getSingleResult();
+
+        entityManager.get()
+                .createNativeQuery(format("LOCK TABLE %s IN ACCESS EXCLUSIVE MODE", table.getTableName()))
+                .executeUpdate();
+    }
+
+    private boolean partitionExists(String partitionName) {
+        return entityManager.get()
+                .createNativeQuery("SELECT to_regclass(?1) IS NOT NULL")
+                .setParameter(1, partitionName)
+                .getSingleResult()
+                .equals(Boolean.TRUE);
+    }
+}
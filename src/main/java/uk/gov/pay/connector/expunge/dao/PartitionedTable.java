@@ -0,0 +1,53 @@
+package uk.gov.pay.connector.expunge.dao;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Tables range partitioned by month on a timestamp column. Partition names are built from these constants only, as
+ * DDL cannot take bind parameters.
+ */
+public enum PartitionedTable {
+
+    CHARGE_EVENTS("charge_events", "updated"),
+    EMITTED_EVENTS("emitted_events", "event_date");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final String tableName;
+    private final String partitionKey;
+
+    PartitionedTable(String tableName, String partitionKey) {
+        this.tableName = tableName;
+        this.partitionKey = partitionKey;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public String legacyPartitionName() {
+        return tableName + "_legacy";
+    }
+
+    public String defaultPartitionName() {
+        return tableName + "_default";
+    }
+
+    public String monthlyPartitionName(YearMonth month) {
+        return tableName + "_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    public Optional<YearMonth> monthOfPartition(String partitionName) {
+        String prefix = tableName + "_p";
+        if (!partitionName.startsWith(prefix) || !partitionName.substring(prefix.length()).matches("\\d{6}")) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(partitionName.substring(prefix.length()), PARTITION_SUFFIX));
+    }
+}
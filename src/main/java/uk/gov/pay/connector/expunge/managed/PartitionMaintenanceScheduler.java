@@ -0,0 +1,57 @@
+package uk.gov.pay.connector.expunge.managed;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.expunge.service.PartitionMaintenanceService;
+
+import javax.inject.Inject;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs partition maintenance on its own schedule rather than as part of expunging, so that new partitions are still
+ * created when expunging is disabled, failing or held back by the database bulkhead.
+ */
+public class PartitionMaintenanceScheduler implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionMaintenanceScheduler.class);
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final int intervalInMinutes;
+    private final ScheduledExecutorService partitionMaintenanceExecutorService;
+
+    @Inject
+    public PartitionMaintenanceScheduler(PartitionMaintenanceService partitionMaintenanceService,
+                                         Environment environment, ConnectorConfiguration connectorConfiguration) {
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.intervalInMinutes = connectorConfiguration.getExpungeConfig().getPartitionMaintenanceIntervalInMinutes();
+
+        partitionMaintenanceExecutorService = environment
+                .lifecycle()
+                .scheduledExecutorService("partition-maintenance-%d")
+                .threads(1)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        partitionMaintenanceExecutorService.scheduleWithFixedDelay(
+                this::maintainPartitions, 0, intervalInMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        partitionMaintenanceExecutorService.shutdown();
+    }
+
+    private void maintainPartitions() {
+        try {
+            partitionMaintenanceService.maintainPartitions();
+        } catch (Exception e) {
+            LOGGER.error("Partition maintenance failed [message={}]", e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package uk.gov.pay.connector.expunge.service;
 
-import com.google.inject.persist.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -10,6 +9,7 @@ import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.gateway.PaymentGatewayName;
 import uk.gov.pay.connector.idempotency.dao.IdempotencyDao;
 import uk.gov.pay.connector.tasks.service.ParityCheckService;
@@ -17,12 +17,15 @@ import uk.gov.service.payments.commons.model.AuthorisationMode;
 
 import javax.inject.Inject;
 import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 import static net.logstash.logback.argument.StructuredArguments.kv;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_ERROR;
@@ -93,16 +96,30 @@ public class ChargeExpungeService {
         } else {
             int minimumAgeOfChargeInDays = expungeConfig.getMinimumAgeOfChargeInDays();
             int createdWithinLast = expungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays();
+            int batchSize = expungeConfig.getChargesExpungeBatchSize();
+            Duration claimDuration = Duration.ofMinutes(expungeConfig.getExpungeClaimDurationInMinutes());
 
-            for (int number = 0; number < noOfChargesToExpunge; number++) {
-                Optional<ChargeEntity> mayBeChargeToExpunge = chargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, createdWithinLast);
+            KeysetCursor cursor = KeysetCursor.start();
+            int processed = 0;
+            while (processed < noOfChargesToExpunge) {
+                List<ChargeEntity> chargesToExpunge = chargeDao.claimChargesToExpunge(minimumAgeOfChargeInDays,
+                        createdWithinLast, cursor, Math.min(batchSize, noOfChargesToExpunge - processed), claimDuration);
 
-                if (mayBeChargeToExpunge.isPresent()) {
-                    ChargeEntity chargeEntity = mayBeChargeToExpunge.get();
+                if (chargesToExpunge.isEmpty()) {
+                    break;
+                }
+
+                ChargeEntity lastCharge = chargesToExpunge.get(chargesToExpunge.size() - 1);
+                cursor = KeysetCursor.after(lastCharge.getCreatedDate(), lastCharge.getId());
+
+                List<ChargeEntity> chargesPassingParityCheck = new ArrayList<>();
+                for (ChargeEntity chargeEntity : chargesToExpunge) {
                     MDC.put(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId());
                     logger.info(format("Attempting to expunge charge %s", chargeEntity.getExternalId()));
                     try {
-                        parityCheckAndExpungeIfMet(chargeEntity);
+                        if (passesChecksForExpunging(chargeEntity)) {
+                            chargesPassingParityCheck.add(chargeEntity);
+                        }
                     } catch (OptimisticLockException error) {
                         logger.info("Expunging process conflicted with an already running process, exit");
                         MDC.remove(MDC_REQUEST_ID_KEY);
@@ -110,14 +127,31 @@ public class ChargeExpungeService {
                         throw error;
                     }
                     MDC.remove(PAYMENT_EXTERNAL_ID);
-                } else {
-                    break;
                 }
+
+                expungeCharges(chargesPassingParityCheck);
+                processed += chargesToExpunge.size();
             }
         }
     }
 
-    private void parityCheckAndExpungeIfMet(ChargeEntity chargeEntity) {
+    private void expungeCharges(List<ChargeEntity> chargeEntities) {
+        if (chargeEntities.isEmpty()) {
+            return;
+        }
+
+        List<Long> chargeIds = chargeEntities.stream().map(ChargeEntity::getId).collect(toList());
+        try {
+            chargeDao.expungeCharges(chargeIds, Duration.ofMillis(expungeConfig.getExpungeLockTimeoutInMillis()));
+            chargeEntities.forEach(chargeEntity -> logger.info("Charge expunged from connector {}",
+                    kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId())));
+        } catch (PersistenceException e) {
+            logger.warn(format("Failed to expunge batch of %d charges, they will be retried once their claim expires: %s",
+                    chargeIds.size(), e.getMessage()));
+        }
+    }
+
+    private boolean passesChecksForExpunging(ChargeEntity chargeEntity) {
         boolean hasChargeBeenParityCheckedBefore = chargeEntity.getParityCheckDate() != null;
 
         if (!inTerminalState(chargeEntity)) {
@@ -134,8 +168,7 @@ public class ChargeExpungeService {
                 logger.info("Charge not expunged from connector because Idempotency record exists for charge",
                         kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()));
         } else if (parityCheckService.parityCheckChargeForExpunger(chargeEntity)) {
-            expungeCharge(chargeEntity);
-            logger.info("Charge expunged from connector {}", kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()));
+            return true;
         } else {
             if (hasChargeBeenParityCheckedBefore) {
                 logger.error("Charge cannot be expunged because parity check with ledger repeatedly failed",
@@ -145,6 +178,7 @@ public class ChargeExpungeService {
                         kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()));
             }
         }
+        return false;
     }
 
     private boolean isStripePaymentMissingFees(ChargeEntity chargeEntity) {
@@ -154,10 +188,4 @@ public class ChargeExpungeService {
         return isNotBlank(chargeEntity.getGatewayTransactionId()) &&
                 chargeEntity.getFees().isEmpty();
     }
-
-    @Transactional
-    public void expungeCharge(ChargeEntity chargeEntity) {
-        chargeDao.expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
-    }
-
 }
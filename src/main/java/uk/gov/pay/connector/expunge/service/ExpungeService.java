@@ -2,29 +2,62 @@ package uk.gov.pay.connector.expunge.service;
 
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
+import uk.gov.pay.connector.paymentprocessor.dao.RecurringAuthorisationBatchDao;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+import uk.gov.pay.connector.webhook.dao.ProcessedStripeNotificationDao;
 
 import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.EXPUNGE;
 
 public class ExpungeService {
 
     private ChargeExpungeService chargeExpungeService;
     private RefundExpungeService refundExpungeService;
     private ExpungeConfig expungeConfig;
+    private DatabaseBulkhead databaseBulkhead;
+    private ProcessedStripeNotificationDao processedStripeNotificationDao;
+    private RecurringAuthorisationBatchDao recurringAuthorisationBatchDao;
+    private NotificationInboxDao notificationInboxDao;
+    private Clock clock;
 
     @Inject
     public ExpungeService(ChargeExpungeService chargeExpungeService, RefundExpungeService refundExpungeService,
-                          ConnectorConfiguration connectorConfiguration) {
+                          ConnectorConfiguration connectorConfiguration, DatabaseBulkhead databaseBulkhead,
+                          ProcessedStripeNotificationDao processedStripeNotificationDao,
+                          RecurringAuthorisationBatchDao recurringAuthorisationBatchDao,
+                          NotificationInboxDao notificationInboxDao, Clock clock) {
         this.chargeExpungeService = chargeExpungeService;
         this.refundExpungeService = refundExpungeService;
         expungeConfig = connectorConfiguration.getExpungeConfig();
+        this.databaseBulkhead = databaseBulkhead;
+        this.processedStripeNotificationDao = processedStripeNotificationDao;
+        this.recurringAuthorisationBatchDao = recurringAuthorisationBatchDao;
+        this.notificationInboxDao = notificationInboxDao;
+        this.clock = clock;
     }
 
     public void expunge(Integer noOfChargesToExpungeQueryParam, Integer noOfRefundsToExpungeQueryParam) {
-        int noOfChargesToExpunge = getNumberOfChargesToExpunge(noOfChargesToExpungeQueryParam);
-        chargeExpungeService.expunge(noOfChargesToExpunge);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            int noOfChargesToExpunge = getNumberOfChargesToExpunge(noOfChargesToExpungeQueryParam);
+            chargeExpungeService.expunge(noOfChargesToExpunge);
+
+            int noOfRefundsToExpunge = getNumberOfRefundsToExpunge(noOfRefundsToExpungeQueryParam);
+            refundExpungeService.expunge(noOfRefundsToExpunge);
+
+            processedStripeNotificationDao.deleteProcessedBefore(clock.instant()
+                    .minus(Duration.ofDays(expungeConfig.getMinimumAgeOfProcessedStripeNotificationInDays())));
 
-        int noOfRefundsToExpunge = getNumberOfRefundsToExpunge(noOfRefundsToExpungeQueryParam);
-        refundExpungeService.expunge(noOfRefundsToExpunge);
+            recurringAuthorisationBatchDao.deleteCreatedBefore(clock.instant()
+                    .minus(Duration.ofDays(expungeConfig.getMinimumAgeOfRecurringAuthorisationBatchInDays())));
+
+            notificationInboxDao.deleteProcessedBefore(clock.instant()
+                    .minus(Duration.ofDays(expungeConfig.getMinimumAgeOfProcessedInboxNotificationInDays())));
+        }
     }
 
     private int getNumberOfChargesToExpunge(Integer noOfChargesToExpungeQueryParam) {
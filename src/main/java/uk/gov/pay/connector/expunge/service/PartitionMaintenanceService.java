@@ -0,0 +1,116 @@
+package uk.gov.pay.connector.expunge.service;
+
+import com.codahale.metrics.Counter;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.expunge.dao.PartitionDao;
+import uk.gov.pay.connector.expunge.dao.PartitionedTable;
+
+import javax.inject.Inject;
+import javax.persistence.PersistenceException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Keeps the monthly partitions of the event tables ahead of the clock and drops old partitions once expunging has
+ * emptied them. Expunging still deletes the rows one by one, so this does not save any vacuuming; it only stops
+ * empty partitions piling up. Any rows that were written to the default partition because their month had no
+ * partition yet are moved into the partition when it is created. Failures are logged as errors and counted in
+ * {@code partition-maintenance.failures} so that they can be alerted on.
+ */
+public class PartitionMaintenanceService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final PartitionDao partitionDao;
+    private final ExpungeConfig expungeConfig;
+    private final Clock clock;
+    private final Counter failuresCounter;
+
+    @Inject
+    public PartitionMaintenanceService(PartitionDao partitionDao, ConnectorConfiguration connectorConfiguration,
+                                       Clock clock, Environment environment) {
+        this.partitionDao = partitionDao;
+        this.expungeConfig = connectorConfiguration.getExpungeConfig();
+        this.clock = clock;
+        this.failuresCounter = environment.metrics().counter("partition-maintenance.failures");
+    }
+
+    public void maintainPartitions() {
+        for (PartitionedTable table : PartitionedTable.values()) {
+            try {
+                List<YearMonth> partitions = partitionDao.findMonthlyPartitions(table);
+                createMissingPartitions(table, partitions);
+                dropEmptyExpiredPartitions(table, partitions);
+            } catch (PersistenceException e) {
+                logFailure("Failed to maintain partitions of {}: {}", table.getTableName(), e, table);
+            }
+        }
+    }
+
+    // Months before the newest partition are covered by the existing partitions or by the partition the table was
+    // created from, so partitions are only ever added after the newest one
+    private void createMissingPartitions(PartitionedTable table, List<YearMonth> partitions) {
+        YearMonth currentMonth = YearMonth.now(clock);
+        YearMonth lastMonthToCreate = currentMonth.plusMonths(expungeConfig.getPartitionsCreatedAheadInMonths());
+        YearMonth month = partitions.isEmpty() ? currentMonth : partitions.get(partitions.size() - 1).plusMonths(1);
+
+        for (; !month.isAfter(lastMonthToCreate); month = month.plusMonths(1)) {
+            try {
+                int movedRows = partitionDao.createMonthlyPartition(table, month, lockTimeout());
+                logger.info("Created partition {}", table.monthlyPartitionName(month),
+                        kv("table", table.getTableName()),
+                        kv("rows_moved_from_default_partition", movedRows));
+            } catch (PersistenceException e) {
+                logFailure("Failed to create partition {}: {}", table.monthlyPartitionName(month), e, table);
+                return;
+            }
+        }
+    }
+
+    private void dropEmptyExpiredPartitions(PartitionedTable table, List<YearMonth> partitions) {
+        LocalDate cutoff = LocalDate.now(clock).minusDays(expungeConfig.getMinimumAgeOfChargeInDays());
+
+        partitionDao.findLegacyPartitionUpperBound(table)
+                .filter(upperBound -> upperBound.isBefore(cutoff))
+                .ifPresent(upperBound -> {
+                    try {
+                        if (partitionDao.dropLegacyPartitionIfEmpty(table, lockTimeout())) {
+                            logger.info("Dropped empty partition {}", table.legacyPartitionName(),
+                                    kv("table", table.getTableName()));
+                        }
+                    } catch (PersistenceException e) {
+                        logFailure("Failed to drop partition {}: {}", table.legacyPartitionName(), e, table);
+                    }
+                });
+
+        partitions.stream()
+                .filter(month -> month.plusMonths(1).atDay(1).isBefore(cutoff))
+                .forEach(month -> {
+                    try {
+                        if (partitionDao.dropMonthlyPartitionIfEmpty(table, month, lockTimeout())) {
+                            logger.info("Dropped empty partition {}", table.monthlyPartitionName(month),
+                                    kv("table", table.getTableName()));
+                        }
+                    } catch (PersistenceException e) {
+                        logFailure("Failed to drop partition {}: {}", table.monthlyPartitionName(month), e, table);
+                    }
+                });
+    }
+
+    private Duration lockTimeout() {
+        return Duration.ofMillis(expungeConfig.getExpungeLockTimeoutInMillis());
+    }
+
+    private void logFailure(String message, String name, PersistenceException e, PartitionedTable table) {
+        failuresCounter.inc();
+        logger.error(message, name, e.getMessage(), kv("table", table.getTableName()));
+    }
+}
@@ -8,6 +8,7 @@ import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
 import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.refund.dao.RefundDao;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
@@ -16,9 +17,10 @@ import uk.gov.pay.connector.tasks.service.ParityCheckService;
 
 import javax.inject.Inject;
 import javax.persistence.OptimisticLockException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Optional;
+import java.util.List;
 
 import static java.lang.String.format;
 import static java.time.ZoneOffset.UTC;
@@ -57,12 +59,24 @@ public class RefundExpungeService {
             int minimumAgeOfRefundInDays = expungeConfig.getMinimumAgeOfRefundInDays();
             int excludeRefundsParityCheckedWithInDays = expungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays();
 
-            for (int number = 0; number < noOfRefundsToExpunge; number++) {
-                Optional<RefundEntity> mayBeRefundToExpunge = refundDao.findRefundToExpunge(minimumAgeOfRefundInDays,
-                        excludeRefundsParityCheckedWithInDays);
+            int batchSize = expungeConfig.getRefundsExpungeBatchSize();
+            Duration claimDuration = Duration.ofMinutes(expungeConfig.getExpungeClaimDurationInMinutes());
 
-                if (mayBeRefundToExpunge.isPresent()) {
-                    RefundEntity refundEntity = mayBeRefundToExpunge.get();
+            KeysetCursor cursor = KeysetCursor.start();
+            int processed = 0;
+            while (processed < noOfRefundsToExpunge) {
+                List<RefundEntity> refundsToExpunge = refundDao.claimRefundsToExpunge(minimumAgeOfRefundInDays,
+                        excludeRefundsParityCheckedWithInDays, cursor,
+                        Math.min(batchSize, noOfRefundsToExpunge - processed), claimDuration);
+
+                if (refundsToExpunge.isEmpty()) {
+                    break;
+                }
+
+                RefundEntity lastRefund = refundsToExpunge.get(refundsToExpunge.size() - 1);
+                cursor = KeysetCursor.after(lastRefund.getCreatedDate().toInstant(), lastRefund.getId());
+
+                for (RefundEntity refundEntity : refundsToExpunge) {
                     MDC.put(REFUND_EXTERNAL_ID, refundEntity.getExternalId());
                     logger.info(format("Attempting to expunge refund %s", refundEntity.getExternalId()));
                     try {
@@ -74,10 +88,9 @@ public class RefundExpungeService {
                         throw error;
                     }
                     MDC.remove(REFUND_EXTERNAL_ID);
-                } else {
-                    break;
                 }
 
+                processed += refundsToExpunge.size();
             }
         }
     }
@@ -1,11 +1,11 @@
 package uk.gov.pay.connector.filters;
 
+import com.codahale.metrics.Counter;
+import io.dropwizard.setup.Environment;
 import org.slf4j.MDC;
-import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
-import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
-import uk.gov.pay.connector.charge.service.ChargeService;
-import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
-import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
+import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
 import uk.gov.pay.connector.util.MDCUtils;
 
 import javax.inject.Inject;
@@ -18,24 +18,32 @@ import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER_PAYMENT_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.REFUND_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.SECURE_TOKEN;
 
+/**
+ * Adds charge and gateway account details to the MDC. Only the fields that are logged are queried, so the filter does
+ * not load the charge or gateway account entities that the resource goes on to load itself.
+ */
 public class LoggingMDCRequestFilter implements ContainerRequestFilter {
 
-    private final ChargeService chargeService;
-    private final GatewayAccountService gatewayAccountService;
+    static final String DATABASE_QUERIES_METRIC_NAME = "logging-mdc-request-filter.database-queries";
+
+    private final ChargeDao chargeDao;
+    private final GatewayAccountDao gatewayAccountDao;
+    private final Counter databaseQueriesCounter;
 
     @Inject
-    public LoggingMDCRequestFilter(ChargeService chargeService, GatewayAccountService gatewayAccountService) {
-        this.chargeService = chargeService;
-        this.gatewayAccountService = gatewayAccountService;
+    public LoggingMDCRequestFilter(ChargeDao chargeDao, GatewayAccountDao gatewayAccountDao, Environment environment) {
+        this.chargeDao = chargeDao;
+        this.gatewayAccountDao = gatewayAccountDao;
+        this.databaseQueriesCounter = environment.metrics().counter(DATABASE_QUERIES_METRIC_NAME);
     }
 
     @Override
     public void filter(ContainerRequestContext requestContext) {
-        var chargeEntity = getChargeFromRequest(requestContext);
+        var chargeLoggingContext = getChargeFromRequest(requestContext);
 
         // Fields are removed from the MDC when the API responds in LoggingMDCResponseFilter
-        chargeEntity.ifPresentOrElse(MDCUtils::addChargeAndGatewayAccountDetailsToMDC,
-                () -> getAccountFromRequest(requestContext).ifPresent(MDCUtils::addGatewayAccountDetailsToMDC));
+        chargeLoggingContext.ifPresentOrElse(MDCUtils::addChargeAndGatewayAccountDetailsToMDC,
+                () -> addAccountFromRequestToMDC(requestContext));
 
         getPathParameterFromRequest("refundId", requestContext)
                 .ifPresent(refund -> MDC.put(REFUND_EXTERNAL_ID, refund));
@@ -50,19 +58,22 @@ public class LoggingMDCRequestFilter implements ContainerRequestFilter {
                 .ifPresent(agreementId -> MDC.put(AGREEMENT_EXTERNAL_ID, agreementId));
     }
 
-    private Optional<ChargeEntity> getChargeFromRequest(ContainerRequestContext requestContext) {
-        try {
-            return getPathParameterFromRequest("chargeId", requestContext)
-                    .map(chargeService::findChargeByExternalId);
-        } catch (ChargeNotFoundRuntimeException ex) {
-            return Optional.empty();
-        }
+    private Optional<ChargeLoggingContext> getChargeFromRequest(ContainerRequestContext requestContext) {
+        return getPathParameterFromRequest("chargeId", requestContext)
+                .flatMap(chargeId -> {
+                    databaseQueriesCounter.inc();
+                    return chargeDao.findLoggingContextByExternalId(chargeId);
+                });
     }
 
-    private Optional<GatewayAccountEntity> getAccountFromRequest(ContainerRequestContext requestContext) {
-        return getPathParameterFromRequest("accountId", requestContext)
+    private void addAccountFromRequestToMDC(ContainerRequestContext requestContext) {
+        getPathParameterFromRequest("accountId", requestContext)
                 .flatMap(this::safelyConvertToLong)
-                .flatMap(gatewayAccountService::getGatewayAccount);
+                .ifPresent(accountId -> {
+                    databaseQueriesCounter.inc();
+                    gatewayAccountDao.findTypeById(accountId)
+                            .ifPresent(type -> MDCUtils.addGatewayAccountDetailsToMDC(accountId, type));
+                });
     }
 
     private Optional<String> getPathParameterFromRequest(String parameterName, ContainerRequestContext requestContext) {
@@ -29,7 +29,7 @@ public class StripeAccountUpdatedHandler {
 
     public void process(StripeNotification notification) {
         try {
-            var dataObject = objectMapper.readValue(notification.getObject(), DataObject.class);
+            var dataObject = notification.getObject(objectMapper, DataObject.class);
             if (canBeActivated(dataObject)) {
                 credentialsService.activateCredentialIfNotYetActive(dataObject.getId());
             }
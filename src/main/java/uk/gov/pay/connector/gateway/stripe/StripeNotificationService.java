@@ -22,6 +22,7 @@ import uk.gov.pay.connector.gateway.stripe.json.StripeCharge;
 import uk.gov.pay.connector.gateway.stripe.json.StripePaymentIntent;
 import uk.gov.pay.connector.gateway.stripe.json.StripePayout;
 import uk.gov.pay.connector.gateway.stripe.response.StripeNotification;
+import uk.gov.pay.connector.paymentprocessor.service.Authorisation3dsReadyWaiter;
 import uk.gov.pay.connector.paymentprocessor.service.Card3dsResponseAuthService;
 import uk.gov.pay.connector.payout.PayoutEmitterService;
 import uk.gov.pay.connector.queue.payout.Payout;
@@ -30,12 +31,19 @@ import uk.gov.pay.connector.queue.tasks.TaskQueueService;
 import uk.gov.pay.connector.queue.tasks.TaskType;
 import uk.gov.pay.connector.queue.tasks.model.Task;
 import uk.gov.pay.connector.util.IpAddressMatcher;
+import uk.gov.pay.connector.webhook.service.NotificationInboxService;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 
 import javax.ws.rs.WebApplicationException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -57,7 +65,6 @@ import static uk.gov.pay.connector.gateway.stripe.StripeNotificationType.REFUND_
 import static uk.gov.pay.connector.gateway.stripe.StripeNotificationType.byType;
 import static uk.gov.service.payments.logging.LoggingKeys.CONNECT_ACCOUNT_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_PAYOUT_ID;
-import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.STRIPE_EVENT_ID;
 
 public class StripeNotificationService {
@@ -86,9 +93,12 @@ public class StripeNotificationService {
     private final IpAddressMatcher ipAddressMatcher;
     private final Set<String> allowedStripeIpAddresses;
     private final TaskQueueService taskQueueService;
+    private final NotificationInboxService notificationInboxService;
+    private final Authorisation3dsReadyWaiter authorisation3dsReadyWaiter;
 
     private static final String PAYMENT_GATEWAY_NAME = PaymentGatewayName.STRIPE.getName();
     private static final long DEFAULT_TOLERANCE = 300L;
+    private static final Duration DEFERRED_AUTHORISATION_GRACE_PERIOD = Duration.ofMinutes(1);
 
     @Inject
     public StripeNotificationService(Card3dsResponseAuthService card3dsResponseAuthService,
@@ -101,7 +111,9 @@ public class StripeNotificationService {
                                      IpAddressMatcher ipAddressMatcher,
                                      @Named("AllowedStripeIpAddresses") Set<String> allowedStripeIpAddresses,
                                      ObjectMapper objectMapper,
-                                     TaskQueueService taskQueueService) {
+                                     TaskQueueService taskQueueService,
+                                     NotificationInboxService notificationInboxService,
+                                     Authorisation3dsReadyWaiter authorisation3dsReadyWaiter) {
         this.card3dsResponseAuthService = card3dsResponseAuthService;
         this.chargeService = chargeService;
         this.stripeAccountUpdatedHandler = stripeAccountUpdatedHandler;
@@ -113,6 +125,8 @@ public class StripeNotificationService {
         this.ipAddressMatcher = ipAddressMatcher;
         this.allowedStripeIpAddresses = allowedStripeIpAddresses;
         this.taskQueueService = taskQueueService;
+        this.notificationInboxService = notificationInboxService;
+        this.authorisation3dsReadyWaiter = authorisation3dsReadyWaiter;
     }
 
     public boolean handleNotificationFor(String payload, String signatureHeader, String forwardedIpAddresses) {
@@ -122,22 +136,58 @@ public class StripeNotificationService {
 
         logger.info("Parsing {} notification", PAYMENT_GATEWAY_NAME);
 
-        if (!isValidNotificationSignature(payload, signatureHeader)) {
+        Optional<StripeNotification> parsedNotification = tryDeserialiseNotification(payload);
+
+        if (!isValidNotificationSignature(payload, signatureHeader,
+                parsedNotification.map(StripeNotification::getAccount).isPresent())) {
             throw new WebApplicationException(format("Invalid notification signature from %s [%s]", PAYMENT_GATEWAY_NAME, signatureHeader));
         }
 
+        if (parsedNotification.isEmpty()) {
+            return true;
+        }
+        StripeNotification notification = parsedNotification.get();
+        MDC.put(STRIPE_EVENT_ID, notification.getId());
+        logger.info("Parsed {} notification: {}", PAYMENT_GATEWAY_NAME, notification);
+
+        if (notificationInboxService.isEnabled()) {
+            notificationInboxService.accept(PaymentGatewayName.STRIPE, notification.getId(),
+                    notification.getObjectId().orElse(notification.getId()), payload);
+        } else {
+            process(notification, payload, (charge, authorise) -> deferToNotificationInbox(notification, payload));
+        }
+        MDC.remove(STRIPE_EVENT_ID);
+        return true;
+    }
+
+    /**
+     * Processes a notification previously accepted into the notification inbox. The signature has already been
+     * verified when the notification was accepted. Exceptions thrown while processing cause the notification
+     * to be retried later, so a payment intent notification for a charge that is not yet 3DS ready is only
+     * returned from once the deferred authorisation has finished.
+     */
+    public boolean processNotification(String payload) {
         StripeNotification notification;
         try {
             notification = deserialise(payload, StripeNotification.class);
-            MDC.put(STRIPE_EVENT_ID, notification.getId());
-            logger.info("Parsed {} notification: {}", PAYMENT_GATEWAY_NAME, notification);
         } catch (StripeParseException e) {
             logger.error("{} notification parsing failed: {}", PAYMENT_GATEWAY_NAME, e);
             return true;
         }
 
+        try {
+            MDC.put(STRIPE_EVENT_ID, notification.getId());
+            process(notification, payload, this::authoriseWhen3dsReady);
+        } finally {
+            MDC.remove(STRIPE_EVENT_ID);
+        }
+        return true;
+    }
+
+    private void process(StripeNotification notification, String payload,
+                         BiConsumer<ChargeEntity, Runnable> deferUntil3dsReady) {
         if (isAPaymentIntentNotification(notification)) {
-            processPaymentIntentNotification(notification);
+            processPaymentIntentNotification(notification, deferUntil3dsReady);
         } else if (isAnAccountUpdatedNotification(notification)) {
             stripeAccountUpdatedHandler.process(notification);
         } else if (isAPayoutNotification(notification)) {
@@ -149,18 +199,27 @@ public class StripeNotificationService {
         } else if (isABalanceAvailableNotification(notification)) {
             processBalanceAvailableNotification(notification);
         }
-        MDC.remove(STRIPE_EVENT_ID);
-        return true;
     }
 
+    /**
+     * Queues the parsed notification rather than the payload Stripe sent, so the task carries only the fields the
+     * task handler reads. The payload is queued instead if the notification cannot be serialised.
+     */
     private void processDisputeNotification(StripeNotification notification, String payload) {
         logger.info("Received a {} event", notification.getType());
-        taskQueueService.add(new Task(payload, TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION));
+        String taskData;
+        try {
+            taskData = objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            logger.warn("{} notification serialisation for task queue failed, queueing payload: {}", PAYMENT_GATEWAY_NAME, e.getMessage());
+            taskData = payload;
+        }
+        taskQueueService.add(new Task(taskData, TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION));
     }
 
     private void processBalanceAvailableNotification(StripeNotification notification) {
         try {
-            StripeBalance stripeBalance = deserialise(notification.getObject(), StripeBalance.class);
+            StripeBalance stripeBalance = deserialiseObject(notification, StripeBalance.class);
             if (!stripeBalance.getAvailable().isEmpty()) {
                 StripeBalance.Available available = stripeBalance.getAvailable().iterator().next();
                 // Logging the currency and amount is used as part of a splunk search to track our stripe balance
@@ -186,12 +245,20 @@ public class StripeNotificationService {
         }
     }
 
+    private <T> T deserialiseObject(StripeNotification notification, Class<T> targetClass) throws StripeParseException {
+        try {
+            return notification.getObject(objectMapper, targetClass);
+        } catch (Exception e) {
+            throw new StripeParseException(e.getMessage());
+        }
+    }
+
     private void processPayoutNotification(StripeNotification notification) {
         logger.info(format("Processing %s payout created notification with id [%s]", PAYMENT_GATEWAY_NAME,
                 notification.getId()),
                 kv(CONNECT_ACCOUNT_ID, notification.getAccount()));
         try {
-            StripePayout stripePayout = deserialise(notification.getObject(), StripePayout.class);
+            StripePayout stripePayout = deserialiseObject(notification, StripePayout.class);
             StripeNotificationType stripeNotificationType = byType(notification.getType());
 
             if (PAYOUT_CREATED.equals(stripeNotificationType)) {
@@ -227,9 +294,10 @@ public class StripeNotificationService {
         }
     }
 
-    private void processPaymentIntentNotification(StripeNotification notification) {
+    private void processPaymentIntentNotification(StripeNotification notification,
+                                                  BiConsumer<ChargeEntity, Runnable> deferUntil3dsReady) {
         try {
-            StripePaymentIntent paymentIntent = deserialise(notification.getObject(), StripePaymentIntent.class);
+            StripePaymentIntent paymentIntent = deserialiseObject(notification, StripePaymentIntent.class);
 
             if (isBlank(paymentIntent.getId())) {
                 logger.warn("{} payment intent notification [{}] failed verification because it has no transaction ID", PAYMENT_GATEWAY_NAME, notification);
@@ -254,7 +322,7 @@ public class StripeNotificationService {
             }
 
             if (isChargeIn3DSRequiredOrReadyState(ChargeStatus.fromString(charge.getStatus()))) {
-                executePost3DSAuthorisation(charge, notification.getType(), paymentIntent);
+                executePost3DSAuthorisation(charge, notification.getType(), paymentIntent, deferUntil3dsReady);
             }
 
         } catch (StripeParseException e) {
@@ -262,49 +330,71 @@ public class StripeNotificationService {
         }
     }
 
-    private void executePost3DSAuthorisation(ChargeEntity charge, String notificationEventType, StripePaymentIntent paymentIntent) {
-        try {
-            final StripeNotificationType type = byType(notificationEventType);
+    private void executePost3DSAuthorisation(ChargeEntity charge, String notificationEventType,
+                                             StripePaymentIntent paymentIntent,
+                                             BiConsumer<ChargeEntity, Runnable> deferUntil3dsReady) {
+        final StripeNotificationType type = byType(notificationEventType);
 
-            Auth3dsResult auth3DsResult = new Auth3dsResult();
-            auth3DsResult.setAuth3dsResult(getMappedAuth3dsResult(type));
+        Auth3dsResult auth3DsResult = new Auth3dsResult();
+        auth3DsResult.setAuth3dsResult(getMappedAuth3dsResult(type));
 
-            auth3DsResult.setGatewayResponseStringified(paymentIntent.stringify());
+        auth3DsResult.setGatewayResponseStringified(paymentIntent.stringify());
 
-            Optional<StripeCharge> optionalStripeCharge = paymentIntent.getCharge();
-            optionalStripeCharge.ifPresent(stripeCharge -> {
-                if (stripeCharge.getPaymentMethodDetails() != null &&
-                        stripeCharge.getPaymentMethodDetails().getCard() != null &&
-                        stripeCharge.getPaymentMethodDetails().getCard().getThreeDSecure() != null) {
-                            auth3DsResult.setThreeDsVersion(stripeCharge.getPaymentMethodDetails().getCard().getThreeDSecure().getVersion());
-                }
-            });
-            delayFor3dsReady(charge);
-            card3dsResponseAuthService.process3DSecureAuthorisationWithoutLocking(charge.getExternalId(), auth3DsResult);
-        } catch (OperationAlreadyInProgressRuntimeException e) {
-            // CardExecutorService is asynchronous and sends back 'OperationAlreadyInProgressRuntimeException' 
-            // exception while the charge is being authorised. Catch this exception to send a response with 
-            // http status 200 instead of depending on the status returned by Exception
+        Optional<StripeCharge> optionalStripeCharge = paymentIntent.getCharge();
+        optionalStripeCharge.ifPresent(stripeCharge -> {
+            if (stripeCharge.getPaymentMethodDetails() != null &&
+                    stripeCharge.getPaymentMethodDetails().getCard() != null &&
+                    stripeCharge.getPaymentMethodDetails().getCard().getThreeDSecure() != null) {
+                        auth3DsResult.setThreeDsVersion(stripeCharge.getPaymentMethodDetails().getCard().getThreeDSecure().getVersion());
+            }
+        });
+
+        Runnable authorise = () -> {
+            try {
+                card3dsResponseAuthService.process3DSecureAuthorisationWithoutLocking(charge.getExternalId(), auth3DsResult);
+            } catch (OperationAlreadyInProgressRuntimeException e) {
+                // CardExecutorService is asynchronous and sends back 'OperationAlreadyInProgressRuntimeException'
+                // exception while the charge is being authorised. Catch this exception to send a response with
+                // http status 200 instead of depending on the status returned by Exception
+            }
+        };
+
+        // A notification can arrive before frontend has moved the charge to 3DS ready
+        if (ChargeStatus.fromString(charge.getStatus()) == AUTHORISATION_3DS_READY) {
+            authorise.run();
+        } else {
+            deferUntil3dsReady.accept(charge, authorise);
         }
     }
 
-    private void delayFor3dsReady(ChargeEntity charge) {
-        int totalTimeDelayedInMillis = 0;
-        int delayInMillis = 200;
-        while (totalTimeDelayedInMillis < stripeGatewayConfig.getNotification3dsWaitDelay()) {
-            ChargeEntity chargeEntity = chargeService.findChargeByExternalId(charge.getExternalId());
-            if (ChargeStatus.fromString(chargeEntity.getStatus()) == AUTHORISATION_3DS_READY) {
-                break;
-            }
-            try {
-                Thread.sleep(delayInMillis);
-            } catch (InterruptedException e) {
-                logger.error("Waiting for 3ds ready locking state failed, {}", kv("error", e.getMessage()));
+    // Waiting would hold the request thread, and waiting in the background after Stripe has been told the
+    // notification was handled would lose the authorisation if it failed or connector stopped, so the notification
+    // is stored in the notification inbox and processed from there instead
+    private void deferToNotificationInbox(StripeNotification notification, String payload) {
+        logger.info("Charge is not yet ready for 3DS authorisation, deferring {} notification to notification inbox",
+                PAYMENT_GATEWAY_NAME);
+        notificationInboxService.accept(PaymentGatewayName.STRIPE, notification.getId(),
+                notification.getObjectId().orElse(notification.getId()), payload);
+    }
+
+    // The inbox worker waits without polling the charge itself, and only lets the notification be marked as
+    // processed once the authorisation has finished, so failures are retried by the inbox
+    private void authoriseWhen3dsReady(ChargeEntity charge, Runnable authorise) {
+        Duration maxWait = Duration.ofMillis(stripeGatewayConfig.getNotification3dsWaitDelay());
+        try {
+            authorisation3dsReadyWaiter.runWhenReady(charge.getExternalId(), maxWait, authorise)
+                    .get(maxWait.plus(DEFERRED_AUTHORISATION_GRACE_PERIOD).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-            totalTimeDelayedInMillis += delayInMillis;
+            throw new IllegalStateException("Deferred 3DS authorisation failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for deferred 3DS authorisation to finish", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for deferred 3DS authorisation to finish", e);
         }
-        logger.info("Total time waited for Frontend to update charge [{}] to 3ds ready - {} milliseconds,"
-                , kv(PAYMENT_EXTERNAL_ID, charge.getExternalId()), totalTimeDelayedInMillis);
     }
 
     private boolean isAPaymentIntentNotification(StripeNotification notification) {
@@ -347,10 +437,27 @@ public class StripeNotificationService {
         return threeDSAuthorisableStates.contains(chargeStatus);
     }
 
-    private boolean isValidNotificationSignature(String payload, String signatureHeader) {
-        boolean isValid = stripeGatewayConfig.getWebhookSigningSecrets()
-                .stream()
-                .anyMatch(s -> isValidNotificationSignature(payload, signatureHeader, s));
+    private Optional<StripeNotification> tryDeserialiseNotification(String payload) {
+        try {
+            return Optional.of(deserialise(payload, StripeNotification.class));
+        } catch (StripeParseException e) {
+            logger.error("{} notification parsing failed: {}", PAYMENT_GATEWAY_NAME, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Notifications about connected accounts carry the account they are for and are signed with a Connect webhook
+     * secret, so those secrets are tried first for them and the account webhook secrets first for the rest. The
+     * other secrets are still tried, so a notification is never rejected only because its shape was unexpected.
+     */
+    private boolean isValidNotificationSignature(String payload, String signatureHeader, boolean fromConnectedAccount) {
+        List<String> connectSecrets = stripeGatewayConfig.getConnectWebhookSigningSecrets();
+        List<String> accountSecrets = stripeGatewayConfig.getWebhookSigningSecrets();
+        boolean isValid = Stream.concat(
+                        (fromConnectedAccount ? connectSecrets : accountSecrets).stream(),
+                        (fromConnectedAccount ? accountSecrets : connectSecrets).stream())
+                .anyMatch(secret -> isValidNotificationSignature(payload, signatureHeader, secret));
         if (isValid) {
             return true;
         } else {
@@ -58,7 +58,10 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
 import static uk.gov.pay.connector.gateway.PaymentGatewayName.STRIPE;
 import static uk.gov.pay.connector.gateway.stripe.StripeAuthorisationResponse.STRIPE_RECURRING_AUTH_TOKEN_CUSTOMER_ID_KEY;
 
@@ -94,7 +97,14 @@ public class StripePaymentProvider implements PaymentProvider {
         stripeCaptureHandler = new StripeCaptureHandler(client, stripeGatewayConfig, jsonObjectMapper);
         stripeCancelHandler = new StripeCancelHandler(client, stripeGatewayConfig);
         stripeRefundHandler = new StripeRefundHandler(client, stripeGatewayConfig, jsonObjectMapper);
-        stripeAuthoriseHandler = new StripeAuthoriseHandler(client, stripeGatewayConfig, configuration, jsonObjectMapper);
+        ExecutorService authorisationExecutorService = environment.lifecycle()
+                .executorService("stripe-authorise-%d")
+                .minThreads(stripeGatewayConfig.getAuthorisationThreads())
+                .maxThreads(stripeGatewayConfig.getAuthorisationThreads())
+                .workQueue(new ArrayBlockingQueue<>(stripeGatewayConfig.getAuthorisationThreads()))
+                .build();
+        stripeAuthoriseHandler = new StripeAuthoriseHandler(client, stripeGatewayConfig, configuration, jsonObjectMapper,
+                authorisationExecutorService, stripeSDKClient, environment.metrics());
         stripeFailedPaymentFeeCollectionHandler = new StripeFailedPaymentFeeCollectionHandler(client, stripeGatewayConfig, jsonObjectMapper);
         stripeQueryPaymentStatusHandler = new StripeQueryPaymentStatusHandler(client, stripeGatewayConfig, jsonObjectMapper);
         stripeDisputeHandler = new StripeDisputeHandler(client, stripeGatewayConfig, jsonObjectMapper);
@@ -198,6 +208,11 @@ public class StripePaymentProvider implements PaymentProvider {
         try {
             stripeSDKClient.deleteCustomer(customerId, request.isLive());
         } catch (StripeException e) {
+            // A customer that no longer exists was deleted by an earlier attempt whose cancellation did not complete
+            if (Integer.valueOf(SC_NOT_FOUND).equals(e.getStatusCode())) {
+                logger.info("Stripe customer {} has already been deleted", customerId);
+                return;
+            }
             var message = String.format("Error when attempting to delete Stripe customer %s. Status code: %s, Error code: %s, Message: %s",
                     customerId, e.getStatusCode(), e.getCode(), e.getMessage());
             throw new GatewayException.GenericGatewayException(message);
@@ -25,7 +25,7 @@ public class StripeRefundUpdatedHandler {
     
     public void process(StripeNotification notification) {
         try {
-            var dataObject = objectMapper.readValue(notification.getObject(), DataObject.class);
+            var dataObject = notification.getObject(objectMapper, DataObject.class);
             if (dataObject.status.equals("failed")) {
                 LOGGER.info("Received a charge.refund.updated event with status failed",
                         kv("stripe_refund_id", dataObject.refundId),
@@ -6,6 +6,7 @@ import com.stripe.net.RequestOptions;
 import uk.gov.pay.connector.app.StripeGatewayConfig;
 
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,15 +23,27 @@ public class StripeSdkClient {
     }
 
     public Iterable<BalanceTransaction> getBalanceTransactionsForPayout(String payoutId, String stripeAccountId, boolean live) throws StripeException {
+        return getBalanceTransactionsForPayout(payoutId, stripeAccountId, live, null);
+    }
+
+    /**
+     * Lists the balance transactions for the payout that come after startingAfter in Stripe's ordering, or all of
+     * them if startingAfter is null.
+     */
+    public Iterable<BalanceTransaction> getBalanceTransactionsForPayout(String payoutId, String stripeAccountId, boolean live,
+                                                                        String startingAfter) throws StripeException {
         String apiKey = getStripeApiKey(live);
         RequestOptions requestOptions = RequestOptions.builder()
                 .setApiKey(apiKey)
                 .setStripeAccount(stripeAccountId)
                 .build();
 
-        Map<String, Object> params = Map.of(
-                "payout", payoutId,
-                "expand", List.of("data.source", "data.source.source_transfer"));
+        Map<String, Object> params = new HashMap<>();
+        params.put("payout", payoutId);
+        params.put("expand", List.of("data.source", "data.source.source_transfer"));
+        if (startingAfter != null) {
+            params.put("starting_after", startingAfter);
+        }
 
         return stripeSDKWrapper.listBalanceTransactions(params, requestOptions);
     }
@@ -1,8 +1,12 @@
 package uk.gov.pay.connector.gateway.stripe.handler;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
+import com.stripe.exception.StripeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.StripeGatewayConfig;
@@ -15,6 +19,7 @@ import uk.gov.pay.connector.gateway.model.request.RecurringPaymentAuthorisationG
 import uk.gov.pay.connector.gateway.model.response.BaseResponse;
 import uk.gov.pay.connector.gateway.model.response.GatewayResponse;
 import uk.gov.pay.connector.gateway.stripe.StripeAuthorisationResponse;
+import uk.gov.pay.connector.gateway.stripe.StripeSdkClient;
 import uk.gov.pay.connector.gateway.stripe.json.StripeAuthorisationFailedResponse;
 import uk.gov.pay.connector.gateway.stripe.json.StripeErrorResponse;
 import uk.gov.pay.connector.gateway.stripe.request.StripeCustomerRequest;
@@ -25,6 +30,14 @@ import uk.gov.pay.connector.gateway.stripe.response.StripePaymentIntentResponse;
 import uk.gov.pay.connector.gateway.stripe.response.StripePaymentMethodResponse;
 import uk.gov.pay.connector.util.JsonObjectMapper;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static javax.ws.rs.core.Response.Status.Family.CLIENT_ERROR;
 import static javax.ws.rs.core.Response.Status.Family.SERVER_ERROR;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -36,21 +49,40 @@ import static uk.gov.pay.connector.gateway.stripe.StripeAuthorisationResponse.ST
 public class StripeAuthoriseHandler implements AuthoriseHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(StripeAuthoriseHandler.class);
+    private static final String METRICS_PREFIX = "gateway-operations.stripe.authorise.";
 
     private final GatewayClient client;
     private final StripeGatewayConfig stripeGatewayConfig;
     private final JsonObjectMapper jsonObjectMapper;
     private final String frontendUrl;
+    private final ExecutorService executorService;
+    private final StripeSdkClient stripeSdkClient;
+    private final Timer createPaymentMethodTimer;
+    private final Timer createCustomerTimer;
+    private final Timer createPaymentIntentTimer;
 
+    /**
+     * @param executorService runs calls to Stripe that do not depend on each other alongside the calling thread. If it
+     *                        rejects a call, the call is made on the calling thread instead.
+     * @param stripeSdkClient deletes a customer created alongside a payment method that could not be created
+     */
     @Inject
     public StripeAuthoriseHandler(GatewayClient client,
                                   StripeGatewayConfig stripeGatewayConfig,
                                   ConnectorConfiguration configuration,
-                                  JsonObjectMapper jsonObjectMapper) {
+                                  JsonObjectMapper jsonObjectMapper,
+                                  ExecutorService executorService,
+                                  StripeSdkClient stripeSdkClient,
+                                  MetricRegistry metricRegistry) {
         this.client = client;
         this.frontendUrl = configuration.getLinks().getFrontendUrl();
         this.stripeGatewayConfig = stripeGatewayConfig;
         this.jsonObjectMapper = jsonObjectMapper;
+        this.executorService = executorService;
+        this.stripeSdkClient = stripeSdkClient;
+        this.createPaymentMethodTimer = metricRegistry.timer(METRICS_PREFIX + "create-payment-method");
+        this.createCustomerTimer = metricRegistry.timer(METRICS_PREFIX + "create-customer");
+        this.createPaymentIntentTimer = metricRegistry.timer(METRICS_PREFIX + "create-payment-intent");
     }
 
     @Override
@@ -64,16 +96,20 @@ public class StripeAuthoriseHandler implements AuthoriseHandler {
                 .GatewayResponseBuilder
                 .responseBuilder();
         try {
-            StripePaymentMethodResponse stripePaymentMethodResponse = createPaymentMethod(request);
-
             StripePaymentIntentResponse stripePaymentIntentResponse;
             if (request.isSavePaymentInstrumentToAgreement()) {
-                StripeCustomerResponse stripeCustomerResponse = createCustomer(request, request.getAgreement().orElseThrow(() -> new RuntimeException("Expected charge with isSavePaymentInstrumentToAgreement == true to have a saved agreement")));
-                var customerId = stripeCustomerResponse.getId();
+                AgreementEntity agreement = request.getAgreement().orElseThrow(() -> new RuntimeException("Expected charge with isSavePaymentInstrumentToAgreement == true to have a saved agreement"));
+                // The customer does not depend on the payment method, so both are created at the same time
+                Optional<BackgroundCustomer> backgroundCustomer = createCustomerInBackground(request, agreement);
+                StripePaymentMethodResponse stripePaymentMethodResponse = createPaymentMethodOrDiscardCustomer(request, backgroundCustomer);
+                var customerId = backgroundCustomer.isPresent()
+                        ? awaitCustomer(backgroundCustomer.get().response).getId()
+                        : createCustomer(request, agreement).getId();
                 stripePaymentIntentResponse = createPaymentIntentForSetUpAgreement(request, stripePaymentMethodResponse.getId(), customerId);
                 logger.info("Created Stripe payment intent and stored payment details for recurring payment agreement",
                         kv("stripe_payment_intent_id", stripePaymentIntentResponse.getId()));
             } else {
+                StripePaymentMethodResponse stripePaymentMethodResponse = createPaymentMethod(request);
                 stripePaymentIntentResponse = createPaymentIntent(request, stripePaymentMethodResponse.getId());
                 logger.info("Created Stripe payment intent",
                         kv("stripe_payment_intent_id", stripePaymentIntentResponse.getId()));
@@ -124,32 +160,117 @@ public class StripeAuthoriseHandler implements AuthoriseHandler {
         throw new RuntimeException("Unrecognised response status when authorising.");
     }
 
+    private Optional<BackgroundCustomer> createCustomerInBackground(CardAuthorisationGatewayRequest request, AgreementEntity agreement) {
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        var backgroundCustomer = new BackgroundCustomer();
+        try {
+            backgroundCustomer.response = executorService.submit(() -> {
+                if (!backgroundCustomer.claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                }
+                try {
+                    return createCustomer(request, agreement);
+                } finally {
+                    MDC.clear();
+                }
+            });
+            return Optional.of(backgroundCustomer);
+        } catch (RejectedExecutionException e) {
+            logger.info("Stripe authorisation threads are busy, creating Stripe customer after payment method");
+            return Optional.empty();
+        }
+    }
+
+    private StripePaymentMethodResponse createPaymentMethodOrDiscardCustomer(CardAuthorisationGatewayRequest request,
+                                                                            Optional<BackgroundCustomer> backgroundCustomer)
+            throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
+        try {
+            return createPaymentMethod(request);
+        } catch (GatewayException.GenericGatewayException | GatewayException.GatewayConnectionTimeoutException |
+                 GatewayException.GatewayErrorException | RuntimeException e) {
+            backgroundCustomer.ifPresent(customer -> discardCustomer(request, customer));
+            throw e;
+        }
+    }
+
+    // Without a payment method the customer would never be attached to the agreement, so it is not left in Stripe
+    private void discardCustomer(CardAuthorisationGatewayRequest request, BackgroundCustomer backgroundCustomer) {
+        if (backgroundCustomer.claimed.compareAndSet(false, true)) {
+            backgroundCustomer.response.cancel(false);
+            return;
+        }
+        String customerId;
+        try {
+            customerId = awaitCustomer(backgroundCustomer.response).getId();
+        } catch (GatewayException | RuntimeException e) {
+            logger.info("Stripe customer was not created for failed payment method: {}", e.getMessage());
+            return;
+        }
+        try {
+            stripeSdkClient.deleteCustomer(customerId, request.getGatewayAccount().isLive());
+            logger.info("Deleted Stripe customer created for failed payment method", kv("stripe_customer_id", customerId));
+        } catch (StripeException e) {
+            logger.warn("Failed to delete Stripe customer created for failed payment method", kv("stripe_customer_id", customerId),
+                    kv("error_message", e.getMessage()));
+        }
+    }
+
+    private StripeCustomerResponse awaitCustomer(Future<StripeCustomerResponse> stripeCustomerResponse)
+            throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
+        try {
+            return stripeCustomerResponse.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException.GenericGatewayException("Interrupted while waiting for Stripe customer to be created");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GatewayException.GatewayErrorException) {
+                throw (GatewayException.GatewayErrorException) cause;
+            }
+            if (cause instanceof GatewayException.GatewayConnectionTimeoutException) {
+                throw (GatewayException.GatewayConnectionTimeoutException) cause;
+            }
+            if (cause instanceof GatewayException.GenericGatewayException) {
+                throw (GatewayException.GenericGatewayException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     private StripeCustomerResponse createCustomer(CardAuthorisationGatewayRequest request, AgreementEntity agreement)
             throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
-        String jsonResponse = client.postRequestFor(StripeCustomerRequest.of(request, stripeGatewayConfig, agreement)).getEntity();
-        return jsonObjectMapper.getObject(jsonResponse, StripeCustomerResponse.class);
+        try (Timer.Context ignored = createCustomerTimer.time()) {
+            String jsonResponse = client.postRequestFor(StripeCustomerRequest.of(request, stripeGatewayConfig, agreement)).getEntity();
+            return jsonObjectMapper.getObject(jsonResponse, StripeCustomerResponse.class);
+        }
     }
 
     private StripePaymentMethodResponse createPaymentMethod(CardAuthorisationGatewayRequest request)
             throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
-        String jsonResponse = client.postRequestFor(StripePaymentMethodRequest.of(request, stripeGatewayConfig)).getEntity();
-        return jsonObjectMapper.getObject(jsonResponse, StripePaymentMethodResponse.class);
+        try (Timer.Context ignored = createPaymentMethodTimer.time()) {
+            String jsonResponse = client.postRequestFor(StripePaymentMethodRequest.of(request, stripeGatewayConfig)).getEntity();
+            return jsonObjectMapper.getObject(jsonResponse, StripePaymentMethodResponse.class);
+        }
     }
 
     private StripePaymentIntentResponse createPaymentIntent(CardAuthorisationGatewayRequest request, String paymentMethodId)
             throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
         StripePaymentIntentRequest paymentIntentRequest = StripePaymentIntentRequest.createOneOffPaymentIntentRequest(
                 request, paymentMethodId, stripeGatewayConfig, frontendUrl);
-        String jsonResponse = client.postRequestFor(paymentIntentRequest).getEntity();
-        return jsonObjectMapper.getObject(jsonResponse, StripePaymentIntentResponse.class);
+        return postPaymentIntentRequest(paymentIntentRequest);
     }
 
     private StripePaymentIntentResponse createPaymentIntentForSetUpAgreement(CardAuthorisationGatewayRequest request, String paymentMethodId, String customerId)
             throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
         var paymentIntentRequest = StripePaymentIntentRequest.createPaymentIntentRequestWithSetupFutureUsage(
                 request, paymentMethodId, customerId, stripeGatewayConfig, frontendUrl);
-        String jsonResponse = client.postRequestFor(paymentIntentRequest).getEntity();
-        return jsonObjectMapper.getObject(jsonResponse, StripePaymentIntentResponse.class);
+        return postPaymentIntentRequest(paymentIntentRequest);
     }
 
     private StripePaymentIntentResponse createPaymentIntentForUserNotPresent(RecurringPaymentAuthorisationGatewayRequest request)
@@ -161,7 +282,24 @@ public class StripeAuthoriseHandler implements AuthoriseHandler {
         var paymentMethodId = recurringAuthToken.get(STRIPE_RECURRING_AUTH_TOKEN_PAYMENT_METHOD_ID_KEY);
         var paymentIntentRequest = StripePaymentIntentRequest.createPaymentIntentRequestUseSavedPaymentDetails(
                 request, paymentMethodId, customerId, stripeGatewayConfig, frontendUrl);
-        String jsonResponse = client.postRequestFor(paymentIntentRequest).getEntity();
-        return jsonObjectMapper.getObject(jsonResponse, StripePaymentIntentResponse.class);
+        return postPaymentIntentRequest(paymentIntentRequest);
+    }
+
+    private StripePaymentIntentResponse postPaymentIntentRequest(StripePaymentIntentRequest paymentIntentRequest)
+            throws GatewayException.GenericGatewayException, GatewayException.GatewayConnectionTimeoutException, GatewayException.GatewayErrorException {
+        try (Timer.Context ignored = createPaymentIntentTimer.time()) {
+            String jsonResponse = client.postRequestFor(paymentIntentRequest).getEntity();
+            return jsonObjectMapper.getObject(jsonResponse, StripePaymentIntentResponse.class);
+        }
+    }
+
+    /**
+     * A Stripe customer being created alongside the payment method. Cancelling a future does not stop a request that
+     * has already started, so the request and discarding the customer each claim it: if discarding wins the request
+     * is never made, otherwise the customer is awaited and deleted.
+     */
+    private static class BackgroundCustomer {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<StripeCustomerResponse> response;
     }
 }
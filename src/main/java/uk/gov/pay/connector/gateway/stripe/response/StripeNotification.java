@@ -1,14 +1,23 @@
 package uk.gov.pay.connector.gateway.stripe.response;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.ZonedDateTime;
+import java.util.Optional;
 
 import static uk.gov.pay.connector.util.DateTimeUtils.toUTCZonedDateTime;
 
+/**
+ * Serialises from its annotated fields only, so writing a parsed notification gives a compact copy of the fields we
+ * use that can be read back into a StripeNotification, rather than the whole payload Stripe sent.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
 public class StripeNotification {
 
     @JsonProperty("id")
@@ -40,6 +49,20 @@ public class StripeNotification {
         return data.getObject().toString();
     }
 
+    /**
+     * Converts the already parsed data object into the target type without serialising it back to a string.
+     */
+    public <T> T getObject(ObjectMapper objectMapper, Class<T> targetClass) throws JsonProcessingException {
+        return objectMapper.treeToValue(data.getObject(), targetClass);
+    }
+
+    public Optional<String> getObjectId() {
+        return Optional.ofNullable(data)
+                .map(StripeEventData::getObject)
+                .map(object -> object.get("id"))
+                .map(JsonNode::asText);
+    }
+
     public String getAccount() {
         return account;
     }
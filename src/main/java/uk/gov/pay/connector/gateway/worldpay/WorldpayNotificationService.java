@@ -2,6 +2,7 @@ package uk.gov.pay.connector.gateway.worldpay;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.persist.Transactional;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.charge.model.domain.Charge;
@@ -15,6 +16,7 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
 import uk.gov.pay.connector.util.IpDomainMatcher;
+import uk.gov.pay.connector.webhook.service.NotificationInboxService;
 
 import javax.inject.Inject;
 import java.util.List;
@@ -50,6 +52,7 @@ public class WorldpayNotificationService {
     private final ChargeNotificationProcessor chargeNotificationProcessor;
     private final RefundNotificationProcessor refundNotificationProcessor;
     private GatewayAccountService gatewayAccountService;
+    private final NotificationInboxService notificationInboxService;
 
     @Inject
     public WorldpayNotificationService(
@@ -58,7 +61,8 @@ public class WorldpayNotificationService {
             IpDomainMatcher ipDomainMatcher,
             ChargeNotificationProcessor chargeNotificationProcessor,
             RefundNotificationProcessor refundNotificationProcessor,
-            GatewayAccountService gatewayAccountService) {
+            GatewayAccountService gatewayAccountService,
+            NotificationInboxService notificationInboxService) {
         this.chargeService = chargeService;
         this.config = config;
         this.ipDomainMatcher = ipDomainMatcher;
@@ -66,6 +70,7 @@ public class WorldpayNotificationService {
         this.chargeNotificationProcessor = chargeNotificationProcessor;
         this.refundNotificationProcessor = refundNotificationProcessor;
         this.gatewayAccountService = gatewayAccountService;
+        this.notificationInboxService = notificationInboxService;
     }
 
     @Transactional
@@ -76,6 +81,34 @@ public class WorldpayNotificationService {
             return false;
         }
 
+        Optional<WorldpayNotification> maybeNotification = parseAndValidate(payload);
+        if (maybeNotification.isEmpty()) {
+            return true;
+        }
+
+        WorldpayNotification notification = maybeNotification.get();
+        if (notificationInboxService.isEnabled()) {
+            notificationInboxService.accept(PaymentGatewayName.WORLDPAY, DigestUtils.sha256Hex(payload),
+                    notification.getTransactionId(), payload);
+            return true;
+        }
+
+        return process(notification);
+    }
+
+    /**
+     * Processes a notification previously accepted into the notification inbox.
+     *
+     * @return false if the notification should be retried later
+     */
+    @Transactional
+    public boolean processNotification(String payload) {
+        return parseAndValidate(payload)
+                .map(this::process)
+                .orElse(true);
+    }
+
+    private Optional<WorldpayNotification> parseAndValidate(String payload) {
         WorldpayNotification notification;
         try {
             logger.info("Parsing {} notification", PAYMENT_GATEWAY_NAME);
@@ -84,20 +117,24 @@ public class WorldpayNotificationService {
             logger.info("Parsed {} notification: {}", PAYMENT_GATEWAY_NAME, notification);
         } catch (XMLUnmarshallerException e) {
             logger.error("{} notification parsing failed: {}", PAYMENT_GATEWAY_NAME, e);
-            return true;
+            return Optional.empty();
         }
 
         if (isIgnored(notification)) {
             logger.info("{} notification {} ignored", PAYMENT_GATEWAY_NAME, notification);
-            return true;
+            return Optional.empty();
         }
 
         if (isTransactionIdBlank(notification)) {
             logger.warn("{} notification {} failed verification because it has no transaction ID", 
                     PAYMENT_GATEWAY_NAME, notification);
-            return true;
+            return Optional.empty();
         }
 
+        return Optional.of(notification);
+    }
+
+    private boolean process(WorldpayNotification notification) {
         Optional<Charge> maybeCharge = chargeService.findByProviderAndTransactionIdFromDbOrLedger(
                 PAYMENT_GATEWAY_NAME, notification.getTransactionId());
 
@@ -3,28 +3,43 @@ package uk.gov.pay.connector.gatewayaccount.dao;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.dao.ReadReplica;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountSearchParams;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIALS_MERCHANT_ID;
 
 @Transactional
 public class GatewayAccountDao extends JpaDao<GatewayAccountEntity> {
 
+    private final ReadReplica readReplica;
+
     @Inject
-    public GatewayAccountDao(final Provider<EntityManager> entityManager) {
+    public GatewayAccountDao(final Provider<EntityManager> entityManager, ReadReplica readReplica) {
         super(entityManager);
+        this.readReplica = readReplica;
     }
 
     public Optional<GatewayAccountEntity> findById(Long gatewayAccountId) {
         return super.findById(GatewayAccountEntity.class, gatewayAccountId);
     }
 
+    public Optional<GatewayAccountType> findTypeById(Long gatewayAccountId) {
+        String query = "SELECT gae.type FROM GatewayAccountEntity gae WHERE gae.id = :gatewayAccountId";
+
+        return entityManager.get()
+                .createQuery(query, GatewayAccountType.class)
+                .setParameter("gatewayAccountId", gatewayAccountId)
+                .getResultList().stream().findFirst();
+    }
+
     public Optional<GatewayAccountEntity> findByNotificationCredentialsUsername(String username) {
         String query = "SELECT gae FROM GatewayAccountEntity gae " +
                 "WHERE gae.notificationCredentials.userName = :username";
@@ -36,20 +51,35 @@ public class GatewayAccountDao extends JpaDao<GatewayAccountEntity> {
     }
 
     public boolean isATelephonePaymentNotificationAccount(String merchantId) {
+        // The key is inlined rather than bound so the query can use the expression index on credentials->>'merchant_id'
         String query = "SELECT count(g) FROM gateway_accounts g, gateway_account_credentials gac " +
                 " where g.id = gac.gateway_account_id " +
-                " AND gac.credentials->>?1 = ?2 " +
+                " AND gac.credentials->>'" + CREDENTIALS_MERCHANT_ID + "' = ?1 " +
                 " and g.allow_telephone_payment_notifications is true";
 
         var count = (Number) entityManager.get()
                 .createNativeQuery(query)
-                .setParameter(1, CREDENTIALS_MERCHANT_ID)
-                .setParameter(2, merchantId)
+                .setParameter(1, merchantId)
                 .getSingleResult();
 
         return count.intValue() > 0;
     }
 
+    @SuppressWarnings("unchecked")
+    public Set<String> findTelephonePaymentNotificationMerchantCodes() {
+        String query = "SELECT DISTINCT gac.credentials->>?1 FROM gateway_accounts g, gateway_account_credentials gac " +
+                " where g.id = gac.gateway_account_id " +
+                " AND gac.credentials->>?1 IS NOT NULL " +
+                " and g.allow_telephone_payment_notifications is true";
+
+        List<String> merchantCodes = entityManager.get()
+                .createNativeQuery(query)
+                .setParameter(1, CREDENTIALS_MERCHANT_ID)
+                .getResultList();
+
+        return Set.copyOf(merchantCodes);
+    }
+
     public List<GatewayAccountEntity> search(GatewayAccountSearchParams params) {
         List<String> filterTemplates = params.getFilterTemplates();
         String whereClause = filterTemplates.isEmpty() ?
@@ -61,13 +91,11 @@ public class GatewayAccountDao extends JpaDao<GatewayAccountEntity> {
                 whereClause +
                 " ORDER BY ga.id";
 
-        var query = entityManager
-                .get()
-                .createNativeQuery(queryTemplate, GatewayAccountEntity.class);
-
-        params.getQueryMap().forEach(query::setParameter);
-
-        return query.getResultList();
+        return readReplica.read(readOnlyEntityManager -> {
+            var query = readOnlyEntityManager.createNativeQuery(queryTemplate, GatewayAccountEntity.class);
+            params.getQueryMap().forEach(query::setParameter);
+            return query.getResultList();
+        });
     }
 
     public Optional<GatewayAccountEntity> findByExternalId(String externalId) {
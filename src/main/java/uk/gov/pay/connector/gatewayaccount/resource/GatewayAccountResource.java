@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.common.exception.CredentialsException;
 import uk.gov.pay.connector.common.model.api.ErrorResponse;
 import uk.gov.pay.connector.common.model.domain.UuidAbstractEntity;
@@ -81,6 +82,7 @@ public class GatewayAccountResource {
     private static final String PASSWORD_KEY = "password";
     private final GatewayAccountService gatewayAccountService;
     private final CardTypeDao cardTypeDao;
+    private final CardTypeRegistry cardTypeRegistry;
     private final GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService;
     private final GatewayAccountRequestValidator validator;
     private final GatewayAccountServicesFactory gatewayAccountServicesFactory;
@@ -89,12 +91,14 @@ public class GatewayAccountResource {
     @Inject
     public GatewayAccountResource(GatewayAccountService gatewayAccountService,
                                   CardTypeDao cardTypeDao,
+                                  CardTypeRegistry cardTypeRegistry,
                                   GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService,
                                   GatewayAccountRequestValidator validator,
                                   GatewayAccountServicesFactory gatewayAccountServicesFactory,
                                   GatewayAccountSwitchPaymentProviderService gatewayAccountSwitchPaymentProviderService) {
         this.gatewayAccountService = gatewayAccountService;
         this.cardTypeDao = cardTypeDao;
+        this.cardTypeRegistry = cardTypeRegistry;
         this.gatewayAccountNotificationCredentialsService = gatewayAccountNotificationCredentialsService;
         this.validator = validator;
         this.gatewayAccountServicesFactory = gatewayAccountServicesFactory;
@@ -381,7 +385,7 @@ public class GatewayAccountResource {
         List<UUID> cardTypeIds = cardTypes.get(CARD_TYPES_FIELD_NAME);
 
         List<CardTypeEntity> cardTypeEntities = cardTypeIds.stream()
-                .map(cardTypeDao::findById)
+                .map(cardTypeRegistry::findById)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(Collectors.toList());
@@ -397,7 +401,8 @@ public class GatewayAccountResource {
                     if (!gatewayAccount.isRequires3ds() && hasAnyRequired3ds(cardTypeEntities)) {
                         return Response.status(Status.CONFLICT).build();
                     }
-                    gatewayAccount.setCardTypes(cardTypeEntities);
+                    // Card types from the registry are detached, so fetch managed instances for the relationship
+                    gatewayAccount.setCardTypes(cardTypeDao.findByIds(cardTypeIds));
                     return Response.ok().build();
                 })
                 .orElseGet(() ->
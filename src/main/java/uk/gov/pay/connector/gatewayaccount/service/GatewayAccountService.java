@@ -65,13 +65,16 @@ public class GatewayAccountService {
     private final GatewayAccountDao gatewayAccountDao;
     private final CardTypeDao cardTypeDao;
     private final GatewayAccountCredentialsService gatewayAccountCredentialsService;
+    private final TelephonePaymentNotificationAccountCache telephonePaymentNotificationAccountCache;
 
     @Inject
     public GatewayAccountService(GatewayAccountDao gatewayAccountDao, CardTypeDao cardTypeDao,
-                                 GatewayAccountCredentialsService gatewayAccountCredentialsService) {
+                                 GatewayAccountCredentialsService gatewayAccountCredentialsService,
+                                 TelephonePaymentNotificationAccountCache telephonePaymentNotificationAccountCache) {
         this.gatewayAccountDao = gatewayAccountDao;
         this.cardTypeDao = cardTypeDao;
         this.gatewayAccountCredentialsService = gatewayAccountCredentialsService;
+        this.telephonePaymentNotificationAccountCache = telephonePaymentNotificationAccountCache;
     }
 
     public Optional<GatewayAccountEntity> getGatewayAccount(long gatewayAccountId) {
@@ -84,8 +87,20 @@ public class GatewayAccountService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    /**
+     * The telephone payment notification merchant codes are invalidated once the patch has been committed, so a reload
+     * running at the same time cannot cache the codes from before the change again.
+     */
     public Optional<GatewayAccount> doPatch(Long gatewayAccountId, JsonPatchRequest gatewayAccountRequest) {
+        Optional<GatewayAccount> patchedGatewayAccount = applyPatch(gatewayAccountId, gatewayAccountRequest);
+        if (patchedGatewayAccount.isPresent() && FIELD_ALLOW_TELEPHONE_PAYMENT_NOTIFICATIONS.equals(gatewayAccountRequest.getPath())) {
+            telephonePaymentNotificationAccountCache.invalidate();
+        }
+        return patchedGatewayAccount;
+    }
+
+    @Transactional
+    public Optional<GatewayAccount> applyPatch(Long gatewayAccountId, JsonPatchRequest gatewayAccountRequest) {
         return gatewayAccountDao.findById(gatewayAccountId)
                 .flatMap(gatewayAccountEntity -> {
                     attributeUpdater.get(gatewayAccountRequest.getPath())
@@ -117,7 +132,7 @@ public class GatewayAccountService {
     }
 
     public boolean isATelephonePaymentNotificationAccount(String merchantCode) {
-        return gatewayAccountDao.isATelephonePaymentNotificationAccount(merchantCode);
+        return telephonePaymentNotificationAccountCache.isATelephonePaymentNotificationAccount(merchantCode);
     }
 
     private final Map<String, BiConsumer<JsonPatchRequest, GatewayAccountEntity>> attributeUpdater = Map.ofEntries(
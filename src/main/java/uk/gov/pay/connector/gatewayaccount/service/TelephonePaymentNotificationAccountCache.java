@@ -0,0 +1,59 @@
+package uk.gov.pay.connector.gatewayaccount.service;
+
+import com.google.common.base.Suppliers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds the merchant codes of gateway accounts that allow telephone payment notifications, so Worldpay notifications
+ * for unknown charges do not need to query the credentials JSON each time. The set is reloaded when it is older than
+ * {@link #REFRESH_INTERVAL_IN_SECONDS} or after {@link #invalidate()} is called following an account or credentials
+ * change on this instance.
+ */
+@Singleton
+public class TelephonePaymentNotificationAccountCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TelephonePaymentNotificationAccountCache.class);
+    static final long REFRESH_INTERVAL_IN_SECONDS = 300;
+
+    private final GatewayAccountDao gatewayAccountDao;
+    private volatile Supplier<Set<String>> merchantCodes;
+
+    @Inject
+    public TelephonePaymentNotificationAccountCache(GatewayAccountDao gatewayAccountDao) {
+        this.gatewayAccountDao = gatewayAccountDao;
+        this.merchantCodes = newSupplier();
+    }
+
+    public boolean isATelephonePaymentNotificationAccount(String merchantCode) {
+        try {
+            return merchantCodes.get().contains(merchantCode);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load telephone payment notification merchant codes, querying directly [error={}]",
+                    e.getMessage());
+            invalidate();
+            return gatewayAccountDao.isATelephonePaymentNotificationAccount(merchantCode);
+        }
+    }
+
+    public void invalidate() {
+        merchantCodes = newSupplier();
+    }
+
+    private Supplier<Set<String>> newSupplier() {
+        return Suppliers.memoizeWithExpiration(this::load, REFRESH_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private Set<String> load() {
+        Set<String> loaded = gatewayAccountDao.findTelephonePaymentNotificationMerchantCodes();
+        LOGGER.info("Loaded {} telephone payment notification merchant codes", loaded.size());
+        return loaded;
+    }
+}
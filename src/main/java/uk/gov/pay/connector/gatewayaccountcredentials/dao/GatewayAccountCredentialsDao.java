@@ -8,12 +8,20 @@ import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCreden
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import java.util.Optional;
+import java.util.Set;
 
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIALS_MERCHANT_ID;
+import static uk.gov.pay.connector.gatewayaccount.model.StripeCredentials.STRIPE_ACCOUNT_ID_KEY;
 import static uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialState.ACTIVE;
 
 @Transactional
 public class GatewayAccountCredentialsDao extends JpaDao<GatewayAccountCredentialsEntity> {
 
+    /**
+     * Credentials keys with an expression index on gateway_account_credentials.
+     */
+    private static final Set<String> INDEXED_CREDENTIALS_KEYS = Set.of(STRIPE_ACCOUNT_ID_KEY, CREDENTIALS_MERCHANT_ID);
+
     @Inject
     public GatewayAccountCredentialsDao(final Provider<EntityManager> entityManager) {
         super(entityManager);
@@ -55,6 +63,16 @@ public class GatewayAccountCredentialsDao extends JpaDao<GatewayAccountCredentia
     }
 
     public Optional<GatewayAccountCredentialsEntity> findByCredentialsKeyValue(String key, String value) {
+        if (INDEXED_CREDENTIALS_KEYS.contains(key)) {
+            // The key is inlined rather than bound so the query can use the expression index on credentials->>key
+            String query = "SELECT * FROM gateway_account_credentials where credentials->>'" + key + "' = ?1";
+
+            return entityManager.get()
+                    .createNativeQuery(query, GatewayAccountCredentialsEntity.class)
+                    .setParameter(1, value)
+                    .getResultList().stream().findFirst();
+        }
+
         String query = "SELECT * FROM gateway_account_credentials where credentials->>?1 = ?2";
 
         return entityManager.get()
@@ -0,0 +1,41 @@
+package uk.gov.pay.connector.gatewayaccountcredentials.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which gateway account credentials hold a given credentials key and value, such as a Stripe connect
+ * account id, so payout messages and Stripe webhooks for the same account do not have to search the credentials JSON
+ * each time. Only the credentials id is held; callers load the entity by id (usually from the shared entity cache) and
+ * must check it still holds the value before using it, so an entry that has gone stale is harmless.
+ */
+@Singleton
+public class GatewayAccountCredentialsLookupCache {
+
+    static final long MAXIMUM_SIZE = 10_000;
+    static final long EXPIRE_AFTER_ACCESS_IN_MINUTES = 60;
+
+    private final Cache<Map.Entry<String, String>, Long> credentialsIds = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS_IN_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public Optional<Long> getCredentialsId(String key, String value) {
+        return Optional.ofNullable(credentialsIds.getIfPresent(Map.entry(key, value)));
+    }
+
+    public void put(String key, String value, Long credentialsId) {
+        if (credentialsId != null) {
+            credentialsIds.put(Map.entry(key, value), credentialsId);
+        }
+    }
+
+    public void invalidate(String key, String value) {
+        credentialsIds.invalidate(Map.entry(key, value));
+    }
+}
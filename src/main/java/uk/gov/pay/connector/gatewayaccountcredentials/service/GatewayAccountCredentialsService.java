@@ -14,6 +14,7 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 import uk.gov.pay.connector.gatewayaccount.model.StripeCredentials;
 import uk.gov.pay.connector.gatewayaccount.model.WorldpayCredentials;
 import uk.gov.pay.connector.gatewayaccount.model.WorldpayMerchantCodeCredentials;
+import uk.gov.pay.connector.gatewayaccount.service.TelephonePaymentNotificationAccountCache;
 import uk.gov.pay.connector.gatewayaccountcredentials.dao.GatewayAccountCredentialsDao;
 import uk.gov.pay.connector.gatewayaccountcredentials.exception.CredentialsNotFoundBadRequestException;
 import uk.gov.pay.connector.gatewayaccountcredentials.exception.NoCredentialsInUsableStateException;
@@ -72,10 +73,18 @@ public class GatewayAccountCredentialsService {
 
     private final ObjectMapper objectMapper;
 
+    private final TelephonePaymentNotificationAccountCache telephonePaymentNotificationAccountCache;
+
+    private final GatewayAccountCredentialsLookupCache gatewayAccountCredentialsLookupCache;
+
     @Inject
-    public GatewayAccountCredentialsService(GatewayAccountCredentialsDao gatewayAccountCredentialsDao, ObjectMapper objectMapper) {
+    public GatewayAccountCredentialsService(GatewayAccountCredentialsDao gatewayAccountCredentialsDao, ObjectMapper objectMapper,
+                                            TelephonePaymentNotificationAccountCache telephonePaymentNotificationAccountCache,
+                                            GatewayAccountCredentialsLookupCache gatewayAccountCredentialsLookupCache) {
         this.gatewayAccountCredentialsDao = gatewayAccountCredentialsDao;
         this.objectMapper = objectMapper;
+        this.telephonePaymentNotificationAccountCache = telephonePaymentNotificationAccountCache;
+        this.gatewayAccountCredentialsLookupCache = gatewayAccountCredentialsLookupCache;
     }
 
     @Transactional
@@ -120,10 +129,22 @@ public class GatewayAccountCredentialsService {
         return credentialsPrePopulated ? ENTERED : CREATED;
     }
 
-    @Transactional
+    /**
+     * The telephone payment notification merchant codes are invalidated once the update has been committed, so a
+     * reload running at the same time cannot cache the codes from before the change again.
+     */
     public GatewayAccountCredentials updateGatewayAccountCredentials(
             GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity,
             Iterable<JsonPatchRequest> updateRequests) {
+        GatewayAccountCredentials updatedCredentials = applyGatewayAccountCredentialsUpdates(gatewayAccountCredentialsEntity, updateRequests);
+        telephonePaymentNotificationAccountCache.invalidate();
+        return updatedCredentials;
+    }
+
+    @Transactional
+    public GatewayAccountCredentials applyGatewayAccountCredentialsUpdates(
+            GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity,
+            Iterable<JsonPatchRequest> updateRequests) {
         for (JsonPatchRequest updateRequest : updateRequests) {
             if (JsonPatchOp.REPLACE == updateRequest.getOp()) {
                 updateGatewayAccountCredentialField(updateRequest, gatewayAccountCredentialsEntity);
@@ -246,8 +267,7 @@ public class GatewayAccountCredentialsService {
 
     @Transactional
     public GatewayAccountEntity findStripeGatewayAccountForCredentialKeyAndValue(String stripeAccountIdKey, String stripeAccountId) {
-        GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity = gatewayAccountCredentialsDao
-                .findByCredentialsKeyValue(stripeAccountIdKey, stripeAccountId)
+        GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity = findByCredentialsKeyValue(stripeAccountIdKey, stripeAccountId)
                 .orElseThrow(() -> new GatewayAccountCredentialsNotFoundException(format("Gateway account credentials with Stripe connect account ID [%s] not found.", stripeAccountId)));
 
         return Optional.ofNullable(gatewayAccountCredentialsEntity)
@@ -255,6 +275,25 @@ public class GatewayAccountCredentialsService {
                 .orElseThrow(() -> new GatewayAccountNotFoundException(format("Gateway account with Stripe connect account ID [%s] not found.", stripeAccountId)));
     }
 
+    /**
+     * Looks up credentials by a key and value in the credentials JSON, going straight to the credentials by id when
+     * the same lookup has been made before and the credentials still hold that value.
+     */
+    private Optional<GatewayAccountCredentialsEntity> findByCredentialsKeyValue(String key, String value) {
+        Optional<GatewayAccountCredentialsEntity> cached = gatewayAccountCredentialsLookupCache.getCredentialsId(key, value)
+                .flatMap(gatewayAccountCredentialsDao::findById)
+                .filter(entity -> entity.getCredentials() != null && value.equals(entity.getCredentials().get(key)));
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        Optional<GatewayAccountCredentialsEntity> found = gatewayAccountCredentialsDao.findByCredentialsKeyValue(key, value);
+        found.ifPresentOrElse(
+                entity -> gatewayAccountCredentialsLookupCache.put(key, value, entity.getId()),
+                () -> gatewayAccountCredentialsLookupCache.invalidate(key, value));
+        return found;
+    }
+
     public GatewayAccountCredentialsEntity getCurrentOrActiveCredential(GatewayAccountEntity gatewayAccountEntity) {
         GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity = gatewayAccountEntity.getCurrentOrActiveGatewayAccountCredential()
                 .orElseThrow(() -> new WebApplicationException(
@@ -297,8 +336,7 @@ public class GatewayAccountCredentialsService {
 
     @Transactional
     public void activateCredentialIfNotYetActive(String stripeAccountId) {
-        var credentials = gatewayAccountCredentialsDao
-                .findByCredentialsKeyValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, stripeAccountId);
+        var credentials = findByCredentialsKeyValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, stripeAccountId);
 
         credentials.ifPresent(updatableCredentialEntity -> {
             if (updatableCredentialEntity.getState() != CREATED) {
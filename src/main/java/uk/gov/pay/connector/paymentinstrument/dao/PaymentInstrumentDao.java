@@ -8,6 +8,7 @@ import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +42,12 @@ public class PaymentInstrumentDao extends JpaDao<PaymentInstrumentEntity> {
                 .setParameter("status", status)
                 .getResultList();
     }
+
+    public int updateStatus(Collection<Long> paymentInstrumentIds, PaymentInstrumentStatus status) {
+        return entityManager.get()
+                .createQuery("UPDATE PaymentInstrumentEntity p SET p.status = :status WHERE p.id IN :ids")
+                .setParameter("status", status)
+                .setParameter("ids", paymentInstrumentIds)
+                .executeUpdate();
+    }
 }
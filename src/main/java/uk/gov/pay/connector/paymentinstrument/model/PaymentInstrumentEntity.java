@@ -80,6 +80,10 @@ public class PaymentInstrumentEntity {
         this.status = status;
     }
 
+    public Long getId() {
+        return id;
+    }
+
     public Optional<Map<String, String>> getRecurringAuthToken() {
         return Optional.ofNullable(recurringAuthToken);
     }
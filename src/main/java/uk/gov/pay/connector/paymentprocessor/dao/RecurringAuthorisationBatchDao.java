@@ -0,0 +1,108 @@
+package uk.gov.pay.connector.paymentprocessor.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchEntity;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchProgress;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.QUEUED;
+
+@Transactional
+public class RecurringAuthorisationBatchDao extends JpaDao<RecurringAuthorisationBatchEntity> {
+
+    @Inject
+    public RecurringAuthorisationBatchDao(Provider<EntityManager> entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * @return the id of the new batch
+     */
+    public long create(long gatewayAccountId) {
+        Number id = (Number) entityManager.get()
+                .createNativeQuery("INSERT INTO recurring_authorisation_batches (gateway_account_id) VALUES (?1) RETURNING id")
+                .setParameter(1, gatewayAccountId)
+                .getSingleResult();
+        return id.longValue();
+    }
+
+    public void addCharge(long batchId, String chargeExternalId) {
+        entityManager.get()
+                .createNativeQuery("INSERT INTO recurring_authorisation_batch_charges (charge_external_id, batch_id, status) " +
+                        "VALUES (?1, ?2, ?3)")
+                .setParameter(1, chargeExternalId)
+                .setParameter(2, batchId)
+                .setParameter(3, QUEUED.name())
+                .executeUpdate();
+    }
+
+    public void recordNotCreated(long batchId, int notCreated) {
+        entityManager.get()
+                .createNativeQuery("UPDATE recurring_authorisation_batches SET not_created = not_created + ?2 WHERE id = ?1")
+                .setParameter(1, batchId)
+                .setParameter(2, notCreated)
+                .executeUpdate();
+    }
+
+    /**
+     * Records the outcome of a charge's authorisation if the charge was submitted in a batch. Only the first outcome
+     * is recorded, so a redelivered task does not count a charge twice.
+     */
+    public void recordOutcome(String chargeExternalId, RecurringAuthorisationBatchChargeStatus status) {
+        entityManager.get()
+                .createNativeQuery("UPDATE recurring_authorisation_batch_charges " +
+                        "SET status = ?2, updated_date = (now() at time zone 'utc') " +
+                        "WHERE charge_external_id = ?1 AND status = ?3")
+                .setParameter(1, chargeExternalId)
+                .setParameter(2, status.name())
+                .setParameter(3, QUEUED.name())
+                .executeUpdate();
+    }
+
+    public Optional<RecurringAuthorisationBatchProgress> findProgress(long gatewayAccountId, long batchId) {
+        return entityManager.get()
+                .createQuery("SELECT b FROM RecurringAuthorisationBatchEntity b " +
+                        "WHERE b.id = :batchId AND b.gatewayAccountId = :gatewayAccountId", RecurringAuthorisationBatchEntity.class)
+                .setParameter("batchId", batchId)
+                .setParameter("gatewayAccountId", gatewayAccountId)
+                .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(batch -> RecurringAuthorisationBatchProgress.from(batch, countChargesByStatus(batchId)));
+    }
+
+    private Map<RecurringAuthorisationBatchChargeStatus, Long> countChargesByStatus(long batchId) {
+        Map<RecurringAuthorisationBatchChargeStatus, Long> counts = new EnumMap<>(RecurringAuthorisationBatchChargeStatus.class);
+        entityManager.get()
+                .createQuery("SELECT c.status, COUNT(c) FROM RecurringAuthorisationBatchChargeEntity c " +
+                        "WHERE c.batchId = :batchId GROUP BY c.status", Object[].class)
+                .setParameter("batchId", batchId)
+                .getResultList()
+                .forEach(row -> counts.put((RecurringAuthorisationBatchChargeStatus) row[0], ((Number) row[1]).longValue()));
+        return counts;
+    }
+
+    /**
+     * Deletes batches, and their charges, that were created before the given date
+     *
+     * @return the number of batches deleted
+     */
+    public int deleteCreatedBefore(Instant createdDate) {
+        return entityManager.get()
+                .createQuery("DELETE FROM RecurringAuthorisationBatchEntity b WHERE b.createdDate < :createdDate")
+                .setParameter("createdDate", createdDate)
+                .executeUpdate();
+    }
+}
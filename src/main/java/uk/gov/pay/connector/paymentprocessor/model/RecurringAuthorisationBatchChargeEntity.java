@@ -0,0 +1,55 @@
+package uk.gov.pay.connector.paymentprocessor.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "recurring_authorisation_batch_charges")
+@Access(AccessType.FIELD)
+public class RecurringAuthorisationBatchChargeEntity {
+
+    @Id
+    @Column(name = "charge_external_id", nullable = false)
+    private String chargeExternalId;
+
+    @Column(name = "batch_id", nullable = false)
+    private Long batchId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RecurringAuthorisationBatchChargeStatus status;
+
+    @Column(name = "updated_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant updatedDate;
+
+    public RecurringAuthorisationBatchChargeEntity() {
+        // For JPA
+    }
+
+    public String getChargeExternalId() {
+        return chargeExternalId;
+    }
+
+    public Long getBatchId() {
+        return batchId;
+    }
+
+    public RecurringAuthorisationBatchChargeStatus getStatus() {
+        return status;
+    }
+
+    public Instant getUpdatedDate() {
+        return updatedDate;
+    }
+}
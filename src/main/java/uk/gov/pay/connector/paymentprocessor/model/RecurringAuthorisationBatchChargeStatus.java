@@ -0,0 +1,7 @@
+package uk.gov.pay.connector.paymentprocessor.model;
+
+public enum RecurringAuthorisationBatchChargeStatus {
+    QUEUED,
+    SUCCEEDED,
+    FAILED
+}
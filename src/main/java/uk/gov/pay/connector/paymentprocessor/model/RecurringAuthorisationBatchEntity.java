@@ -0,0 +1,59 @@
+package uk.gov.pay.connector.paymentprocessor.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "recurring_authorisation_batches")
+@Access(AccessType.FIELD)
+public class RecurringAuthorisationBatchEntity {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "gateway_account_id", nullable = false)
+    private Long gatewayAccountId;
+
+    @Column(name = "not_created", nullable = false)
+    private int notCreated;
+
+    @Column(name = "created_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant createdDate;
+
+    public RecurringAuthorisationBatchEntity() {
+        // For JPA
+    }
+
+    public RecurringAuthorisationBatchEntity(Long id, Long gatewayAccountId, int notCreated, Instant createdDate) {
+        this.id = id;
+        this.gatewayAccountId = gatewayAccountId;
+        this.notCreated = notCreated;
+        this.createdDate = createdDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getGatewayAccountId() {
+        return gatewayAccountId;
+    }
+
+    public int getNotCreated() {
+        return notCreated;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+}
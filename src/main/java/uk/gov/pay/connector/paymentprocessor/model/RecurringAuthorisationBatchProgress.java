@@ -0,0 +1,111 @@
+package uk.gov.pay.connector.paymentprocessor.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import uk.gov.service.payments.commons.api.json.ApiResponseInstantSerializer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.FAILED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.QUEUED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.SUCCEEDED;
+
+/**
+ * Progress of a batch of recurring authorisations. Charges that could not be created are counted as failed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecurringAuthorisationBatchProgress {
+
+    private final long batchId;
+    private final long gatewayAccountId;
+    private final Instant createdDate;
+    private final long queued;
+    private final long succeeded;
+    private final long failed;
+    private final List<String> chargeIds;
+
+    private RecurringAuthorisationBatchProgress(RecurringAuthorisationBatchEntity batch,
+                                                Map<RecurringAuthorisationBatchChargeStatus, Long> chargeCounts,
+                                                List<String> chargeIds) {
+        this.batchId = batch.getId();
+        this.gatewayAccountId = batch.getGatewayAccountId();
+        this.createdDate = batch.getCreatedDate();
+        this.queued = chargeCounts.getOrDefault(QUEUED, 0L);
+        this.succeeded = chargeCounts.getOrDefault(SUCCEEDED, 0L);
+        this.failed = chargeCounts.getOrDefault(FAILED, 0L) + batch.getNotCreated();
+        this.chargeIds = chargeIds;
+    }
+
+    private RecurringAuthorisationBatchProgress(RecurringAuthorisationBatchProgress progress, List<String> chargeIds) {
+        this.batchId = progress.batchId;
+        this.gatewayAccountId = progress.gatewayAccountId;
+        this.createdDate = progress.createdDate;
+        this.queued = progress.queued;
+        this.succeeded = progress.succeeded;
+        this.failed = progress.failed;
+        this.chargeIds = List.copyOf(chargeIds);
+    }
+
+    public static RecurringAuthorisationBatchProgress from(RecurringAuthorisationBatchEntity batch,
+                                                           Map<RecurringAuthorisationBatchChargeStatus, Long> chargeCounts) {
+        return new RecurringAuthorisationBatchProgress(batch, chargeCounts, null);
+    }
+
+    public RecurringAuthorisationBatchProgress withChargeIds(List<String> chargeIds) {
+        return new RecurringAuthorisationBatchProgress(this, chargeIds);
+    }
+
+    @JsonProperty("batch_id")
+    @Schema(example = "1")
+    public long getBatchId() {
+        return batchId;
+    }
+
+    @JsonProperty("gateway_account_id")
+    @Schema(example = "1")
+    public long getGatewayAccountId() {
+        return gatewayAccountId;
+    }
+
+    @JsonProperty("created_date")
+    @JsonSerialize(using = ApiResponseInstantSerializer.class)
+    @Schema(example = "2022-06-27T13:07:57.580Z")
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    @JsonProperty("submitted")
+    @Schema(example = "100")
+    public long getSubmitted() {
+        return queued + succeeded + failed;
+    }
+
+    @JsonProperty("queued")
+    @Schema(example = "40")
+    public long getQueued() {
+        return queued;
+    }
+
+    @JsonProperty("succeeded")
+    @Schema(example = "58")
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    @JsonProperty("failed")
+    @Schema(example = "2")
+    public long getFailed() {
+        return failed;
+    }
+
+    @JsonProperty("charge_ids")
+    @ArraySchema(schema = @Schema(example = "b02b63b370fd35418ad66b0101"))
+    public List<String> getChargeIds() {
+        return chargeIds;
+    }
+}
@@ -0,0 +1,38 @@
+package uk.gov.pay.connector.paymentprocessor.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import uk.gov.pay.connector.charge.model.ChargeCreateRequest;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RecurringAuthorisationBatchRequest {
+
+    public static final int MAXIMUM_CHARGES = 1000;
+
+    @Valid
+    @NotEmpty(message = "Field [charges] cannot be empty")
+    @Size(max = MAXIMUM_CHARGES, message = "Field [charges] can have a size between 1 and " + MAXIMUM_CHARGES)
+    @JsonProperty("charges")
+    @ArraySchema(schema = @Schema(implementation = ChargeCreateRequest.class, description = "Charges to create with authorisation_mode 'agreement'"),
+            minItems = 1, maxItems = MAXIMUM_CHARGES)
+    private List<ChargeCreateRequest> charges;
+
+    public RecurringAuthorisationBatchRequest() {
+        // For Jackson
+    }
+
+    public RecurringAuthorisationBatchRequest(List<ChargeCreateRequest> charges) {
+        this.charges = charges;
+    }
+
+    public List<ChargeCreateRequest> getCharges() {
+        return charges;
+    }
+}
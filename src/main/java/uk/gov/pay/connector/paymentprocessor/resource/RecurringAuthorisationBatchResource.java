@@ -0,0 +1,101 @@
+package uk.gov.pay.connector.paymentprocessor.resource;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import uk.gov.pay.connector.charge.exception.InvalidAttributeValueException;
+import uk.gov.pay.connector.charge.exception.UnexpectedAttributeException;
+import uk.gov.pay.connector.charge.model.ChargeCreateRequest;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchProgress;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchRequest;
+import uk.gov.pay.connector.paymentprocessor.service.RecurringAuthorisationBatchService;
+import uk.gov.service.payments.commons.model.AuthorisationMode;
+
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.OK;
+import static uk.gov.pay.connector.util.ResponseUtil.notFoundResponse;
+
+@Path("/")
+public class RecurringAuthorisationBatchResource {
+
+    private static final String ACCOUNT_ID = "accountId";
+
+    private final RecurringAuthorisationBatchService recurringAuthorisationBatchService;
+
+    @Inject
+    public RecurringAuthorisationBatchResource(RecurringAuthorisationBatchService recurringAuthorisationBatchService) {
+        this.recurringAuthorisationBatchService = recurringAuthorisationBatchService;
+    }
+
+    @POST
+    @Path("/v1/api/accounts/{accountId}/recurring-authorisation-batches")
+    @Produces(APPLICATION_JSON)
+    @Operation(
+            summary = "Create a batch of agreement charges and queue them for authorisation",
+            description = "Creates each charge and queues it for authorisation with the user not present, within the " +
+                    "per-account and per-payment provider limits for recurring authorisations. Charges that cannot be " +
+                    "created are counted as failed. The progress of the batch can be followed with its batch_id.",
+            tags = {"Charges"},
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Created",
+                            content = @Content(schema = @Schema(implementation = RecurringAuthorisationBatchProgress.class))),
+                    @ApiResponse(responseCode = "400", description = "A charge is not an agreement charge or has a return_url"),
+                    @ApiResponse(responseCode = "404", description = "Not found"),
+                    @ApiResponse(responseCode = "422", description = "Missing required fields or invalid values")
+            }
+    )
+    public Response submitRecurringAuthorisationBatch(
+            @Parameter(example = "1", description = "Gateway account ID") @PathParam(ACCOUNT_ID) Long accountId,
+            @NotNull @Valid RecurringAuthorisationBatchRequest batchRequest,
+            @Context UriInfo uriInfo) {
+        batchRequest.getCharges().forEach(RecurringAuthorisationBatchResource::validateAgreementCharge);
+
+        return recurringAuthorisationBatchService.submit(accountId, batchRequest.getCharges(), uriInfo)
+                .map(progress -> Response.status(CREATED).entity(progress).build())
+                .orElseGet(() -> notFoundResponse("Unknown gateway account: " + accountId));
+    }
+
+    @GET
+    @Path("/v1/api/accounts/{accountId}/recurring-authorisation-batches/{batchId}")
+    @Produces(APPLICATION_JSON)
+    @Operation(
+            summary = "Get the progress of a batch of recurring authorisations",
+            tags = {"Charges"},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = RecurringAuthorisationBatchProgress.class))),
+                    @ApiResponse(responseCode = "404", description = "Not found")
+            }
+    )
+    public Response getRecurringAuthorisationBatchProgress(
+            @Parameter(example = "1", description = "Gateway account ID") @PathParam(ACCOUNT_ID) Long accountId,
+            @Parameter(example = "1", description = "Batch ID") @PathParam("batchId") Long batchId) {
+        return recurringAuthorisationBatchService.getProgress(accountId, batchId)
+                .map(progress -> Response.status(OK).entity(progress).build())
+                .orElseGet(() -> notFoundResponse("Unknown recurring authorisation batch: " + batchId));
+    }
+
+    private static void validateAgreementCharge(ChargeCreateRequest chargeRequest) {
+        if (chargeRequest.getAuthorisationMode() != AuthorisationMode.AGREEMENT) {
+            throw new InvalidAttributeValueException("authorisation_mode", "Must be agreement");
+        }
+        if (chargeRequest.getReturnUrl().isPresent()) {
+            throw new UnexpectedAttributeException("return_url");
+        }
+    }
+}
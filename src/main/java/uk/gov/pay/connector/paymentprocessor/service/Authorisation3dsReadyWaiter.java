@@ -0,0 +1,179 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
+import uk.gov.pay.connector.charge.service.ChargeService;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
+import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
+
+/**
+ * Holds back work that needs a charge to be in AUTHORISATION 3DS READY, such as a Stripe payment intent notification
+ * that arrives before the user has come back from 3DS, without blocking the calling thread. The work runs as soon as
+ * this instance moves the charge to 3DS ready, when a re-check finds that another instance has done so, or once the
+ * maximum wait has passed. Re-checks back off from {@link #FIRST_RECHECK_DELAY}, so a long wait reads the charge a
+ * handful of times rather than every 200ms. Waiting work only lives in memory, so callers must keep whatever triggered
+ * it unacknowledged until the returned future completes.
+ */
+@Singleton
+public class Authorisation3dsReadyWaiter {
+
+    static final Duration FIRST_RECHECK_DELAY = Duration.ofMillis(200);
+    private static final int NUMBER_OF_THREADS = 4;
+    private static final Logger LOGGER = LoggerFactory.getLogger(Authorisation3dsReadyWaiter.class);
+
+    private final ChargeService chargeService;
+    private final ScheduledExecutorService executorService;
+    private final Map<String, Set<WaitingAction>> waitingActions = new ConcurrentHashMap<>();
+    private final Meter deferred;
+    private final Meter timedOut;
+    private final Timer waitTime;
+
+    @Inject
+    public Authorisation3dsReadyWaiter(ChargeService chargeService, Environment environment) {
+        this(chargeService, environment.lifecycle()
+                        .scheduledExecutorService("authorisation-3ds-ready-waiter-%d")
+                        .threads(NUMBER_OF_THREADS)
+                        .build(),
+                environment.metrics());
+    }
+
+    Authorisation3dsReadyWaiter(ChargeService chargeService, ScheduledExecutorService executorService,
+                                MetricRegistry metricRegistry) {
+        this.chargeService = chargeService;
+        this.executorService = executorService;
+        this.deferred = metricRegistry.meter("authorisation-3ds-ready-wait.deferred");
+        this.timedOut = metricRegistry.meter("authorisation-3ds-ready-wait.timed-out");
+        this.waitTime = metricRegistry.timer("authorisation-3ds-ready-wait.wait-time");
+    }
+
+    /**
+     * Runs the action once the charge is 3DS ready or after {@code maxWait}, whichever comes first. Returns straight
+     * away; the action runs on one of this waiter's threads and the returned future completes when it has finished,
+     * exceptionally if it threw.
+     */
+    public CompletableFuture<Void> runWhenReady(String chargeExternalId, Duration maxWait, Runnable action) {
+        if (maxWait.isZero() || maxWait.isNegative()) {
+            try {
+                action.run();
+                return CompletableFuture.completedFuture(null);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        deferred.mark();
+        var waitingAction = new WaitingAction(chargeExternalId, action, System.nanoTime() + maxWait.toNanos());
+        waitingActions.computeIfAbsent(chargeExternalId, id -> ConcurrentHashMap.newKeySet()).add(waitingAction);
+        scheduleRecheck(waitingAction, FIRST_RECHECK_DELAY);
+        return waitingAction.completion;
+    }
+
+    /**
+     * Called once the charge has been moved to AUTHORISATION 3DS READY and the change has been committed.
+     */
+    public void signalReady(String chargeExternalId) {
+        Set<WaitingAction> ready = waitingActions.remove(chargeExternalId);
+        if (ready != null) {
+            ready.forEach(waitingAction -> executorService.execute(waitingAction::run));
+        }
+    }
+
+    private void scheduleRecheck(WaitingAction waitingAction, Duration delay) {
+        long delayInNanos = Math.min(delay.toNanos(), Math.max(waitingAction.remainingNanos(), 0));
+        executorService.schedule(() -> recheck(waitingAction, delay), delayInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recheck(WaitingAction waitingAction, Duration lastDelay) {
+        if (waitingAction.isDone()) {
+            return;
+        }
+
+        if (waitingAction.remainingNanos() <= 0) {
+            timedOut.mark();
+            waitingAction.run();
+            return;
+        }
+
+        try {
+            String status = chargeService.findChargeByExternalId(waitingAction.chargeExternalId).getStatus();
+            if (ChargeStatus.fromString(status) == AUTHORISATION_3DS_READY) {
+                waitingAction.run();
+                return;
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to check whether charge is ready for 3DS authorisation [error={}]", e.getMessage(),
+                    kv(PAYMENT_EXTERNAL_ID, waitingAction.chargeExternalId));
+        }
+
+        scheduleRecheck(waitingAction, lastDelay.multipliedBy(2));
+    }
+
+    private class WaitingAction {
+
+        private final String chargeExternalId;
+        private final Runnable action;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private WaitingAction(String chargeExternalId, Runnable action, long deadlineNanos) {
+            this.chargeExternalId = chargeExternalId;
+            this.action = action;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private long remainingNanos() {
+            return deadlineNanos - System.nanoTime();
+        }
+
+        private boolean isDone() {
+            return done.get();
+        }
+
+        private void run() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            waitingActions.computeIfPresent(chargeExternalId, (id, actions) -> {
+                actions.remove(this);
+                return actions.isEmpty() ? null : actions;
+            });
+
+            long waitedNanos = System.nanoTime() - startNanos;
+            waitTime.update(waitedNanos, TimeUnit.NANOSECONDS);
+
+            MDC.put(PAYMENT_EXTERNAL_ID, chargeExternalId);
+            try {
+                LOGGER.info("Waited {} milliseconds for charge to be ready for 3DS authorisation",
+                        TimeUnit.NANOSECONDS.toMillis(waitedNanos), kv(PAYMENT_EXTERNAL_ID, chargeExternalId));
+                action.run();
+                completion.complete(null);
+            } catch (Exception e) {
+                completion.completeExceptionally(e);
+            } finally {
+                MDC.remove(PAYMENT_EXTERNAL_ID);
+            }
+        }
+    }
+}
@@ -54,22 +54,26 @@ public class Card3dsResponseAuthService {
     private final AuthorisationService authorisationService;
     private final PaymentProviders providers;
     private final Authorisation3dsConfig authorisation3dsConfig;
+    private final Authorisation3dsReadyWaiter authorisation3dsReadyWaiter;
 
     @Inject
     public Card3dsResponseAuthService(PaymentProviders providers,
                                       ChargeService chargeService,
                                       AuthorisationService authorisationService,
-                                      ConnectorConfiguration config) {
+                                      ConnectorConfiguration config,
+                                      Authorisation3dsReadyWaiter authorisation3dsReadyWaiter) {
         this.providers = providers;
         this.chargeService = chargeService;
         this.authorisationService = authorisationService;
         this.authorisation3dsConfig = config.getAuthorisation3dsConfig();
+        this.authorisation3dsReadyWaiter = authorisation3dsReadyWaiter;
     }
 
     public Gateway3DSAuthorisationResponse process3DSecureAuthorisation(String chargeId, Auth3dsResult auth3DsResult) {
         return authorisationService.executeAuthorise(chargeId, () -> {
 
             final ChargeEntity charge = chargeService.lockChargeForProcessing(chargeId, AUTHORISATION_3DS);
+            authorisation3dsReadyWaiter.signalReady(chargeId);
             return authoriseAndProcess3DS(auth3DsResult, charge);
         });
     }
@@ -8,7 +8,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.charge.exception.motoapi.AuthorisationTimedOutException;
 import uk.gov.pay.connector.charge.model.domain.Auth3dsRequiredEntity;
@@ -56,7 +56,7 @@ public class CardAuthoriseService {
             .labelNames("paymentProvider", "gatewayAccountType", "billingAddressPresent", "authorisationResult")
             .register();
 
-    private final CardTypeDao cardTypeDao;
+    private final CardTypeRegistry cardTypeRegistry;
     private final AuthorisationService authorisationService;
     private final ChargeService chargeService;
     private final PaymentProviders providers;
@@ -66,7 +66,7 @@ public class CardAuthoriseService {
     private final MetricRegistry metricRegistry;
 
     @Inject
-    public CardAuthoriseService(CardTypeDao cardTypeDao,
+    public CardAuthoriseService(CardTypeRegistry cardTypeRegistry,
                                 PaymentProviders providers,
                                 AuthorisationService authorisationService,
                                 ChargeService chargeService,
@@ -74,7 +74,7 @@ public class CardAuthoriseService {
                                 ChargeEligibleForCaptureService chargeEligibleForCaptureService,
                                 PaymentInstrumentEntityToAuthCardDetailsConverter paymentInstrumentEntityToAuthCardDetailsConverter,
                                 Environment environment) {
-        this.cardTypeDao = cardTypeDao;
+        this.cardTypeRegistry = cardTypeRegistry;
         this.providers = providers;
         this.authorisationService = authorisationService;
         this.chargeService = chargeService;
@@ -282,7 +282,7 @@ public class CardAuthoriseService {
     }
 
     private boolean cardBrandRequires3ds(String cardBrand) {
-        return cardTypeDao.findByBrand(cardBrand).stream().anyMatch(CardTypeEntity::isRequires3ds);
+        return cardTypeRegistry.findByBrand(cardBrand).stream().anyMatch(CardTypeEntity::isRequires3ds);
     }
 
     private PaymentProvider getPaymentProviderFor(ChargeEntity chargeEntity) {
@@ -0,0 +1,107 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import com.google.inject.persist.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.charge.model.ChargeCreateRequest;
+import uk.gov.pay.connector.charge.model.ChargeResponse;
+import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse.AuthoriseStatus;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
+import uk.gov.pay.connector.gatewayaccount.exception.GatewayAccountNotFoundException;
+import uk.gov.pay.connector.paymentprocessor.api.AuthorisationResponse;
+import uk.gov.pay.connector.paymentprocessor.dao.RecurringAuthorisationBatchDao;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchProgress;
+
+import javax.inject.Inject;
+import javax.ws.rs.core.UriInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.FAILED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.SUCCEEDED;
+
+/**
+ * Creates many agreement charges at once, for example at the start of a billing cycle, and queues them for
+ * authorisation under the limits of the {@link RecurringAuthorisationScheduler}. The charges of a batch are recorded
+ * against it, so how many are still queued, have succeeded or have failed can be read from any instance while the
+ * batch is processed.
+ */
+public class RecurringAuthorisationBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringAuthorisationBatchService.class);
+
+    private final ChargeService chargeService;
+    private final GatewayAccountDao gatewayAccountDao;
+    private final RecurringAuthorisationBatchDao batchDao;
+
+    @Inject
+    public RecurringAuthorisationBatchService(ChargeService chargeService, GatewayAccountDao gatewayAccountDao,
+                                              RecurringAuthorisationBatchDao batchDao) {
+        this.chargeService = chargeService;
+        this.gatewayAccountDao = gatewayAccountDao;
+        this.batchDao = batchDao;
+    }
+
+    /**
+     * Each charge is created and queued in its own transaction, so a charge that cannot be created does not stop the
+     * rest of the batch. It is counted as failed instead.
+     *
+     * @return the progress of the new batch, with the ids of the charges created, or empty if the gateway account
+     * does not exist
+     */
+    public Optional<RecurringAuthorisationBatchProgress> submit(long gatewayAccountId, List<ChargeCreateRequest> chargeRequests,
+                                                                UriInfo uriInfo) {
+        if (gatewayAccountDao.findById(gatewayAccountId).isEmpty()) {
+            return Optional.empty();
+        }
+
+        long batchId = batchDao.create(gatewayAccountId);
+        List<String> chargeIds = new ArrayList<>();
+        int notCreated = 0;
+        for (ChargeCreateRequest chargeRequest : chargeRequests) {
+            try {
+                chargeIds.add(createAndQueue(batchId, gatewayAccountId, chargeRequest, uriInfo));
+            } catch (RuntimeException e) {
+                notCreated++;
+                logger.warn("Failed to create charge in recurring authorisation batch {}: {}", batchId, e.getMessage());
+            }
+        }
+        if (notCreated > 0) {
+            batchDao.recordNotCreated(batchId, notCreated);
+        }
+
+        logger.info("Queued {} of {} charges for authorisation in recurring authorisation batch {}",
+                chargeIds.size(), chargeRequests.size(), batchId);
+        return batchDao.findProgress(gatewayAccountId, batchId).map(progress -> progress.withChargeIds(chargeIds));
+    }
+
+    /**
+     * The charge is recorded against the batch in the same transaction that creates it, so the authorisation task,
+     * which cannot find the charge until the transaction commits, always finds the batch too.
+     */
+    @Transactional
+    public String createAndQueue(long batchId, long gatewayAccountId, ChargeCreateRequest chargeRequest, UriInfo uriInfo) {
+        String chargeId = chargeService.create(chargeRequest, gatewayAccountId, uriInfo, null)
+                .map(ChargeResponse::getChargeId)
+                .orElseThrow(() -> new GatewayAccountNotFoundException(gatewayAccountId));
+        batchDao.addCharge(batchId, chargeId);
+        chargeService.markChargeAsEligibleForAuthoriseUserNotPresent(chargeId);
+        return chargeId;
+    }
+
+    public Optional<RecurringAuthorisationBatchProgress> getProgress(long gatewayAccountId, long batchId) {
+        return batchDao.findProgress(gatewayAccountId, batchId);
+    }
+
+    /**
+     * Records the outcome of an authorisation with the batch the charge was submitted in, if any.
+     */
+    public void recordOutcome(String chargeExternalId, AuthorisationResponse response) {
+        boolean authorised = response.getAuthoriseStatus()
+                .map(authoriseStatus -> authoriseStatus == AuthoriseStatus.AUTHORISED)
+                .orElse(false);
+        batchDao.recordOutcome(chargeExternalId, authorised ? SUCCEEDED : FAILED);
+    }
+}
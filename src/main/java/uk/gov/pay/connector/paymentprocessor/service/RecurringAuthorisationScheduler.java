@@ -0,0 +1,159 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.RateLimiter;
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.RecurringAuthorisationConfig;
+import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.paymentprocessor.api.AuthorisationResponse;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.stream.Collectors.toUnmodifiableMap;
+
+/**
+ * Decides when recurring (user not present) authorisations may be sent to the payment provider. When a merchant
+ * creates thousands of agreement charges at the start of a billing cycle, each gateway account may only have a few
+ * authorisations in flight at once so one merchant cannot take every worker, and each payment provider is held to
+ * its own concurrency and rate limits. Authorisations that cannot start now should be retried later.
+ * <p>
+ * All the limits are held in memory and apply to each connector instance separately, so across the service they are
+ * multiplied by the number of instances consuming the task queue. They are sized for that: the per-provider
+ * concurrency is no more than the authorise_with_user_not_present workers of one instance, and the per-second rates
+ * should be set to the provider's limit divided by the number of instances. Gateway accounts with nothing in flight
+ * are not tracked.
+ * <p>
+ * Outcomes are counted per payment provider as recurring-authorisation.[provider].[status] meters, alongside
+ * throttled and in-flight counts. Charges submitted together through {@link RecurringAuthorisationBatchService} also
+ * have their outcomes recorded against their batch, so the queued, succeeded and failed counts of a billing cycle can
+ * be read back by its batch id.
+ */
+@Singleton
+public class RecurringAuthorisationScheduler {
+
+    static final Duration RATE_LIMIT_WAIT = Duration.ofMillis(500);
+
+    private final int maximumConcurrentAuthorisationsPerGatewayAccount;
+    private final Map<Long, Integer> gatewayAccountsInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> paymentProviderSlots;
+    private final Map<String, RateLimiter> paymentProviderRateLimiters;
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public RecurringAuthorisationScheduler(ConnectorConfiguration connectorConfiguration, Environment environment) {
+        this(connectorConfiguration.getRecurringAuthorisationConfig(), environment.metrics());
+    }
+
+    RecurringAuthorisationScheduler(RecurringAuthorisationConfig config, MetricRegistry metricRegistry) {
+        this.maximumConcurrentAuthorisationsPerGatewayAccount = config.getMaximumConcurrentAuthorisationsPerGatewayAccount();
+        this.paymentProviderSlots = config.getPaymentProviders().entrySet().stream()
+                .collect(toUnmodifiableMap(Map.Entry::getKey,
+                        entry -> new Semaphore(entry.getValue().getMaximumConcurrentAuthorisations())));
+        this.paymentProviderRateLimiters = config.getPaymentProviders().entrySet().stream()
+                .collect(toUnmodifiableMap(Map.Entry::getKey,
+                        entry -> RateLimiter.create(entry.getValue().getAuthorisationsPerSecond())));
+        this.metricRegistry = metricRegistry;
+
+        config.getPaymentProviders().forEach((paymentProvider, paymentProviderConfig) -> {
+            Semaphore slots = paymentProviderSlots.get(paymentProvider);
+            int maximumConcurrentAuthorisations = paymentProviderConfig.getMaximumConcurrentAuthorisations();
+            metricRegistry.gauge(metricName(paymentProvider, "in-flight"),
+                    () -> () -> maximumConcurrentAuthorisations - slots.availablePermits());
+        });
+    }
+
+    /**
+     * @return a slot that must be closed once the authorisation has finished, or empty if the gateway account or
+     * payment provider of the charge is already at its limit
+     */
+    public Optional<Slot> tryAcquireSlot(ChargeEntity charge) {
+        String paymentProvider = charge.getPaymentProvider();
+        Long gatewayAccountId = charge.getGatewayAccount().getId();
+        if (!tryAcquireGatewayAccountSlot(gatewayAccountId)) {
+            return throttled(paymentProvider);
+        }
+
+        Semaphore paymentProviderSlot = paymentProviderSlots.get(paymentProvider);
+        if (paymentProviderSlot != null && !paymentProviderSlot.tryAcquire()) {
+            releaseGatewayAccountSlot(gatewayAccountId);
+            return throttled(paymentProvider);
+        }
+
+        RateLimiter rateLimiter = paymentProviderRateLimiters.get(paymentProvider);
+        if (rateLimiter != null && !rateLimiter.tryAcquire(RATE_LIMIT_WAIT)) {
+            releaseGatewayAccountSlot(gatewayAccountId);
+            if (paymentProviderSlot != null) {
+                paymentProviderSlot.release();
+            }
+            return throttled(paymentProvider);
+        }
+
+        return Optional.of(new Slot(() -> releaseGatewayAccountSlot(gatewayAccountId), paymentProviderSlot));
+    }
+
+    private boolean tryAcquireGatewayAccountSlot(Long gatewayAccountId) {
+        var acquired = new AtomicBoolean(false);
+        gatewayAccountsInFlight.compute(gatewayAccountId, (id, inFlight) -> {
+            int current = inFlight == null ? 0 : inFlight;
+            if (current >= maximumConcurrentAuthorisationsPerGatewayAccount) {
+                return inFlight;
+            }
+            acquired.set(true);
+            return current + 1;
+        });
+        return acquired.get();
+    }
+
+    // The entry is removed once the last authorisation for the account finishes, so idle accounts take no memory
+    private void releaseGatewayAccountSlot(Long gatewayAccountId) {
+        gatewayAccountsInFlight.computeIfPresent(gatewayAccountId, (id, inFlight) -> inFlight > 1 ? inFlight - 1 : null);
+    }
+
+    int numberOfGatewayAccountsInFlight() {
+        return gatewayAccountsInFlight.size();
+    }
+
+    public void recordOutcome(ChargeEntity charge, AuthorisationResponse response) {
+        String outcome = response.getAuthoriseStatus()
+                .map(authoriseStatus -> authoriseStatus.name().toLowerCase(Locale.ENGLISH))
+                .orElse("error");
+        metricRegistry.meter(metricName(charge.getPaymentProvider(), outcome)).mark();
+    }
+
+    private Optional<Slot> throttled(String paymentProvider) {
+        metricRegistry.meter(metricName(paymentProvider, "throttled")).mark();
+        return Optional.empty();
+    }
+
+    private static String metricName(String paymentProvider, String name) {
+        return String.format("recurring-authorisation.%s.%s", paymentProvider, name);
+    }
+
+    public static class Slot implements AutoCloseable {
+
+        private final Runnable releaseGatewayAccountSlot;
+        private final Semaphore paymentProviderSlot;
+
+        private Slot(Runnable releaseGatewayAccountSlot, Semaphore paymentProviderSlot) {
+            this.releaseGatewayAccountSlot = releaseGatewayAccountSlot;
+            this.paymentProviderSlot = paymentProviderSlot;
+        }
+
+        @Override
+        public void close() {
+            releaseGatewayAccountSlot.run();
+            if (paymentProviderSlot != null) {
+                paymentProviderSlot.release();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.stripe.model.BalanceTransaction;
 import com.stripe.model.Charge;
 import com.stripe.model.Payout;
 import com.stripe.model.Transfer;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -23,17 +24,23 @@ import uk.gov.pay.connector.gateway.stripe.request.StripeTransferMetadataReason;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.StripeCredentials;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
+import uk.gov.pay.connector.payout.dao.PayoutReconcileCheckpointDao;
+import uk.gov.pay.connector.payout.model.PayoutReconcileCheckpointEntity;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileMessage;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileQueue;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static net.logstash.logback.argument.StructuredArguments.kv;
 import static uk.gov.service.payments.logging.LoggingKeys.CONNECT_ACCOUNT_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.DISPUTE_EXTERNAL_ID;
@@ -41,15 +48,27 @@ import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_PAYOUT_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.REFUND_EXTERNAL_ID;
 
+/**
+ * Reconciles the balance transactions of Stripe payouts taken from the payout reconcile queue. Payouts from the same
+ * batch of messages are processed concurrently on a bounded pool. For each payout, events are emitted in batches of
+ * {@code balanceTransactionsPerCheckpoint} balance transactions and the last balance transaction in each batch is
+ * checkpointed, so a message that is redelivered after a failure resumes from there rather than emitting every event
+ * again, and one that is redelivered after the payout has been fully reconciled is just acknowledged.
+ */
 public class PayoutReconcileProcess {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PayoutReconcileProcess.class);
+    private static final String PAYOUT_PROCESSING_THREAD_NAME = "payout-reconcile-process-%d";
+
     private final PayoutReconcileQueue payoutReconcileQueue;
     private final StripeSdkClient stripeClient;
     private final ConnectorConfiguration connectorConfiguration;
     private final GatewayAccountCredentialsService gatewayAccountCredentialsService;
     private final EventService eventService;
     private final PayoutEmitterService payoutEmitterService;
+    private final PayoutReconcileCheckpointDao payoutReconcileCheckpointDao;
+    private final ExecutorService payoutProcessingExecutorService;
+    private final int balanceTransactionsPerCheckpoint;
 
     @Inject
     public PayoutReconcileProcess(PayoutReconcileQueue payoutReconcileQueue,
@@ -57,74 +76,132 @@ public class PayoutReconcileProcess {
                                   ConnectorConfiguration connectorConfiguration,
                                   GatewayAccountCredentialsService gatewayAccountCredentialsService,
                                   EventService eventService,
-                                  PayoutEmitterService payoutEmitterService) {
+                                  PayoutEmitterService payoutEmitterService,
+                                  PayoutReconcileCheckpointDao payoutReconcileCheckpointDao,
+                                  Environment environment) {
+        this(payoutReconcileQueue, stripeClient, connectorConfiguration, gatewayAccountCredentialsService, eventService,
+                payoutEmitterService, payoutReconcileCheckpointDao,
+                environment.lifecycle()
+                        .executorService(PAYOUT_PROCESSING_THREAD_NAME)
+                        .minThreads(connectorConfiguration.getPayoutReconcileProcessConfig().getPayoutProcessingThreads())
+                        .maxThreads(connectorConfiguration.getPayoutReconcileProcessConfig().getPayoutProcessingThreads())
+                        .build());
+    }
+
+    PayoutReconcileProcess(PayoutReconcileQueue payoutReconcileQueue,
+                           StripeSdkClient stripeClient,
+                           ConnectorConfiguration connectorConfiguration,
+                           GatewayAccountCredentialsService gatewayAccountCredentialsService,
+                           EventService eventService,
+                           PayoutEmitterService payoutEmitterService,
+                           PayoutReconcileCheckpointDao payoutReconcileCheckpointDao,
+                           ExecutorService payoutProcessingExecutorService) {
         this.payoutReconcileQueue = payoutReconcileQueue;
         this.stripeClient = stripeClient;
         this.connectorConfiguration = connectorConfiguration;
         this.gatewayAccountCredentialsService = gatewayAccountCredentialsService;
         this.eventService = eventService;
         this.payoutEmitterService = payoutEmitterService;
+        this.payoutReconcileCheckpointDao = payoutReconcileCheckpointDao;
+        this.payoutProcessingExecutorService = payoutProcessingExecutorService;
+        this.balanceTransactionsPerCheckpoint = connectorConfiguration.getPayoutReconcileProcessConfig()
+                .getBalanceTransactionsPerCheckpoint();
     }
 
     public void processPayouts() throws QueueException {
         List<PayoutReconcileMessage> payoutReconcileMessages = payoutReconcileQueue.retrievePayoutMessages();
-        for (PayoutReconcileMessage payoutReconcileMessage : payoutReconcileMessages) {
-            try {
-                MDC.put(GATEWAY_PAYOUT_ID, payoutReconcileMessage.getGatewayPayoutId());
-                MDC.put(CONNECT_ACCOUNT_ID, payoutReconcileMessage.getConnectAccountId());
-                LOGGER.info("Processing payout [{}] for connect account [{}]",
-                        payoutReconcileMessage.getGatewayPayoutId(),
-                        payoutReconcileMessage.getConnectAccountId());
-
-                GatewayAccountEntity gatewayAccountEntity = gatewayAccountCredentialsService
-                        .findStripeGatewayAccountForCredentialKeyAndValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, payoutReconcileMessage.getConnectAccountId());
-
-                AtomicInteger payments = new AtomicInteger();
-                AtomicInteger transfers = new AtomicInteger();
-
-                Iterable<BalanceTransaction> balanceTransactions = stripeClient.getBalanceTransactionsForPayout(
-                        payoutReconcileMessage.getGatewayPayoutId(), payoutReconcileMessage.getConnectAccountId(),
-                        gatewayAccountEntity.isLive());
-
-                balanceTransactions.forEach(balanceTransaction -> {
-                    switch (balanceTransaction.getType()) {
-                        case "payment":
-                            reconcilePayment(payoutReconcileMessage, balanceTransaction);
-                            payments.getAndIncrement();
-                            break;
-                        case "transfer":
-                            reconcileTransfer(payoutReconcileMessage, balanceTransaction);
-                            transfers.getAndIncrement();
-                            break;
-                        case "payout":
-                            emitPayoutCreatedEvent(payoutReconcileMessage, balanceTransaction);
-                            break;
-                        default:
-                            LOGGER.error(format("Payout contains balance transfer of type [%s], which is unexpected.",
-                                    balanceTransaction.getType()));
-                            break;
-                    }
-                });
-
-                if (payments.intValue() == 0 && transfers.intValue() == 0) {
-                    LOGGER.error("No payments or refunds retrieved for payout [{}]. Requires investigation.",
-                            payoutReconcileMessage.getGatewayPayoutId());
-                } else {
-                    LOGGER.info("Finished processing payout [{}]. Emitted events for {} payments and {} transfers.",
+        List<Callable<Void>> payoutTasks = payoutReconcileMessages.stream()
+                .map(payoutReconcileMessage -> (Callable<Void>) () -> {
+                    processPayout(payoutReconcileMessage);
+                    return null;
+                })
+                .collect(toList());
+
+        try {
+            payoutProcessingExecutorService.invokeAll(payoutTasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processPayout(PayoutReconcileMessage payoutReconcileMessage) {
+        try {
+            MDC.put(GATEWAY_PAYOUT_ID, payoutReconcileMessage.getGatewayPayoutId());
+            MDC.put(CONNECT_ACCOUNT_ID, payoutReconcileMessage.getConnectAccountId());
+
+            Optional<PayoutReconcileCheckpointEntity> checkpoint = payoutReconcileCheckpointDao
+                    .findByGatewayPayoutId(payoutReconcileMessage.getGatewayPayoutId());
+
+            if (checkpoint.map(PayoutReconcileCheckpointEntity::isCompleted).orElse(false)) {
+                LOGGER.info("Payout [{}] has already been reconciled. Not emitting events again.",
+                        payoutReconcileMessage.getGatewayPayoutId());
+                payoutReconcileQueue.markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
+                return;
+            }
+
+            checkpoint.ifPresentOrElse(
+                    c -> LOGGER.info("Resuming payout [{}] for connect account [{}] after balance transaction [{}]",
                             payoutReconcileMessage.getGatewayPayoutId(),
-                            payments.intValue(),
-                            transfers.intValue());
+                            payoutReconcileMessage.getConnectAccountId(),
+                            c.getLastBalanceTransactionId()),
+                    () -> LOGGER.info("Processing payout [{}] for connect account [{}]",
+                            payoutReconcileMessage.getGatewayPayoutId(),
+                            payoutReconcileMessage.getConnectAccountId()));
+
+            GatewayAccountEntity gatewayAccountEntity = gatewayAccountCredentialsService
+                    .findStripeGatewayAccountForCredentialKeyAndValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, payoutReconcileMessage.getConnectAccountId());
+
+            Iterable<BalanceTransaction> balanceTransactions = checkpoint.isPresent()
+                    ? stripeClient.getBalanceTransactionsForPayout(
+                            payoutReconcileMessage.getGatewayPayoutId(), payoutReconcileMessage.getConnectAccountId(),
+                            gatewayAccountEntity.isLive(), checkpoint.get().getLastBalanceTransactionId())
+                    : stripeClient.getBalanceTransactionsForPayout(
+                            payoutReconcileMessage.getGatewayPayoutId(), payoutReconcileMessage.getConnectAccountId(),
+                            gatewayAccountEntity.isLive());
 
-                    payoutReconcileQueue.markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
+            var progress = new PayoutProgress(payoutReconcileMessage, checkpoint);
+
+            for (BalanceTransaction balanceTransaction : balanceTransactions) {
+                switch (balanceTransaction.getType()) {
+                    case "payment":
+                        reconcilePayment(progress, balanceTransaction);
+                        progress.payments++;
+                        break;
+                    case "transfer":
+                        reconcileTransfer(progress, balanceTransaction);
+                        progress.transfers++;
+                        break;
+                    case "payout":
+                        emitPayoutCreatedEvent(payoutReconcileMessage, balanceTransaction);
+                        break;
+                    default:
+                        LOGGER.error(format("Payout contains balance transfer of type [%s], which is unexpected.",
+                                balanceTransaction.getType()));
+                        break;
                 }
-            } catch (Exception e) {
-                LOGGER.error("Error processing payout from SQS message [queueMessageId={}] [errorMessage={}]",
-                        payoutReconcileMessage.getQueueMessageId(),
-                        e.getMessage());
-            } finally {
-                MDC.remove(GATEWAY_PAYOUT_ID);
-                MDC.remove(CONNECT_ACCOUNT_ID);
+                progress.balanceTransactionProcessed(balanceTransaction.getId());
+            }
+            progress.checkpoint();
+
+            if (progress.payments == 0 && progress.transfers == 0) {
+                LOGGER.error("No payments or refunds retrieved for payout [{}]. Requires investigation.",
+                        payoutReconcileMessage.getGatewayPayoutId());
+            } else {
+                LOGGER.info("Finished processing payout [{}]. Emitted events for {} payments and {} transfers.",
+                        payoutReconcileMessage.getGatewayPayoutId(),
+                        progress.payments,
+                        progress.transfers);
+
+                payoutReconcileCheckpointDao.markAsCompleted(payoutReconcileMessage.getGatewayPayoutId());
+                payoutReconcileQueue.markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
             }
+        } catch (Exception e) {
+            LOGGER.error("Error processing payout from SQS message [queueMessageId={}] [errorMessage={}]",
+                    payoutReconcileMessage.getQueueMessageId(),
+                    e.getMessage());
+        } finally {
+            MDC.remove(GATEWAY_PAYOUT_ID);
+            MDC.remove(CONNECT_ACCOUNT_ID);
         }
     }
 
@@ -158,16 +235,18 @@ public class PayoutReconcileProcess {
         }
     }
 
-    private void reconcilePayment(PayoutReconcileMessage payoutReconcileMessage, BalanceTransaction balanceTransaction) {
+    private void reconcilePayment(PayoutProgress progress, BalanceTransaction balanceTransaction) {
+        var payoutReconcileMessage = progress.payoutReconcileMessage;
         var paymentSource = (Charge) balanceTransaction.getSourceObject();
         var paymentSourceTransfer = paymentSource.getSourceTransferObject();
         StripeTransferMetadata stripeTransferMetadata = getStripeTransferMetadata(paymentSourceTransfer);
         String paymentExternalId = resolveTransactionExternalId(payoutReconcileMessage, balanceTransaction, stripeTransferMetadata);
 
-        emitPaymentEvent(payoutReconcileMessage, paymentExternalId);
+        addPaymentEvent(progress, paymentExternalId);
     }
 
-    private void reconcileTransfer(PayoutReconcileMessage payoutReconcileMessage, BalanceTransaction balanceTransaction) {
+    private void reconcileTransfer(PayoutProgress progress, BalanceTransaction balanceTransaction) {
+        var payoutReconcileMessage = progress.payoutReconcileMessage;
         var sourceTransfer = (Transfer) balanceTransaction.getSourceObject();
         var stripeTransferMetadata = getStripeTransferMetadata(sourceTransfer);
         String transactionExternalId = resolveTransactionExternalId(payoutReconcileMessage, balanceTransaction, stripeTransferMetadata);
@@ -175,17 +254,17 @@ public class PayoutReconcileProcess {
         StripeTransferMetadataReason reason = stripeTransferMetadata.getReason();
         switch (reason) {
             case TRANSFER_FEE_AMOUNT_FOR_FAILED_PAYMENT:
-                emitPaymentEvent(payoutReconcileMessage, transactionExternalId);
+                addPaymentEvent(progress, transactionExternalId);
                 break;
             case TRANSFER_REFUND_AMOUNT:
             case NOT_DEFINED:
                 // Transfers for retunds didn't historically include the "reason" metadata attribute. Assume transfers 
                 // without a reason are refunds to handle any historic refunds included in new payouts when a Stripe
                 // account moves from negative balance to positive balance.
-                emitRefundEvent(payoutReconcileMessage, transactionExternalId);
+                addRefundEvent(progress, transactionExternalId);
                 break;
             case TRANSFER_DISPUTE_AMOUNT:
-                emitDisputeEvent(payoutReconcileMessage, transactionExternalId);
+                addDisputeEvent(progress, transactionExternalId);
                 break;
             default:
                 throw new RuntimeException(String.format("Stripe balance transaction %s has unexpected 'reason' in metadata", balanceTransaction.getId()));
@@ -196,40 +275,22 @@ public class PayoutReconcileProcess {
         return StripeTransferMetadata.from(sourceTransfer.getMetadata());
     }
 
-    private void emitPaymentEvent(PayoutReconcileMessage payoutReconcileMessage, String paymentExternalId) {
-        var paymentEvent = new PaymentIncludedInPayout(paymentExternalId,
-                payoutReconcileMessage.getGatewayPayoutId(),
-                payoutReconcileMessage.getCreatedDate().toInstant());
-        emitEvent(paymentEvent, payoutReconcileMessage, paymentExternalId);
-
-        LOGGER.info(format("Emitted event for payment [%s] included in payout [%s]",
-                        paymentExternalId,
-                        payoutReconcileMessage.getGatewayPayoutId()),
-                kv(PAYMENT_EXTERNAL_ID, paymentExternalId));
+    private void addPaymentEvent(PayoutProgress progress, String paymentExternalId) {
+        progress.add(new PaymentIncludedInPayout(paymentExternalId,
+                progress.payoutReconcileMessage.getGatewayPayoutId(),
+                progress.payoutReconcileMessage.getCreatedDate().toInstant()), "payment", PAYMENT_EXTERNAL_ID);
     }
 
-    private void emitRefundEvent(PayoutReconcileMessage payoutReconcileMessage, String refundExternalId) {
-        var refundEvent = new RefundIncludedInPayout(refundExternalId,
-                payoutReconcileMessage.getGatewayPayoutId(),
-                payoutReconcileMessage.getCreatedDate().toInstant());
-        emitEvent(refundEvent, payoutReconcileMessage, refundExternalId);
-
-        LOGGER.info(format("Emitted event for refund [%s] included in payout [%s]",
-                        refundExternalId,
-                        payoutReconcileMessage.getGatewayPayoutId()),
-                kv(REFUND_EXTERNAL_ID, refundExternalId));
+    private void addRefundEvent(PayoutProgress progress, String refundExternalId) {
+        progress.add(new RefundIncludedInPayout(refundExternalId,
+                progress.payoutReconcileMessage.getGatewayPayoutId(),
+                progress.payoutReconcileMessage.getCreatedDate().toInstant()), "refund", REFUND_EXTERNAL_ID);
     }
 
-    private void emitDisputeEvent(PayoutReconcileMessage payoutReconcileMessage, String disputeExternalId) {
-        var disputeEvent = new DisputeIncludedInPayout(disputeExternalId,
-                payoutReconcileMessage.getGatewayPayoutId(),
-                payoutReconcileMessage.getCreatedDate().toInstant());
-        emitEvent(disputeEvent, payoutReconcileMessage, disputeExternalId);
-
-        LOGGER.info(format("Emitted event for dispute [%s] included in payout [%s]",
-                        disputeExternalId,
-                        payoutReconcileMessage.getGatewayPayoutId()),
-                kv(DISPUTE_EXTERNAL_ID, disputeExternalId));
+    private void addDisputeEvent(PayoutProgress progress, String disputeExternalId) {
+        progress.add(new DisputeIncludedInPayout(disputeExternalId,
+                progress.payoutReconcileMessage.getGatewayPayoutId(),
+                progress.payoutReconcileMessage.getCreatedDate().toInstant()), "dispute", DISPUTE_EXTERNAL_ID);
     }
 
     private String resolveTransactionExternalId(PayoutReconcileMessage payoutReconcileMessage, BalanceTransaction balanceTransaction, StripeTransferMetadata stripeTransferMetadata) {
@@ -243,14 +304,84 @@ public class PayoutReconcileProcess {
         return transactionExternalId;
     }
 
-    private void emitEvent(Event event, PayoutReconcileMessage payoutReconcileMessage, String transactionExternalId) {
-        if (TRUE.equals(connectorConfiguration.getEmitPayoutEvents())) {
-            try {
-                eventService.emitEvent(event, false);
-            } catch (QueueException e) {
-                throw new RuntimeException(format("Error sending %s event for transaction [%s] included in payout [%s] to event queue: %s",
-                        event.getEventType(), transactionExternalId, payoutReconcileMessage.getGatewayPayoutId(), e.getMessage()), e);
+    /**
+     * Events for a payout's balance transactions waiting to be emitted, along with the running totals and the last
+     * balance transaction seen. Every {@code balanceTransactionsPerCheckpoint} balance transactions the waiting events
+     * are emitted together and the position is checkpointed.
+     */
+    private class PayoutProgress {
+
+        private final PayoutReconcileMessage payoutReconcileMessage;
+        private final List<PendingEvent> pendingEvents = new ArrayList<>();
+        private int payments;
+        private int transfers;
+        private String lastBalanceTransactionId;
+        private int balanceTransactionsSinceCheckpoint;
+
+        private PayoutProgress(PayoutReconcileMessage payoutReconcileMessage,
+                               Optional<PayoutReconcileCheckpointEntity> checkpoint) {
+            this.payoutReconcileMessage = payoutReconcileMessage;
+            this.payments = checkpoint.map(PayoutReconcileCheckpointEntity::getPayments).orElse(0);
+            this.transfers = checkpoint.map(PayoutReconcileCheckpointEntity::getTransfers).orElse(0);
+        }
+
+        private void add(Event event, String transactionType, String loggingKey) {
+            pendingEvents.add(new PendingEvent(event, transactionType, loggingKey));
+        }
+
+        private void balanceTransactionProcessed(String balanceTransactionId) {
+            lastBalanceTransactionId = balanceTransactionId;
+            if (++balanceTransactionsSinceCheckpoint >= balanceTransactionsPerCheckpoint) {
+                checkpoint();
+            }
+        }
+
+        private void checkpoint() {
+            if (balanceTransactionsSinceCheckpoint == 0) {
+                return;
             }
+
+            emitPendingEvents();
+            payoutReconcileCheckpointDao.saveProgress(payoutReconcileMessage.getGatewayPayoutId(),
+                    payoutReconcileMessage.getConnectAccountId(), lastBalanceTransactionId, payments, transfers);
+            balanceTransactionsSinceCheckpoint = 0;
+        }
+
+        private void emitPendingEvents() {
+            if (pendingEvents.isEmpty()) {
+                return;
+            }
+
+            if (TRUE.equals(connectorConfiguration.getEmitPayoutEvents())) {
+                List<Event> events = pendingEvents.stream().map(pendingEvent -> pendingEvent.event).collect(toList());
+                try {
+                    eventService.emitEvents(events, false);
+                } catch (QueueException e) {
+                    throw new RuntimeException(format("Error sending %s events for %d transactions included in payout [%s] to event queue: %s",
+                            events.stream().map(Event::getEventType).distinct().collect(joining(", ")),
+                            events.size(), payoutReconcileMessage.getGatewayPayoutId(), e.getMessage()), e);
+                }
+            }
+
+            pendingEvents.forEach(pendingEvent -> LOGGER.info(format("Emitted event for %s [%s] included in payout [%s]",
+                            pendingEvent.transactionType,
+                            pendingEvent.event.getResourceExternalId(),
+                            payoutReconcileMessage.getGatewayPayoutId()),
+                    kv(pendingEvent.loggingKey, pendingEvent.event.getResourceExternalId())));
+            pendingEvents.clear();
+        }
+    }
+
+    private static class PendingEvent {
+
+        private final Event event;
+        private final String transactionType;
+        private final String loggingKey;
+
+        private PendingEvent(Event event, String transactionType, String loggingKey) {
+            this.event = event;
+            this.transactionType = transactionType;
+            this.loggingKey = loggingKey;
         }
     }
 }
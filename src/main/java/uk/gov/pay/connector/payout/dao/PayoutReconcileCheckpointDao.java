@@ -0,0 +1,68 @@
+package uk.gov.pay.connector.payout.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.payout.model.PayoutReconcileCheckpointEntity;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@Transactional
+public class PayoutReconcileCheckpointDao extends JpaDao<PayoutReconcileCheckpointEntity> {
+
+    @Inject
+    public PayoutReconcileCheckpointDao(Provider<EntityManager> entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * Checkpoints are written with native statements, possibly by another instance, so the cached entity is
+     * refreshed from the database.
+     */
+    public Optional<PayoutReconcileCheckpointEntity> findByGatewayPayoutId(String gatewayPayoutId) {
+        return entityManager.get()
+                .createQuery("SELECT c FROM PayoutReconcileCheckpointEntity c WHERE c.gatewayPayoutId = :gatewayPayoutId",
+                        PayoutReconcileCheckpointEntity.class)
+                .setParameter("gatewayPayoutId", gatewayPayoutId)
+                .setHint(QueryHints.REFRESH, HintValues.TRUE)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Records that events for every balance transaction of the payout up to and including
+     * lastBalanceTransactionId have been emitted. Counts are the running totals for the payout.
+     */
+    public void saveProgress(String gatewayPayoutId, String connectAccountId, String lastBalanceTransactionId,
+                             int payments, int transfers) {
+        entityManager.get()
+                .createNativeQuery("INSERT INTO payout_reconcile_checkpoints " +
+                        "(gateway_payout_id, connect_account_id, last_balance_transaction_id, payments, transfers) " +
+                        "VALUES (?1, ?2, ?3, ?4, ?5) " +
+                        "ON CONFLICT (gateway_payout_id) DO UPDATE SET " +
+                        "last_balance_transaction_id = excluded.last_balance_transaction_id, " +
+                        "payments = excluded.payments, " +
+                        "transfers = excluded.transfers, " +
+                        "updated_date = (now() at time zone 'utc')")
+                .setParameter(1, gatewayPayoutId)
+                .setParameter(2, connectAccountId)
+                .setParameter(3, lastBalanceTransactionId)
+                .setParameter(4, payments)
+                .setParameter(5, transfers)
+                .executeUpdate();
+    }
+
+    public void markAsCompleted(String gatewayPayoutId) {
+        entityManager.get()
+                .createNativeQuery("UPDATE payout_reconcile_checkpoints " +
+                        "SET completed_date = (now() at time zone 'utc'), updated_date = (now() at time zone 'utc') " +
+                        "WHERE gateway_payout_id = ?1")
+                .setParameter(1, gatewayPayoutId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.pay.connector.payout.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "payout_reconcile_checkpoints")
+@Access(AccessType.FIELD)
+public class PayoutReconcileCheckpointEntity {
+
+    @Id
+    @Column(name = "gateway_payout_id", nullable = false)
+    private String gatewayPayoutId;
+
+    @Column(name = "connect_account_id", nullable = false)
+    private String connectAccountId;
+
+    @Column(name = "last_balance_transaction_id", nullable = false)
+    private String lastBalanceTransactionId;
+
+    @Column(name = "payments", nullable = false)
+    private int payments;
+
+    @Column(name = "transfers", nullable = false)
+    private int transfers;
+
+    @Column(name = "updated_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant updatedDate;
+
+    @Column(name = "completed_date")
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant completedDate;
+
+    public PayoutReconcileCheckpointEntity() {
+        // For JPA
+    }
+
+    public PayoutReconcileCheckpointEntity(String gatewayPayoutId, String connectAccountId,
+                                           String lastBalanceTransactionId, int payments, int transfers,
+                                           Instant updatedDate) {
+        this.gatewayPayoutId = gatewayPayoutId;
+        this.connectAccountId = connectAccountId;
+        this.lastBalanceTransactionId = lastBalanceTransactionId;
+        this.payments = payments;
+        this.transfers = transfers;
+        this.updatedDate = updatedDate;
+    }
+
+    public String getGatewayPayoutId() {
+        return gatewayPayoutId;
+    }
+
+    public String getConnectAccountId() {
+        return connectAccountId;
+    }
+
+    public String getLastBalanceTransactionId() {
+        return lastBalanceTransactionId;
+    }
+
+    public int getPayments() {
+        return payments;
+    }
+
+    public int getTransfers() {
+        return transfers;
+    }
+
+    public Instant getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public Instant getCompletedDate() {
+        return completedDate;
+    }
+
+    public boolean isCompleted() {
+        return completedDate != null;
+    }
+}
@@ -0,0 +1,82 @@
+package uk.gov.pay.connector.queue.managed;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.NotificationInboxConfig;
+import uk.gov.pay.connector.webhook.service.NotificationInboxProcessor;
+
+import javax.inject.Inject;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class NotificationInboxReceiver implements Managed {
+
+    private static final String NOTIFICATION_INBOX_RECEIVER_THREAD_NAME = "notification-inbox-receiver-%d";
+    private static final int SHUTDOWN_TIMEOUT_IN_SECONDS = 40;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationInboxReceiver.class);
+
+    private final NotificationInboxProcessor notificationInboxProcessor;
+    private final NotificationInboxConfig notificationInboxConfig;
+    private final ScheduledExecutorService notificationInboxExecutorService;
+
+    @Inject
+    public NotificationInboxReceiver(NotificationInboxProcessor notificationInboxProcessor, Environment environment,
+                                     ConnectorConfiguration connectorConfiguration) {
+        this.notificationInboxProcessor = notificationInboxProcessor;
+        this.notificationInboxConfig = connectorConfiguration.getNotificationInboxConfig();
+
+        notificationInboxExecutorService = environment
+                .lifecycle()
+                .scheduledExecutorService(NOTIFICATION_INBOX_RECEIVER_THREAD_NAME)
+                .threads(notificationInboxConfig.getNumberOfWorkerThreads())
+                .build();
+    }
+
+    // Runs even when the inbox is not enabled for every notification, as notifications that have to wait for a
+    // charge to be ready for 3DS authorisation are always deferred to it
+    @Override
+    public void start() {
+        for (int i = 0; i < notificationInboxConfig.getNumberOfWorkerThreads(); i++) {
+            notificationInboxExecutorService.scheduleWithFixedDelay(
+                    this::processNotifications,
+                    notificationInboxConfig.getPollDelayInMilliseconds(),
+                    notificationInboxConfig.getPollDelayInMilliseconds(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Shutting down notification inbox receiver");
+        notificationInboxExecutorService.shutdown();
+        try {
+            if (notificationInboxExecutorService.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.info("Notification inbox receiver shut down cleanly");
+            } else {
+                LOGGER.error("Notification inbox still processing notifications after shutdown wait time will now be forcefully stopped");
+                notificationInboxExecutorService.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.error("Failed to shutdown notification inbox receiver cleanly as the wait was interrupted.");
+            notificationInboxExecutorService.shutdownNow();
+            // Preserve interrupt status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processNotifications() {
+        try {
+            // Keep draining while full batches are being claimed, so a backlog is not limited by the poll delay
+            while (notificationInboxProcessor.processNextBatch() == notificationInboxConfig.getBatchSize()
+                    && !Thread.currentThread().isInterrupted()) {
+                LOGGER.debug("Notification inbox has more notifications waiting, polling again");
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception processing notifications from notification inbox [error message={}]", e.getMessage());
+        }
+    }
+}
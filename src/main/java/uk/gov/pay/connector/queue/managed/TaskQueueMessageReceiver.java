@@ -61,6 +61,7 @@ public class TaskQueueMessageReceiver implements Managed {
         tasksQueueScheduledExecutorService.shutdown();
         try {
             if (tasksQueueScheduledExecutorService.awaitTermination(queueSchedulerShutdownTimeoutInSeconds, TimeUnit.SECONDS)) {
+                taskQueueMessageHandler.awaitRunningTasks(queueSchedulerShutdownTimeoutInSeconds, TimeUnit.SECONDS);
                 LOGGER.info("Task queue message receiver shut down cleanly");
             } else {
                 LOGGER.error("Task queue still processing messages after shutdown wait time will now be forcefully stopped");
@@ -1,30 +1,57 @@
 package uk.gov.pay.connector.queue.statetransition;
 
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
 public final class PaymentStateTransition extends StateTransition {
     private final long chargeEventId; 
+    private final ZonedDateTime chargeEventUpdated;
     
     public PaymentStateTransition(long chargeEventId, Class stateTransitionEventClass) {
         super(stateTransitionEventClass);
         this.chargeEventId = chargeEventId;
+        this.chargeEventUpdated = null;
+    }
+
+    /**
+     * Also carries when the charge event was written so that the emitter can look it up in the charge_events
+     * partition for that month rather than in every partition.
+     */
+    public PaymentStateTransition(long chargeEventId, Class stateTransitionEventClass, ZonedDateTime chargeEventUpdated) {
+        super(stateTransitionEventClass);
+        this.chargeEventId = chargeEventId;
+        this.chargeEventUpdated = chargeEventUpdated;
     }
 
     public PaymentStateTransition(long chargeEventId, Class stateTransitionEventClass, long delayDurationInMilliseconds) {
         super(stateTransitionEventClass, delayDurationInMilliseconds);
         this.chargeEventId = chargeEventId;
+        this.chargeEventUpdated = null;
     }
 
     public PaymentStateTransition(long chargeEventId, Class stateTransitionEventClass, int numberOfProcessAttempts, long delayDurationInMilliseconds) {
+        this(chargeEventId, stateTransitionEventClass, numberOfProcessAttempts, delayDurationInMilliseconds, null);
+    }
+
+    private PaymentStateTransition(long chargeEventId, Class stateTransitionEventClass, int numberOfProcessAttempts,
+                                   long delayDurationInMilliseconds, ZonedDateTime chargeEventUpdated) {
         super(stateTransitionEventClass, numberOfProcessAttempts, delayDurationInMilliseconds);
         this.chargeEventId = chargeEventId;
+        this.chargeEventUpdated = chargeEventUpdated;
     }
 
     public long getChargeEventId() {
         return chargeEventId;
     }
 
+    public Optional<ZonedDateTime> getChargeEventUpdated() {
+        return Optional.ofNullable(chargeEventUpdated);
+    }
+
     @Override
     public PaymentStateTransition getNext() {
-        return new PaymentStateTransition(chargeEventId, getStateTransitionEventClass(), getAttempts() + 1, getDelayDurationInMilliseconds());
+        return new PaymentStateTransition(chargeEventId, getStateTransitionEventClass(), getAttempts() + 1,
+                getDelayDurationInMilliseconds(), chargeEventUpdated);
     }
 
     @Override
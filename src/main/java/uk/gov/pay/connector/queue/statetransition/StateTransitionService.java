@@ -1,5 +1,7 @@
 package uk.gov.pay.connector.queue.statetransition;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.persist.Transactional;
 import io.dropwizard.setup.Environment;
@@ -8,10 +10,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.common.dao.AfterCommit;
 import uk.gov.pay.connector.common.model.domain.PaymentGatewayStateTransitions;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.ResourceType;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
 import uk.gov.pay.connector.refund.service.RefundStateEventMap;
@@ -19,6 +24,14 @@ import uk.gov.pay.connector.refund.service.RefundStateEventMap;
 import javax.inject.Inject;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -29,15 +42,20 @@ public class StateTransitionService {
 
     private StateTransitionQueue stateTransitionQueue;
     private EventService eventService;
+    private AfterCommit afterCommit;
     private MetricRegistry metricRegistry;
+    private final Map<String, Map<String, Map<ChargeStatus, StateTransitionMetrics>>> stateTransitionMetrics;
 
     @Inject
     public StateTransitionService(StateTransitionQueue stateTransitionQueue,
-                                  EventService eventService, 
+                                  EventService eventService,
+                                  AfterCommit afterCommit,
                                   Environment environment) {
         this.stateTransitionQueue = stateTransitionQueue;
         this.eventService = eventService;
+        this.afterCommit = afterCommit;
         this.metricRegistry = environment.metrics();
+        this.stateTransitionMetrics = createStateTransitionMetrics(metricRegistry);
     }
 
     @Transactional
@@ -61,20 +79,30 @@ public class StateTransitionService {
                 });
     }
 
+    /**
+     * The emitted_events row for the transition is written in the charge transaction, as an outbox, and the transition
+     * is only offered to the emitter once that transaction has committed, so the emitter never looks for a charge event
+     * that is not yet visible or was rolled back. If the process stops before the event is sent, the emitted events
+     * sweeper sends it from the outbox row.
+     */
     @Transactional
     public <T extends Event> void offerPaymentStateTransition(
             String externalId, ChargeStatus fromChargeState, ChargeStatus targetChargeState,
             ChargeEventEntity chargeEventEntity, Class<T> eventClass) {
 
-        PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(), eventClass);
-        stateTransitionQueue.offer(transition);
+        eventService.recordOfferedEvent(ResourceType.PAYMENT,
+                externalId,
+                Event.eventTypeForClass(eventClass),
+                chargeEventEntity.getUpdated().toInstant());
+
+        PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(), eventClass,
+                chargeEventEntity.getUpdated());
+        afterCommit.run(() -> stateTransitionQueue.offer(transition));
 
         var logMessage = format("Offered payment state transition to emitter queue [from=%s] [to=%s] [chargeEventId=%s] [chargeId=%s]",
                 fromChargeState, targetChargeState, chargeEventEntity.getId(), externalId);
 
-        incrementPerGatewayStateTransitionCounter(targetChargeState, chargeEventEntity);
-        incrementPerGatewayStateTransitionMeter(targetChargeState, chargeEventEntity);
-        incrementPerGatewayAccountStateTransitionCounter(targetChargeState, chargeEventEntity);
+        markStateTransition(targetChargeState, chargeEventEntity);
 
         Object[] structuredArgs = ArrayUtils.addAll(
                 chargeEventEntity.getChargeEntity().getStructuredLoggingArgs(),
@@ -82,35 +110,6 @@ public class StateTransitionService {
                 kv("to_state", targetChargeState));
 
         logger.info(logMessage, structuredArgs);
-
-        eventService.recordOfferedEvent(ResourceType.PAYMENT,
-                externalId,
-                Event.eventTypeForClass(eventClass),
-                chargeEventEntity.getUpdated().toInstant());
-    }
-
-    private void incrementPerGatewayAccountStateTransitionCounter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.counter(String.format(
-                "state-transition.%s.%s.to.%s",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getPaymentProvider(),
-                targetChargeState)).inc();
-    }
-    
-    private void incrementPerGatewayStateTransitionMeter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.meter(String.format(
-                "state-transition.%s.%s.to.%s.rate",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getPaymentProvider(),
-                targetChargeState)).mark();
-    }
-
-    private void incrementPerGatewayStateTransitionCounter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.counter(String.format(
-                "state-transition.%s.%s.to.%s",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getPaymentProvider(),
-                targetChargeState)).inc();
     }
 
     @Transactional
@@ -120,4 +119,61 @@ public class StateTransitionService {
         eventService.recordOfferedEvent(event.getResourceType(), event.getResourceExternalId(),
                 event.getEventType(), event.getTimestamp(), doNotRetryEmitUntilDate);
     }
+
+    private void markStateTransition(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
+        String gatewayAccountType = chargeEventEntity.getChargeEntity().getGatewayAccount().getType();
+        String paymentProvider = chargeEventEntity.getChargeEntity().getPaymentProvider();
+
+        StateTransitionMetrics metrics = Optional.ofNullable(stateTransitionMetrics.get(gatewayAccountType))
+                .map(metricsByProvider -> metricsByProvider.get(paymentProvider))
+                .map(metricsByTargetState -> metricsByTargetState.get(targetChargeState))
+                .orElseGet(() -> new StateTransitionMetrics(metricRegistry, gatewayAccountType, paymentProvider, targetChargeState));
+
+        metrics.counter.inc();
+        metrics.meter.mark();
+    }
+
+    private static Map<String, Map<String, Map<ChargeStatus, StateTransitionMetrics>>> createStateTransitionMetrics(
+            MetricRegistry metricRegistry) {
+        Set<ChargeStatus> targetChargeStates = targetChargeStatesWithEvents();
+        Map<String, Map<String, Map<ChargeStatus, StateTransitionMetrics>>> metricsByAccountType = new HashMap<>();
+        for (GatewayAccountType gatewayAccountType : GatewayAccountType.values()) {
+            Map<String, Map<ChargeStatus, StateTransitionMetrics>> metricsByProvider = new HashMap<>();
+            for (PaymentGatewayName paymentGatewayName : PaymentGatewayName.values()) {
+                Map<ChargeStatus, StateTransitionMetrics> metricsByTargetState = new EnumMap<>(ChargeStatus.class);
+                targetChargeStates.forEach(targetChargeState -> metricsByTargetState.put(targetChargeState,
+                        new StateTransitionMetrics(metricRegistry, gatewayAccountType.toString(),
+                                paymentGatewayName.getName(), targetChargeState)));
+                metricsByProvider.put(paymentGatewayName.getName(), Collections.unmodifiableMap(metricsByTargetState));
+            }
+            metricsByAccountType.put(gatewayAccountType.toString(), Map.copyOf(metricsByProvider));
+        }
+        return Map.copyOf(metricsByAccountType);
+    }
+
+    private static Set<ChargeStatus> targetChargeStatesWithEvents() {
+        PaymentGatewayStateTransitions stateTransitions = PaymentGatewayStateTransitions.getInstance();
+        Set<ChargeStatus> targetChargeStates = EnumSet.noneOf(ChargeStatus.class);
+        for (ChargeStatus fromChargeState : stateTransitions.allStatuses()) {
+            stateTransitions.getNextStatus(fromChargeState).stream()
+                    .filter(targetChargeState -> stateTransitions.getEventForTransition(fromChargeState, targetChargeState).isPresent())
+                    .forEach(targetChargeStates::add);
+        }
+        Arrays.stream(ChargeStatus.values())
+                .filter(targetChargeState -> PaymentGatewayStateTransitions.getEventForForceUpdate(targetChargeState).isPresent())
+                .forEach(targetChargeStates::add);
+        return targetChargeStates;
+    }
+
+    private static class StateTransitionMetrics {
+        private final Counter counter;
+        private final Meter meter;
+
+        private StateTransitionMetrics(MetricRegistry metricRegistry, String gatewayAccountType, String paymentProvider,
+                                       ChargeStatus targetChargeState) {
+            String name = format("state-transition.%s.%s.to.%s", gatewayAccountType, paymentProvider, targetChargeState);
+            this.counter = metricRegistry.counter(name);
+            this.meter = metricRegistry.meter(name + ".rate");
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package uk.gov.pay.connector.queue.tasks;
+
+/**
+ * Thrown by a task handler when its task cannot be processed yet but should be tried again shortly, for example
+ * because a limit on concurrent work has been reached. The task is sent to the queue again, to be received after the
+ * task queue's busy task type retry delay, rather than being treated as a failure.
+ */
+public class TaskDeferredException extends RuntimeException {
+
+    public TaskDeferredException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,11 @@
 package uk.gov.pay.connector.queue.tasks;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -13,6 +19,8 @@ import uk.gov.pay.connector.queue.tasks.model.Task;
 
 import javax.inject.Inject;
 import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -21,27 +29,55 @@ import static net.logstash.logback.argument.StructuredArguments.kv;
 
 public class TaskQueue extends AbstractQueue {
 
+    /**
+     * The most messages SQS accepts in a single DeleteMessageBatch request.
+     */
+    static final int MAXIMUM_BATCH_SIZE = 10;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskQueue.class);
+    private final SqsQueueService sqsQueueService;
+    private final AmazonSQS sqsClient;
+    private final String taskQueueUrl;
     private final int deliveryDelayInSeconds;
+    private final Clock clock;
     
     @Inject
     public TaskQueue(SqsQueueService sqsQueueService,
+                     AmazonSQS sqsClient,
                      ConnectorConfiguration connectorConfiguration,
-                     ObjectMapper objectMapper) {
+                     ObjectMapper objectMapper,
+                     Clock clock) {
         super(sqsQueueService, objectMapper,
                 connectorConfiguration.getSqsConfig().getTaskQueueUrl(),
                 connectorConfiguration.getTaskQueueConfig().getFailedMessageRetryDelayInSeconds());
+        this.sqsQueueService = sqsQueueService;
+        this.sqsClient = sqsClient;
+        this.taskQueueUrl = connectorConfiguration.getSqsConfig().getTaskQueueUrl();
         this.deliveryDelayInSeconds = connectorConfiguration.getTaskQueueConfig().getDeliveryDelayInSeconds();
+        this.clock = clock;
     }
 
     public void addTaskToQueue(Task task) throws QueueException, JsonProcessingException {
-        String message = objectMapper.writeValueAsString(task);
+        String message = objectMapper.writeValueAsString(task.withEnqueuedAt(clock.instant()));
         QueueMessage queueMessage = sendMessageToQueueWithDelay(message, deliveryDelayInSeconds);
         LOGGER.info("Task added to queue",
                 kv("task_type", task.getTaskType().getName()),
                 kv("message_id", queueMessage.getMessageId()));
     }
 
+    /**
+     * Sends the task again as a new message to be received after the given delay, so a task that is put off because
+     * of a limit starts again with a receive count of zero rather than being moved to the dead letter queue. The task
+     * keeps the time it was first enqueued. The message it was received in should be deleted once this returns.
+     */
+    public void requeueTask(Task task, int delayInSeconds) throws QueueException, JsonProcessingException {
+        Task requeuedTask = task.getEnqueuedAt().isPresent() ? task : task.withEnqueuedAt(clock.instant());
+        QueueMessage queueMessage = sendMessageToQueueWithDelay(objectMapper.writeValueAsString(requeuedTask), delayInSeconds);
+        LOGGER.info("Task requeued",
+                kv("task_type", task.getTaskType().getName()),
+                kv("message_id", queueMessage.getMessageId()));
+    }
+
     public List<TaskMessage> retrieveTaskQueueMessages() throws QueueException {
         List<QueueMessage> queueMessages = retrieveMessages();
 
@@ -52,6 +88,43 @@ public class TaskQueue extends AbstractQueue {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Deletes the messages in batches of up to {@link #MAXIMUM_BATCH_SIZE}, one SQS request per batch. Messages SQS
+     * fails to delete are logged and left on the queue, so they are received and processed again once their
+     * visibility timeout expires.
+     */
+    public void markMessagesAsProcessed(List<QueueMessage> queueMessages) throws QueueException {
+        for (int from = 0; from < queueMessages.size(); from += MAXIMUM_BATCH_SIZE) {
+            List<QueueMessage> batch = queueMessages.subList(from, Math.min(from + MAXIMUM_BATCH_SIZE, queueMessages.size()));
+            List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(new DeleteMessageBatchRequestEntry(String.valueOf(i), batch.get(i).getReceiptHandle()));
+            }
+
+            DeleteMessageBatchResult result;
+            try {
+                result = sqsClient.deleteMessageBatch(new DeleteMessageBatchRequest(taskQueueUrl, entries));
+            } catch (AmazonClientException e) {
+                throw new QueueException(e.getMessage());
+            }
+
+            for (BatchResultErrorEntry failed : result.getFailed()) {
+                LOGGER.error("Failed to delete processed message from tasks queue",
+                        kv("queueMessageId", batch.get(Integer.parseInt(failed.getId())).getMessageId()),
+                        kv("error", failed.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Hides the message from other consumers for the given number of seconds from now, either to stop a message that
+     * is still being processed from being received again or to have a message received again sooner than its
+     * visibility timeout.
+     */
+    public void changeMessageVisibility(QueueMessage queueMessage, int visibilityTimeoutInSeconds) throws QueueException {
+        sqsQueueService.deferMessage(taskQueueUrl, queueMessage.getReceiptHandle(), visibilityTimeoutInSeconds);
+    }
+
     private TaskMessage deserializeMessage(QueueMessage qm) {
         try {
             Task task = objectMapper.readValue(qm.getMessageBody(), Task.class);
@@ -1,10 +1,18 @@
 package uk.gov.pay.connector.queue.tasks;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.setup.Environment;
 import io.sentry.Sentry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.TaskQueueConfig;
 import uk.gov.pay.connector.gateway.stripe.response.StripeNotification;
 import uk.gov.pay.connector.queue.tasks.handlers.AuthoriseWithUserNotPresentHandler;
 import uk.gov.pay.connector.queue.tasks.handlers.CollectFeesForFailedPaymentsTaskHandler;
@@ -13,25 +21,75 @@ import uk.gov.pay.connector.queue.tasks.handlers.StripeWebhookTaskHandler;
 import uk.gov.pay.connector.queue.tasks.model.DeleteStoredPaymentDetailsTaskData;
 import uk.gov.pay.connector.queue.tasks.model.PaymentTaskData;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
+import uk.gov.service.payments.commons.queue.model.QueueMessage;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 
 import static net.logstash.logback.argument.StructuredArguments.kv;
+import static uk.gov.pay.connector.queue.tasks.TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT;
+import static uk.gov.pay.connector.queue.tasks.TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION;
 import static uk.gov.service.payments.logging.LoggingKeys.AGREEMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_INSTRUMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.STRIPE_EVENT_ID;
 
+/**
+ * Receives batches of messages from the task queue and processes each one on a worker thread. Each task type has its
+ * own number of workers, so a burst of slow tasks of one type (such as Stripe webhook notifications) cannot hold up
+ * tasks of other types (such as recurring payment authorisations). Messages received while every worker for their
+ * type is busy, and tasks whose handler throws {@link TaskDeferredException}, are sent to the queue again with a short
+ * delay so they are picked up on a later poll without counting towards the dead letter queue's receive limit.
+ * <p>
+ * Processed messages are deleted from the queue in batches, and the visibility timeout of a message is extended while
+ * its task is still running, and then until its deletion has been attempted, so it is not received again by another
+ * consumer.
+ */
 public class TaskQueueMessageHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TaskQueueMessageHandler.class);
+    private static final String WORKER_THREAD_NAME = "task-queue-worker-%d";
+    private static final String VISIBILITY_TIMEOUT_THREAD_NAME = "task-queue-visibility-timeout-%d";
+    private static final Set<TaskType> BATCHED_TASK_TYPES = EnumSet.of(COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT,
+            HANDLE_STRIPE_WEBHOOK_NOTIFICATION);
+
     private final TaskQueue taskQueue;
     private final CollectFeesForFailedPaymentsTaskHandler collectFeesForFailedPaymentsTaskHandler;
     private final StripeWebhookTaskHandler stripeWebhookTaskHandler;
     private final AuthoriseWithUserNotPresentHandler authoriseWithUserNotPresentHandler;
     private final DeleteStoredPaymentDetailsTaskHandler deleteStoredPaymentDetailsHandler;
     private final ObjectMapper objectMapper;
+    private final TaskQueueConfig taskQueueConfig;
+    private final ExecutorService workerExecutor;
+    private final ScheduledExecutorService visibilityTimeoutExecutor;
+    private final Clock clock;
+    private final Map<TaskType, Semaphore> availableWorkers = new EnumMap<>(TaskType.class);
+    private final Map<TaskType, TaskTypeMetrics> taskTypeMetrics = new EnumMap<>(TaskType.class);
+    private final Queue<PendingDeletion> processedMessages = new ConcurrentLinkedQueue<>();
 
     @Inject
     public TaskQueueMessageHandler(TaskQueue taskQueue,
@@ -39,74 +97,423 @@ public class TaskQueueMessageHandler {
                                    StripeWebhookTaskHandler stripeWebhookTaskHandler,
                                    AuthoriseWithUserNotPresentHandler authoriseWithUserNotPresentHandler,
                                    DeleteStoredPaymentDetailsTaskHandler deleteStoredPaymentDetailsHandler,
-                                   ObjectMapper objectMapper) {
+                                   ObjectMapper objectMapper,
+                                   ConnectorConfiguration connectorConfiguration,
+                                   Environment environment,
+                                   Clock clock) {
+        this(taskQueue, collectFeesForFailedPaymentsTaskHandler, stripeWebhookTaskHandler,
+                authoriseWithUserNotPresentHandler, deleteStoredPaymentDetailsHandler, objectMapper,
+                connectorConfiguration.getTaskQueueConfig(),
+                environment.lifecycle()
+                        .executorService(WORKER_THREAD_NAME)
+                        .minThreads(totalWorkers(connectorConfiguration.getTaskQueueConfig()))
+                        .maxThreads(totalWorkers(connectorConfiguration.getTaskQueueConfig()))
+                        .build(),
+                environment.lifecycle()
+                        .scheduledExecutorService(VISIBILITY_TIMEOUT_THREAD_NAME)
+                        .threads(1)
+                        .build(),
+                environment.metrics(),
+                clock);
+    }
+
+    TaskQueueMessageHandler(TaskQueue taskQueue,
+                            CollectFeesForFailedPaymentsTaskHandler collectFeesForFailedPaymentsTaskHandler,
+                            StripeWebhookTaskHandler stripeWebhookTaskHandler,
+                            AuthoriseWithUserNotPresentHandler authoriseWithUserNotPresentHandler,
+                            DeleteStoredPaymentDetailsTaskHandler deleteStoredPaymentDetailsHandler,
+                            ObjectMapper objectMapper,
+                            TaskQueueConfig taskQueueConfig,
+                            ExecutorService workerExecutor,
+                            ScheduledExecutorService visibilityTimeoutExecutor,
+                            MetricRegistry metricRegistry,
+                            Clock clock) {
         this.taskQueue = taskQueue;
         this.collectFeesForFailedPaymentsTaskHandler = collectFeesForFailedPaymentsTaskHandler;
         this.stripeWebhookTaskHandler = stripeWebhookTaskHandler;
         this.authoriseWithUserNotPresentHandler = authoriseWithUserNotPresentHandler;
         this.deleteStoredPaymentDetailsHandler = deleteStoredPaymentDetailsHandler;
         this.objectMapper = objectMapper;
+        this.taskQueueConfig = taskQueueConfig;
+        this.workerExecutor = workerExecutor;
+        this.visibilityTimeoutExecutor = visibilityTimeoutExecutor;
+        this.clock = clock;
+
+        for (TaskType taskType : TaskType.values()) {
+            availableWorkers.put(taskType, new Semaphore(taskQueueConfig.getTaskTypeConfig(taskType).getThreads()));
+            taskTypeMetrics.put(taskType, new TaskTypeMetrics(metricRegistry, taskType));
+        }
+    }
+
+    private static int totalWorkers(TaskQueueConfig taskQueueConfig) {
+        return Arrays.stream(TaskType.values())
+                .mapToInt(taskType -> taskQueueConfig.getTaskTypeConfig(taskType).getThreads())
+                .sum();
     }
 
     public void processMessages() throws QueueException {
-        List<TaskMessage> taskMessages = taskQueue.retrieveTaskQueueMessages();
-        taskMessages.forEach(taskMessage -> {
+        List<TaskMessage> taskMessages = new ArrayList<>(taskQueue.retrieveTaskQueueMessages());
+        taskMessages.sort(comparingInt(this::priority).reversed());
+
+        Map<TaskType, List<TaskMessage>> batches = taskMessages.stream()
+                .filter(taskMessage -> BATCHED_TASK_TYPES.contains(taskMessage.getTask().getTaskType()))
+                .collect(groupingBy(taskMessage -> taskMessage.getTask().getTaskType(),
+                        () -> new EnumMap<>(TaskType.class), toList()));
+        for (TaskMessage taskMessage : taskMessages) {
+            TaskType taskType = taskMessage.getTask().getTaskType();
+            List<TaskMessage> batch = batches.get(taskType);
+            if (batch == null) {
+                dispatch(taskMessage);
+            } else if (taskMessage == batch.get(0)) {
+                dispatch(taskType, batch, () -> processBatch(taskType, batch));
+            }
+        }
+
+        deleteProcessedMessages();
+    }
+
+    /**
+     * Waits for tasks that are still running to finish, then deletes the messages of every task that completed.
+     * Called on shutdown once no more messages are being received.
+     */
+    public void awaitRunningTasks(long timeout, TimeUnit unit) throws InterruptedException {
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(timeout, unit)) {
+                LOGGER.error("Tasks still running after shutdown wait time, their messages will be received again");
+            }
+        } finally {
+            deleteProcessedMessages();
+        }
+    }
+
+    private int priority(TaskMessage taskMessage) {
+        TaskType taskType = taskMessage.getTask().getTaskType();
+        return taskType == null ? Integer.MIN_VALUE : taskQueueConfig.getTaskTypeConfig(taskType).getPriority();
+    }
+
+    private void dispatch(TaskMessage taskMessage) {
+        TaskType taskType = taskMessage.getTask().getTaskType();
+        if (taskType == null) {
+            LOGGER.error("Error processing message from queue",
+                    kv("queueMessageId", taskMessage.getQueueMessageId()),
+                    kv("errorMessage", "Message has no task type")
+            );
+            return;
+        }
+
+        dispatch(taskType, List.of(taskMessage), () -> process(taskMessage));
+    }
+
+    private void dispatch(TaskType taskType, List<TaskMessage> taskMessages, Runnable task) {
+        Semaphore workers = availableWorkers.get(taskType);
+        if (!workers.tryAcquire()) {
+            taskMessages.forEach(this::defer);
+            return;
+        }
+
+        try {
+            workerExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    workers.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            workers.release();
+            taskMessages.forEach(taskMessage -> LOGGER.warn("Task queue is shutting down, message will be received again",
+                    kv("queueMessageId", taskMessage.getQueueMessageId())));
+        }
+    }
+
+    // Making the message visible again would count each deferral as a receive, so a task held back for long enough
+    // would be moved to the dead letter queue. It is sent again as a new message instead, and only made visible
+    // again if that fails.
+    private void defer(TaskMessage taskMessage) {
+        TaskType taskType = taskMessage.getTask().getTaskType();
+        taskTypeMetrics.get(taskType).deferred.mark();
+        try {
+            taskQueue.requeueTask(taskMessage.getTask(), taskQueueConfig.getBusyTaskTypeRetryDelayInSeconds());
+            markForDeletion(taskMessage);
+        } catch (QueueException | JsonProcessingException e) {
+            LOGGER.warn("Error requeueing deferred [{}] task", taskType.getName(),
+                    kv("queueMessageId", taskMessage.getQueueMessageId()),
+                    kv("errorMessage", e.getMessage()));
+            try {
+                taskQueue.changeMessageVisibility(taskMessage.getQueueMessage(),
+                        taskQueueConfig.getBusyTaskTypeRetryDelayInSeconds());
+            } catch (QueueException queueException) {
+                LOGGER.warn("Error deferring [{}] message from queue", taskType.getName(),
+                        kv("queueMessageId", taskMessage.getQueueMessageId()),
+                        kv("errorMessage", queueException.getMessage()));
+            }
+        }
+    }
+
+    private void process(TaskMessage taskMessage) {
+        var taskType = taskMessage.getTask().getTaskType();
+        TaskTypeMetrics metrics = taskTypeMetrics.get(taskType);
+        taskMessage.getTask().getEnqueuedAt().ifPresent(enqueuedAt ->
+                metrics.lag.update(Duration.between(enqueuedAt, clock.instant()).toMillis()));
+
+        ScheduledFuture<?> visibilityTimeoutExtension = extendVisibilityTimeoutUntilCancelled(List.of(taskMessage));
+
+        Timer.Context processingTime = metrics.processingTime.time();
+        try {
+            LOGGER.info("Processing message from queue",
+                    kv("queueMessageId", taskMessage.getQueueMessageId()),
+                    kv("queueMessageReceiptHandle", taskMessage.getQueueMessageReceiptHandle())
+            );
+
+            switch(taskType) {
+                case AUTHORISE_WITH_USER_NOT_PRESENT:
+                    var taskData = objectMapper.readValue(taskMessage.getTask().getData(), PaymentTaskData.class);
+                    MDC.put(PAYMENT_EXTERNAL_ID, taskData.getPaymentExternalId());
+                    LOGGER.info("Processing [{}] task.", taskType.getName());
+                    authoriseWithUserNotPresentHandler.process(taskData.getPaymentExternalId());
+                    break;
+                case DELETE_STORED_PAYMENT_DETAILS:
+                    var deleteStoredPaymentDetailsTaskData = objectMapper.readValue(taskMessage.getTask().getData(), DeleteStoredPaymentDetailsTaskData.class);
+                    MDC.put(AGREEMENT_EXTERNAL_ID, deleteStoredPaymentDetailsTaskData.getAgreementExternalId());
+                    MDC.put(PAYMENT_INSTRUMENT_EXTERNAL_ID, deleteStoredPaymentDetailsTaskData.getPaymentInstrumentExternalId());
+                    LOGGER.info("Processing [{}] task.", taskType.getName());
+                    deleteStoredPaymentDetailsHandler.process(deleteStoredPaymentDetailsTaskData.getAgreementExternalId(), deleteStoredPaymentDetailsTaskData.getPaymentInstrumentExternalId());
+                    break;
+                default:
+                    LOGGER.error("Task [{}] is not supported.", taskType.getName());
+            }
+            markForDeletion(taskMessage);
+            LOGGER.info("Successfully processed [{}] task.", taskType.getName());
+        } catch (TaskDeferredException e) {
+            LOGGER.info("Deferring [{}] task: {}", taskType.getName(), e.getMessage(),
+                    kv("queueMessageId", taskMessage.getQueueMessageId()));
+            defer(taskMessage);
+        } catch (Exception e) {
+            metrics.failed.mark();
+            LOGGER.error("Error processing message from queue",
+                    kv("queueMessageId", taskMessage.getQueueMessageId()),
+                    kv("errorMessage", e.getMessage())
+            );
+            Sentry.captureException(e);
+        } finally {
+            visibilityTimeoutExtension.cancel(false);
+            processingTime.stop();
+            MDC.remove(PAYMENT_EXTERNAL_ID);
+            MDC.remove(AGREEMENT_EXTERNAL_ID);
+            MDC.remove(PAYMENT_INSTRUMENT_EXTERNAL_ID);
+        }
+
+        if (processedMessages.size() >= TaskQueue.MAXIMUM_BATCH_SIZE) {
+            deleteProcessedMessages();
+        }
+    }
+
+    /**
+     * Tasks of a batched type received together are handed to their handler in one call. Fees for failed payments are
+     * collected with the transfers for different Stripe connect accounts running in parallel, and a burst of Stripe
+     * webhook notifications shares its Ledger lookups. The fees, or the dispute events, are then persisted or emitted
+     * in bulk.
+     */
+    private void processBatch(TaskType taskType, List<TaskMessage> taskMessages) {
+        switch (taskType) {
+            case COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT:
+                processBatch(taskType, taskMessages, this::getPaymentTaskData, PaymentTaskData::getPaymentExternalId,
+                        PAYMENT_EXTERNAL_ID, collectFeesForFailedPaymentsTaskHandler::collectAndPersistFees);
+                break;
+            case HANDLE_STRIPE_WEBHOOK_NOTIFICATION:
+                processBatch(taskType, taskMessages,
+                        taskMessage -> objectMapper.readValue(taskMessage.getTask().getData(), StripeNotification.class),
+                        StripeNotification::getId, STRIPE_EVENT_ID, stripeWebhookTaskHandler::process);
+                break;
+            default:
+                LOGGER.error("Task [{}] is not supported in batches.", taskType.getName());
+        }
+    }
+
+    /**
+     * Only the messages of tasks the handler reports as done are deleted; the others are received again later. Messages
+     * for the same task id are handed to the handler once. The task id is put in the MDC while each message is logged,
+     * as the single message path does; the handler sets it for each task it works on.
+     */
+    private <T> void processBatch(TaskType taskType,
+                                  List<TaskMessage> taskMessages,
+                                  TaskDataReader<T> taskDataReader,
+                                  Function<T, String> taskId,
+                                  String taskIdLoggingKey,
+                                  BatchTaskHandler<T> batchTaskHandler) {
+        TaskTypeMetrics metrics = taskTypeMetrics.get(taskType);
+        Map<String, T> tasksById = new LinkedHashMap<>();
+        Map<String, List<TaskMessage>> taskMessagesById = new LinkedHashMap<>();
+        for (TaskMessage taskMessage : taskMessages) {
+            taskMessage.getTask().getEnqueuedAt().ifPresent(enqueuedAt ->
+                    metrics.lag.update(Duration.between(enqueuedAt, clock.instant()).toMillis()));
             try {
+                T task = taskDataReader.read(taskMessage);
+                String id = taskId.apply(task);
+                if (id == null) {
+                    metrics.failed.mark();
+                    LOGGER.error("[{}] task has no id, deleting invalid message", taskType.getName(),
+                            kv("queueMessageId", taskMessage.getQueueMessageId())
+                    );
+                    markForDeletion(taskMessage);
+                    continue;
+                }
+                MDC.put(taskIdLoggingKey, id);
                 LOGGER.info("Processing message from queue",
                         kv("queueMessageId", taskMessage.getQueueMessageId()),
                         kv("queueMessageReceiptHandle", taskMessage.getQueueMessageReceiptHandle())
                 );
-                var taskType = taskMessage.getTask().getTaskType();
-                
-                switch(taskType) {
-                    case COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT:
-                        PaymentTaskData paymentTaskData;
-                        // backport existing task message format - will be removed
-                        if (taskMessage.getTask().getPaymentExternalId() != null) {
-                            paymentTaskData = new PaymentTaskData(taskMessage.getTask().getPaymentExternalId());
-                        } else {
-                            paymentTaskData = objectMapper.readValue(taskMessage.getTask().getData(), PaymentTaskData.class);
-                        }
-                        MDC.put(PAYMENT_EXTERNAL_ID, paymentTaskData.getPaymentExternalId());
-                        LOGGER.info("Processing [{}] task.", taskType.getName());
-                        collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(paymentTaskData);
-                        break;
-                    case HANDLE_STRIPE_WEBHOOK_NOTIFICATION:
-                        var stripeNotification = objectMapper.readValue(taskMessage.getTask().getData(), StripeNotification.class);
-                        MDC.put(STRIPE_EVENT_ID, stripeNotification.getId());
-                        LOGGER.info("Processing [{}] task.", taskType.getName());
-                        stripeWebhookTaskHandler.process(stripeNotification);
-                        break;
-                    case AUTHORISE_WITH_USER_NOT_PRESENT:
-                        var taskData = objectMapper.readValue(taskMessage.getTask().getData(), PaymentTaskData.class);
-                        MDC.put(PAYMENT_EXTERNAL_ID, taskData.getPaymentExternalId());
-                        LOGGER.info("Processing [{}] task.", taskType.getName());
-                        authoriseWithUserNotPresentHandler.process(taskData.getPaymentExternalId());
-                        break;
-                    case DELETE_STORED_PAYMENT_DETAILS:
-                        var deleteStoredPaymentDetailsTaskData = objectMapper.readValue(taskMessage.getTask().getData(), DeleteStoredPaymentDetailsTaskData.class);
-                        MDC.put(AGREEMENT_EXTERNAL_ID, deleteStoredPaymentDetailsTaskData.getAgreementExternalId());
-                        MDC.put(PAYMENT_INSTRUMENT_EXTERNAL_ID, deleteStoredPaymentDetailsTaskData.getPaymentInstrumentExternalId());
-                        LOGGER.info("Processing [{}] task.", taskType.getName());
-                        deleteStoredPaymentDetailsHandler.process(deleteStoredPaymentDetailsTaskData.getAgreementExternalId(), deleteStoredPaymentDetailsTaskData.getPaymentInstrumentExternalId());
-                        break;
-                    default:
-                        LOGGER.error("Task [{}] is not supported.", taskType.getName());
-                }
-                taskQueue.markMessageAsProcessed(taskMessage.getQueueMessage());
-                LOGGER.info("Successfully processed [{}] task.", taskType.getName());
+                tasksById.putIfAbsent(id, task);
+                taskMessagesById.computeIfAbsent(id, duplicateId -> new ArrayList<>()).add(taskMessage);
             } catch (Exception e) {
+                metrics.failed.mark();
                 LOGGER.error("Error processing message from queue",
                         kv("queueMessageId", taskMessage.getQueueMessageId()),
                         kv("errorMessage", e.getMessage())
                 );
                 Sentry.captureException(e);
             } finally {
-                MDC.remove(PAYMENT_EXTERNAL_ID);
-                MDC.remove(STRIPE_EVENT_ID);
-                MDC.remove(AGREEMENT_EXTERNAL_ID);
-                MDC.remove(PAYMENT_INSTRUMENT_EXTERNAL_ID);
+                MDC.remove(taskIdLoggingKey);
+            }
+        }
+
+        if (tasksById.isEmpty()) {
+            return;
+        }
+
+        ScheduledFuture<?> visibilityTimeoutExtension = extendVisibilityTimeoutUntilCancelled(
+                taskMessagesById.values().stream().flatMap(List::stream).collect(toList()));
+
+        Timer.Context processingTime = metrics.processingTime.time();
+        try {
+            LOGGER.info("Processing [{}] task.", taskType.getName(), kv("tasks", tasksById.size()));
+            Set<String> completedTaskIds = batchTaskHandler.process(List.copyOf(tasksById.values()));
+
+            taskMessagesById.forEach((id, taskMessagesForId) -> {
+                MDC.put(taskIdLoggingKey, id);
+                try {
+                    if (completedTaskIds.contains(id)) {
+                        taskMessagesForId.forEach(this::markForDeletion);
+                        LOGGER.info("Successfully processed [{}] task.", taskType.getName());
+                    } else {
+                        metrics.failed.mark();
+                        LOGGER.error("[{}] task was not completed, message will be received again", taskType.getName());
+                    }
+                } finally {
+                    MDC.remove(taskIdLoggingKey);
+                }
+            });
+        } catch (Exception e) {
+            metrics.failed.mark(tasksById.size());
+            LOGGER.error("Error processing [{}] tasks from queue", taskType.getName(),
+                    kv("errorMessage", e.getMessage())
+            );
+            Sentry.captureException(e);
+        } finally {
+            visibilityTimeoutExtension.cancel(false);
+            processingTime.stop();
+        }
+
+        if (processedMessages.size() >= TaskQueue.MAXIMUM_BATCH_SIZE) {
+            deleteProcessedMessages();
+        }
+    }
+
+    private PaymentTaskData getPaymentTaskData(TaskMessage taskMessage) throws IOException {
+        // backport existing task message format - will be removed
+        if (taskMessage.getTask().getPaymentExternalId() != null) {
+            return new PaymentTaskData(taskMessage.getTask().getPaymentExternalId());
+        }
+        return objectMapper.readValue(taskMessage.getTask().getData(), PaymentTaskData.class);
+    }
+
+    /**
+     * The message is only deleted with the next batch, so it keeps being hidden from other consumers until then.
+     */
+    private void markForDeletion(TaskMessage taskMessage) {
+        processedMessages.add(new PendingDeletion(taskMessage.getQueueMessage(),
+                extendVisibilityTimeoutUntilCancelled(List.of(taskMessage))));
+    }
+
+    private ScheduledFuture<?> extendVisibilityTimeoutUntilCancelled(Collection<TaskMessage> taskMessages) {
+        int visibilityTimeoutExtensionInSeconds = taskQueueConfig.getVisibilityTimeoutExtensionInSeconds();
+        long extensionPeriodInSeconds = Math.max(1, visibilityTimeoutExtensionInSeconds / 2);
+        return visibilityTimeoutExecutor.scheduleAtFixedRate(
+                () -> taskMessages.forEach(taskMessage -> extendVisibilityTimeout(taskMessage, visibilityTimeoutExtensionInSeconds)),
+                extensionPeriodInSeconds, extensionPeriodInSeconds, TimeUnit.SECONDS);
+    }
+
+    private void extendVisibilityTimeout(TaskMessage taskMessage, int visibilityTimeoutInSeconds) {
+        try {
+            taskQueue.changeMessageVisibility(taskMessage.getQueueMessage(), visibilityTimeoutInSeconds);
+        } catch (Exception e) {
+            LOGGER.warn("Error extending visibility timeout of message from queue",
+                    kv("queueMessageId", taskMessage.getQueueMessageId()),
+                    kv("errorMessage", e.getMessage()));
+        }
+    }
+
+    private void deleteProcessedMessages() {
+        List<PendingDeletion> pendingDeletions = new ArrayList<>();
+        PendingDeletion pendingDeletion;
+        while ((pendingDeletion = processedMessages.poll()) != null) {
+            pendingDeletions.add(pendingDeletion);
+        }
+
+        if (!pendingDeletions.isEmpty()) {
+            try {
+                taskQueue.markMessagesAsProcessed(pendingDeletions.stream().map(PendingDeletion::getQueueMessage).collect(toList()));
+            } catch (QueueException e) {
+                LOGGER.error("Error deleting {} processed messages from queue, they will be received again",
+                        pendingDeletions.size(),
+                        kv("errorMessage", e.getMessage()));
+            } finally {
+                pendingDeletions.forEach(PendingDeletion::stopExtendingVisibilityTimeout);
             }
-        });
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskDataReader<T> {
+        T read(TaskMessage taskMessage) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BatchTaskHandler<T> {
+        Set<String> process(List<T> tasks) throws Exception;
+    }
+
+    private static class PendingDeletion {
+        private final QueueMessage queueMessage;
+        private final ScheduledFuture<?> visibilityTimeoutExtension;
+
+        private PendingDeletion(QueueMessage queueMessage, ScheduledFuture<?> visibilityTimeoutExtension) {
+            this.queueMessage = queueMessage;
+            this.visibilityTimeoutExtension = visibilityTimeoutExtension;
+        }
+
+        private QueueMessage getQueueMessage() {
+            return queueMessage;
+        }
+
+        private void stopExtendingVisibilityTimeout() {
+            visibilityTimeoutExtension.cancel(false);
+        }
+    }
+
+    private static class TaskTypeMetrics {
+        private final Timer processingTime;
+        private final Meter failed;
+        private final Meter deferred;
+        private final Histogram lag;
+
+        private TaskTypeMetrics(MetricRegistry metricRegistry, TaskType taskType) {
+            String prefix = "task-queue." + taskType.getName();
+            this.processingTime = metricRegistry.timer(prefix + ".processing-time");
+            this.failed = metricRegistry.meter(prefix + ".failed");
+            this.deferred = metricRegistry.meter(prefix + ".deferred");
+            this.lag = metricRegistry.histogram(prefix + ".lag");
+        }
     }
 }
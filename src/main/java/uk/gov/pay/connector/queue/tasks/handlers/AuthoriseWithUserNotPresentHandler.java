@@ -6,23 +6,43 @@ import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.charge.service.ChargeEligibleForCaptureService;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse;
+import uk.gov.pay.connector.paymentprocessor.api.AuthorisationResponse;
 import uk.gov.pay.connector.paymentprocessor.service.CardAuthoriseService;
+import uk.gov.pay.connector.paymentprocessor.service.RecurringAuthorisationBatchService;
+import uk.gov.pay.connector.paymentprocessor.service.RecurringAuthorisationScheduler;
+import uk.gov.pay.connector.queue.tasks.TaskDeferredException;
 
 public class AuthoriseWithUserNotPresentHandler {
     private final ChargeService chargeService;
     private final CardAuthoriseService cardAuthoriseService;
     private final ChargeEligibleForCaptureService chargeEligibleForCaptureService;
+    private final RecurringAuthorisationScheduler recurringAuthorisationScheduler;
+    private final RecurringAuthorisationBatchService recurringAuthorisationBatchService;
 
     @Inject
-    public AuthoriseWithUserNotPresentHandler(ChargeService chargeService, CardAuthoriseService cardAuthoriseService, ChargeEligibleForCaptureService chargeEligibleForCaptureService) {
+    public AuthoriseWithUserNotPresentHandler(ChargeService chargeService, CardAuthoriseService cardAuthoriseService,
+                                              ChargeEligibleForCaptureService chargeEligibleForCaptureService,
+                                              RecurringAuthorisationScheduler recurringAuthorisationScheduler,
+                                              RecurringAuthorisationBatchService recurringAuthorisationBatchService) {
         this.chargeService = chargeService;
         this.cardAuthoriseService = cardAuthoriseService;
         this.chargeEligibleForCaptureService = chargeEligibleForCaptureService;
+        this.recurringAuthorisationScheduler = recurringAuthorisationScheduler;
+        this.recurringAuthorisationBatchService = recurringAuthorisationBatchService;
     }
 
     public void process(String chargeId) {
         var charge = chargeService.findChargeByExternalId(chargeId);
-        var response = cardAuthoriseService.doAuthoriseUserNotPresent(charge);
+        var slot = recurringAuthorisationScheduler.tryAcquireSlot(charge)
+                .orElseThrow(() -> new TaskDeferredException(String.format(
+                        "Recurring authorisation limit reached for gateway account %s or payment provider %s",
+                        charge.getGatewayAccount().getId(), charge.getPaymentProvider())));
+        AuthorisationResponse response;
+        try (slot) {
+            response = cardAuthoriseService.doAuthoriseUserNotPresent(charge);
+        }
+        recurringAuthorisationScheduler.recordOutcome(charge, response);
+        recurringAuthorisationBatchService.recordOutcome(charge.getExternalId(), response);
         response.getAuthoriseStatus()
                 .ifPresent(authoriseStatus -> {
                     if (authoriseStatus == BaseAuthoriseResponse.AuthoriseStatus.AUTHORISED) {
@@ -1,66 +1,186 @@
 package uk.gov.pay.connector.queue.tasks.handlers;
 
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.persist.Transactional;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.FeeEntity;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.exception.EventCreationException;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.charge.FeeIncurredEvent;
 import uk.gov.pay.connector.fee.model.Fee;
 import uk.gov.pay.connector.gateway.GatewayException;
 import uk.gov.pay.connector.gateway.stripe.StripePaymentProvider;
+import uk.gov.pay.connector.gatewayaccount.model.StripeCredentials;
 import uk.gov.pay.connector.queue.tasks.model.PaymentTaskData;
 
 import javax.inject.Inject;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+import static java.util.stream.Collectors.toList;
 import static net.logstash.logback.argument.StructuredArguments.kv;
-import static uk.gov.service.payments.logging.LoggingKeys.LEDGER_EVENT_TYPE;
+import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 
 public class CollectFeesForFailedPaymentsTaskHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CollectFeesForFailedPaymentsTaskHandler.class);
+    private static final String TRANSFER_THREAD_NAME = "stripe-fee-collection-%d";
+    private static final int TRANSFER_PERMIT_STRIPES = 256;
 
     private final StripePaymentProvider stripePaymentProvider;
     private final ChargeService chargeService;
     private final EventService eventService;
+    private final ExecutorService transferExecutor;
+    private final int maximumConcurrentTransfersPerAccount;
+    private final Striped<Semaphore> transferPermits;
     private final Clock clock;
 
     @Inject
     public CollectFeesForFailedPaymentsTaskHandler(StripePaymentProvider stripePaymentProvider,
                                                    ChargeService chargeService,
                                                    EventService eventService,
+                                                   ConnectorConfiguration configuration,
+                                                   Environment environment,
+                                                   Clock clock) {
+        this(stripePaymentProvider, chargeService, eventService,
+                environment.lifecycle().executorService(TRANSFER_THREAD_NAME)
+                        .minThreads(configuration.getStripeConfig().getFeeCollectionThreads())
+                        .maxThreads(configuration.getStripeConfig().getFeeCollectionThreads())
+                        .build(),
+                configuration.getStripeConfig().getMaximumConcurrentFeeTransfersPerAccount(),
+                clock);
+    }
+
+    public CollectFeesForFailedPaymentsTaskHandler(StripePaymentProvider stripePaymentProvider,
+                                                   ChargeService chargeService,
+                                                   EventService eventService,
+                                                   ExecutorService transferExecutor,
+                                                   int maximumConcurrentTransfersPerAccount,
                                                    Clock clock) {
         this.stripePaymentProvider = stripePaymentProvider;
         this.chargeService = chargeService;
         this.eventService = eventService;
+        this.transferExecutor = transferExecutor;
+        this.maximumConcurrentTransfersPerAccount = maximumConcurrentTransfersPerAccount;
+        this.transferPermits = Striped.lazyWeakSemaphore(TRANSFER_PERMIT_STRIPES, maximumConcurrentTransfersPerAccount);
         this.clock = clock;
     }
-    
-    @Transactional
-    public void collectAndPersistFees(PaymentTaskData paymentTaskData) throws GatewayException {
-        ChargeEntity charge = chargeService.findChargeByExternalId(paymentTaskData.getPaymentExternalId());
-        List<Fee> fees = stripePaymentProvider.calculateAndTransferFeesForFailedPayments(charge);
 
-        Instant now = clock.instant();
-        fees.stream().map(fee -> new FeeEntity(charge, now, fee)).forEach(charge::addFee);
+    /**
+     * Collects the fees for a batch of failed payments and returns the external ids of the payments whose fees were
+     * collected. Payments that could not be found or whose transfer failed are left out, so their tasks are retried.
+     * <p>
+     * Payments are grouped by Stripe connect account. The transfers for each account are split into at most
+     * maximumConcurrentFeeTransfersPerAccount lanes that run in parallel, and every transfer also holds a permit for
+     * its account, so batches handled at the same time stay within the limit too. Once the transfers have completed
+     * the fees are persisted in one transaction, which writes them with batched inserts, and the fee incurred events
+     * are emitted together.
+     */
+    public Set<String> collectAndPersistFees(List<PaymentTaskData> paymentTasks) {
+        Map<String, List<ChargeEntity>> chargesByConnectAccount = new LinkedHashMap<>();
+        for (PaymentTaskData paymentTask : paymentTasks) {
+            try {
+                ChargeEntity charge = chargeService.findChargeByExternalId(paymentTask.getPaymentExternalId());
+                // Transfers read the events to decide whether a 3DS fee applies. They are loaded here because the
+                // entity manager that would load them lazily belongs to this thread and must not be used by the lanes
+                charge.getEvents().size();
+                chargesByConnectAccount.computeIfAbsent(getStripeAccountId(charge), account -> new ArrayList<>()).add(charge);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to find payment to collect fees for: {}", e.getMessage(),
+                        kv(PAYMENT_EXTERNAL_ID, paymentTask.getPaymentExternalId()));
+            }
+        }
+
+        Map<String, List<Fee>> transferredFees = new ConcurrentHashMap<>();
+        List<Future<?>> lanes = new ArrayList<>();
+        chargesByConnectAccount.forEach((stripeAccountId, charges) -> {
+            int numberOfLanes = Math.min(maximumConcurrentTransfersPerAccount, charges.size());
+            for (int lane = 0; lane < numberOfLanes; lane++) {
+                List<ChargeEntity> laneCharges = new ArrayList<>();
+                for (int i = lane; i < charges.size(); i += numberOfLanes) {
+                    laneCharges.add(charges.get(i));
+                }
+                lanes.add(transferExecutor.submit(() ->
+                        laneCharges.forEach(charge -> transferFees(stripeAccountId, charge, transferredFees))));
+            }
+        });
+        lanes.forEach(CollectFeesForFailedPaymentsTaskHandler::awaitLane);
 
-        emitFeeEvent(charge);
+        if (transferredFees.isEmpty()) {
+            return Set.of();
+        }
+
+        List<ChargeEntity> chargesWithFees = persistFees(transferredFees);
+        emitFeeEvents(chargesWithFees);
+        return Set.copyOf(transferredFees.keySet());
     }
 
-    private void emitFeeEvent(ChargeEntity charge) {
+    private void transferFees(String stripeAccountId, ChargeEntity charge, Map<String, List<Fee>> transferredFees) {
+        Semaphore permits = transferPermits.get(stripeAccountId);
+        permits.acquireUninterruptibly();
+        MDC.put(PAYMENT_EXTERNAL_ID, charge.getExternalId());
         try {
-            FeeIncurredEvent event = FeeIncurredEvent.from(charge);
-            eventService.emitAndRecordEvent(event);
-            LOGGER.info("Fee incurred event sent to event queue.",
-                    kv(LEDGER_EVENT_TYPE, event.getEventType()));
-        } catch (EventCreationException e) {
-            LOGGER.warn("Failed to create fee incurred event [{}], exception: [{}]", charge.getExternalId(), e.getMessage());
+            transferredFees.put(charge.getExternalId(), stripePaymentProvider.calculateAndTransferFeesForFailedPayments(charge));
+        } catch (GatewayException | RuntimeException e) {
+            LOGGER.error("Failed to collect fees for failed payment: {}", e.getMessage());
+        } finally {
+            MDC.remove(PAYMENT_EXTERNAL_ID);
+            permits.release();
+        }
+    }
+
+    private static String getStripeAccountId(ChargeEntity charge) {
+        return ((StripeCredentials) charge.getGatewayAccountCredentialsEntity().getCredentialsObject()).getStripeAccountId();
+    }
+
+    private static void awaitLane(Future<?> lane) {
+        try {
+            lane.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for fee transfers to complete", e);
+        } catch (ExecutionException e) {
+            LOGGER.error("Fee transfers failed: {}", e.getCause().getMessage());
+        }
+    }
+
+    @Transactional
+    public List<ChargeEntity> persistFees(Map<String, List<Fee>> feesByPaymentExternalId) {
+        Instant now = clock.instant();
+        return feesByPaymentExternalId.entrySet().stream().map(paymentFees -> {
+            ChargeEntity charge = chargeService.findChargeByExternalId(paymentFees.getKey());
+            paymentFees.getValue().stream().map(fee -> new FeeEntity(charge, now, fee)).forEach(charge::addFee);
+            return charge;
+        }).collect(toList());
+    }
+
+    private void emitFeeEvents(List<ChargeEntity> charges) {
+        List<Event> events = new ArrayList<>();
+        for (ChargeEntity charge : charges) {
+            try {
+                events.add(FeeIncurredEvent.from(charge));
+            } catch (EventCreationException e) {
+                LOGGER.warn("Failed to create fee incurred event [{}], exception: [{}]", charge.getExternalId(), e.getMessage());
+            }
         }
+        eventService.emitAndRecordEvents(events);
+        LOGGER.info("{} fee incurred events sent to event queue.", events.size());
     }
 }
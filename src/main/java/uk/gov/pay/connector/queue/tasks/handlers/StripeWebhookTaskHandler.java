@@ -2,6 +2,7 @@ package uk.gov.pay.connector.queue.tasks.handlers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -33,13 +34,28 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
 import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
+import uk.gov.pay.connector.webhook.dao.ProcessedStripeNotificationDao;
+import uk.gov.service.payments.commons.queue.exception.QueueException;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -61,9 +77,24 @@ import static uk.gov.service.payments.logging.LoggingKeys.DISPUTE_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_DISPUTE_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.LEDGER_EVENT_TYPE;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
+import static uk.gov.service.payments.logging.LoggingKeys.STRIPE_EVENT_ID;
 
+/**
+ * Handles Stripe dispute webhook notifications taken from the task queue. A burst of notifications, such as a wave of
+ * disputes during a fraud incident, is processed together: the Ledger transactions of the disputed payments are looked
+ * up in parallel, each once, gateway accounts and their credentials are resolved once per burst, and the dispute events
+ * are emitted in bulk once the burst has been processed.
+ * <p>
+ * The ids of processed notifications are recorded in the database, so a notification Stripe delivers more than once,
+ * or that is received again by another connector instance, is skipped without looking anything up. The ids are kept
+ * until they are expunged, long after Stripe stops retrying a notification. A lost dispute is only recharged once
+ * even if this record fails to be written, as the transfer is made with the dispute id as its idempotency key.
+ */
+@Singleton
 public class StripeWebhookTaskHandler {
 
+    private static final String LEDGER_LOOKUP_THREAD_NAME = "stripe-dispute-ledger-lookup-%d";
+
     private static final Logger logger = LoggerFactory.getLogger(StripeWebhookTaskHandler.class);
     private final LedgerService ledgerService;
     private final ChargeService chargeService;
@@ -71,10 +102,12 @@ public class StripeWebhookTaskHandler {
     private final StripePaymentProvider stripePaymentProvider;
     private final GatewayAccountService gatewayAccountService;
     private final GatewayAccountCredentialsService gatewayAccountCredentialsService;
+    private final ProcessedStripeNotificationDao processedStripeNotificationDao;
     private final StripeGatewayConfig stripeGatewayConfig;
+    private final ExecutorService ledgerLookupExecutor;
     private final Clock clock;
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
     private final List<StripeNotificationType> disputeTypes = List.of(DISPUTE_CREATED, DISPUTE_UPDATED, DISPUTE_CLOSED);
 
     @Inject
@@ -83,116 +116,211 @@ public class StripeWebhookTaskHandler {
                                     StripePaymentProvider stripePaymentProvider,
                                     GatewayAccountService gatewayAccountService,
                                     GatewayAccountCredentialsService gatewayAccountCredentialsService,
-                                    ConnectorConfiguration configuration, 
-                                    Clock clock) {
+                                    ProcessedStripeNotificationDao processedStripeNotificationDao,
+                                    ConnectorConfiguration configuration,
+                                    Environment environment,
+                                    Clock clock,
+                                    ObjectMapper objectMapper) {
+        this(ledgerService, chargeService, eventService, stripePaymentProvider, gatewayAccountService,
+                gatewayAccountCredentialsService, processedStripeNotificationDao, configuration,
+                environment.lifecycle().executorService(LEDGER_LOOKUP_THREAD_NAME)
+                        .minThreads(configuration.getStripeConfig().getDisputeLedgerLookupThreads())
+                        .maxThreads(configuration.getStripeConfig().getDisputeLedgerLookupThreads())
+                        .build(),
+                clock, objectMapper);
+    }
+
+    public StripeWebhookTaskHandler(LedgerService ledgerService,
+                                    ChargeService chargeService, EventService eventService,
+                                    StripePaymentProvider stripePaymentProvider,
+                                    GatewayAccountService gatewayAccountService,
+                                    GatewayAccountCredentialsService gatewayAccountCredentialsService,
+                                    ProcessedStripeNotificationDao processedStripeNotificationDao,
+                                    ConnectorConfiguration configuration,
+                                    ExecutorService ledgerLookupExecutor,
+                                    Clock clock,
+                                    ObjectMapper objectMapper) {
         this.ledgerService = ledgerService;
         this.chargeService = chargeService;
         this.eventService = eventService;
         this.stripePaymentProvider = stripePaymentProvider;
         this.gatewayAccountService = gatewayAccountService;
         this.gatewayAccountCredentialsService = gatewayAccountCredentialsService;
+        this.processedStripeNotificationDao = processedStripeNotificationDao;
         this.stripeGatewayConfig = configuration.getStripeConfig();
+        this.ledgerLookupExecutor = ledgerLookupExecutor;
         this.clock = clock;
+        this.objectMapper = objectMapper;
     }
 
     public void process(StripeNotification stripeNotification) throws JsonProcessingException, GatewayException {
+        if (hasBeenProcessed(stripeNotification, findProcessed(List.of(stripeNotification)))) {
+            return;
+        }
+
         StripeNotificationType stripeNotificationType = byType(stripeNotification.getType());
-        if (disputeTypes.contains(stripeNotificationType)) {
-            try {
-                StripeDisputeData stripeDisputeData = deserialiseStripeDisputeData(stripeNotification);
-                LedgerTransaction transaction = getLedgerTransaction(stripeDisputeData);
-
-                String disputeExternalId = idFromExternalId(stripeDisputeData.getId());
-                MDC.put(DISPUTE_EXTERNAL_ID, disputeExternalId);
-                MDC.put(GATEWAY_DISPUTE_ID, stripeDisputeData.getId());
-                MDC.put(PAYMENT_EXTERNAL_ID, transaction.getTransactionId());
-
-                boolean isTestStripeTransaction = Boolean.FALSE.equals(stripeDisputeData.getLiveMode());
-                StripeDisputeStatus disputeStatus = byStatus(stripeDisputeData.getStatus());
-
-                if (disputeStatus == WARNING_NEEDS_RESPONSE || disputeStatus == WARNING_UNDER_REVIEW || disputeStatus == WARNING_CLOSED) {
-                    logger.warn("Skipping dispute notification: [status: {}, type: {}, payment_intent: {}, reason: {}]",
-                            stripeDisputeData.getStatus(), stripeNotificationType, stripeDisputeData.getPaymentIntentId(),
-                            stripeDisputeData.getReason());
-                    return;
+        if (!disputeTypes.contains(stripeNotificationType)) {
+            throw new RuntimeException("Unknown webhook task: " + stripeNotification.getType());
+        }
+
+        StripeDisputeData stripeDisputeData = deserialiseStripeDisputeData(stripeNotification);
+        processDispute(stripeNotification, stripeDisputeData, getLedgerTransaction(stripeDisputeData),
+                new GatewayAccountResolver(), this::emitEvent);
+        markAsProcessed(List.of(stripeNotification));
+    }
+
+    /**
+     * Processes a burst of notifications in the order they are given and returns the ids of the notifications that
+     * were processed, including ones that had been processed before. A notification that fails is left out, so its
+     * task is retried; the events of the notifications that succeeded are still emitted.
+     */
+    public Set<String> process(List<StripeNotification> stripeNotifications) {
+        Set<String> previouslyProcessedIds = findProcessed(stripeNotifications);
+        Set<String> processedIds = new HashSet<>();
+        Map<StripeNotification, StripeDisputeData> disputes = new LinkedHashMap<>();
+        for (StripeNotification stripeNotification : stripeNotifications) {
+            if (hasBeenProcessed(stripeNotification, previouslyProcessedIds)) {
+                processedIds.add(stripeNotification.getId());
+            } else if (!disputeTypes.contains(byType(stripeNotification.getType()))) {
+                logger.error("Unknown webhook task: {}", stripeNotification.getType(), kv(STRIPE_EVENT_ID, stripeNotification.getId()));
+            } else {
+                try {
+                    disputes.put(stripeNotification, deserialiseStripeDisputeData(stripeNotification));
+                } catch (JsonProcessingException e) {
+                    logger.error("Failed to read dispute from Stripe notification: {}", e.getMessage(),
+                            kv(STRIPE_EVENT_ID, stripeNotification.getId()));
                 }
-                
-                switch (stripeNotificationType) {
-                    case DISPUTE_CREATED:
-                        DisputeCreated disputeCreatedEvent = DisputeCreated.from(disputeExternalId, stripeDisputeData, transaction,
-                                stripeDisputeData.getDisputeCreated().toInstant());
-                        emitEvent(disputeCreatedEvent);
-                        PaymentDisputed paymentDisputedEvent = PaymentDisputed.from(transaction, stripeDisputeData.getDisputeCreated().toInstant());
-                        emitEvent(paymentDisputedEvent);
-                        // NOTE: we update the refund availability in ledger - but for connector it is calculated separately.
-                        // So this status update will block a refund attempt made VIA the API is made if the charge has been
-                        // expunged from connector.
-                        RefundAvailabilityUpdated refundAvailabilityUpdated = RefundAvailabilityUpdated.from(
-                                transaction, EXTERNAL_UNAVAILABLE, clock.instant());
-                        emitEvent(refundAvailabilityUpdated);
-
-                        if (isTestStripeTransaction) {
-                            submitEvidenceForTestAccount(stripeDisputeData, transaction);
-                        }
-                        break;
-                    case DISPUTE_UPDATED:
-                        if (disputeStatus == UNDER_REVIEW) {
-                            DisputeEvidenceSubmitted disputeUpdatedEvent = DisputeEvidenceSubmitted.from(
-                                    disputeExternalId, stripeNotification.getCreated().toInstant(), transaction);
-
-                            emitEvent(disputeUpdatedEvent);
-                        } else {
-                            logger.info("Skipping dispute updated notification: [status: {}, payment_intent: {}]",
-                                    stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId());
-                        }
-                        break;
-                    case DISPUTE_CLOSED:
-                        DisputeEvent disputeEvent;
-
-                        // For test transactions, the dispute updated and dispute closed notification will have the same
-                        // created date. Add a second onto the timestamp for events we send to ledger to ensure these
-                        // appear in the correct order.
-                        Instant disputeClosedEventTimestamp = isTestStripeTransaction
-                                ? stripeNotification.getCreated().plus(1, ChronoUnit.SECONDS).toInstant()
-                                : stripeNotification.getCreated().toInstant();
-
-                        if (disputeStatus == WON) {
-                            disputeEvent = DisputeWon.from(disputeExternalId, disputeClosedEventTimestamp, transaction);
-                            Charge charge = Charge.from(transaction);
-                            RefundAvailabilityUpdated refundAvailabilityUpdatedEvent = chargeService.createRefundAvailabilityUpdatedEvent(charge,
-                                    disputeClosedEventTimestamp);
-                            emitEvent(refundAvailabilityUpdatedEvent);
-                        } else if (disputeStatus == LOST) {
-                            disputeEvent = handleDisputeLost(stripeDisputeData, transaction, disputeExternalId, disputeClosedEventTimestamp);
-                        } else {
-                            logger.info("Unknown stripe dispute status: [status: {}, payment_intent: {}]",
-                                    stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId());
-                            throw new RuntimeException(format("Unknown stripe dispute status: [status: %s, payment_intent: %s]",
-                                    stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId()));
-                        }
-                        emitEvent(disputeEvent);
-                        break;
-                    default:
+            }
+        }
+
+        Map<String, Future<Optional<LedgerTransaction>>> ledgerTransactions = new HashMap<>();
+        disputes.values().forEach(stripeDisputeData -> ledgerTransactions.computeIfAbsent(
+                stripeDisputeData.getPaymentIntentId(),
+                paymentIntentId -> ledgerLookupExecutor.submit(() ->
+                        ledgerService.getTransactionForProviderAndGatewayTransactionId(STRIPE.getName(), paymentIntentId))));
+
+        GatewayAccountResolver gatewayAccountResolver = new GatewayAccountResolver();
+        List<Event> events = new ArrayList<>();
+        List<StripeNotification> processedNotifications = new ArrayList<>();
+        disputes.forEach((stripeNotification, stripeDisputeData) -> {
+            MDC.put(STRIPE_EVENT_ID, stripeNotification.getId());
+            try {
+                LedgerTransaction transaction = awaitLedgerTransaction(
+                        ledgerTransactions.get(stripeDisputeData.getPaymentIntentId()), stripeDisputeData);
+                List<Event> notificationEvents = new ArrayList<>();
+                processDispute(stripeNotification, stripeDisputeData, transaction, gatewayAccountResolver, notificationEvents::add);
+                events.addAll(notificationEvents);
+                processedNotifications.add(stripeNotification);
+            } catch (GatewayException | RuntimeException e) {
+                logger.error("Failed to process Stripe dispute notification: {}", e.getMessage());
+            } finally {
+                MDC.remove(STRIPE_EVENT_ID);
+            }
+        });
+
+        emitEvents(events);
+        try {
+            markAsProcessed(processedNotifications);
+        } catch (RuntimeException e) {
+            logger.error("Failed to record processed Stripe notifications: {}", e.getMessage());
+        }
+        processedNotifications.forEach(stripeNotification -> processedIds.add(stripeNotification.getId()));
+        return processedIds;
+    }
+
+    private void processDispute(StripeNotification stripeNotification, StripeDisputeData stripeDisputeData,
+                                LedgerTransaction transaction, GatewayAccountResolver gatewayAccountResolver,
+                                Consumer<Event> eventEmitter) throws GatewayException {
+        StripeNotificationType stripeNotificationType = byType(stripeNotification.getType());
+        try {
+            String disputeExternalId = idFromExternalId(stripeDisputeData.getId());
+            MDC.put(DISPUTE_EXTERNAL_ID, disputeExternalId);
+            MDC.put(GATEWAY_DISPUTE_ID, stripeDisputeData.getId());
+            MDC.put(PAYMENT_EXTERNAL_ID, transaction.getTransactionId());
+
+            boolean isTestStripeTransaction = Boolean.FALSE.equals(stripeDisputeData.getLiveMode());
+            StripeDisputeStatus disputeStatus = byStatus(stripeDisputeData.getStatus());
+
+            if (disputeStatus == WARNING_NEEDS_RESPONSE || disputeStatus == WARNING_UNDER_REVIEW || disputeStatus == WARNING_CLOSED) {
+                logger.warn("Skipping dispute notification: [status: {}, type: {}, payment_intent: {}, reason: {}]",
+                        stripeDisputeData.getStatus(), stripeNotificationType, stripeDisputeData.getPaymentIntentId(),
+                        stripeDisputeData.getReason());
+                return;
+            }
+
+            switch (stripeNotificationType) {
+                case DISPUTE_CREATED:
+                    DisputeCreated disputeCreatedEvent = DisputeCreated.from(disputeExternalId, stripeDisputeData, transaction,
+                            stripeDisputeData.getDisputeCreated().toInstant());
+                    eventEmitter.accept(disputeCreatedEvent);
+                    PaymentDisputed paymentDisputedEvent = PaymentDisputed.from(transaction, stripeDisputeData.getDisputeCreated().toInstant());
+                    eventEmitter.accept(paymentDisputedEvent);
+                    // NOTE: we update the refund availability in ledger - but for connector it is calculated separately.
+                    // So this status update will block a refund attempt made VIA the API is made if the charge has been
+                    // expunged from connector.
+                    RefundAvailabilityUpdated refundAvailabilityUpdated = RefundAvailabilityUpdated.from(
+                            transaction, EXTERNAL_UNAVAILABLE, clock.instant());
+                    eventEmitter.accept(refundAvailabilityUpdated);
+
+                    if (isTestStripeTransaction) {
+                        submitEvidenceForTestAccount(stripeDisputeData, transaction);
+                    }
+                    break;
+                case DISPUTE_UPDATED:
+                    if (disputeStatus == UNDER_REVIEW) {
+                        DisputeEvidenceSubmitted disputeUpdatedEvent = DisputeEvidenceSubmitted.from(
+                                disputeExternalId, stripeNotification.getCreated().toInstant(), transaction);
+
+                        eventEmitter.accept(disputeUpdatedEvent);
+                    } else {
                         logger.info("Skipping dispute updated notification: [status: {}, payment_intent: {}]",
                                 stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId());
-                }
-            } finally {
-                List.of(DISPUTE_EXTERNAL_ID, GATEWAY_DISPUTE_ID, PAYMENT_EXTERNAL_ID).forEach(MDC::remove);
+                    }
+                    break;
+                case DISPUTE_CLOSED:
+                    DisputeEvent disputeEvent;
+
+                    // For test transactions, the dispute updated and dispute closed notification will have the same
+                    // created date. Add a second onto the timestamp for events we send to ledger to ensure these
+                    // appear in the correct order.
+                    Instant disputeClosedEventTimestamp = isTestStripeTransaction
+                            ? stripeNotification.getCreated().plus(1, ChronoUnit.SECONDS).toInstant()
+                            : stripeNotification.getCreated().toInstant();
+
+                    if (disputeStatus == WON) {
+                        disputeEvent = DisputeWon.from(disputeExternalId, disputeClosedEventTimestamp, transaction);
+                        Charge charge = Charge.from(transaction);
+                        RefundAvailabilityUpdated refundAvailabilityUpdatedEvent = chargeService.createRefundAvailabilityUpdatedEvent(charge,
+                                disputeClosedEventTimestamp);
+                        eventEmitter.accept(refundAvailabilityUpdatedEvent);
+                    } else if (disputeStatus == LOST) {
+                        disputeEvent = handleDisputeLost(stripeDisputeData, transaction, disputeExternalId,
+                                disputeClosedEventTimestamp, gatewayAccountResolver);
+                    } else {
+                        logger.info("Unknown stripe dispute status: [status: {}, payment_intent: {}]",
+                                stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId());
+                        throw new RuntimeException(format("Unknown stripe dispute status: [status: %s, payment_intent: %s]",
+                                stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId()));
+                    }
+                    eventEmitter.accept(disputeEvent);
+                    break;
+                default:
+                    logger.info("Skipping dispute updated notification: [status: {}, payment_intent: {}]",
+                            stripeDisputeData.getStatus(), stripeDisputeData.getPaymentIntentId());
             }
-        } else {
-            throw new RuntimeException("Unknown webhook task: " + stripeNotification.getType());
+        } finally {
+            List.of(DISPUTE_EXTERNAL_ID, GATEWAY_DISPUTE_ID, PAYMENT_EXTERNAL_ID).forEach(MDC::remove);
         }
     }
 
-    private DisputeEvent handleDisputeLost(StripeDisputeData stripeDisputeData, LedgerTransaction transaction, 
-                                           String disputeExternalId, Instant eventTimestamp) throws GatewayException {
+    private DisputeEvent handleDisputeLost(StripeDisputeData stripeDisputeData, LedgerTransaction transaction,
+                                           String disputeExternalId, Instant eventTimestamp,
+                                           GatewayAccountResolver gatewayAccountResolver) throws GatewayException {
         boolean rechargeDispute = shouldRechargeDispute(stripeDisputeData, transaction);
         if (rechargeDispute) {
             Charge charge = Charge.from(transaction);
-            GatewayAccountEntity gatewayAccount = gatewayAccountService.getGatewayAccount(Long.valueOf(transaction.getGatewayAccountId()))
-                    .orElseThrow(() -> new GatewayAccountNotFoundException(transaction.getGatewayAccountId()));
-            GatewayAccountCredentialsEntity gatewayAccountCredentials = gatewayAccountCredentialsService.findCredentialFromCharge(charge, gatewayAccount)
-                    .orElseThrow(() -> new GatewayAccountCredentialsNotFoundException("Unable to resolve gateway account credentials for charge " + charge.getExternalId()));
+            GatewayAccountEntity gatewayAccount = gatewayAccountResolver.getGatewayAccount(transaction.getGatewayAccountId());
+            GatewayAccountCredentialsEntity gatewayAccountCredentials = gatewayAccountResolver.getCredentials(charge, gatewayAccount);
             stripePaymentProvider.transferDisputeAmount(stripeDisputeData, charge, gatewayAccount, gatewayAccountCredentials);
         } else {
             logger.info("Skipping recharging for dispute {} for payment {} as it was created before the date we started recharging from",
@@ -231,14 +359,58 @@ public class StripeWebhookTaskHandler {
         Optional<LedgerTransaction> mayBeLedgerTransaction = ledgerService
                 .getTransactionForProviderAndGatewayTransactionId(STRIPE.getName(), stripeDisputeData.getPaymentIntentId());
 
-        return mayBeLedgerTransaction.orElseThrow(() ->
-                new RuntimeException(format("LedgerTransaction with gateway transaction id [%s] not found",
-                        stripeDisputeData.getPaymentIntentId())));
+        return mayBeLedgerTransaction.orElseThrow(() -> ledgerTransactionNotFound(stripeDisputeData));
+    }
+
+    private static LedgerTransaction awaitLedgerTransaction(Future<Optional<LedgerTransaction>> ledgerLookup,
+                                                            StripeDisputeData stripeDisputeData) {
+        try {
+            return ledgerLookup.get().orElseThrow(() -> ledgerTransactionNotFound(stripeDisputeData));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while looking up ledger transaction", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new RuntimeException(e.getCause());
+        }
+    }
+
+    private static RuntimeException ledgerTransactionNotFound(StripeDisputeData stripeDisputeData) {
+        return new RuntimeException(format("LedgerTransaction with gateway transaction id [%s] not found",
+                stripeDisputeData.getPaymentIntentId()));
+    }
+
+    private Set<String> findProcessed(List<StripeNotification> stripeNotifications) {
+        return processedStripeNotificationDao.findProcessed(notificationIds(stripeNotifications));
+    }
+
+    private boolean hasBeenProcessed(StripeNotification stripeNotification, Set<String> processedNotificationIds) {
+        if (stripeNotification.getId() == null || !processedNotificationIds.contains(stripeNotification.getId())) {
+            return false;
+        }
+        logger.info("Skipping Stripe notification that has already been processed",
+                kv(STRIPE_EVENT_ID, stripeNotification.getId()));
+        return true;
+    }
+
+    private void markAsProcessed(List<StripeNotification> stripeNotifications) {
+        Set<String> notificationIds = notificationIds(stripeNotifications);
+        if (!notificationIds.isEmpty()) {
+            processedStripeNotificationDao.markAsProcessed(notificationIds);
+        }
+    }
+
+    private static Set<String> notificationIds(List<StripeNotification> stripeNotifications) {
+        return stripeNotifications.stream()
+                .map(StripeNotification::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
 
     private StripeDisputeData deserialiseStripeDisputeData(StripeNotification stripeNotification) throws
             JsonProcessingException {
-        return mapper.readValue(stripeNotification.getObject(), StripeDisputeData.class);
+        return stripeNotification.getObject(objectMapper, StripeDisputeData.class);
     }
 
     private void emitEvent(Event event) {
@@ -246,4 +418,53 @@ public class StripeWebhookTaskHandler {
         logger.info("Event sent to payment event queue: {}", event.getResourceExternalId(),
                 kv(LEDGER_EVENT_TYPE, event.getEventType()));
     }
+
+    private void emitEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            eventService.emitEvents(events, true);
+        } catch (QueueException e) {
+            // this exception won't be reached
+        }
+        logger.info("{} dispute events sent to payment event queue", events.size());
+    }
+
+    /**
+     * Resolves gateway accounts and their credentials once for all the notifications processed together.
+     */
+    private class GatewayAccountResolver {
+
+        private final Map<String, GatewayAccountEntity> gatewayAccounts = new HashMap<>();
+        private final Map<Map.Entry<String, String>, GatewayAccountCredentialsEntity> credentials = new HashMap<>();
+
+        private GatewayAccountEntity getGatewayAccount(String gatewayAccountId) {
+            GatewayAccountEntity gatewayAccount = gatewayAccounts.get(gatewayAccountId);
+            if (gatewayAccount == null) {
+                gatewayAccount = gatewayAccountService.getGatewayAccount(Long.valueOf(gatewayAccountId))
+                        .orElseThrow(() -> new GatewayAccountNotFoundException(gatewayAccountId));
+                gatewayAccounts.put(gatewayAccountId, gatewayAccount);
+            }
+            return gatewayAccount;
+        }
+
+        /**
+         * Only credentials named by the charge are remembered. Otherwise they are chosen by the charge's creation date,
+         * which differs from charge to charge.
+         */
+        private GatewayAccountCredentialsEntity getCredentials(Charge charge, GatewayAccountEntity gatewayAccount) {
+            Optional<Map.Entry<String, String>> key = charge.getCredentialExternalId()
+                    .map(credentialExternalId -> Map.entry(String.valueOf(gatewayAccount.getId()), credentialExternalId));
+            GatewayAccountCredentialsEntity gatewayAccountCredentials = key.map(credentials::get).orElse(null);
+            if (gatewayAccountCredentials == null) {
+                gatewayAccountCredentials = gatewayAccountCredentialsService.findCredentialFromCharge(charge, gatewayAccount)
+                        .orElseThrow(() -> new GatewayAccountCredentialsNotFoundException("Unable to resolve gateway account credentials for charge " + charge.getExternalId()));
+                GatewayAccountCredentialsEntity resolvedCredentials = gatewayAccountCredentials;
+                key.ifPresent(credentialsKey -> credentials.put(credentialsKey, resolvedCredentials));
+            }
+            return gatewayAccountCredentials;
+        }
+    }
 }
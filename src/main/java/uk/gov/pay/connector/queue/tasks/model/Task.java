@@ -1,16 +1,19 @@
 package uk.gov.pay.connector.queue.tasks.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import uk.gov.pay.connector.queue.tasks.TaskType;
 
+import java.time.Instant;
 import java.util.Objects;
+import java.util.Optional;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
-@JsonPropertyOrder({ "data", "task", "payment_external_id" })
+@JsonPropertyOrder({ "data", "task", "payment_external_id", "enqueued_at" })
 public class Task {
     
     private String data;
@@ -20,6 +23,10 @@ public class Task {
     // back compat - to remove
     @JsonProperty("payment_external_id")
     private String paymentExternalId; 
+
+    // epoch milliseconds, used to measure how long tasks wait on the queue
+    @JsonProperty("enqueued_at")
+    private Long enqueuedAt;
     
     public Task() {
         // empty
@@ -43,6 +50,18 @@ public class Task {
         return paymentExternalId;
     }
 
+    @JsonIgnore
+    public Optional<Instant> getEnqueuedAt() {
+        return Optional.ofNullable(enqueuedAt).map(Instant::ofEpochMilli);
+    }
+
+    public Task withEnqueuedAt(Instant enqueuedAt) {
+        Task task = new Task(data, taskType);
+        task.paymentExternalId = paymentExternalId;
+        task.enqueuedAt = enqueuedAt.toEpochMilli();
+        return task;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -4,6 +4,7 @@ import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.common.model.domain.UTCDateTimeConverter;
 import uk.gov.pay.connector.events.model.ResourceType;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
@@ -15,15 +16,30 @@ import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 import java.sql.Date;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static java.time.ZoneOffset.UTC;
+import static java.util.stream.Collectors.toList;
 
 @Transactional
 public class RefundDao extends JpaDao<RefundEntity> {
 
+    private static final String CLAIM_REFUNDS_TO_EXPUNGE_QUERY =
+            "UPDATE refunds SET expunge_claimed_until = now() + ?1 * interval '1 second'" +
+                    " WHERE id IN (" +
+                    "  SELECT id FROM refunds" +
+                    "  WHERE (parity_check_date IS NULL OR parity_check_date < ?2)" +
+                    "    AND created_date < ?3" +
+                    "    AND (created_date, id) > (?4, ?5)" +
+                    "    AND (expunge_claimed_until IS NULL OR expunge_claimed_until < now())" +
+                    "  ORDER BY created_date, id" +
+                    "  LIMIT ?6" +
+                    "  FOR UPDATE SKIP LOCKED" +
+                    ") RETURNING id";
+
     @Inject
     public RefundDao(final Provider<EntityManager> entityManager) {
         super(entityManager);
@@ -137,23 +153,44 @@ public class RefundDao extends JpaDao<RefundEntity> {
                 .getSingleResult();
     }
 
-    public Optional<RefundEntity> findRefundToExpunge(int minimumAgeOfRefundInDays, int excludeRefundsParityCheckedWithInDays) {
-        String query = "SELECT r FROM RefundEntity r" +
-                " WHERE (r.parityCheckDate is null or r.parityCheckDate < :parityCheckedBeforeDate)" +
-                " AND r.createdDate < :createdBeforeDate " +
-                " ORDER BY r.createdDate asc";
-
+    /**
+     * Claims the next refunds old enough to expunge, in {@code (created_date, id)} order after the cursor. Works the
+     * same way as {@link uk.gov.pay.connector.charge.dao.ChargeDao#claimChargesToExpunge}.
+     */
+    public List<RefundEntity> claimRefundsToExpunge(int minimumAgeOfRefundInDays,
+                                                    int excludeRefundsParityCheckedWithInDays,
+                                                    KeysetCursor after,
+                                                    int maximumNumberOfRefunds,
+                                                    Duration claimDuration) {
         ZonedDateTime parityCheckedBeforeDate = ZonedDateTime.now(UTC)
                 .minusDays(excludeRefundsParityCheckedWithInDays);
         ZonedDateTime createdBeforeDate = ZonedDateTime.now(UTC)
                 .minusDays(minimumAgeOfRefundInDays);
 
+        UTCDateTimeConverter utcDateTimeConverter = new UTCDateTimeConverter();
+
+        List<?> claimedIds = entityManager.get()
+                .createNativeQuery(CLAIM_REFUNDS_TO_EXPUNGE_QUERY)
+                .setParameter(1, claimDuration.toSeconds())
+                .setParameter(2, utcDateTimeConverter.convertToDatabaseColumn(parityCheckedBeforeDate))
+                .setParameter(3, utcDateTimeConverter.convertToDatabaseColumn(createdBeforeDate))
+                .setParameter(4, utcDateTimeConverter.convertToDatabaseColumn(ZonedDateTime.ofInstant(after.getCreatedDate(), UTC)))
+                .setParameter(5, after.getId())
+                .setParameter(6, maximumNumberOfRefunds)
+                .getResultList();
+
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
+
+        String query = "SELECT r FROM RefundEntity r" +
+                " WHERE r.id IN :ids" +
+                " ORDER BY r.createdDate, r.id";
+
         return entityManager.get()
                 .createQuery(query, RefundEntity.class)
-                .setParameter("parityCheckedBeforeDate", parityCheckedBeforeDate)
-                .setParameter("createdBeforeDate", createdBeforeDate)
-                .setMaxResults(1)
-                .getResultList().stream().findFirst();
+                .setParameter("ids", claimedIds.stream().map(id -> ((Number) id).longValue()).collect(toList()))
+                .getResultList();
     }
 
     public void expungeRefund(String externalId) {
@@ -9,6 +9,8 @@ import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionService;
@@ -25,6 +27,7 @@ import java.util.Optional;
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.EXISTS_IN_LEDGER;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.PARITY_CHECK;
 import static uk.gov.service.payments.logging.LoggingKeys.MDC_REQUEST_ID_KEY;
 import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.REFUND_EXTERNAL_ID;
@@ -41,12 +44,14 @@ public class ParityCheckerService {
     private final RefundService refundService;
     private final RefundDao refundDao;
     private final ParityCheckService parityCheckService;
+    private final DatabaseBulkhead databaseBulkhead;
     private HistoricalEventEmitter historicalEventEmitter;
 
     @Inject
     public ParityCheckerService(ChargeDao chargeDao, ChargeService chargeService, EmittedEventDao emittedEventDao,
                              StateTransitionService stateTransitionService, EventService eventService,
-                             RefundService refundService, RefundDao refundDao, ParityCheckService parityCheckService) {
+                             RefundService refundService, RefundDao refundDao, ParityCheckService parityCheckService,
+                             DatabaseBulkhead databaseBulkhead) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
         this.emittedEventDao = emittedEventDao;
@@ -55,12 +60,14 @@ public class ParityCheckerService {
         this.refundService = refundService;
         this.refundDao = refundDao;
         this.parityCheckService = parityCheckService;
+        this.databaseBulkhead = databaseBulkhead;
     }
 
     public void checkParity(Long startId, Optional<Long> maybeMaxId, boolean doNotReprocessValidRecords,
                             Optional<String> parityCheckStatus, Long doNotRetryEmitUntilDuration) {
-        Long maxId = maybeMaxId.orElseGet(chargeDao::findMaxId);
-        try {
+        Long maxId = maybeMaxId.orElse(null);
+        try (Permit permit = databaseBulkhead.acquire(PARITY_CHECK)) {
+            maxId = maybeMaxId.orElseGet(chargeDao::findMaxId);
             initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
 
             MDC.put(MDC_REQUEST_ID_KEY, "ParityCheckWorker-" + RandomUtils.nextLong(0, 10000));
@@ -88,7 +95,7 @@ public class ParityCheckerService {
     public void checkParityForRefundsOnly(Long startId, Long maxId, boolean doNotReprocessValidRecords,
                                           String parityCheckStatus, Long doNotRetryEmitUntilDuration) {
         String parityCheckRequestId = "ParityCheckWorker-" + RandomUtils.nextLong(0, 10000);
-        try {
+        try (Permit permit = databaseBulkhead.acquire(PARITY_CHECK)) {
             initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
             MDC.put(MDC_REQUEST_ID_KEY, parityCheckRequestId);
 
@@ -3,6 +3,7 @@ package uk.gov.pay.connector.report.dao;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.dao.ReadReplica;
 import uk.gov.pay.connector.report.model.domain.GatewayAccountPerformanceReportEntity;
 import uk.gov.pay.connector.report.model.domain.PerformanceReportEntity;
 
@@ -19,14 +20,16 @@ import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.LIVE;
 
 @Transactional
 public class PerformanceReportDao extends JpaDao<PerformanceReportEntity> {
+  private final ReadReplica readReplica;
+
   @Inject
-    public PerformanceReportDao(final Provider<EntityManager> entityManager) {
+    public PerformanceReportDao(final Provider<EntityManager> entityManager, ReadReplica readReplica) {
       super(entityManager);
+      this.readReplica = readReplica;
     }
 
   public PerformanceReportEntity aggregateNumberAndValueOfPayments() {
-    return (PerformanceReportEntity) entityManager
-      .get()
+    return (PerformanceReportEntity) readReplica.read(readOnlyEntityManager -> readOnlyEntityManager
       .createQuery(
         "SELECT new  uk.gov.pay.connector.report.model.domain.PerformanceReportEntity("
         + "   COALESCE(COUNT(c.amount), 0),"
@@ -41,12 +44,11 @@ public class PerformanceReportDao extends JpaDao<PerformanceReportEntity> {
       )
       .setParameter("status", CAPTURED.toString())
       .setParameter("type", LIVE)
-      .getSingleResult();
+      .getSingleResult());
   }
 
   public Stream<GatewayAccountPerformanceReportEntity> aggregateNumberAndValueOfPaymentsByGatewayAccount() {
-    return entityManager
-      .get()
+    return readReplica.read(readOnlyEntityManager -> readOnlyEntityManager
       .createQuery(
         "SELECT new uk.gov.pay.connector.report.model.domain.GatewayAccountPerformanceReportEntity("
         + "   COALESCE(COUNT(c.amount), 0),"
@@ -67,15 +69,15 @@ public class PerformanceReportDao extends JpaDao<PerformanceReportEntity> {
       )
       .setParameter("status", CAPTURED.toString())
       .setParameter("type", LIVE)
-      .getResultStream();
+      .getResultList())
+      .stream();
   }
 
   public PerformanceReportEntity aggregateNumberAndValueOfPaymentsForAGivenDay(ZonedDateTime date) {
     Instant startDate = date.truncatedTo(DAYS).toInstant();
     Instant endDate = startDate.plus(Duration.ofHours(24));
 
-    return (PerformanceReportEntity) entityManager
-      .get()
+    return (PerformanceReportEntity) readReplica.read(readOnlyEntityManager -> readOnlyEntityManager
       .createQuery(
         "SELECT new uk.gov.pay.connector.report.model.domain.PerformanceReportEntity("
         + "   COALESCE(COUNT(c.amount), 0),"
@@ -93,6 +95,6 @@ public class PerformanceReportDao extends JpaDao<PerformanceReportEntity> {
       .setParameter("type", LIVE)
       .setParameter("startDate", startDate)
       .setParameter("endDate", endDate)
-      .getSingleResult();
+      .getSingleResult());
   }
 }
@@ -2,7 +2,9 @@ package uk.gov.pay.connector.util;
 
 import org.slf4j.MDC;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 
 import static uk.gov.service.payments.logging.LoggingKeys.AGREEMENT_EXTERNAL_ID;
 import static uk.gov.service.payments.logging.LoggingKeys.AUTHORISATION_MODE;
@@ -21,11 +23,25 @@ public class MDCUtils {
         addGatewayAccountDetailsToMDC(charge.getGatewayAccount());
     }
     
+    public static void addChargeAndGatewayAccountDetailsToMDC(ChargeLoggingContext charge) {
+        MDC.put(PAYMENT_EXTERNAL_ID, charge.getExternalId());
+        MDC.put(PROVIDER, charge.getPaymentProvider());
+        MDC.put(AUTHORISATION_MODE, charge.getAuthorisationMode().getName());
+        charge.getAgreementExternalId().ifPresent(agreementExternalId -> MDC.put(AGREEMENT_EXTERNAL_ID, agreementExternalId));
+
+        addGatewayAccountDetailsToMDC(charge.getGatewayAccountId(), charge.getGatewayAccountType());
+    }
+    
     public static void addGatewayAccountDetailsToMDC(GatewayAccountEntity gatewayAccount) {
         MDC.put(GATEWAY_ACCOUNT_ID, gatewayAccount.getId().toString());
         MDC.put(GATEWAY_ACCOUNT_TYPE, gatewayAccount.getType());
     }
 
+    public static void addGatewayAccountDetailsToMDC(Long gatewayAccountId, GatewayAccountType gatewayAccountType) {
+        MDC.put(GATEWAY_ACCOUNT_ID, gatewayAccountId.toString());
+        MDC.put(GATEWAY_ACCOUNT_TYPE, gatewayAccountType.toString());
+    }
+
     public static void removeChargeAndGatewayAccountDetailsFromMDC() {
         MDC.remove(PAYMENT_EXTERNAL_ID);
         MDC.remove(PROVIDER);
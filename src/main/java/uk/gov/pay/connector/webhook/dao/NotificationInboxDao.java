@@ -0,0 +1,117 @@
+package uk.gov.pay.connector.webhook.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.webhook.model.NotificationInboxEntity;
+import uk.gov.pay.connector.webhook.model.NotificationInboxStatus;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+
+@Transactional
+public class NotificationInboxDao extends JpaDao<NotificationInboxEntity> {
+
+    @Inject
+    public NotificationInboxDao(Provider<EntityManager> entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * Inserts a notification unless one with the same provider and notification id has already been received.
+     *
+     * @return true if the notification was inserted, false if it is a duplicate
+     */
+    public boolean insertIfAbsent(String paymentProvider, String notificationId, String orderingKey, String payload) {
+        int inserted = entityManager.get()
+                .createNativeQuery("INSERT INTO notification_inbox (payment_provider, notification_id, ordering_key, payload, status) " +
+                        "VALUES (?1, ?2, ?3, ?4, 'PENDING') " +
+                        "ON CONFLICT (payment_provider, notification_id) DO NOTHING")
+                .setParameter(1, paymentProvider)
+                .setParameter(2, notificationId)
+                .setParameter(3, orderingKey)
+                .setParameter(4, payload)
+                .executeUpdate();
+        return inserted > 0;
+    }
+
+    /**
+     * Claims up to batchSize pending notifications that are due for an attempt. Only the oldest pending
+     * notification for each ordering key is eligible so notifications for the same charge are processed in the
+     * order they were received. Claimed notifications are not visible to other workers until claimedUntil.
+     */
+    @SuppressWarnings("unchecked")
+    public List<NotificationInboxEntity> claimNextBatch(int batchSize, Instant claimedUntil) {
+        List<NotificationInboxEntity> claimed = entityManager.get()
+                .createNativeQuery("SELECT * FROM notification_inbox ni " +
+                        "WHERE ni.status = 'PENDING' " +
+                        "AND ni.next_attempt_date <= (now() at time zone 'utc') " +
+                        "AND NOT EXISTS (SELECT 1 FROM notification_inbox earlier " +
+                        "   WHERE earlier.payment_provider = ni.payment_provider " +
+                        "   AND earlier.ordering_key = ni.ordering_key " +
+                        "   AND earlier.status = 'PENDING' " +
+                        "   AND earlier.id < ni.id) " +
+                        "ORDER BY ni.id " +
+                        "LIMIT ?1 " +
+                        "FOR UPDATE SKIP LOCKED", NotificationInboxEntity.class)
+                .setParameter(1, batchSize)
+                .getResultList();
+
+        claimed.forEach(notification -> {
+            notification.setAttempts(notification.getAttempts() + 1);
+            notification.setNextAttemptDate(claimedUntil);
+        });
+
+        return claimed;
+    }
+
+    public void markAsProcessed(Long id, Instant processedDate) {
+        entityManager.get()
+                .createQuery("UPDATE NotificationInboxEntity ni SET ni.status = :status, ni.processedDate = :processedDate " +
+                        "WHERE ni.id = :id")
+                .setParameter("status", NotificationInboxStatus.PROCESSED)
+                .setParameter("processedDate", processedDate)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    public void markAsFailed(Long id, Instant processedDate) {
+        entityManager.get()
+                .createQuery("UPDATE NotificationInboxEntity ni SET ni.status = :status, ni.processedDate = :processedDate " +
+                        "WHERE ni.id = :id")
+                .setParameter("status", NotificationInboxStatus.FAILED)
+                .setParameter("processedDate", processedDate)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    public void scheduleRetry(Long id, Instant nextAttemptDate) {
+        entityManager.get()
+                .createQuery("UPDATE NotificationInboxEntity ni SET ni.nextAttemptDate = :nextAttemptDate WHERE ni.id = :id")
+                .setParameter("nextAttemptDate", nextAttemptDate)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * Deletes processed and failed notifications that reached that state before the given date. Pending
+     * notifications are never deleted.
+     */
+    public int deleteProcessedBefore(Instant processedDate) {
+        return entityManager.get()
+                .createQuery("DELETE FROM NotificationInboxEntity ni WHERE ni.status IN :statuses " +
+                        "AND ni.processedDate < :processedDate")
+                .setParameter("statuses", List.of(NotificationInboxStatus.PROCESSED, NotificationInboxStatus.FAILED))
+                .setParameter("processedDate", processedDate)
+                .executeUpdate();
+    }
+
+    public long countPending() {
+        return entityManager.get()
+                .createQuery("SELECT COUNT(ni) FROM NotificationInboxEntity ni WHERE ni.status = :status", Long.class)
+                .setParameter("status", NotificationInboxStatus.PENDING)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.pay.connector.webhook.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.webhook.model.ProcessedStripeNotificationEntity;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+@Transactional
+public class ProcessedStripeNotificationDao extends JpaDao<ProcessedStripeNotificationEntity> {
+
+    @Inject
+    public ProcessedStripeNotificationDao(Provider<EntityManager> entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * @return those of the given notification ids that have already been processed
+     */
+    public Set<String> findProcessed(Collection<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(entityManager.get()
+                .createQuery("SELECT psn.notificationId FROM ProcessedStripeNotificationEntity psn " +
+                        "WHERE psn.notificationId IN :notificationIds", String.class)
+                .setParameter("notificationIds", notificationIds)
+                .getResultList());
+    }
+
+    public void markAsProcessed(Collection<String> notificationIds) {
+        notificationIds.forEach(notificationId -> entityManager.get()
+                .createNativeQuery("INSERT INTO processed_stripe_notifications (notification_id) VALUES (?1) " +
+                        "ON CONFLICT (notification_id) DO NOTHING")
+                .setParameter(1, notificationId)
+                .executeUpdate());
+    }
+
+    public int deleteProcessedBefore(Instant processedDate) {
+        return entityManager.get()
+                .createQuery("DELETE FROM ProcessedStripeNotificationEntity psn WHERE psn.processedDate < :processedDate")
+                .setParameter("processedDate", processedDate)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.pay.connector.webhook.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "notification_inbox")
+@Access(AccessType.FIELD)
+@SequenceGenerator(name = "notification_inbox_id_seq",
+        sequenceName = "notification_inbox_id_seq", allocationSize = 1)
+public class NotificationInboxEntity {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_inbox_id_seq")
+    private Long id;
+
+    @Column(name = "payment_provider", nullable = false)
+    private String paymentProvider;
+
+    @Column(name = "notification_id", nullable = false)
+    private String notificationId;
+
+    @Column(name = "ordering_key", nullable = false)
+    private String orderingKey;
+
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private NotificationInboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "received_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant receivedDate;
+
+    @Column(name = "next_attempt_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant nextAttemptDate;
+
+    @Column(name = "processed_date")
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant processedDate;
+
+    public NotificationInboxEntity() {
+        // For JPA
+    }
+
+    public NotificationInboxEntity(String paymentProvider, String notificationId, String orderingKey, String payload,
+                                   Instant receivedDate) {
+        this.paymentProvider = paymentProvider;
+        this.notificationId = notificationId;
+        this.orderingKey = orderingKey;
+        this.payload = payload;
+        this.status = NotificationInboxStatus.PENDING;
+        this.attempts = 0;
+        this.receivedDate = receivedDate;
+        this.nextAttemptDate = receivedDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPaymentProvider() {
+        return paymentProvider;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public String getOrderingKey() {
+        return orderingKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public NotificationInboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(NotificationInboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getReceivedDate() {
+        return receivedDate;
+    }
+
+    public Instant getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Instant nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public Instant getProcessedDate() {
+        return processedDate;
+    }
+
+    public void setProcessedDate(Instant processedDate) {
+        this.processedDate = processedDate;
+    }
+}
@@ -0,0 +1,7 @@
+package uk.gov.pay.connector.webhook.model;
+
+public enum NotificationInboxStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
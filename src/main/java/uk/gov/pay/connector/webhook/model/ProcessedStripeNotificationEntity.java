@@ -0,0 +1,38 @@
+package uk.gov.pay.connector.webhook.model;
+
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "processed_stripe_notifications")
+@Access(AccessType.FIELD)
+public class ProcessedStripeNotificationEntity {
+
+    @Id
+    @Column(name = "notification_id", nullable = false)
+    private String notificationId;
+
+    @Column(name = "processed_date", nullable = false)
+    @Convert(converter = InstantToUtcTimestampWithoutTimeZoneConverter.class)
+    private Instant processedDate;
+
+    public ProcessedStripeNotificationEntity() {
+        // For JPA
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public Instant getProcessedDate() {
+        return processedDate;
+    }
+}
@@ -0,0 +1,125 @@
+package uk.gov.pay.connector.webhook.service;
+
+import com.codahale.metrics.CachedGauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import io.sentry.Sentry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.NotificationInboxConfig;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.gateway.stripe.StripeNotificationService;
+import uk.gov.pay.connector.gateway.worldpay.WorldpayNotificationService;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+import uk.gov.pay.connector.webhook.model.NotificationInboxEntity;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER;
+
+/**
+ * Processes notifications stored by {@link NotificationInboxService}. Notifications that cannot be processed yet
+ * (for example a Worldpay notification for a telephone payment we do not know about) are retried with an increasing
+ * delay until the maximum number of attempts is reached.
+ */
+public class NotificationInboxProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationInboxProcessor.class);
+    private static final int BACKLOG_METRIC_UPDATE_DELAY_SECONDS = 10;
+
+    private final NotificationInboxDao notificationInboxDao;
+    private final WorldpayNotificationService worldpayNotificationService;
+    private final StripeNotificationService stripeNotificationService;
+    private final NotificationInboxConfig notificationInboxConfig;
+    private final Clock clock;
+    private final Histogram processingLatency;
+
+    @Inject
+    public NotificationInboxProcessor(NotificationInboxDao notificationInboxDao,
+                                      WorldpayNotificationService worldpayNotificationService,
+                                      StripeNotificationService stripeNotificationService,
+                                      ConnectorConfiguration connectorConfiguration,
+                                      Environment environment,
+                                      Clock clock) {
+        this.notificationInboxDao = notificationInboxDao;
+        this.worldpayNotificationService = worldpayNotificationService;
+        this.stripeNotificationService = stripeNotificationService;
+        this.notificationInboxConfig = connectorConfiguration.getNotificationInboxConfig();
+        this.clock = clock;
+
+        MetricRegistry metricRegistry = environment.metrics();
+        this.processingLatency = metricRegistry.histogram("notification-inbox.processing-latency");
+        metricRegistry.gauge("notification-inbox.backlog", () ->
+                new CachedGauge<Long>(BACKLOG_METRIC_UPDATE_DELAY_SECONDS, TimeUnit.SECONDS) {
+                    @Override
+                    protected Long loadValue() {
+                        try {
+                            return notificationInboxDao.countPending();
+                        } catch (Exception e) {
+                            LOGGER.warn("An exception has been caught while retrieving the notification inbox backlog metric [{}]",
+                                    e.getMessage());
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * @return the number of notifications claimed, so callers can poll again immediately when the inbox is busy
+     */
+    public int processNextBatch() {
+        Instant claimedUntil = clock.instant().plusSeconds(notificationInboxConfig.getClaimTimeoutInSeconds());
+        List<NotificationInboxEntity> notifications = notificationInboxDao.claimNextBatch(
+                notificationInboxConfig.getBatchSize(), claimedUntil);
+        notifications.forEach(this::process);
+        return notifications.size();
+    }
+
+    private void process(NotificationInboxEntity notification) {
+        boolean processed;
+        try {
+            processed = dispatch(notification);
+        } catch (Exception e) {
+            LOGGER.error("Error processing {} notification [{}] from notification inbox [error={}]",
+                    notification.getPaymentProvider(), notification.getNotificationId(), e.getMessage(),
+                    kv(PROVIDER, notification.getPaymentProvider()));
+            Sentry.captureException(e);
+            processed = false;
+        }
+
+        if (processed) {
+            Instant processedDate = clock.instant();
+            notificationInboxDao.markAsProcessed(notification.getId(), processedDate);
+            processingLatency.update(Duration.between(notification.getReceivedDate(), processedDate).toMillis());
+        } else if (notification.getAttempts() >= notificationInboxConfig.getMaximumAttempts()) {
+            LOGGER.error("{} notification [{}] could not be processed after {} attempts, giving up",
+                    notification.getPaymentProvider(), notification.getNotificationId(), notification.getAttempts(),
+                    kv(PROVIDER, notification.getPaymentProvider()));
+            notificationInboxDao.markAsFailed(notification.getId(), clock.instant());
+        } else {
+            long retryDelayInSeconds = (long) notificationInboxConfig.getRetryDelayInSeconds() * notification.getAttempts();
+            notificationInboxDao.scheduleRetry(notification.getId(), clock.instant().plusSeconds(retryDelayInSeconds));
+        }
+    }
+
+    private boolean dispatch(NotificationInboxEntity notification) {
+        PaymentGatewayName paymentGatewayName = PaymentGatewayName.valueFrom(notification.getPaymentProvider());
+        switch (paymentGatewayName) {
+            case WORLDPAY:
+                return worldpayNotificationService.processNotification(notification.getPayload());
+            case STRIPE:
+                return stripeNotificationService.processNotification(notification.getPayload());
+            default:
+                LOGGER.error("Notification inbox does not support notifications from {}", paymentGatewayName.getName());
+                return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.pay.connector.webhook.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+
+import javax.inject.Inject;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER;
+
+/**
+ * Persists authenticated, validated gateway notifications so they can be acknowledged immediately and processed
+ * later by {@link NotificationInboxProcessor}.
+ */
+public class NotificationInboxService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationInboxService.class);
+
+    private final NotificationInboxDao notificationInboxDao;
+    private final boolean notificationInboxEnabled;
+
+    @Inject
+    public NotificationInboxService(NotificationInboxDao notificationInboxDao, ConnectorConfiguration connectorConfiguration) {
+        this.notificationInboxDao = notificationInboxDao;
+        this.notificationInboxEnabled = connectorConfiguration.getNotificationInboxConfig().getNotificationInboxEnabled();
+    }
+
+    public boolean isEnabled() {
+        return notificationInboxEnabled;
+    }
+
+    public void accept(PaymentGatewayName paymentGatewayName, String notificationId, String orderingKey, String payload) {
+        if (notificationInboxDao.insertIfAbsent(paymentGatewayName.getName(), notificationId, orderingKey, payload)) {
+            LOGGER.info("Stored {} notification [{}] in notification inbox", paymentGatewayName.getName(), notificationId,
+                    kv(PROVIDER, paymentGatewayName.getName()));
+        } else {
+            LOGGER.info("Ignoring duplicate {} notification [{}]", paymentGatewayName.getName(), notificationId,
+                    kv(PROVIDER, paymentGatewayName.getName()));
+        }
+    }
+}
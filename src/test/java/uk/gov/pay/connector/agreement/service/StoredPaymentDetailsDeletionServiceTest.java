@@ -0,0 +1,203 @@
+package uk.gov.pay.connector.agreement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.agreement.dao.AgreementDao;
+import uk.gov.pay.connector.agreement.dao.StoredPaymentDetailsDeletionJobDao;
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionJobEntity;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionProgress;
+import uk.gov.pay.connector.app.config.StoredPaymentDetailsDeletionConfig;
+import uk.gov.pay.connector.events.EventService;
+import uk.gov.pay.connector.events.model.Event;
+import uk.gov.pay.connector.gateway.GatewayException;
+import uk.gov.pay.connector.gateway.PaymentProvider;
+import uk.gov.pay.connector.gateway.PaymentProviders;
+import uk.gov.pay.connector.gateway.model.request.DeleteStoredPaymentDetailsGatewayRequest;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
+import uk.gov.pay.connector.paymentinstrument.dao.PaymentInstrumentDao;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.gateway.PaymentGatewayName.STRIPE;
+
+@ExtendWith(MockitoExtension.class)
+class StoredPaymentDetailsDeletionServiceTest {
+
+    private static final long GATEWAY_ACCOUNT_ID = 42L;
+    private static final Instant NOW = Instant.parse("2023-10-01T10:15:30Z");
+    private static final long JOB_ID = 7L;
+
+    @Mock
+    private AgreementDao agreementDao;
+    @Mock
+    private StoredPaymentDetailsDeletionJobDao jobDao;
+    @Mock
+    private PaymentInstrumentDao paymentInstrumentDao;
+    @Mock
+    private PaymentProviders providers;
+    @Mock
+    private PaymentProvider paymentProvider;
+    @Mock
+    private EventService eventService;
+    @Mock
+    private GatewayAccountEntity gatewayAccount;
+    @Mock
+    private GatewayAccountCredentialsEntity gatewayAccountCredentials;
+
+    private StoredPaymentDetailsDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        StoredPaymentDetailsDeletionConfig config = new ObjectMapper().convertValue(
+                Map.of("batchSize", 2, "maximumConcurrentDeletions", 1), StoredPaymentDetailsDeletionConfig.class);
+        ExecutorService directExecutor = MoreExecutors.newDirectExecutorService();
+        service = new StoredPaymentDetailsDeletionService(agreementDao, jobDao, paymentInstrumentDao, providers, eventService,
+                config, directExecutor, directExecutor, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        lenient().when(gatewayAccount.getGatewayName()).thenReturn(STRIPE.getName());
+        lenient().when(gatewayAccount.getGatewayAccountCredentialsEntity(STRIPE.getName())).thenReturn(gatewayAccountCredentials);
+        lenient().when(providers.byName(STRIPE)).thenReturn(paymentProvider);
+        lenient().when(jobDao.findById(JOB_ID)).thenReturn(Optional.of(new StoredPaymentDetailsDeletionJobEntity(
+                JOB_ID, GATEWAY_ACCOUNT_ID, null, 0, 0, 0L, NOW, NOW, null)));
+    }
+
+    @Test
+    void shouldDeleteInBatchesAndCancelOnlyPaymentInstrumentsWhoseDetailsWereDeleted() throws Exception {
+        AgreementEntity agreement1 = anAgreement(1L, "agreement-1", 101L);
+        AgreementEntity agreement2 = anAgreement(2L, "agreement-2", 102L);
+        AgreementEntity agreement3 = anAgreement(3L, "agreement-3", 103L);
+        when(agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(GATEWAY_ACCOUNT_ID, 0L, 2))
+                .thenReturn(List.of(agreement1, agreement2));
+        when(agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(GATEWAY_ACCOUNT_ID, 102L, 2))
+                .thenReturn(List.of(agreement3));
+        lenient().doThrow(new GatewayException.GenericGatewayException("Stripe unavailable"))
+                .when(paymentProvider).deleteStoredPaymentDetails(argThat(request -> request.getAgreementExternalId().equals("agreement-2")));
+        when(jobDao.start(GATEWAY_ACCOUNT_ID, null, Duration.ofMinutes(15))).thenReturn(Optional.of(JOB_ID));
+
+        StoredPaymentDetailsDeletionProgress progress = service.startForGatewayAccount(GATEWAY_ACCOUNT_ID).orElseThrow();
+
+        verify(paymentInstrumentDao).updateStatus(List.of(101L), PaymentInstrumentStatus.CANCELLED);
+        verify(agreementDao).updateCancelledDate(List.of(1L), NOW);
+        verify(paymentInstrumentDao).updateStatus(List.of(103L), PaymentInstrumentStatus.CANCELLED);
+        verify(agreementDao).updateCancelledDate(List.of(3L), NOW);
+
+        ArgumentCaptor<List<Event>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(eventService, times(2)).emitAndRecordEvents(eventsCaptor.capture());
+        assertThat(eventsCaptor.getAllValues().get(0).get(0).getResourceExternalId(), is("agreement-1"));
+        assertThat(eventsCaptor.getAllValues().get(1).get(0).getResourceExternalId(), is("agreement-3"));
+
+        assertThat(progress.getGatewayAccountId(), is(GATEWAY_ACCOUNT_ID));
+        InOrder inOrder = inOrder(jobDao);
+        inOrder.verify(jobDao).recordBatch(JOB_ID, 102L, 1, 1);
+        inOrder.verify(jobDao).recordBatch(JOB_ID, 103L, 1, 0);
+        inOrder.verify(jobDao).markAsCompleted(JOB_ID);
+    }
+
+    @Test
+    void shouldNotCancelAnythingWhenNoDeletionSucceeds() throws Exception {
+        AgreementEntity agreement = anAgreement(1L, "agreement-1", 101L);
+        when(agreementDao.findWithActivePaymentInstrumentByExternalIds(List.of("agreement-1"), 0L, 2))
+                .thenReturn(List.of(agreement));
+        doThrow(new GatewayException.GenericGatewayException("Stripe unavailable"))
+                .when(paymentProvider).deleteStoredPaymentDetails(any(DeleteStoredPaymentDetailsGatewayRequest.class));
+        when(jobDao.start(null, 1, Duration.ofMinutes(15))).thenReturn(Optional.of(JOB_ID));
+
+        service.startForAgreements(List.of("agreement-1")).orElseThrow();
+
+        verify(paymentInstrumentDao, never()).updateStatus(any(), any());
+        verify(eventService, never()).emitAndRecordEvents(any());
+        verify(jobDao).recordBatch(JOB_ID, 101L, 0, 1);
+        verify(jobDao).markAsCompleted(JOB_ID);
+    }
+
+    @Test
+    void shouldNotStartAnotherJobWhileOneIsRunning() {
+        when(jobDao.start(GATEWAY_ACCOUNT_ID, null, Duration.ofMinutes(15))).thenReturn(Optional.empty());
+
+        Optional<StoredPaymentDetailsDeletionProgress> job = service.startForGatewayAccount(GATEWAY_ACCOUNT_ID);
+
+        assertThat(job.isPresent(), is(false));
+        verify(agreementDao, never()).findWithActivePaymentInstrumentByGatewayAccountId(eq(GATEWAY_ACCOUNT_ID), anyLong(), any(Integer.class));
+        verify(jobDao, never()).markAsCompleted(anyLong());
+    }
+
+    @Test
+    void shouldMarkJobAsCompletedWhenItStopsPartWay() {
+        when(jobDao.start(GATEWAY_ACCOUNT_ID, null, Duration.ofMinutes(15))).thenReturn(Optional.of(JOB_ID));
+        when(agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(GATEWAY_ACCOUNT_ID, 0L, 2))
+                .thenThrow(new RuntimeException("Database unavailable"));
+
+        service.startForGatewayAccount(GATEWAY_ACCOUNT_ID);
+
+        verify(jobDao, never()).recordBatch(anyLong(), anyLong(), any(Integer.class), any(Integer.class));
+        verify(jobDao).markAsCompleted(JOB_ID);
+    }
+
+    @Test
+    void shouldReportRunningJobThatHasNotRecordedProgressForLongerThanTimeoutAsAbandoned() {
+        when(jobDao.findLatest()).thenReturn(Optional.of(new StoredPaymentDetailsDeletionJobEntity(
+                JOB_ID, GATEWAY_ACCOUNT_ID, null, 3, 0, 103L, NOW.minusSeconds(3600), NOW.minusSeconds(901), null)));
+
+        StoredPaymentDetailsDeletionProgress progress = service.getProgress().orElseThrow();
+
+        assertThat(progress.isAbandoned(), is(true));
+        assertThat(progress.isCompleted(), is(true));
+    }
+
+    @Test
+    void shouldNotReportRunningJobThatRecordedProgressRecentlyAsAbandoned() {
+        when(jobDao.findLatest()).thenReturn(Optional.of(new StoredPaymentDetailsDeletionJobEntity(
+                JOB_ID, GATEWAY_ACCOUNT_ID, null, 3, 0, 103L, NOW.minusSeconds(3600), NOW.minusSeconds(60), null)));
+
+        StoredPaymentDetailsDeletionProgress progress = service.getProgress().orElseThrow();
+
+        assertThat(progress.isAbandoned(), is(false));
+        assertThat(progress.isCompleted(), is(false));
+    }
+
+    private AgreementEntity anAgreement(long agreementId, String externalId, long paymentInstrumentId) {
+        PaymentInstrumentEntity paymentInstrument = mock(PaymentInstrumentEntity.class);
+        lenient().when(paymentInstrument.getId()).thenReturn(paymentInstrumentId);
+        lenient().when(paymentInstrument.getRecurringAuthToken()).thenReturn(Optional.of(Map.of("customer_id", "cus_" + agreementId)));
+
+        AgreementEntity agreement = mock(AgreementEntity.class);
+        lenient().when(agreement.getId()).thenReturn(agreementId);
+        lenient().when(agreement.getExternalId()).thenReturn(externalId);
+        lenient().when(agreement.getServiceId()).thenReturn("a-service-id");
+        lenient().when(agreement.getGatewayAccount()).thenReturn(gatewayAccount);
+        lenient().when(agreement.getPaymentInstrument()).thenReturn(Optional.of(paymentInstrument));
+        return agreement;
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.pay.connector.cardtype.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.cardtype.dao.CardTypeEntityBuilder.aCardTypeEntity;
+import static uk.gov.pay.connector.cardtype.model.domain.CardType.CREDIT;
+import static uk.gov.pay.connector.cardtype.model.domain.CardType.DEBIT;
+
+@ExtendWith(MockitoExtension.class)
+class CardTypeRegistryTest {
+
+    @Mock
+    private CardTypeDao mockCardTypeDao;
+
+    private CardTypeRegistry cardTypeRegistry;
+
+    private final CardTypeEntity visaCredit = aCardTypeEntity().withBrand("visa").withLabel("Visa").withType(CREDIT).build();
+    private final CardTypeEntity visaDebit = aCardTypeEntity().withBrand("visa").withLabel("Visa").withType(DEBIT).build();
+    private final CardTypeEntity maestro = aCardTypeEntity().withBrand("maestro").withLabel("Maestro").withType(DEBIT)
+            .withRequires3ds(true).build();
+
+    @BeforeEach
+    void setUp() {
+        cardTypeRegistry = new CardTypeRegistry(mockCardTypeDao);
+    }
+
+    @Test
+    void shouldLoadCardTypesOnStartAndServeLookupsFromMemory() {
+        when(mockCardTypeDao.findAll()).thenReturn(List.of(visaCredit, visaDebit, maestro));
+
+        cardTypeRegistry.start();
+
+        assertThat(cardTypeRegistry.findAll(), contains(visaCredit, visaDebit, maestro));
+        assertThat(cardTypeRegistry.findById(maestro.getId()).get(), is(maestro));
+        assertThat(cardTypeRegistry.findById(UUID.randomUUID()).isPresent(), is(false));
+        assertThat(cardTypeRegistry.findByBrand("visa"), containsInAnyOrder(visaCredit, visaDebit));
+        assertThat(cardTypeRegistry.findByBrand("unknown"), is(empty()));
+        assertThat(cardTypeRegistry.findByType(DEBIT), containsInAnyOrder(visaDebit, maestro));
+        assertThat(cardTypeRegistry.findAllNon3ds(), containsInAnyOrder(visaCredit, visaDebit));
+
+        verify(mockCardTypeDao, times(1)).findAll();
+    }
+
+    @Test
+    void shouldLoadCardTypesWhenFirstUsedIfStartupLoadFailed() {
+        when(mockCardTypeDao.findAll())
+                .thenThrow(new RuntimeException("relation card_types does not exist"))
+                .thenReturn(List.of(visaCredit));
+
+        cardTypeRegistry.start();
+
+        assertThat(cardTypeRegistry.findAll(), contains(visaCredit));
+        verify(mockCardTypeDao, times(2)).findAll();
+    }
+
+    @Test
+    void shouldReplaceCardTypesOnReload() {
+        when(mockCardTypeDao.findAll())
+                .thenReturn(List.of(visaCredit))
+                .thenReturn(List.of(visaCredit, maestro));
+
+        cardTypeRegistry.start();
+        assertThat(cardTypeRegistry.findByBrand("maestro"), is(empty()));
+
+        cardTypeRegistry.reload();
+        assertThat(cardTypeRegistry.findByBrand("maestro"), contains(maestro));
+    }
+}
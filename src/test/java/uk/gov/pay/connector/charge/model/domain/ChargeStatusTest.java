@@ -0,0 +1,30 @@
+package uk.gov.pay.connector.charge.model.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChargeStatusTest {
+
+    @ParameterizedTest
+    @EnumSource(ChargeStatus.class)
+    void fromString_shouldReturnStatusForEveryValue(ChargeStatus chargeStatus) {
+        assertThat(ChargeStatus.fromString(chargeStatus.getValue()), is(chargeStatus));
+    }
+
+    @Test
+    void fromString_shouldMatchOnValueRatherThanName() {
+        assertThat(ChargeStatus.fromString("AUTHORISATION 3DS REQUIRED"), is(ChargeStatus.AUTHORISATION_3DS_REQUIRED));
+        assertThrows(IllegalArgumentException.class, () -> ChargeStatus.fromString("AUTHORISATION_3DS_REQUIRED"));
+    }
+
+    @Test
+    void fromString_shouldRejectUnknownOrNullStatus() {
+        assertThrows(IllegalArgumentException.class, () -> ChargeStatus.fromString("NOT A STATUS"));
+        assertThrows(IllegalArgumentException.class, () -> ChargeStatus.fromString(null));
+    }
+}
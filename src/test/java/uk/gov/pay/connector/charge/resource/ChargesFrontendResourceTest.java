@@ -5,7 +5,7 @@ import io.dropwizard.testing.junit5.ResourceExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import uk.gov.pay.connector.agreement.service.AgreementService;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.charge.service.Worldpay3dsFlexJwtService;
@@ -27,14 +27,14 @@ import static org.mockito.Mockito.mock;
 class ChargesFrontendResourceTest {
     private static final ChargeService CHARGE_SERVICE = mock(ChargeService.class);
     private static final ChargeDao CHARGE_DAO = mock(ChargeDao.class);
-    private static final CardTypeDao CARD_TYPE_DAO = mock(CardTypeDao.class);
+    private static final CardTypeRegistry CARD_TYPE_REGISTRY = mock(CardTypeRegistry.class);
     private static final Worldpay3dsFlexJwtService WORLDPAY_3DS_FLEX_JWT_SERVICE = mock(Worldpay3dsFlexJwtService.class);
     private static final AgreementService AGREEMENT_SERVICE = mock(AgreementService.class);
     private static final ExternalTransactionStateFactory EXTERNAL_TRANSACTION_STATE_FACTORY = mock(ExternalTransactionStateFactory.class);
 
     private static final ResourceExtension resources = ResourceTestRuleWithCustomExceptionMappersBuilder
             .getBuilder()
-            .addResource(new ChargesFrontendResource(CHARGE_DAO, CHARGE_SERVICE, CARD_TYPE_DAO,
+            .addResource(new ChargesFrontendResource(CHARGE_DAO, CHARGE_SERVICE, CARD_TYPE_REGISTRY,
                     WORLDPAY_3DS_FLEX_JWT_SERVICE, AGREEMENT_SERVICE, EXTERNAL_TRANSACTION_STATE_FACTORY))
             .build();
 
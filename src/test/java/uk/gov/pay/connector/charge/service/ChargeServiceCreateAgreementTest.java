@@ -15,7 +15,7 @@ import uk.gov.pay.connector.agreement.exception.RecurringCardPaymentsNotAllowedE
 import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.exception.AgreementMissingPaymentInstrumentException;
 import uk.gov.pay.connector.charge.exception.AgreementNotFoundBadRequestException;
@@ -99,7 +99,7 @@ class ChargeServiceCreateAgreementTest {
     private GatewayAccountDao mockGatewayAccountDao;
 
     @Mock
-    private CardTypeDao mockCardTypeDao;
+    private CardTypeRegistry mockCardTypeRegistry;
 
     @Mock
     private AgreementDao mockAgreementDao;
@@ -189,7 +189,7 @@ class ChargeServiceCreateAgreementTest {
 
         when(mockConfig.getLinks()).thenReturn(mockLinksConfig);
 
-        chargeService = new ChargeService(mockTokenDao, mockChargeDao, mockChargeEventDao, mockCardTypeDao, mockAgreementDao, mockGatewayAccountDao,
+        chargeService = new ChargeService(mockTokenDao, mockChargeDao, mockChargeEventDao, mockCardTypeRegistry, mockAgreementDao, mockGatewayAccountDao,
                 mockConfig, mockProviders, mockStateTransitionService, mockLedgerService, mockedRefundService, mockEventService,
                 mockPaymentInstrumentService, mockGatewayAccountCredentialsService,
                 mockAuthCardDetailsToCardDetailsEntityConverter, mockTaskQueueService, mockWorldpay3dsFlexJwtService, mockIdempotencyDao,
@@ -11,7 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.agreement.dao.AgreementDao;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.AddressEntity;
 import uk.gov.pay.connector.charge.model.ChargeCreateRequest;
@@ -85,7 +85,7 @@ class ChargeServiceCreatePrefilledCardholderDetailsTest {
     private GatewayAccountDao mockedGatewayAccountDao;
 
     @Mock
-    private CardTypeDao mockedCardTypeDao;
+    private CardTypeRegistry mockedCardTypeRegistry;
 
     @Mock
     private AgreementDao mockedAgreementDao;
@@ -170,7 +170,7 @@ class ChargeServiceCreatePrefilledCardholderDetailsTest {
         when(mockedLinksConfig.getFrontendUrl()).thenReturn("http://frontend.test");
 
         chargeService = new ChargeService(mockedTokenDao, mockedChargeDao, mockedChargeEventDao,
-                mockedCardTypeDao, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
+                mockedCardTypeRegistry, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
                 mockStateTransitionService, ledgerService, mockedRefundService, mockEventService, mockPaymentInstrumentService,
                 mockGatewayAccountCredentialsService, mockAuthCardDetailsToCardDetailsEntityConverter,
                 mockTaskQueueService, mockWorldpay3dsFlexJwtService, mockIdempotencyDao, mockExternalTransactionStateFactory, objectMapper, null);
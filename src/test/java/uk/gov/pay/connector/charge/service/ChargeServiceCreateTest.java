@@ -25,7 +25,7 @@ import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.app.CaptureProcessConfig;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.cardtype.model.domain.CardType;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.exception.CardNumberInPaymentLinkReferenceException;
@@ -160,7 +160,7 @@ class ChargeServiceCreateTest {
     private GatewayAccountDao mockedGatewayAccountDao;
 
     @Mock
-    private CardTypeDao mockedCardTypeDao;
+    private CardTypeRegistry mockedCardTypeRegistry;
 
     @Mock
     private AgreementDao mockedAgreementDao;
@@ -284,7 +284,7 @@ class ChargeServiceCreateTest {
         externalTransactionState = new ExternalTransactionState(EXTERNAL_CREATED.getStatus(), false);
 
         chargeService = new ChargeService(mockedTokenDao, mockedChargeDao, mockedChargeEventDao,
-                mockedCardTypeDao, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
+                mockedCardTypeRegistry, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
                 mockStateTransitionService, ledgerService, mockedRefundService, mockEventService, mockPaymentInstrumentService,
                 mockGatewayAccountCredentialsService, mockAuthCardDetailsToCardDetailsEntityConverter,
                 mockTaskQueueService, mockWorldpay3dsFlexJwtService, mockIdempotencyDao, mockExternalTransactionStateFactory, mapper, mockCardidService);
@@ -947,7 +947,7 @@ class ChargeServiceCreateTest {
 
         private ChargeService getNewChargeService() {
             return new ChargeService(mockedTokenDao, mockedChargeDao, mockedChargeEventDao,
-                    mockedCardTypeDao, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
+                    mockedCardTypeRegistry, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
                     mockStateTransitionService, ledgerService, mockedRefundService, mockEventService, mockPaymentInstrumentService,
                     mockGatewayAccountCredentialsService, mockAuthCardDetailsToCardDetailsEntityConverter,
                     mockTaskQueueService, null, mockIdempotencyDao, mockExternalTransactionStateFactory, mapper, mockCardidService);
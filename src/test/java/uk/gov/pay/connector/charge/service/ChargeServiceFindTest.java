@@ -13,8 +13,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.agreement.dao.AgreementDao;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.model.ChargeResponse;
 import uk.gov.pay.connector.charge.model.domain.Charge;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
@@ -114,7 +115,7 @@ class ChargeServiceFindTest {
     private GatewayAccountDao mockedGatewayAccountDao;
 
     @Mock
-    private CardTypeDao mockedCardTypeDao;
+    private CardTypeRegistry mockedCardTypeRegistry;
 
     @Mock
     private AgreementDao mockedAgreementDao;
@@ -206,7 +207,7 @@ class ChargeServiceFindTest {
         when(mockedConfig.getLinks()).thenReturn(mockedLinksConfig);
 
         chargeService = new ChargeService(mockedTokenDao, mockedChargeDao, mockedChargeEventDao,
-                mockedCardTypeDao, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
+                mockedCardTypeRegistry, mockedAgreementDao, mockedGatewayAccountDao, mockedConfig, mockedProviders,
                 mockStateTransitionService, ledgerService, mockedRefundService, mockEventService, mockPaymentInstrumentService,
                 mockGatewayAccountCredentialsService, mockAuthCardDetailsToCardDetailsEntityConverter, mockTaskQueueService,
                 mockWorldpay3dsFlexJwtService, mockIdempotencyDao, mockExternalTransactionStateFactory, objectMapper, null);
@@ -252,7 +253,7 @@ class ChargeServiceFindTest {
         when(mockedLinksConfig.getFrontendUrl()).thenReturn("http://frontend.test");
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(Charge.class), anyList())).thenReturn(EXTERNAL_AVAILABLE);
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(newCharge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(newCharge));
         when(mockExternalTransactionStateFactory.newExternalTransactionState(newCharge))
                 .thenReturn(new ExternalTransactionState(status.toExternal().getStatus(), false));
 
@@ -299,7 +300,7 @@ class ChargeServiceFindTest {
         when(mockedLinksConfig.getFrontendUrl()).thenReturn("http://frontend.test");
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(Charge.class), anyList())).thenReturn(EXTERNAL_AVAILABLE);
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(newCharge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(newCharge));
 
         Optional<ChargeResponse> chargeResponseForAccount = chargeService.findChargeForAccount(externalId, GATEWAY_ACCOUNT_ID, mockedUriInfo);
 
@@ -331,7 +332,7 @@ class ChargeServiceFindTest {
         doAnswer(invocation -> fromUri(SERVICE_HOST)).when(this.mockedUriInfo).getBaseUriBuilder();
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(Charge.class), anyList())).thenReturn(EXTERNAL_AVAILABLE);
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(charge));
 
         Optional<ChargeResponse> chargeResponseForAccount = chargeService.findChargeForAccount(externalId, GATEWAY_ACCOUNT_ID, mockedUriInfo);
         
@@ -357,7 +358,7 @@ class ChargeServiceFindTest {
                 .build();
 
         String externalId = newCharge.getExternalId();
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(newCharge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(newCharge));
         when(mockExternalTransactionStateFactory.newExternalTransactionState(newCharge))
                 .thenReturn(new ExternalTransactionState(EXTERNAL_SUCCESS.getStatus(), true));
 
@@ -376,7 +377,7 @@ class ChargeServiceFindTest {
     public void shouldNotFindAChargeWhenNoChargeForChargeIdAndAccountId() {
         String externalChargeId = "101abc";
 
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.empty());
 
         Optional<ChargeResponse> chargeForAccount = chargeService.findChargeForAccount(externalChargeId, GATEWAY_ACCOUNT_ID, mockedUriInfo);
 
@@ -399,7 +400,7 @@ class ChargeServiceFindTest {
         doAnswer(invocation -> fromUri(SERVICE_HOST)).when(this.mockedUriInfo).getBaseUriBuilder();
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(Charge.class), anyList())).thenReturn(EXTERNAL_AVAILABLE);
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(newCharge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(newCharge));
         when(mockExternalTransactionStateFactory.newExternalTransactionState(newCharge))
                 .thenReturn(new ExternalTransactionState(EXTERNAL_CREATED.getStatus(), false));
 
@@ -436,7 +437,7 @@ class ChargeServiceFindTest {
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(Charge.class), anyList())).thenReturn(EXTERNAL_AVAILABLE);
         doAnswer(invocation -> fromUri(SERVICE_HOST)).when(this.mockedUriInfo).getBaseUriBuilder();
-        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(newCharge));
+        when(mockedChargeDao.findByExternalIdAndGatewayAccount(externalId, GATEWAY_ACCOUNT_ID, ChargeFetchPlan.API_RESPONSE)).thenReturn(Optional.of(newCharge));
         when(mockExternalTransactionStateFactory.newExternalTransactionState(newCharge))
                 .thenReturn(new ExternalTransactionState(EXTERNAL_CAPTURABLE.getStatus(), false));
 
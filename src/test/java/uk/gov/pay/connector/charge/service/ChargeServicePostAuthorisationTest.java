@@ -12,7 +12,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.agreement.dao.AgreementDao;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.CardDetailsEntity;
 import uk.gov.pay.connector.charge.model.domain.Auth3dsRequiredEntity;
@@ -78,7 +78,7 @@ class ChargeServicePostAuthorisationTest {
     @Mock private AgreementDao mockAgreementDao;
     @Mock private GatewayAccountDao mockGatewayAccountDao;
     @Mock private TokenDao mockTokenDao;
-    @Mock private CardTypeDao mockCardTypeDao;
+    @Mock private CardTypeRegistry mockCardTypeRegistry;
     @Mock private RefundService mockRefundService;
     @Mock private PaymentInstrumentService mockPaymentInstrumentService;
     @Mock private LedgerService mockLedgerService;
@@ -133,7 +133,7 @@ class ChargeServicePostAuthorisationTest {
                 .build();
 
         chargeService = new ChargeService(mockTokenDao, mockChargeDao, mockChargeEventDao,
-                mockCardTypeDao, mockAgreementDao, mockGatewayAccountDao, mockConnectorConfig, mockProviders,
+                mockCardTypeRegistry, mockAgreementDao, mockGatewayAccountDao, mockConnectorConfig, mockProviders,
                 mockStateTransitionService, mockLedgerService, mockRefundService, mockEventService, mockPaymentInstrumentService,
                 mockGatewayAccountCredentialsService, mockAuthCardDetailsToCardDetailsEntityConverter,
                 mockTaskQueueService, mockWorldpay3dsFlexJwtService, mockIdempotencyDao, mockExternalTransactionStateFactory, objectMapper, null);
@@ -0,0 +1,126 @@
+package uk.gov.pay.connector.common.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EntityCacheConfig;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentEntity;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheInvalidationListenerTest {
+
+    @Mock
+    private EntityManagerFactory mockEntityManagerFactory;
+    @Mock
+    private Cache mockCache;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private EntityCacheConfig mockEntityCacheConfig;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private EntityCacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+        when(mockEnvironment.lifecycle()).thenReturn(new LifecycleEnvironment(metricRegistry));
+        when(mockConnectorConfiguration.getEntityCacheConfig()).thenReturn(mockEntityCacheConfig);
+        listener = new EntityCacheInvalidationListener(() -> mockEntityManagerFactory, mockEnvironment, mockConnectorConfiguration);
+    }
+
+    @Test
+    void shouldEvictTheChangedEntityById() {
+        when(mockEntityManagerFactory.getCache()).thenReturn(mockCache);
+
+        listener.evict("payment_instruments:42");
+
+        verify(mockCache).evict(PaymentInstrumentEntity.class, 42L);
+        verify(mockCache, never()).evict(PaymentInstrumentEntity.class);
+        assertThat(metricRegistry.counter("entity-cache.invalidations").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldEvictCardTypesByUuid() {
+        when(mockEntityManagerFactory.getCache()).thenReturn(mockCache);
+        UUID cardTypeId = UUID.randomUUID();
+
+        listener.evict("card_types:" + cardTypeId);
+
+        verify(mockCache).evict(CardTypeEntity.class, cardTypeId);
+    }
+
+    @Test
+    void shouldEvictTheWholeEntityClassWhenTheNotificationHasNoId() {
+        when(mockEntityManagerFactory.getCache()).thenReturn(mockCache);
+
+        listener.evict("gateway_accounts");
+
+        verify(mockCache).evict(GatewayAccountEntity.class);
+        assertThat(metricRegistry.counter("entity-cache.invalidations").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldEvictTheWholeEntityClassWhenTheIdCannotBeParsed() {
+        when(mockEntityManagerFactory.getCache()).thenReturn(mockCache);
+
+        listener.evict("agreements:not-a-number");
+
+        verify(mockCache).evict(AgreementEntity.class);
+    }
+
+    @Test
+    void shouldIgnoreNotificationsForUnknownTables() {
+        listener.evict("charges:1");
+
+        verify(mockEntityManagerFactory, never()).getCache();
+        assertThat(metricRegistry.counter("entity-cache.invalidations").getCount(), is(0L));
+    }
+
+    @Test
+    void shouldEvictAllCachedEntities() {
+        when(mockEntityManagerFactory.getCache()).thenReturn(mockCache);
+
+        listener.evictAll();
+
+        verify(mockCache).evict(GatewayAccountEntity.class);
+        verify(mockCache).evict(GatewayAccountCredentialsEntity.class);
+        verify(mockCache).evict(CardTypeEntity.class);
+        verify(mockCache).evict(AgreementEntity.class);
+        verify(mockCache).evict(PaymentInstrumentEntity.class);
+    }
+
+    @Test
+    void shouldNotListenWhenEntityCacheIsDisabled() {
+        when(mockEntityCacheConfig.getEntityCacheEnabled()).thenReturn(false);
+
+        listener.start();
+        listener.stop();
+
+        verifyNoInteractions(mockEntityManagerFactory);
+    }
+}
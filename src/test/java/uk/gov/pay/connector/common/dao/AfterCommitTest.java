@@ -0,0 +1,110 @@
+package uk.gov.pay.connector.common.dao;
+
+import org.eclipse.persistence.sessions.SessionEventListener;
+import org.eclipse.persistence.sessions.SessionEventManager;
+import org.eclipse.persistence.sessions.UnitOfWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AfterCommitTest {
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private EntityTransaction transaction;
+    @Mock
+    private UnitOfWork unitOfWork;
+    @Mock
+    private SessionEventManager eventManager;
+
+    private final List<String> actionsRun = new ArrayList<>();
+    private AfterCommit afterCommit;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        afterCommit = new AfterCommit(() -> entityManager);
+    }
+
+    @Test
+    void shouldRunActionStraightAwayWithoutTransaction() {
+        when(transaction.isActive()).thenReturn(false);
+
+        afterCommit.run(() -> actionsRun.add("action"));
+
+        assertThat(actionsRun, contains("action"));
+    }
+
+    @Test
+    void shouldRunActionsOnceTransactionHasCommitted() {
+        SessionEventListener listener = givenActiveTransaction();
+
+        afterCommit.run(() -> actionsRun.add("first"));
+        afterCommit.run(() -> actionsRun.add("second"));
+        assertThat(actionsRun, is(empty()));
+
+        listener.postCommitUnitOfWork(null);
+        listener.postCommitUnitOfWork(null);
+
+        assertThat(actionsRun, contains("first", "second"));
+    }
+
+    @Test
+    void shouldDropActionsWhenUnitOfWorkIsReleasedWithoutCommitting() {
+        SessionEventListener listener = givenActiveTransaction();
+
+        afterCommit.run(() -> actionsRun.add("action"));
+        listener.postReleaseUnitOfWork(null);
+        listener.postCommitUnitOfWork(null);
+
+        assertThat(actionsRun, is(empty()));
+    }
+
+    @Test
+    void shouldRunRemainingActionsWhenOneFails() {
+        SessionEventListener listener = givenActiveTransaction();
+
+        afterCommit.run(() -> {
+            throw new IllegalStateException("queue full");
+        });
+        afterCommit.run(() -> actionsRun.add("action"));
+        listener.postCommitUnitOfWork(null);
+
+        assertThat(actionsRun, contains("action"));
+    }
+
+    private SessionEventListener givenActiveTransaction() {
+        when(transaction.isActive()).thenReturn(true);
+        when(entityManager.unwrap(UnitOfWork.class)).thenReturn(unitOfWork);
+        when(unitOfWork.getEventManager()).thenReturn(eventManager);
+        ArgumentCaptor<Object> pendingActions = ArgumentCaptor.forClass(Object.class);
+        when(unitOfWork.getProperty(anyString())).thenAnswer(invocation -> pendingActions.getAllValues().isEmpty()
+                ? null : pendingActions.getValue());
+        doNothing().when(unitOfWork).setProperty(anyString(), pendingActions.capture());
+
+        afterCommit.run(() -> { });
+
+        ArgumentCaptor<SessionEventListener> listener = ArgumentCaptor.forClass(SessionEventListener.class);
+        verify(eventManager).addListener(listener.capture());
+        return listener.getValue();
+    }
+}
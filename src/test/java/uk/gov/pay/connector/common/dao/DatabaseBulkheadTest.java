@@ -0,0 +1,157 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.DatabaseBulkheadConfig;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead.Permit;
+import uk.gov.pay.connector.common.exception.DatabaseBulkheadFullException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.EXPUNGE;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.HISTORICAL_EVENT_EMISSION;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.PARITY_CHECK;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseBulkheadTest {
+
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+
+    @Mock
+    private DatabaseBulkheadConfig mockDatabaseBulkheadConfig;
+
+    @Mock
+    private Environment mockEnvironment;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        var dataSourceFactory = new DataSourceFactory();
+        dataSourceFactory.setMaxSize(8);
+        when(mockConnectorConfiguration.getDataSourceFactory()).thenReturn(dataSourceFactory);
+        when(mockConnectorConfiguration.getDatabaseBulkheadConfig()).thenReturn(mockDatabaseBulkheadConfig);
+        lenient().when(mockDatabaseBulkheadConfig.getExpirySweepMaxConnections()).thenReturn(1);
+        lenient().when(mockDatabaseBulkheadConfig.getExpungeMaxConnections()).thenReturn(1);
+        lenient().when(mockDatabaseBulkheadConfig.getParityCheckMaxConnections()).thenReturn(1);
+        lenient().when(mockDatabaseBulkheadConfig.getHistoricalEventEmissionMaxConnections()).thenReturn(2);
+        lenient().when(mockDatabaseBulkheadConfig.getEmittedEventSweepMaxConnections()).thenReturn(1);
+        lenient().when(mockDatabaseBulkheadConfig.getMaxWaitForConnectionInSeconds()).thenReturn(1);
+        lenient().when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void shouldRejectJobWhenItsWorkloadHasNoConnectionsLeft() throws Exception {
+        DatabaseBulkhead databaseBulkhead = createBulkheadWithTotalMaxConnections(2);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            assertThat(availableConnections("expunge"), is(0));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                    executorService.submit(() -> databaseBulkhead.acquire(EXPUNGE)).get());
+
+            assertThat(exception.getCause(), instanceOf(DatabaseBulkheadFullException.class));
+            assertThat(metricRegistry.counter("database.bulkhead.expunge.rejected").getCount(), is(1L));
+        }
+
+        assertThat(availableConnections("expunge"), is(1));
+        assertThat(metricRegistry.timer("database.bulkhead.expunge.wait-time").getCount(), is(2L));
+    }
+
+    @Test
+    void shouldNotLimitOtherWorkloads() throws Exception {
+        DatabaseBulkhead databaseBulkhead = createBulkheadWithTotalMaxConnections(2);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            executorService.submit(() -> {
+                try (Permit parityCheckPermit = databaseBulkhead.acquire(PARITY_CHECK)) {
+                    assertThat(availableConnections("parity-check"), is(0));
+                    assertThat(availableConnections("total"), is(0));
+                }
+            }).get();
+        }
+
+        assertThat(availableConnections("parity-check"), is(1));
+        assertThat(availableConnections("total"), is(2));
+    }
+
+    @Test
+    void shouldRejectJobWhenAllBackgroundJobConnectionsAreInUse() throws Exception {
+        DatabaseBulkhead databaseBulkhead = createBulkheadWithTotalMaxConnections(2);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            executorService.submit(() -> {
+                try (Permit parityCheckPermit = databaseBulkhead.acquire(PARITY_CHECK)) {
+                    ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                            executorService.submit(() -> databaseBulkhead.acquire(HISTORICAL_EVENT_EMISSION)).get());
+                    assertThat(exception.getCause(), instanceOf(DatabaseBulkheadFullException.class));
+                }
+                return null;
+            }).get();
+        }
+
+        assertThat(availableConnections("historical-event-emission"), is(2));
+        assertThat(metricRegistry.counter("database.bulkhead.historical-event-emission.rejected").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldNotCountInterruptedWaitAsRejection() throws Exception {
+        DatabaseBulkhead databaseBulkhead = createBulkheadWithTotalMaxConnections(2);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () ->
+                    executorService.submit(() -> {
+                        Thread.currentThread().interrupt();
+                        return databaseBulkhead.acquire(EXPUNGE);
+                    }).get());
+
+            assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+            assertThat(metricRegistry.counter("database.bulkhead.expunge.rejected").getCount(), is(0L));
+        }
+    }
+
+    @Test
+    void shouldNotTakeAnotherConnectionForJobCalledFromJobAlreadyHoldingOne() {
+        DatabaseBulkhead databaseBulkhead = createBulkheadWithTotalMaxConnections(2);
+        try (Permit permit = databaseBulkhead.acquire(EXPUNGE)) {
+            try (Permit nestedPermit = databaseBulkhead.acquire(EXPUNGE)) {
+                assertThat(availableConnections("expunge"), is(0));
+            }
+        }
+
+        assertThat(availableConnections("expunge"), is(1));
+    }
+
+    @Test
+    void shouldRefuseQuotaWhichLeavesNoConnectionsForApiRequests() {
+        assertThrows(IllegalArgumentException.class, () -> createBulkheadWithTotalMaxConnections(8));
+    }
+
+    private DatabaseBulkhead createBulkheadWithTotalMaxConnections(int totalMaxConnections) {
+        when(mockDatabaseBulkheadConfig.getTotalMaxConnections()).thenReturn(totalMaxConnections);
+        return new DatabaseBulkhead(mockConnectorConfiguration, mockEnvironment);
+    }
+
+    private int availableConnections(String workload) {
+        return (int) metricRegistry.getGauges().get("database.bulkhead." + workload + ".available").getValue();
+    }
+}
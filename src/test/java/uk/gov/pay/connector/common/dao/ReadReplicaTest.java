@@ -0,0 +1,87 @@
+package uk.gov.pay.connector.common.dao;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReplicaTest {
+
+    @Mock
+    private EntityManager mockPrimaryEntityManager;
+
+    @Mock
+    private EntityManager mockReplicaEntityManager;
+
+    @Mock
+    private EntityManagerFactory mockReplicaEntityManagerFactory;
+
+    @Mock
+    private Environment mockEnvironment;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private ReadReplica readReplica;
+
+    @BeforeEach
+    void setUp() {
+        readReplica = new ReadReplica(() -> mockPrimaryEntityManager);
+    }
+
+    @Test
+    void shouldRunQueryOnPrimaryWhenNoReplicaIsConfigured() {
+        EntityManager used = readReplica.read(entityManager -> entityManager);
+
+        assertThat(used, is(mockPrimaryEntityManager));
+        assertThat(readReplica.isReplicaConfigured(), is(false));
+    }
+
+    @Test
+    void shouldRunQueryOnReplicaAndCloseItsEntityManager() {
+        configureReplica();
+        when(mockReplicaEntityManagerFactory.createEntityManager()).thenReturn(mockReplicaEntityManager);
+
+        EntityManager used = readReplica.read(entityManager -> entityManager);
+
+        assertThat(used, is(mockReplicaEntityManager));
+        verify(mockReplicaEntityManager).close();
+        verifyNoInteractions(mockPrimaryEntityManager);
+        assertThat(metricRegistry.counter("read-replica.fallbacks").getCount(), is(0L));
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaQueryFails() {
+        configureReplica();
+        when(mockReplicaEntityManagerFactory.createEntityManager()).thenReturn(mockReplicaEntityManager);
+
+        EntityManager used = readReplica.read(entityManager -> {
+            if (entityManager == mockReplicaEntityManager) {
+                throw new PersistenceException("replica unavailable");
+            }
+            return entityManager;
+        });
+
+        assertThat(used, is(mockPrimaryEntityManager));
+        verify(mockReplicaEntityManager).close();
+        assertThat(metricRegistry.counter("read-replica.fallbacks").getCount(), is(1L));
+    }
+
+    private void configureReplica() {
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+        readReplica.setReplica(mockReplicaEntityManagerFactory, mockEnvironment);
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.pay.connector.common.model.domain;
 
+import com.google.common.graph.ValueGraph;
 import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,15 +21,18 @@ import uk.gov.pay.connector.events.model.charge.PaymentExpired;
 import uk.gov.pay.connector.events.model.charge.PaymentNotificationCreated;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsIterableContaining.hasItem;
 import static org.hamcrest.core.IsIterableContaining.hasItems;
+import static org.mockito.Mockito.mock;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_ABORTED;
@@ -193,4 +197,90 @@ class PaymentGatewayStateTransitionsTest {
                 AUTHORISATION_CANCELLED,
                 AUTHORISATION_SUBMITTED));
     }
+
+    @Test
+    void isValidTransition_matchesGraphForEveryPairOfStatuses() {
+        ValueGraph<ChargeStatus, ?> graph = transitions.graph();
+        for (ChargeStatus fromStatus : ChargeStatus.values()) {
+            for (ChargeStatus toStatus : ChargeStatus.values()) {
+                assertThat(fromStatus + " -> " + toStatus,
+                        PaymentGatewayStateTransitions.isValidTransition(fromStatus, toStatus, new UnspecifiedEvent()),
+                        is(graph.hasEdgeConnecting(fromStatus, toStatus)));
+            }
+        }
+    }
+
+    @Test
+    void isValidTransition_onlyPermitsTheModelledEventForEveryPairOfStatuses() {
+        Set<Class<Event>> modelledEvents = new HashSet<>();
+        for (ChargeStatus fromStatus : ChargeStatus.values()) {
+            for (ChargeStatus toStatus : ChargeStatus.values()) {
+                transitions.<Event>getEventForTransition(fromStatus, toStatus).ifPresent(modelledEvents::add);
+            }
+        }
+
+        for (Class<Event> eventClass : modelledEvents) {
+            Event event = mock(eventClass);
+            for (ChargeStatus fromStatus : ChargeStatus.values()) {
+                for (ChargeStatus toStatus : ChargeStatus.values()) {
+                    boolean expected = transitions.<Event>getEventForTransition(fromStatus, toStatus)
+                            .map(modelledEvent -> modelledEvent.isAssignableFrom(eventClass))
+                            .orElse(false);
+                    assertThat(fromStatus + " -> " + toStatus + " with " + eventClass.getSimpleName(),
+                            PaymentGatewayStateTransitions.isValidTransition(fromStatus, toStatus, event), is(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    void getEventForTransition_matchesGraphForEveryPairOfStatuses() {
+        ValueGraph<ChargeStatus, ?> graph = transitions.graph();
+        for (ChargeStatus fromStatus : ChargeStatus.values()) {
+            for (ChargeStatus toStatus : ChargeStatus.values()) {
+                String expected = graph.edgeValue(fromStatus, toStatus).map(Object::toString).orElse("");
+                String actual = transitions.getEventForTransition(fromStatus, toStatus).map(Class::getSimpleName).orElse("");
+                assertThat(fromStatus + " -> " + toStatus, actual, is(expected));
+            }
+        }
+    }
+
+    @Test
+    void getNextStatus_matchesGraphSuccessorsInOrderForEveryStatus() {
+        ValueGraph<ChargeStatus, ?> graph = transitions.graph();
+        for (ChargeStatus status : ChargeStatus.values()) {
+            assertThat(status.toString(), transitions.getNextStatus(status), is(new ArrayList<>(graph.successors(status))));
+        }
+    }
+
+    @Test
+    void getIntermediateChargeStatus_matchesGraphWalkForEveryPairOfStatuses() {
+        ValueGraph<ChargeStatus, ?> graph = transitions.graph();
+        for (ChargeStatus fromStatus : ChargeStatus.values()) {
+            for (ChargeStatus toStatus : ChargeStatus.values()) {
+                assertThat(fromStatus + " -> " + toStatus,
+                        transitions.getIntermediateChargeStatus(fromStatus, toStatus),
+                        is(intermediateStatusByWalkingGraph(graph, fromStatus, toStatus)));
+            }
+        }
+    }
+
+    @Test
+    void getInstance_returnsTheSameInstance() {
+        assertThat(PaymentGatewayStateTransitions.getInstance(), is(sameInstance(transitions)));
+    }
+
+    private static Optional<ChargeStatus> intermediateStatusByWalkingGraph(ValueGraph<ChargeStatus, ?> graph,
+                                                                           ChargeStatus fromStatus, ChargeStatus toStatus) {
+        if (fromStatus == AUTHORISATION_3DS_REQUIRED && toStatus == EXPIRED) {
+            return Optional.of(EXPIRE_CANCEL_READY);
+        }
+        if (fromStatus == AUTHORISATION_SUCCESS && toStatus == CAPTURE_ERROR) {
+            return Optional.of(CAPTURE_READY);
+        }
+        return graph.successors(fromStatus)
+                .stream()
+                .filter(chargeStatus -> graph.predecessors(toStatus).contains(chargeStatus))
+                .findFirst();
+    }
 }
@@ -13,6 +13,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.agreement.dao.AgreementDao;
+import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.EmittedEventSweepConfig;
 import uk.gov.pay.connector.app.config.EventEmitterConfig;
@@ -24,7 +26,10 @@ import uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
+import uk.gov.pay.connector.events.model.Event;
+import uk.gov.pay.connector.events.model.agreement.AgreementCancelledByService;
 import uk.gov.pay.connector.pact.ChargeEventEntityFixture;
 import uk.gov.pay.connector.pact.RefundHistoryEntityFixture;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionService;
@@ -39,6 +44,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -65,12 +72,17 @@ class EmittedEventsBackfillServiceTest {
     @Mock
     private ChargeDao chargeDao;
     @Mock
+    private AgreementDao agreementDao;
+    @Mock
     private EventService eventService;
     @Mock
     private StateTransitionService stateTransitionService;
     @Mock
     private ConnectorConfiguration connectorConfiguration;
 
+    @Mock
+    private DatabaseBulkhead databaseBulkhead;
+
     @Captor
     private ArgumentCaptor<LoggingEvent> loggingEventArgumentCaptor;
 
@@ -97,7 +109,7 @@ class EmittedEventsBackfillServiceTest {
         HistoricalEventEmitter historicalEventEmitter = new HistoricalEventEmitter(emittedEventDao, refundDao,
                 eventService, stateTransitionService, chargeService);
         emittedEventsBackfillService = new EmittedEventsBackfillService(emittedEventDao, chargeService, refundDao,
-                historicalEventEmitter, connectorConfiguration);
+                agreementDao, eventService, historicalEventEmitter, connectorConfiguration, databaseBulkhead);
         lenient().when(chargeService.findChargeByExternalId(any())).thenThrow(new ChargeNotFoundRuntimeException(""));
         chargeEntity = ChargeEntityFixture
                 .aValidChargeEntity()
@@ -200,4 +212,30 @@ class EmittedEventsBackfillServiceTest {
         assertThat(loggingEvents.get(0).getFormattedMessage(), is("Processing not emitted events [lastProcessedId=0, no.of.events=2, oldestDate=2019-09-20T09:00:00Z]"));
         assertThat(loggingEvents.get(1).getFormattedMessage(), is("Finished processing not emitted events [lastProcessedId=2, maxId=2]"));
     }
+
+    @Test
+    void backfillsAgreementCancelledByServiceEventFromAgreement() throws Exception {
+        Instant cancelledDate = Instant.parse("2019-09-20T10:00:00Z");
+        AgreementEntity agreement = mock(AgreementEntity.class);
+        when(agreement.getExternalId()).thenReturn("agreement-external-id");
+        when(agreement.getServiceId()).thenReturn("a-service-id");
+        when(agreement.getGatewayAccount()).thenReturn(chargeEntity.getGatewayAccount());
+        when(agreement.getCancelledDate()).thenReturn(cancelledDate);
+        when(agreementDao.findByExternalId("agreement-external-id")).thenReturn(Optional.of(agreement));
+        var emittedEvent = anEmittedEventEntity().withResourceType("agreement")
+                .withEventType("AGREEMENT_CANCELLED_BY_SERVICE")
+                .withResourceExternalId("agreement-external-id")
+                .build();
+        when(emittedEventDao.findNotEmittedEventsOlderThan(any(Instant.class), anyInt(), eq(0L), eq(maxId), any())).thenReturn(List.of(emittedEvent));
+        when(emittedEventDao.findNotEmittedEventMaxIdOlderThan(any(Instant.class), any())).thenReturn(Optional.of(maxId));
+
+        emittedEventsBackfillService.backfillNotEmittedEvents();
+
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(eventService).emitEvent(eventCaptor.capture(), eq(false));
+        assertThat(eventCaptor.getValue(), instanceOf(AgreementCancelledByService.class));
+        assertThat(eventCaptor.getValue().getResourceExternalId(), is("agreement-external-id"));
+        assertThat(eventCaptor.getValue().getTimestamp(), is(cancelledDate));
+        assertThat(emittedEvent.getEmittedDate(), notNullValue());
+    }
 }
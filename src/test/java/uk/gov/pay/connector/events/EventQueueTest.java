@@ -1,18 +1,31 @@
 package uk.gov.pay.connector.events;
 
-import org.junit.jupiter.api.BeforeAll;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.EventQueueConfig;
 import uk.gov.pay.connector.app.SqsConfig;
 import uk.gov.pay.connector.events.model.Event;
+import uk.gov.service.payments.commons.queue.exception.QueueException;
 import uk.gov.service.payments.commons.queue.sqs.SqsQueueService;
 
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -27,6 +40,8 @@ class EventQueueTest {
     @Mock
     private SqsQueueService mockSqsQueueService;
     @Mock
+    private AmazonSQS mockSqsClient;
+    @Mock
     private ConnectorConfiguration mockConnectorConfiguration;
     @Mock
     private SqsConfig sqsConfig;
@@ -45,7 +60,7 @@ class EventQueueTest {
     @Test
     void emitEvent_serialisesTheEventAndSendsToSqs() throws Exception {
         when(eventQueueConfig.getEventQueueEnabled()).thenReturn(true);
-        eventQueue = new EventQueue(mockSqsQueueService,
+        eventQueue = new EventQueue(mockSqsQueueService, mockSqsClient,
                 mockConnectorConfiguration);
         when(event.toJsonString()).thenReturn("{~~SERIALIZED~~}");
 
@@ -57,11 +72,53 @@ class EventQueueTest {
     @Test
     void emitEvent_doesNotEmitIfFeatureFlagIsFalse() throws Exception {
         when(eventQueueConfig.getEventQueueEnabled()).thenReturn(false);
-        eventQueue = new EventQueue(mockSqsQueueService,
+        eventQueue = new EventQueue(mockSqsQueueService, mockSqsClient,
                 mockConnectorConfiguration);
         
         eventQueue.emitEvent(event);
 
         verifyNoMoreInteractions(mockSqsQueueService);
     }
+
+    @Test
+    void emitEvents_sendsEventsToSqsInBatchesOfTen() throws Exception {
+        when(eventQueueConfig.getEventQueueEnabled()).thenReturn(true);
+        eventQueue = new EventQueue(mockSqsQueueService, mockSqsClient,
+                mockConnectorConfiguration);
+        when(event.toJsonString()).thenReturn("{~~SERIALIZED~~}");
+        when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult());
+
+        eventQueue.emitEvents(Collections.nCopies(12, event));
+
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(mockSqsClient, times(2)).sendMessageBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getAllValues().get(0).getQueueUrl(), is(eventQueueUrl));
+        assertThat(requestCaptor.getAllValues().get(0).getEntries().size(), is(10));
+        assertThat(requestCaptor.getAllValues().get(0).getEntries().get(0).getMessageBody(), is("{~~SERIALIZED~~}"));
+        assertThat(requestCaptor.getAllValues().get(1).getEntries().size(), is(2));
+        verifyNoMoreInteractions(mockSqsQueueService);
+    }
+
+    @Test
+    void emitEvents_throwsQueueExceptionIfAnyEventInBatchIsNotSent() throws Exception {
+        when(eventQueueConfig.getEventQueueEnabled()).thenReturn(true);
+        eventQueue = new EventQueue(mockSqsQueueService, mockSqsClient,
+                mockConnectorConfiguration);
+        when(event.toJsonString()).thenReturn("{~~SERIALIZED~~}");
+        when(mockSqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult()
+                .withFailed(new BatchResultErrorEntry().withId("1").withMessage("throttled")));
+
+        assertThrows(QueueException.class, () -> eventQueue.emitEvents(List.of(event, event)));
+    }
+
+    @Test
+    void emitEvents_doesNotEmitIfFeatureFlagIsFalse() throws Exception {
+        when(eventQueueConfig.getEventQueueEnabled()).thenReturn(false);
+        eventQueue = new EventQueue(mockSqsQueueService, mockSqsClient,
+                mockConnectorConfiguration);
+
+        eventQueue.emitEvents(List.of(event));
+
+        verifyNoMoreInteractions(mockSqsClient);
+    }
 }
@@ -12,13 +12,17 @@ import uk.gov.pay.connector.events.model.charge.PaymentEvent;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static java.time.Instant.now;
 import static java.time.ZoneOffset.UTC;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class EventServiceTest {
@@ -92,6 +96,25 @@ class EventServiceTest {
                 event.getTimestamp(), null);
     }
 
+    @Test
+    void emitAndRecordEvents_shouldEmitTogetherAndRecordEmissions() throws QueueException {
+        List<Event> events = List.of(new PaymentEvent("service-id", true, 100L, "external-id-1", now()),
+                new PaymentEvent("service-id", true, 100L, "external-id-2", now()));
+        eventService.emitAndRecordEvents(events);
+
+        verify(eventQueue).emitEvents(events);
+        verify(emittedEventDao).recordEmissions(eq(events), notNull());
+    }
+
+    @Test
+    void emitAndRecordEvents_shouldRecordEmissionsWithoutEmittedDateForQueueException() throws QueueException {
+        List<Event> events = List.of(new PaymentEvent("service-id", true, 100L, "external-id-1", now()));
+        doThrow(QueueException.class).when(eventQueue).emitEvents(events);
+        eventService.emitAndRecordEvents(events);
+
+        verify(emittedEventDao).recordEmissions(events, null);
+    }
+
     @Test
     void emitAndMarkEventAsEmitted() throws QueueException {
         Event event = new PaymentEvent("service-id", true, 100L, "external-id", now());
@@ -20,6 +20,8 @@ import uk.gov.pay.connector.charge.model.domain.FeeType;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.chargeevent.dao.ChargeEventDao;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.common.exception.DatabaseBulkheadFullException;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
 import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.charge.AuthorisationSucceeded;
@@ -74,6 +76,7 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATIO
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CREATED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.PAYMENT_NOTIFICATION_CREATED;
+import static uk.gov.pay.connector.common.dao.DatabaseWorkload.HISTORICAL_EVENT_EMISSION;
 import static uk.gov.service.payments.commons.model.AuthorisationMode.AGREEMENT;
 import static uk.gov.service.payments.commons.model.AuthorisationMode.MOTO_API;
 
@@ -95,6 +98,9 @@ class HistoricalEventEmitterServiceTest {
     @Mock
     RefundDao refundDao;
 
+    @Mock
+    DatabaseBulkhead databaseBulkhead;
+
     HistoricalEventEmitterService historicalEventEmitterService;
     private ChargeEntity chargeEntity;
     private ConnectorConfiguration connectorConfiguration;
@@ -103,7 +109,7 @@ class HistoricalEventEmitterServiceTest {
     void setUp() {
         connectorConfiguration = new ConnectorConfiguration();
         historicalEventEmitterService = new HistoricalEventEmitterService(chargeDao, refundDao, chargeEventDao, emittedEventDao,
-                stateTransitionService, eventService, chargeService, connectorConfiguration);
+                stateTransitionService, eventService, chargeService, connectorConfiguration, databaseBulkhead);
         CardDetailsEntity cardDetails = mock(CardDetailsEntity.class);
         chargeEntity = ChargeEntityFixture
                 .aValidChargeEntity()
@@ -668,6 +674,16 @@ class HistoricalEventEmitterServiceTest {
         assertThat(argument.getAllValues().get(1).getStateTransitionEventClass(), is(RefundSucceeded.class));
     }
 
+    @Test
+    void executeForDateRange_shouldNotProcessOrThrowWhenDatabaseBulkheadIsFull() {
+        ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+        when(databaseBulkhead.acquire(HISTORICAL_EVENT_EMISSION)).thenThrow(new DatabaseBulkheadFullException("historical-event-emission"));
+
+        historicalEventEmitterService.emitHistoricEventsByDate(eventDate, eventDate, 1L);
+
+        verifyNoInteractions(chargeEventDao, refundDao, stateTransitionService);
+    }
+
     @Test
     void emitHistoricEventsById_shouldNotProcessIfRecordDoesNotExist() {
         historicalEventEmitterService.emitHistoricEventsById(1L, OptionalLong.empty(), 1L);
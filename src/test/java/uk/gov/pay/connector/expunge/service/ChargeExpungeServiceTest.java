@@ -15,17 +15,22 @@ import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.fee.model.Fee;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 import uk.gov.pay.connector.idempotency.dao.IdempotencyDao;
 import uk.gov.pay.connector.tasks.service.ParityCheckService;
 
+import javax.persistence.PersistenceException;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -63,6 +68,8 @@ class ChargeExpungeServiceTest {
     private final int minimumAgeOfChargeInDays = 3;
     private final int defaultNumberOfChargesToExpunge = 10;
     private final int defaultExcludeChargesParityCheckedWithInDays = 1;
+    private final int expungeLockTimeoutInMillis = 2000;
+    private final Duration claimDuration = Duration.ofMinutes(60);
     private ChargeExpungeService chargeExpungeService;
 
     private GatewayAccountEntity testGatewayAccount = aGatewayAccountEntity()
@@ -76,6 +83,9 @@ class ChargeExpungeServiceTest {
     void setUp() {
         when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(mockExpungeConfig);
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
+        lenient().when(mockExpungeConfig.getChargesExpungeBatchSize()).thenReturn(1);
+        lenient().when(mockExpungeConfig.getExpungeLockTimeoutInMillis()).thenReturn(expungeLockTimeoutInMillis);
+        lenient().when(mockExpungeConfig.getExpungeClaimDurationInMinutes()).thenReturn((int) claimDuration.toMinutes());
 
         chargeExpungeService = new ChargeExpungeService(mockChargeDao, mockConnectorConfiguration, parityCheckService,
                 mockChargeService, mockIdempotencyDao);
@@ -86,12 +96,49 @@ class ChargeExpungeServiceTest {
         ChargeEntity chargeEntity = ChargeEntityFixture.aValidChargeEntity().build();
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
 
         chargeExpungeService.expunge(defaultNumberOfChargesToExpunge);
-        verify(mockChargeDao, times(defaultNumberOfChargesToExpunge)).findChargeToExpunge(minimumAgeOfChargeInDays,
-                defaultExcludeChargesParityCheckedWithInDays);
+        verify(mockChargeDao, times(defaultNumberOfChargesToExpunge)).claimChargesToExpunge(eq(minimumAgeOfChargeInDays),
+                eq(defaultExcludeChargesParityCheckedWithInDays), any(), eq(1), eq(claimDuration));
+    }
+
+    @Test
+    void expunge_shouldExpungeChargesPassingParityCheckInBatchesClaimedAfterThePreviousBatch() {
+        ChargeEntity firstCharge = ChargeEntityFixture.aValidChargeEntity().withId(1L).withStatus(CAPTURED).build();
+        ChargeEntity secondCharge = ChargeEntityFixture.aValidChargeEntity().withId(2L).withStatus(CAPTURED).build();
+        ChargeEntity thirdCharge = ChargeEntityFixture.aValidChargeEntity().withId(3L).withStatus(CAPTURED).build();
+        when(mockExpungeConfig.getChargesExpungeBatchSize()).thenReturn(2);
+        when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
+        when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
+        when(mockChargeDao.claimChargesToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays,
+                KeysetCursor.start(), 2, claimDuration)).thenReturn(List.of(firstCharge, secondCharge));
+        when(mockChargeDao.claimChargesToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays,
+                KeysetCursor.after(secondCharge.getCreatedDate(), 2L), 1, claimDuration)).thenReturn(List.of(thirdCharge));
+        when(parityCheckService.parityCheckChargeForExpunger(firstCharge)).thenReturn(true);
+        when(parityCheckService.parityCheckChargeForExpunger(secondCharge)).thenReturn(false);
+        when(parityCheckService.parityCheckChargeForExpunger(thirdCharge)).thenReturn(true);
+
+        chargeExpungeService.expunge(3);
+
+        verify(mockChargeDao).expungeCharges(List.of(1L), Duration.ofMillis(expungeLockTimeoutInMillis));
+        verify(mockChargeDao).expungeCharges(List.of(3L), Duration.ofMillis(expungeLockTimeoutInMillis));
+    }
+
+    @Test
+    void expunge_shouldCarryOnWithNextBatchWhenExpungingBatchFails() {
+        ChargeEntity chargeEntity = ChargeEntityFixture.aValidChargeEntity().withStatus(CAPTURED).build();
+        when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
+        when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
+        when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
+        when(mockChargeDao.expungeCharges(any(), any())).thenThrow(new PersistenceException("lock timeout"));
+
+        chargeExpungeService.expunge(2);
+
+        verify(mockChargeDao, times(2)).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
     @Test
@@ -107,15 +154,15 @@ class ChargeExpungeServiceTest {
                 .withStatus(CREATED)
                 .withPaymentProvider("worldpay")
                 .build();
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
     @Test
@@ -127,15 +174,15 @@ class ChargeExpungeServiceTest {
                 .withGatewayTransactionId("a-gateway-transaction-id")
                 .withCreatedDate(Instant.parse("2022-01-01T11:08:00.000Z"))
                 .build();
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
     @Test
@@ -151,13 +198,13 @@ class ChargeExpungeServiceTest {
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
     @Test
@@ -172,14 +219,14 @@ class ChargeExpungeServiceTest {
                 .build();
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
     @Test
@@ -195,13 +242,13 @@ class ChargeExpungeServiceTest {
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
     @Test
@@ -215,13 +262,13 @@ class ChargeExpungeServiceTest {
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
     @Test
@@ -234,15 +281,15 @@ class ChargeExpungeServiceTest {
                 .withCreatedDate(Instant.parse("2021-01-01T01:00:00.000Z"))
                 .build();
 
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
     @Test
@@ -256,13 +303,13 @@ class ChargeExpungeServiceTest {
                 .build();
 
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
         when(mockIdempotencyDao.idempotencyExistsByResourceExternalId(resourceId)).thenReturn(true);
 
         chargeExpungeService.expunge(1);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
         verify(mockIdempotencyDao).idempotencyExistsByResourceExternalId(resourceId);
     }
 
@@ -274,14 +321,14 @@ class ChargeExpungeServiceTest {
                 .build();
 
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
         verify(mockChargeService, never()).updateChargeParityStatus(any(),any());
     }
 
@@ -294,14 +341,14 @@ class ChargeExpungeServiceTest {
                 .build();
 
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
         verify(mockChargeService, never()).updateChargeParityStatus(any(), any());
 
     }
@@ -318,13 +365,13 @@ class ChargeExpungeServiceTest {
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
     @Test
@@ -337,14 +384,14 @@ class ChargeExpungeServiceTest {
                 .build();
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
     @Test
@@ -356,13 +403,13 @@ class ChargeExpungeServiceTest {
                 .build();
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity)).thenReturn(Optional.empty());
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity)).thenReturn(List.of());
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(2);
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 
 
@@ -378,14 +425,14 @@ class ChargeExpungeServiceTest {
 
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
 
         verify(mockChargeService).updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
-        verify(mockChargeDao, never()).expungeCharge(any(), any());
+        verify(mockChargeDao, never()).expungeCharges(any(), any());
     }
 
 
@@ -400,12 +447,12 @@ class ChargeExpungeServiceTest {
 
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
         when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
-        when(mockChargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays))
-                .thenReturn(Optional.of(chargeEntity));
+        when(mockChargeDao.claimChargesToExpunge(eq(minimumAgeOfChargeInDays), eq(defaultExcludeChargesParityCheckedWithInDays), any(), anyInt(), any()))
+                .thenReturn(List.of(chargeEntity));
         when(parityCheckService.parityCheckChargeForExpunger(chargeEntity)).thenReturn(true);
         when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
 
         chargeExpungeService.expunge(1);
-        verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
+        verify(mockChargeDao).expungeCharges(List.of(chargeEntity.getId()), Duration.ofMillis(expungeLockTimeoutInMillis));
     }
 }
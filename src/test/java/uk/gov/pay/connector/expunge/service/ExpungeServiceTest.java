@@ -6,6 +6,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
+import uk.gov.pay.connector.paymentprocessor.dao.RecurringAuthorisationBatchDao;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+import uk.gov.pay.connector.webhook.dao.ProcessedStripeNotificationDao;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -21,6 +29,20 @@ class ExpungeServiceTest {
     @Mock
     ConnectorConfiguration mockConnectorConfiguration;
 
+    @Mock
+    DatabaseBulkhead mockDatabaseBulkhead;
+
+    @Mock
+    ProcessedStripeNotificationDao mockProcessedStripeNotificationDao;
+
+    @Mock
+    RecurringAuthorisationBatchDao mockRecurringAuthorisationBatchDao;
+
+    @Mock
+    NotificationInboxDao mockNotificationInboxDao;
+
+    Clock clock = Clock.fixed(Instant.parse("2020-01-15T10:00:00Z"), ZoneOffset.UTC);
+
     int defaultNumberOfChargesToExpunge = 999;
     int defaultNumberOfRefundsToExpunge = 100;
     ExpungeService expungeService;
@@ -33,7 +55,9 @@ class ExpungeServiceTest {
         when(expungeConfig.getNumberOfChargesToExpunge()).thenReturn(defaultNumberOfChargesToExpunge);
         when(expungeConfig.getNumberOfRefundsToExpunge()).thenReturn(defaultNumberOfRefundsToExpunge);
 
-        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService, mockConnectorConfiguration);
+        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService,
+                mockConnectorConfiguration, mockDatabaseBulkhead, mockProcessedStripeNotificationDao,
+                mockRecurringAuthorisationBatchDao, mockNotificationInboxDao, clock);
 
         expungeService.expunge(null, null);
 
@@ -46,11 +70,58 @@ class ExpungeServiceTest {
         ExpungeConfig expungeConfig = mock(ExpungeConfig.class);
         when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(expungeConfig);
 
-        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService, mockConnectorConfiguration);
+        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService,
+                mockConnectorConfiguration, mockDatabaseBulkhead, mockProcessedStripeNotificationDao,
+                mockRecurringAuthorisationBatchDao, mockNotificationInboxDao, clock);
 
         expungeService.expunge(5, 10);
 
         verify(mockChargeExpungeService).expunge(5);
         verify(mockRefundExpungeService).expunge(10);
     }
+
+    @Test
+    void shouldDeleteProcessedStripeNotificationsOlderThanConfiguredAge() {
+        ExpungeConfig expungeConfig = mock(ExpungeConfig.class);
+        when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(expungeConfig);
+        when(expungeConfig.getMinimumAgeOfProcessedStripeNotificationInDays()).thenReturn(14);
+
+        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService,
+                mockConnectorConfiguration, mockDatabaseBulkhead, mockProcessedStripeNotificationDao,
+                mockRecurringAuthorisationBatchDao, mockNotificationInboxDao, clock);
+
+        expungeService.expunge(5, 10);
+
+        verify(mockProcessedStripeNotificationDao).deleteProcessedBefore(Instant.parse("2020-01-01T10:00:00Z"));
+    }
+
+    @Test
+    void shouldDeleteRecurringAuthorisationBatchesOlderThanConfiguredAge() {
+        ExpungeConfig expungeConfig = mock(ExpungeConfig.class);
+        when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(expungeConfig);
+        when(expungeConfig.getMinimumAgeOfRecurringAuthorisationBatchInDays()).thenReturn(30);
+
+        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService,
+                mockConnectorConfiguration, mockDatabaseBulkhead, mockProcessedStripeNotificationDao,
+                mockRecurringAuthorisationBatchDao, mockNotificationInboxDao, clock);
+
+        expungeService.expunge(5, 10);
+
+        verify(mockRecurringAuthorisationBatchDao).deleteCreatedBefore(Instant.parse("2019-12-16T10:00:00Z"));
+    }
+
+    @Test
+    void shouldDeleteProcessedInboxNotificationsOlderThanConfiguredAge() {
+        ExpungeConfig expungeConfig = mock(ExpungeConfig.class);
+        when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(expungeConfig);
+        when(expungeConfig.getMinimumAgeOfProcessedInboxNotificationInDays()).thenReturn(14);
+
+        expungeService = new ExpungeService(mockChargeExpungeService, mockRefundExpungeService,
+                mockConnectorConfiguration, mockDatabaseBulkhead, mockProcessedStripeNotificationDao,
+                mockRecurringAuthorisationBatchDao, mockNotificationInboxDao, clock);
+
+        expungeService.expunge(5, 10);
+
+        verify(mockNotificationInboxDao).deleteProcessedBefore(Instant.parse("2020-01-01T10:00:00Z"));
+    }
 }
@@ -0,0 +1,135 @@
+package uk.gov.pay.connector.expunge.service;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.expunge.dao.PartitionDao;
+
+import javax.persistence.PersistenceException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static java.time.ZoneOffset.UTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.expunge.dao.PartitionedTable.CHARGE_EVENTS;
+import static uk.gov.pay.connector.expunge.dao.PartitionedTable.EMITTED_EVENTS;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(2000);
+
+    @Mock
+    private PartitionDao mockPartitionDao;
+
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+
+    @Mock
+    private ExpungeConfig mockExpungeConfig;
+
+    @Mock
+    private Environment mockEnvironment;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    @BeforeEach
+    void setUp() {
+        when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(mockExpungeConfig);
+        when(mockExpungeConfig.getPartitionsCreatedAheadInMonths()).thenReturn(3);
+        when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(7);
+        when(mockExpungeConfig.getExpungeLockTimeoutInMillis()).thenReturn(2000);
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+
+        Clock clock = Clock.fixed(Instant.parse("2026-10-19T10:00:00Z"), UTC);
+        partitionMaintenanceService = new PartitionMaintenanceService(mockPartitionDao, mockConnectorConfiguration,
+                clock, mockEnvironment);
+    }
+
+    @Test
+    void shouldCreatePartitionsAfterTheNewestUpToTheConfiguredMonthsAhead() {
+        when(mockPartitionDao.findMonthlyPartitions(CHARGE_EVENTS)).thenReturn(List.of(YearMonth.of(2026, 11)));
+        when(mockPartitionDao.findMonthlyPartitions(EMITTED_EVENTS)).thenReturn(List.of(YearMonth.of(2027, 1)));
+
+        partitionMaintenanceService.maintainPartitions();
+
+        verify(mockPartitionDao).createMonthlyPartition(CHARGE_EVENTS, YearMonth.of(2026, 12), LOCK_TIMEOUT);
+        verify(mockPartitionDao).createMonthlyPartition(CHARGE_EVENTS, YearMonth.of(2027, 1), LOCK_TIMEOUT);
+        verify(mockPartitionDao, never()).createMonthlyPartition(CHARGE_EVENTS, YearMonth.of(2027, 2), LOCK_TIMEOUT);
+        verify(mockPartitionDao, never()).createMonthlyPartition(eq(EMITTED_EVENTS), any(YearMonth.class), any(Duration.class));
+    }
+
+    @Test
+    void shouldOnlyTryToDropPartitionsThatEndedBeforeTheMinimumAgeOfCharges() {
+        when(mockPartitionDao.findMonthlyPartitions(CHARGE_EVENTS)).thenReturn(
+                List.of(YearMonth.of(2026, 8), YearMonth.of(2026, 9), YearMonth.of(2026, 10), YearMonth.of(2027, 1)));
+        when(mockPartitionDao.findMonthlyPartitions(EMITTED_EVENTS)).thenReturn(List.of(YearMonth.of(2027, 1)));
+
+        partitionMaintenanceService.maintainPartitions();
+
+        verify(mockPartitionDao).dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, YearMonth.of(2026, 8), LOCK_TIMEOUT);
+        verify(mockPartitionDao).dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, YearMonth.of(2026, 9), LOCK_TIMEOUT);
+        verify(mockPartitionDao, never()).dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, YearMonth.of(2026, 10), LOCK_TIMEOUT);
+        verify(mockPartitionDao, never()).dropMonthlyPartitionIfEmpty(eq(EMITTED_EVENTS), any(YearMonth.class), any(Duration.class));
+    }
+
+    @Test
+    void shouldCarryOnWithTheNextTableWhenAPartitionCannotBeDropped() {
+        when(mockPartitionDao.findMonthlyPartitions(CHARGE_EVENTS)).thenReturn(
+                List.of(YearMonth.of(2026, 8), YearMonth.of(2027, 1)));
+        when(mockPartitionDao.findMonthlyPartitions(EMITTED_EVENTS)).thenReturn(
+                List.of(YearMonth.of(2026, 8), YearMonth.of(2027, 1)));
+        doThrow(new PersistenceException("lock timeout"))
+                .when(mockPartitionDao).dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, YearMonth.of(2026, 8), LOCK_TIMEOUT);
+
+        partitionMaintenanceService.maintainPartitions();
+
+        verify(mockPartitionDao).dropMonthlyPartitionIfEmpty(EMITTED_EVENTS, YearMonth.of(2026, 8), LOCK_TIMEOUT);
+    }
+
+    @Test
+    void shouldCountAFailureAndStopCreatingPartitionsForTheTableWhenOneCannotBeCreated() {
+        when(mockPartitionDao.findMonthlyPartitions(CHARGE_EVENTS)).thenReturn(List.of(YearMonth.of(2026, 11)));
+        when(mockPartitionDao.findMonthlyPartitions(EMITTED_EVENTS)).thenReturn(List.of(YearMonth.of(2027, 1)));
+        doThrow(new PersistenceException("lock timeout"))
+                .when(mockPartitionDao).createMonthlyPartition(CHARGE_EVENTS, YearMonth.of(2026, 12), LOCK_TIMEOUT);
+
+        partitionMaintenanceService.maintainPartitions();
+
+        verify(mockPartitionDao, never()).createMonthlyPartition(CHARGE_EVENTS, YearMonth.of(2027, 1), LOCK_TIMEOUT);
+        assertThat(metricRegistry.counter("partition-maintenance.failures").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldOnlyTryToDropTheLegacyPartitionOnceItEndedBeforeTheMinimumAgeOfCharges() {
+        when(mockPartitionDao.findMonthlyPartitions(CHARGE_EVENTS)).thenReturn(List.of(YearMonth.of(2027, 1)));
+        when(mockPartitionDao.findMonthlyPartitions(EMITTED_EVENTS)).thenReturn(List.of(YearMonth.of(2027, 1)));
+        when(mockPartitionDao.findLegacyPartitionUpperBound(CHARGE_EVENTS)).thenReturn(Optional.of(LocalDate.of(2026, 10, 1)));
+        when(mockPartitionDao.findLegacyPartitionUpperBound(EMITTED_EVENTS)).thenReturn(Optional.of(LocalDate.of(2026, 10, 15)));
+
+        partitionMaintenanceService.maintainPartitions();
+
+        verify(mockPartitionDao).dropLegacyPartitionIfEmpty(CHARGE_EVENTS, LOCK_TIMEOUT);
+        verify(mockPartitionDao, never()).dropLegacyPartitionIfEmpty(EMITTED_EVENTS, LOCK_TIMEOUT);
+    }
+}
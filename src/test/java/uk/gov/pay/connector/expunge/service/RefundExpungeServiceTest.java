@@ -11,17 +11,22 @@ import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture;
 import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.model.domain.RefundEntityFixture;
 import uk.gov.pay.connector.refund.dao.RefundDao;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.service.RefundService;
 import uk.gov.pay.connector.tasks.service.ParityCheckService;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.Optional;
+import java.util.List;
 
 import static java.time.ZoneOffset.UTC;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -38,6 +43,7 @@ class RefundExpungeServiceTest {
     private int minimumAgeOfRefundInDays = 3;
     private int defaultNumberOfRefundsToExpunge = 10;
     private int defaultExcludeRefundsParityCheckedWithInDays = 10;
+    private Duration claimDuration = Duration.ofMinutes(60);
 
     @Mock
     private ExpungeConfig mockExpungeConfig;
@@ -55,6 +61,8 @@ class RefundExpungeServiceTest {
     @BeforeEach
     public void setUp() {
         when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(mockExpungeConfig);
+        lenient().when(mockExpungeConfig.getRefundsExpungeBatchSize()).thenReturn(1);
+        lenient().when(mockExpungeConfig.getExpungeClaimDurationInMinutes()).thenReturn((int) claimDuration.toMinutes());
 
         refundExpungeService = new RefundExpungeService(mockConnectorConfiguration, mockParityCheckService,
                 mockRefundService, mockChargeService, mockRefundDao);
@@ -69,14 +77,36 @@ class RefundExpungeServiceTest {
         RefundEntity refundEntity = RefundEntityFixture.aValidRefundEntity()
                 .withStatus(REFUNDED).build();
         when(mockParityCheckService.parityCheckRefundForExpunger(any())).thenReturn(true);
-        when(mockRefundDao.findRefundToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays))
-                .thenReturn(Optional.of(refundEntity));
+        when(mockRefundDao.claimRefundsToExpunge(eq(minimumAgeOfRefundInDays), eq(defaultExcludeRefundsParityCheckedWithInDays),
+                any(), anyInt(), any())).thenReturn(List.of(refundEntity));
         when(mockChargeService.findChargeByExternalId(refundEntity.getChargeExternalId())).thenThrow(ChargeNotFoundRuntimeException.class);
         refundExpungeService.expunge(defaultNumberOfRefundsToExpunge);
 
         verify(mockRefundDao, times(defaultNumberOfRefundsToExpunge)).expungeRefund(any());
-        verify(mockRefundDao, times(defaultNumberOfRefundsToExpunge)).findRefundToExpunge(minimumAgeOfRefundInDays,
-                defaultExcludeRefundsParityCheckedWithInDays);
+        verify(mockRefundDao, times(defaultNumberOfRefundsToExpunge)).claimRefundsToExpunge(eq(minimumAgeOfRefundInDays),
+                eq(defaultExcludeRefundsParityCheckedWithInDays), any(), eq(1), eq(claimDuration));
+    }
+
+    @Test
+    void expunge_shouldClaimEachBatchOfRefundsAfterThePreviousOne() {
+        when(mockExpungeConfig.isExpungeRefundsEnabled()).thenReturn(true);
+        when(mockExpungeConfig.getRefundsExpungeBatchSize()).thenReturn(2);
+        when(mockExpungeConfig.getMinimumAgeOfRefundInDays()).thenReturn(minimumAgeOfRefundInDays);
+        when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeRefundsParityCheckedWithInDays);
+
+        RefundEntity firstRefund = RefundEntityFixture.aValidRefundEntity().withId(1L).withExternalId("first-refund").withStatus(REFUNDED).build();
+        RefundEntity secondRefund = RefundEntityFixture.aValidRefundEntity().withId(2L).withExternalId("second-refund").withStatus(REFUNDED).build();
+        when(mockRefundDao.claimRefundsToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays,
+                KeysetCursor.start(), 2, claimDuration)).thenReturn(List.of(firstRefund, secondRefund));
+        when(mockRefundDao.claimRefundsToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays,
+                KeysetCursor.after(secondRefund.getCreatedDate().toInstant(), 2L), 2, claimDuration)).thenReturn(List.of());
+        when(mockChargeService.findChargeByExternalId(any())).thenThrow(ChargeNotFoundRuntimeException.class);
+        when(mockParityCheckService.parityCheckRefundForExpunger(any())).thenReturn(true);
+
+        refundExpungeService.expunge(5);
+
+        verify(mockRefundDao).expungeRefund(firstRefund.getExternalId());
+        verify(mockRefundDao).expungeRefund(secondRefund.getExternalId());
     }
 
     @Test
@@ -88,8 +118,8 @@ class RefundExpungeServiceTest {
         RefundEntity refundEntity = RefundEntityFixture.aValidRefundEntity()
                 .withCreatedDate(ZonedDateTime.now(UTC).minusDays(20))
                 .withStatus(REFUND_SUBMITTED).build();
-        when(mockRefundDao.findRefundToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays))
-                .thenReturn(Optional.of(refundEntity));
+        when(mockRefundDao.claimRefundsToExpunge(eq(minimumAgeOfRefundInDays), eq(defaultExcludeRefundsParityCheckedWithInDays),
+                any(), anyInt(), any())).thenReturn(List.of(refundEntity));
         when(mockChargeService.findChargeByExternalId(refundEntity.getChargeExternalId())).thenThrow(ChargeNotFoundRuntimeException.class);
         when(mockParityCheckService.parityCheckRefundForExpunger(refundEntity)).thenReturn(true);
 
@@ -114,8 +144,8 @@ class RefundExpungeServiceTest {
 
         RefundEntity refundEntity = RefundEntityFixture.aValidRefundEntity()
                 .withStatus(REFUND_SUBMITTED).build();
-        when(mockRefundDao.findRefundToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays))
-                .thenReturn(Optional.of(refundEntity));
+        when(mockRefundDao.claimRefundsToExpunge(eq(minimumAgeOfRefundInDays), eq(defaultExcludeRefundsParityCheckedWithInDays),
+                any(), anyInt(), any())).thenReturn(List.of(refundEntity));
         when(mockChargeService.findChargeByExternalId(refundEntity.getChargeExternalId())).thenThrow(ChargeNotFoundRuntimeException.class);
 
         refundExpungeService.expunge(1);
@@ -134,8 +164,8 @@ class RefundExpungeServiceTest {
         RefundEntity refundEntity = RefundEntityFixture.aValidRefundEntity()
                 .withChargeExternalId(chargeEntity.getExternalId())
                 .withStatus(REFUND_SUBMITTED).build();
-        when(mockRefundDao.findRefundToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays))
-                .thenReturn(Optional.of(refundEntity));
+        when(mockRefundDao.claimRefundsToExpunge(eq(minimumAgeOfRefundInDays), eq(defaultExcludeRefundsParityCheckedWithInDays),
+                any(), anyInt(), any())).thenReturn(List.of(refundEntity));
         when(mockChargeService.findChargeByExternalId(refundEntity.getChargeExternalId())).thenReturn(chargeEntity);
 
         refundExpungeService.expunge(1);
@@ -152,8 +182,8 @@ class RefundExpungeServiceTest {
 
         RefundEntity refundEntity = RefundEntityFixture.aValidRefundEntity()
                 .withStatus(REFUNDED).build();
-        when(mockRefundDao.findRefundToExpunge(minimumAgeOfRefundInDays, defaultExcludeRefundsParityCheckedWithInDays))
-                .thenReturn(Optional.of(refundEntity));
+        when(mockRefundDao.claimRefundsToExpunge(eq(minimumAgeOfRefundInDays), eq(defaultExcludeRefundsParityCheckedWithInDays),
+                any(), anyInt(), any())).thenReturn(List.of(refundEntity));
         when(mockChargeService.findChargeByExternalId(refundEntity.getChargeExternalId())).thenThrow(ChargeNotFoundRuntimeException.class);
         when(mockParityCheckService.parityCheckRefundForExpunger(refundEntity)).thenReturn(false);
 
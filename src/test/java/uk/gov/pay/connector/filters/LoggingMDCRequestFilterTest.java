@@ -0,0 +1,117 @@
+package uk.gov.pay.connector.filters;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.LIVE;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.TEST;
+import static uk.gov.service.payments.commons.model.AuthorisationMode.WEB;
+import static uk.gov.service.payments.logging.LoggingKeys.AGREEMENT_EXTERNAL_ID;
+import static uk.gov.service.payments.logging.LoggingKeys.AUTHORISATION_MODE;
+import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_ACCOUNT_ID;
+import static uk.gov.service.payments.logging.LoggingKeys.GATEWAY_ACCOUNT_TYPE;
+import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
+import static uk.gov.service.payments.logging.LoggingKeys.PROVIDER;
+
+@ExtendWith(MockitoExtension.class)
+class LoggingMDCRequestFilterTest {
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private GatewayAccountDao mockGatewayAccountDao;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ContainerRequestContext mockRequestContext;
+    @Mock
+    private UriInfo mockUriInfo;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final MultivaluedMap<String, String> pathParameters = new MultivaluedHashMap<>();
+
+    private LoggingMDCRequestFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+        when(mockRequestContext.getUriInfo()).thenReturn(mockUriInfo);
+        when(mockUriInfo.getPathParameters()).thenReturn(pathParameters);
+        filter = new LoggingMDCRequestFilter(mockChargeDao, mockGatewayAccountDao, mockEnvironment);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void shouldAddChargeDetailsToMDCWithoutLoadingTheGatewayAccount() {
+        pathParameters.putSingle("chargeId", "charge-external-id");
+        pathParameters.putSingle("accountId", "1");
+        when(mockChargeDao.findLoggingContextByExternalId("charge-external-id")).thenReturn(Optional.of(
+                new ChargeLoggingContext("charge-external-id", "worldpay", WEB, "agreement-external-id", 1L, LIVE)));
+
+        filter.filter(mockRequestContext);
+
+        assertThat(MDC.get(PAYMENT_EXTERNAL_ID), is("charge-external-id"));
+        assertThat(MDC.get(PROVIDER), is("worldpay"));
+        assertThat(MDC.get(AUTHORISATION_MODE), is("web"));
+        assertThat(MDC.get(AGREEMENT_EXTERNAL_ID), is("agreement-external-id"));
+        assertThat(MDC.get(GATEWAY_ACCOUNT_ID), is("1"));
+        assertThat(MDC.get(GATEWAY_ACCOUNT_TYPE), is("live"));
+        assertThat(databaseQueries(), is(1L));
+        verify(mockGatewayAccountDao, never()).findTypeById(anyLong());
+    }
+
+    @Test
+    void shouldAddGatewayAccountDetailsToMDCWhenThereIsNoCharge() {
+        pathParameters.putSingle("accountId", "1");
+        when(mockGatewayAccountDao.findTypeById(1L)).thenReturn(Optional.of(TEST));
+
+        filter.filter(mockRequestContext);
+
+        assertThat(MDC.get(PAYMENT_EXTERNAL_ID), is(nullValue()));
+        assertThat(MDC.get(GATEWAY_ACCOUNT_ID), is("1"));
+        assertThat(MDC.get(GATEWAY_ACCOUNT_TYPE), is("test"));
+        assertThat(databaseQueries(), is(1L));
+    }
+
+    @Test
+    void shouldNotQueryTheDatabaseWhenThereIsNoChargeOrValidAccountId() {
+        pathParameters.putSingle("accountId", "not-a-number");
+        pathParameters.putSingle("refundId", "refund-external-id");
+
+        filter.filter(mockRequestContext);
+
+        assertThat(MDC.get(GATEWAY_ACCOUNT_ID), is(nullValue()));
+        assertThat(databaseQueries(), is(0L));
+    }
+
+    private long databaseQueries() {
+        return metricRegistry.counter(LoggingMDCRequestFilter.DATABASE_QUERIES_METRIC_NAME).getCount();
+    }
+}
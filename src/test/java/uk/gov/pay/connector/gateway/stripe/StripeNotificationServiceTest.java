@@ -6,6 +6,7 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.logstash.logback.marker.ObjectAppendingMarker;
 import org.apache.commons.lang3.StringUtils;
@@ -27,26 +28,35 @@ import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.gateway.model.Auth3dsResult;
 import uk.gov.pay.connector.gateway.stripe.json.StripePayout;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
+import uk.gov.pay.connector.paymentprocessor.service.Authorisation3dsReadyWaiter;
 import uk.gov.pay.connector.paymentprocessor.service.Card3dsResponseAuthService;
 import uk.gov.pay.connector.payout.PayoutEmitterService;
 import uk.gov.pay.connector.queue.payout.Payout;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileQueue;
 import uk.gov.pay.connector.queue.tasks.TaskQueueService;
+import uk.gov.pay.connector.gateway.stripe.response.StripeDisputeData;
+import uk.gov.pay.connector.gateway.stripe.response.StripeNotification;
+import uk.gov.pay.connector.queue.tasks.TaskType;
+import uk.gov.pay.connector.queue.tasks.model.Task;
 import uk.gov.pay.connector.util.CidrUtils;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 import uk.gov.pay.connector.util.TestTemplateResourceLoader;
+import uk.gov.pay.connector.webhook.service.NotificationInboxService;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 
 import javax.ws.rs.WebApplicationException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItemInArray;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -55,7 +65,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -105,6 +118,10 @@ class StripeNotificationServiceTest {
     private GatewayAccountCredentialsService mockGatewayAccountCredentialsService;
     @Mock
     private TaskQueueService mockTaskQueueService;
+    @Mock
+    private NotificationInboxService mockNotificationInboxService;
+    @Mock
+    private Authorisation3dsReadyWaiter mockAuthorisation3dsReadyWaiter;
 
     @Captor
     private ArgumentCaptor<LoggingEvent> loggingEventArgumentCaptor;
@@ -118,6 +135,7 @@ class StripeNotificationServiceTest {
     private final String sourceId = "source-id";
     private final String webhookTestSigningSecret = "whtest";
     private final String webhookLiveSigningSecret = "whlive";
+    private final String connectWebhookSigningSecret = "whconnect";
 
     @BeforeEach
     void setup() {
@@ -133,9 +151,16 @@ class StripeNotificationServiceTest {
                 new IpAddressMatcher(new InetAddressValidator()),
                 ALLOWED_IP_ADDRESSES,
                 objectMapper,
-                mockTaskQueueService);
+                mockTaskQueueService,
+                mockNotificationInboxService,
+                mockAuthorisation3dsReadyWaiter);
 
         lenient().when(stripeGatewayConfig.getWebhookSigningSecrets()).thenReturn(List.of(webhookLiveSigningSecret, webhookTestSigningSecret));
+        lenient().when(stripeGatewayConfig.getConnectWebhookSigningSecrets()).thenReturn(List.of(connectWebhookSigningSecret));
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(2, Runnable.class).run();
+            return CompletableFuture.completedFuture(null);
+        }).when(mockAuthorisation3dsReadyWaiter).runWhenReady(anyString(), any(Duration.class), any(Runnable.class));
     }
 
     private void setUpCharge() {
@@ -190,6 +215,55 @@ class StripeNotificationServiceTest {
         assertThat(loggingEvent.getArgumentArray().length, is(1));
     }
 
+    @Test
+    void shouldQueueParsedDisputeNotificationAsTask() throws Exception {
+        String payload = TestTemplateResourceLoader.load(STRIPE_NOTIFICATION_CHARGE_DISPUTE)
+                .replace("{{type}}", "charge.dispute.created")
+                .replace("{{status}}", "needs_response");
+
+        notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
+
+        ArgumentCaptor<Task> taskArgumentCaptor = ArgumentCaptor.forClass(Task.class);
+        verify(mockTaskQueueService).add(taskArgumentCaptor.capture());
+        Task task = taskArgumentCaptor.getValue();
+        assertThat(task.getTaskType(), is(TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION));
+        assertThat(task.getData(), not(containsString("pending_webhooks")));
+
+        StripeNotification notification = objectMapper.readValue(task.getData(), StripeNotification.class);
+        assertThat(notification.getId(), is("evt_00000000000000"));
+        assertThat(notification.getType(), is("charge.dispute.created"));
+        assertThat(notification.getObject(objectMapper, StripeDisputeData.class).getPaymentIntentId(), is("pi_1111111111"));
+    }
+
+    @Test
+    void shouldQueueDisputePayloadAsTaskWhenNotificationCannotBeSerialised() throws Exception {
+        ObjectMapper failingObjectMapper = spy(new ObjectMapper());
+        doThrow(new JsonMappingException(null, "Cannot serialise")).when(failingObjectMapper).writeValueAsString(any(StripeNotification.class));
+        notificationService = new StripeNotificationService(
+                mockCard3dsResponseAuthService,
+                mockChargeService,
+                stripeGatewayConfig,
+                stripeAccountUpdatedHandler,
+                stripeRefundUpdatedHandler,
+                mockPayoutReconcileQueue,
+                mockPayoutEmitterService,
+                new IpAddressMatcher(new InetAddressValidator()),
+                ALLOWED_IP_ADDRESSES,
+                failingObjectMapper,
+                mockTaskQueueService,
+                mockNotificationInboxService,
+                mockAuthorisation3dsReadyWaiter);
+        String payload = TestTemplateResourceLoader.load(STRIPE_NOTIFICATION_CHARGE_DISPUTE)
+                .replace("{{type}}", "charge.dispute.created")
+                .replace("{{status}}", "needs_response");
+
+        notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
+
+        ArgumentCaptor<Task> taskArgumentCaptor = ArgumentCaptor.forClass(Task.class);
+        verify(mockTaskQueueService).add(taskArgumentCaptor.capture());
+        assertThat(taskArgumentCaptor.getValue().getData(), is(payload));
+    }
+
     @Test
     void shouldLogForDisputeUpdatedEvent() {
         Logger root = (Logger) LoggerFactory.getLogger(StripeNotificationService.class);
@@ -354,8 +428,62 @@ class StripeNotificationServiceTest {
         final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
                 sourceId, PAYMENT_INTENT_AMOUNT_CAPTURABLE_UPDATED);
 
+        final boolean result = notificationService.processNotification(payload);
+
+        assertTrue(result);
+        verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId, getAuth3dsResult(Auth3dsResult.Auth3dsResultOutcome.AUTHORISED));
+    }
+
+    @Test
+    void shouldVerifyNotificationsSignedWithAnyConfiguredSecret() {
+        final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
+                sourceId, PAYMENT_INTENT_AMOUNT_CAPTURABLE_UPDATED);
+        when(mockNotificationInboxService.isEnabled()).thenReturn(true);
+
+        assertTrue(notificationService.handleNotificationFor(payload, signPayloadWithTestSecret(payload), FORWARDED_IP_ADDRESSES));
+        assertTrue(notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES));
+        assertTrue(notificationService.handleNotificationFor(payload,
+                StripeNotificationUtilTest.generateSigHeader(connectWebhookSigningSecret, payload), FORWARDED_IP_ADDRESSES));
+        assertThrows(WebApplicationException.class, () -> notificationService.handleNotificationFor(payload,
+                StripeNotificationUtilTest.generateSigHeader("whunknown", payload), FORWARDED_IP_ADDRESSES));
+    }
+
+    @Test
+    void shouldVerifyConnectedAccountNotificationsSignedWithConnectOrAccountSecret() {
+        final String payload = sampleStripeNotification(STRIPE_PAYOUT_NOTIFICATION, "evt_id", PAYOUT_CREATED);
+        when(mockNotificationInboxService.isEnabled()).thenReturn(true);
+
+        assertTrue(notificationService.handleNotificationFor(payload,
+                StripeNotificationUtilTest.generateSigHeader(connectWebhookSigningSecret, payload), FORWARDED_IP_ADDRESSES));
+        assertTrue(notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES));
+        assertThrows(WebApplicationException.class, () -> notificationService.handleNotificationFor(payload,
+                StripeNotificationUtilTest.generateSigHeader("whunknown", payload), FORWARDED_IP_ADDRESSES));
+    }
+
+    @Test
+    void shouldStoreNotificationWithoutProcessingIt_WhenNotificationInboxEnabled() {
+        when(mockNotificationInboxService.isEnabled()).thenReturn(true);
+        final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
+                sourceId, PAYMENT_INTENT_AMOUNT_CAPTURABLE_UPDATED);
+
         final boolean result = notificationService.handleNotificationFor(payload, signPayloadWithTestSecret(payload), FORWARDED_IP_ADDRESSES);
 
+        assertTrue(result);
+        verify(mockNotificationInboxService).accept(STRIPE, "evt_1FF3RvEZsufgnuO0tnyTrqsL", sourceId, payload);
+        verify(mockChargeService, never()).findByProviderAndTransactionId(anyString(), anyString());
+        verify(mockCard3dsResponseAuthService, never()).process3DSecureAuthorisationWithoutLocking(anyString(), any());
+    }
+
+    @Test
+    void shouldUpdateCharge_WhenNotificationFromInboxIsForCapturablePaymentIntent() {
+        setUpCharge();
+        setUpChargeServiceToReturnCharge();
+        when(mockCharge.getAmount()).thenReturn(1000L);
+        final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
+                sourceId, PAYMENT_INTENT_AMOUNT_CAPTURABLE_UPDATED);
+
+        final boolean result = notificationService.processNotification(payload);
+
         assertTrue(result);
         verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId, getAuth3dsResult(Auth3dsResult.Auth3dsResultOutcome.AUTHORISED));
     }
@@ -368,7 +496,7 @@ class StripeNotificationServiceTest {
         when(mockCharge.getAmount()).thenReturn(1000L);
         when(mockChargeService.findByProviderAndTransactionId(STRIPE.getName(), "pi_123")).thenReturn(Optional.of(mockCharge));
 
-        final boolean result = notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
+        final boolean result = notificationService.processNotification(payload);
 
         assertTrue(result);
         verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId,
@@ -395,7 +523,7 @@ class StripeNotificationServiceTest {
                 "pi_123", PAYMENT_INTENT_PAYMENT_FAILED);
         when(mockChargeService.findByProviderAndTransactionId(STRIPE.getName(), "pi_123")).thenReturn(Optional.of(mockCharge));
 
-        final boolean result = notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
+        final boolean result = notificationService.processNotification(payload);
 
         assertTrue(result);
         verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId,
@@ -445,40 +573,64 @@ class StripeNotificationServiceTest {
     }
 
     @Test
-    void shouldWaitForSpecifiedDelayBeforeProcessingNotification() {
+    void shouldDeferNotificationToNotificationInbox_WhenChargeIsNotYet3DSReady() {
+        when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_REQUIRED.getValue());
+        setUpChargeServiceToReturnCharge();
+        final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
+                sourceId, PAYMENT_INTENT_PAYMENT_FAILED);
+
+        final boolean result = notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
+
+        assertTrue(result);
+        verify(mockNotificationInboxService).accept(STRIPE, "evt_1FF3RvEZsufgnuO0tnyTrqsL", sourceId, payload);
+        verify(mockAuthorisation3dsReadyWaiter, never()).runWhenReady(anyString(), any(Duration.class), any(Runnable.class));
+        verify(mockCard3dsResponseAuthService, never()).process3DSecureAuthorisationWithoutLocking(anyString(), any());
+    }
+
+    @Test
+    void shouldHandNotificationFromInboxToWaiter_WhenChargeIsNotYet3DSReady() {
         setUpCharge();
         setUpChargeServiceToReturnCharge();
         final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
                 sourceId, PAYMENT_INTENT_PAYMENT_FAILED);
         when(stripeGatewayConfig.getNotification3dsWaitDelay()).thenReturn(1000);
-        when(mockChargeService.findChargeByExternalId(anyString())).thenReturn(mockCharge);
 
-        Instant instantBeforeInvocation = Instant.now();
-        final boolean result = notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
-        Instant instantAfterInvocation = Instant.now();
-        assertTrue(instantAfterInvocation.isAfter(instantBeforeInvocation.plusSeconds(1)));
-        assertTrue(instantAfterInvocation.isBefore(instantBeforeInvocation.plusMillis(1500))); //includes additional overhead to complete handleNotificationFor() 
+        final boolean result = notificationService.processNotification(payload);
 
         assertTrue(result);
+        verify(mockAuthorisation3dsReadyWaiter).runWhenReady(eq(externalId), eq(Duration.ofMillis(1000)), any(Runnable.class));
+        verify(mockChargeService, never()).findChargeByExternalId(anyString());
         verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId, getAuth3dsResult(Auth3dsResult.Auth3dsResultOutcome.DECLINED));
     }
 
     @Test
-    void shouldNotWaitForSpecifiedDelayIfChargeIs3DSReady() {
+    void shouldThrowSoTheInboxRetries_WhenDeferredAuthorisationFails() {
+        setUpCharge();
+        setUpChargeServiceToReturnCharge();
+        final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
+                sourceId, PAYMENT_INTENT_PAYMENT_FAILED);
+        when(stripeGatewayConfig.getNotification3dsWaitDelay()).thenReturn(1000);
+        when(mockAuthorisation3dsReadyWaiter.runWhenReady(anyString(), any(Duration.class), any(Runnable.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("gateway unavailable")));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> notificationService.processNotification(payload));
+
+        assertThat(exception.getMessage(), is("gateway unavailable"));
+    }
+
+    @Test
+    void shouldProcessNotificationStraightAway_WhenChargeIs3DSReady() {
         setUpCharge();
         setUpChargeServiceToReturnCharge();
         final String payload = sampleStripeNotification(STRIPE_NOTIFICATION_PAYMENT_INTENT,
                 sourceId, PAYMENT_INTENT_PAYMENT_FAILED);
-        when(stripeGatewayConfig.getNotification3dsWaitDelay()).thenReturn(2000);
-        when(mockChargeService.findChargeByExternalId(anyString())).thenReturn(mockCharge);
         when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_READY.getValue());
 
-        Instant instantBeforeInvocation = Instant.now();
         final boolean result = notificationService.handleNotificationFor(payload, signPayload(payload), FORWARDED_IP_ADDRESSES);
-        Instant instantAfterInvocation = Instant.now();
-        assertTrue(instantAfterInvocation.isBefore(instantBeforeInvocation.plusMillis(300))); // plus 300 to consider the time to process handleNotificationFor()
 
         assertTrue(result);
+        verify(mockAuthorisation3dsReadyWaiter, never()).runWhenReady(anyString(), any(Duration.class), any(Runnable.class));
         verify(mockCard3dsResponseAuthService).process3DSecureAuthorisationWithoutLocking(externalId, getAuth3dsResult(Auth3dsResult.Auth3dsResultOutcome.DECLINED));
     }
 
@@ -3,6 +3,7 @@ package uk.gov.pay.connector.gateway.stripe;
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stripe.exception.StripeException;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
 import io.dropwizard.setup.Environment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -55,6 +56,9 @@ import uk.gov.service.payments.commons.model.CardExpiryDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -67,6 +71,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -118,8 +123,7 @@ class StripePaymentProviderTest {
     private GatewayClientFactory gatewayClientFactory;
     @Mock
     private Environment environment;
-    @Mock
-    private MetricRegistry metricRegistry;
+    private final MetricRegistry metricRegistry = new MetricRegistry();
     @Mock
     private ConnectorConfiguration configuration;
     @Mock
@@ -144,6 +148,8 @@ class StripePaymentProviderTest {
         when(linksConfig.getFrontendUrl()).thenReturn("http://frontendUrl");
         when(gatewayClientFactory.createGatewayClient(eq(STRIPE), any(MetricRegistry.class))).thenReturn(gatewayClient);
         when(environment.metrics()).thenReturn(metricRegistry);
+        when(environment.lifecycle()).thenReturn(new LifecycleEnvironment(metricRegistry));
+        when(gatewayConfig.getAuthorisationThreads()).thenReturn(2);
 
         provider = new StripePaymentProvider(gatewayClientFactory, configuration, objectMapper, environment, stripeSDKClient);
     }
@@ -210,7 +216,10 @@ class StripePaymentProviderTest {
             GatewayResponse<BaseAuthoriseResponse> response = provider.authorise(buildTestAuthorisationRequest(charge), charge);
 
             verify(gatewayClient, times(3)).postRequestFor(stripePostRequestCaptor.capture());
-            var customerRequest = (StripeCustomerRequest) (stripePostRequestCaptor.getAllValues().get(1));
+            var customerRequest = stripePostRequestCaptor.getAllValues().stream()
+                    .filter(StripeCustomerRequest.class::isInstance)
+                    .map(StripeCustomerRequest.class::cast)
+                    .findFirst().orElseThrow();
             var paymentIntentRequest = (StripePaymentIntentRequest) (stripePostRequestCaptor.getAllValues().get(2));
 
             assertThat(customerRequest.getName(), is(CARD_HOLDER));
@@ -224,6 +233,55 @@ class StripePaymentProviderTest {
             assertThat(response.getBaseResponse().get().getTransactionId(), is("pi_1FHESeEZsufgnuO08A2FUSPy"));
         }
 
+        @Test
+        void shouldCreateCustomerWhilePaymentMethodIsBeingCreatedWhenSettingUpRecurringPaymentAgreement() throws Exception {
+            var customerRequested = new CountDownLatch(1);
+            var customerRequestedDuringPaymentMethodCall = new AtomicBoolean();
+            when(gatewayClient.postRequestFor(any(StripeCustomerRequest.class))).thenAnswer(invocation -> {
+                customerRequested.countDown();
+                return customerResponse;
+            });
+            when(gatewayClient.postRequestFor(any(StripePaymentMethodRequest.class))).thenAnswer(invocation -> {
+                customerRequestedDuringPaymentMethodCall.set(customerRequested.await(5, TimeUnit.SECONDS));
+                return paymentMethodResponse;
+            });
+            when(gatewayClient.postRequestFor(any(StripePaymentIntentRequest.class))).thenReturn(paymentIntentsResponse);
+            when(customerResponse.getEntity()).thenReturn(successCreateCustomerResponse());
+            when(paymentMethodResponse.getEntity()).thenReturn(successCreatePaymentMethodResponse());
+            when(paymentIntentsResponse.getEntity()).thenReturn(successCreatePaymentIntentResponseWithCustomer());
+
+            ChargeEntity charge = buildTestChargeToSetUpAgreement(buildTestGatewayAccountEntity(), "an agreement description");
+            GatewayResponse<BaseAuthoriseResponse> response = provider.authorise(buildTestAuthorisationRequest(charge), charge);
+
+            assertThat(customerRequestedDuringPaymentMethodCall.get(), is(true));
+            assertTrue(response.isSuccessful());
+            assertThat(metricRegistry.timer("gateway-operations.stripe.authorise.create-payment-method").getCount(), is(1L));
+            assertThat(metricRegistry.timer("gateway-operations.stripe.authorise.create-customer").getCount(), is(1L));
+            assertThat(metricRegistry.timer("gateway-operations.stripe.authorise.create-payment-intent").getCount(), is(1L));
+        }
+
+        @Test
+        void shouldDeleteCustomerWhenPaymentMethodCannotBeCreatedWhenSettingUpRecurringPaymentAgreement() throws Exception {
+            var customerRequested = new CountDownLatch(1);
+            when(gatewayClient.postRequestFor(any(StripeCustomerRequest.class))).thenAnswer(invocation -> {
+                customerRequested.countDown();
+                return customerResponse;
+            });
+            when(customerResponse.getEntity()).thenReturn(successCreateCustomerResponse());
+            when(gatewayClient.postRequestFor(any(StripePaymentMethodRequest.class))).thenAnswer(invocation -> {
+                customerRequested.await(5, TimeUnit.SECONDS);
+                throw new GatewayErrorException("server error", errorResponse("card_error"), 400);
+            });
+
+            GatewayAccountEntity gatewayAccount = buildTestGatewayAccountEntity();
+            ChargeEntity charge = buildTestChargeToSetUpAgreement(gatewayAccount, "an agreement description");
+            GatewayResponse<BaseAuthoriseResponse> response = provider.authorise(buildTestAuthorisationRequest(charge), charge);
+
+            assertThat(response.getBaseResponse().get().authoriseStatus(), is(BaseAuthoriseResponse.AuthoriseStatus.REJECTED));
+            verify(gatewayClient, never()).postRequestFor(any(StripePaymentIntentRequest.class));
+            verify(stripeSDKClient).deleteCustomer("cus_4QFOF3xrvBT3nU", gatewayAccount.isLive());
+        }
+
         @Test
         void shouldSetAs3DSRequired_whenPaymentIntentReturnsWithRequiresAction() throws Exception {
             when(paymentMethodResponse.getEntity()).thenReturn(successCreatePaymentMethodResponse());
@@ -631,6 +689,21 @@ class StripePaymentProviderTest {
             assertThat(gatewayException.getMessage(), is("Error when attempting to delete Stripe customer cus_123. Status code: 418, Error code: im_a_teapot, Message: I'm a teapot"));
         }
 
+        @Test
+        void shouldTreatCustomerThatNoLongerExistsAsDeleted() throws Exception {
+            String customerId = "cus_123";
+            AgreementEntity agreementEntity = createAgreementWithPaymentInstrument(customerId);
+
+            StripeException mockStripeException = mock(StripeException.class);
+            when(mockStripeException.getStatusCode()).thenReturn(404);
+            doThrow(mockStripeException).when(stripeSDKClient).deleteCustomer(customerId, true);
+
+            var request = DeleteStoredPaymentDetailsGatewayRequest.from(agreementEntity, agreementEntity.getPaymentInstrument().get());
+            provider.deleteStoredPaymentDetails(request);
+
+            verify(stripeSDKClient).deleteCustomer(customerId, true);
+        }
+
         private AgreementEntity createAgreementWithPaymentInstrument(String customerId) {
             PaymentInstrumentEntity paymentInstrumentEntity = aPaymentInstrumentEntity()
                     .withStripeRecurringAuthToken(customerId, "pm_123")
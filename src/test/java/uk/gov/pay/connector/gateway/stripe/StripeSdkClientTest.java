@@ -81,6 +81,18 @@ class StripeSdkClientTest {
         assertThat(requestOptions.getStripeAccount(), is(STRIPE_CONNECT_ACCOUNT_ID));
     }
 
+    @Test
+    void getBalanceTransactionsForPayout_shouldStartAfterGivenBalanceTransaction() throws Exception {
+        when(stripeAuthTokens.getTest()).thenReturn(TEST_API_KEY);
+
+        stripeSDKClient.getBalanceTransactionsForPayout(PAYOUT_ID, STRIPE_CONNECT_ACCOUNT_ID, false, "txn_123");
+
+        verify(stripeSDKWrapper).listBalanceTransactions(paramsArgumentCaptor.capture(), requestOptionsArgumentCaptor.capture());
+
+        assertThat(paramsArgumentCaptor.getValue(), hasEntry("payout", PAYOUT_ID));
+        assertThat(paramsArgumentCaptor.getValue(), hasEntry("starting_after", "txn_123"));
+    }
+
     @Test
     void deleteCustomer_shouldUseTestApiKey() throws Exception {
         when(stripeAuthTokens.getTest()).thenReturn(TEST_API_KEY);
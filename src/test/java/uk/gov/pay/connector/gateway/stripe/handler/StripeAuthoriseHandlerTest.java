@@ -0,0 +1,117 @@
+package uk.gov.pay.connector.gateway.stripe.handler;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.LinksConfig;
+import uk.gov.pay.connector.app.StripeGatewayConfig;
+import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.gateway.GatewayClient;
+import uk.gov.pay.connector.gateway.GatewayException.GatewayErrorException;
+import uk.gov.pay.connector.gateway.model.request.CardAuthorisationGatewayRequest;
+import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse;
+import uk.gov.pay.connector.gateway.model.response.GatewayResponse;
+import uk.gov.pay.connector.gateway.stripe.StripeSdkClient;
+import uk.gov.pay.connector.gateway.stripe.request.StripeCustomerRequest;
+import uk.gov.pay.connector.gateway.stripe.request.StripePaymentMethodRequest;
+import uk.gov.pay.connector.model.domain.AuthCardDetailsFixture;
+import uk.gov.pay.connector.util.JsonObjectMapper;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.agreement.model.AgreementEntityFixture.anAgreementEntity;
+import static uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.gateway.PaymentGatewayName.STRIPE;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntityFixture.aGatewayAccountEntity;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.TEST;
+import static uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialState.ACTIVE;
+import static uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntityFixture.aGatewayAccountCredentialsEntity;
+import static uk.gov.pay.connector.util.TestTemplateResourceLoader.STRIPE_ERROR_RESPONSE;
+import static uk.gov.pay.connector.util.TestTemplateResourceLoader.load;
+
+@ExtendWith(MockitoExtension.class)
+class StripeAuthoriseHandlerTest {
+
+    @Mock
+    private GatewayClient gatewayClient;
+    @Mock
+    private StripeGatewayConfig stripeGatewayConfig;
+    @Mock
+    private ConnectorConfiguration configuration;
+    @Mock
+    private LinksConfig linksConfig;
+    @Mock
+    private StripeSdkClient stripeSdkClient;
+
+    private final CountDownLatch executorReleased = new CountDownLatch(1);
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private StripeAuthoriseHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        when(configuration.getLinks()).thenReturn(linksConfig);
+        handler = new StripeAuthoriseHandler(gatewayClient, stripeGatewayConfig, configuration,
+                new JsonObjectMapper(new ObjectMapper()), executorService, stripeSdkClient, new MetricRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorReleased.countDown();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void shouldNotCreateOrDeleteCustomerWhenPaymentMethodFailsBeforeCustomerRequestStarts() throws Exception {
+        executorService.submit(() -> {
+            executorReleased.await();
+            return null;
+        });
+        when(gatewayClient.postRequestFor(any(StripePaymentMethodRequest.class)))
+                .thenThrow(new GatewayErrorException("server error", errorResponse(), 400));
+
+        GatewayResponse<BaseAuthoriseResponse> response = handler.authorise(buildAuthorisationRequestToSetUpAgreement());
+
+        assertThat(response.getBaseResponse().get().authoriseStatus(), is(BaseAuthoriseResponse.AuthoriseStatus.REJECTED));
+        verify(gatewayClient, never()).postRequestFor(any(StripeCustomerRequest.class));
+        verify(stripeSdkClient, never()).deleteCustomer(anyString(), anyBoolean());
+    }
+
+    private String errorResponse() {
+        return load(STRIPE_ERROR_RESPONSE).replace("{{type}}", "card_error").replace("{{code}}", "resource_missing");
+    }
+
+    private CardAuthorisationGatewayRequest buildAuthorisationRequestToSetUpAgreement() {
+        ChargeEntity charge = aValidChargeEntity()
+                .withGatewayAccountEntity(aGatewayAccountEntity()
+                        .withId(1L)
+                        .withGatewayName("stripe")
+                        .withType(TEST)
+                        .build())
+                .withGatewayAccountCredentialsEntity(aGatewayAccountCredentialsEntity()
+                        .withCredentials(Map.of("stripe_account_id", "stripe_account_id"))
+                        .withPaymentProvider(STRIPE.getName())
+                        .withState(ACTIVE)
+                        .build())
+                .withAgreementEntity(anAgreementEntity().build())
+                .withSavePaymentInstrumentToAgreement(true)
+                .build();
+        return new CardAuthorisationGatewayRequest(charge, AuthCardDetailsFixture.anAuthCardDetails().build());
+    }
+}
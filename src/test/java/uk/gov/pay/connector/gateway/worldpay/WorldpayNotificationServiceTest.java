@@ -16,6 +16,7 @@ import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
 import uk.gov.pay.connector.util.IpDomainMatcher;
 import uk.gov.pay.connector.util.TestTemplateResourceLoader;
+import uk.gov.pay.connector.webhook.service.NotificationInboxService;
 
 import java.util.Arrays;
 import java.util.List;
@@ -23,6 +24,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -47,6 +50,8 @@ class WorldpayNotificationServiceTest {
     private ChargeNotificationProcessor mockChargeNotificationProcessor;
     @Mock
     private RefundNotificationProcessor mockRefundNotificationProcessor;
+    @Mock
+    private NotificationInboxService mockNotificationInboxService;
     private Charge charge = Charge.from(ChargeEntityFixture.aValidChargeEntity().build());
     private GatewayAccountEntity gatewayAccountEntity = ChargeEntityFixture.defaultGatewayAccountEntity();
 
@@ -62,7 +67,8 @@ class WorldpayNotificationServiceTest {
                 mockIpDomainMatcher,
                 mockChargeNotificationProcessor,
                 mockRefundNotificationProcessor,
-                mockGatewayAccountService);
+                mockGatewayAccountService,
+                mockNotificationInboxService);
     }
 
     @Test
@@ -293,6 +299,55 @@ class WorldpayNotificationServiceTest {
         verifyNoInteractions(mockRefundNotificationProcessor);
     }
 
+    @Test
+    void whenNotificationInboxEnabled_shouldStoreNotificationWithoutProcessingIt() {
+        when(mockNotificationInboxService.isEnabled()).thenReturn(true);
+        final String payload = sampleWorldpayNotification(transactionId, referenceId, "CAPTURED");
+
+        final boolean result = notificationService.handleNotificationFor(ipAddress, payload);
+
+        assertTrue(result);
+        verify(mockNotificationInboxService).accept(eq(WORLDPAY), anyString(), eq(transactionId), eq(payload));
+        verifyNoInteractions(mockChargeService);
+        verifyNoInteractions(mockChargeNotificationProcessor);
+    }
+
+    @Test
+    void whenNotificationInboxEnabled_shouldNotStoreIgnoredNotification() {
+        final String payload = sampleWorldpayNotification(transactionId, referenceId, "AUTHORISED");
+
+        final boolean result = notificationService.handleNotificationFor(ipAddress, payload);
+
+        assertTrue(result);
+        verifyNoInteractions(mockNotificationInboxService);
+    }
+
+    @Test
+    void processNotification_shouldProcessCaptureNotificationFromInbox() {
+        setUpChargeServiceToReturnCharge(Optional.of(charge));
+        setUpGatewayAccountServiceToReturnGatewayAccountEntity(Optional.of(gatewayAccountEntity));
+        final String payload = sampleWorldpayNotification(transactionId, referenceId, "CAPTURED",
+                "10", "03", "2017");
+
+        final boolean result = notificationService.processNotification(payload);
+
+        assertTrue(result);
+        verify(mockChargeNotificationProcessor).invoke(transactionId, charge, CAPTURED,
+                new WorldpayNotification("MERCHANTCODE", "CAPTURED", 10, 3, 2017, transactionId, referenceId).getGatewayEventDate());
+    }
+
+    @Test
+    void processNotification_shouldReturnFalseSoNotificationIsRetried_whenChargeNotFoundForTelephonePaymentsAccount() {
+        when(mockGatewayAccountService.isATelephonePaymentNotificationAccount("MERCHANTCODE")).thenReturn(true);
+        setUpChargeServiceToReturnCharge(Optional.empty());
+        final String payload = sampleWorldpayNotification(transactionId, referenceId, "CHARGED");
+
+        final boolean result = notificationService.processNotification(payload);
+
+        assertFalse(result);
+        verifyNoInteractions(mockChargeNotificationProcessor);
+    }
+
     private static String sampleWorldpayNotification(
             String transactionId,
             String referenceId,
@@ -46,7 +46,7 @@ class GatewayAccountResourceSwitchPspValidationTest {
 
     private static final ResourceExtension resources = ResourceTestRuleWithCustomExceptionMappersBuilder
             .getBuilder()
-            .addResource(new GatewayAccountResource(gatewayAccountService, null,
+            .addResource(new GatewayAccountResource(gatewayAccountService, null, null,
                     null, null, null,
                     new GatewayAccountSwitchPaymentProviderService(gatewayAccountDao, gatewayAccountCredentialsDao)))
             .build();
@@ -25,7 +25,7 @@ class GatewayAccountResourceValidationTest {
 
     private static final ResourceExtension resources = ResourceTestRuleWithCustomExceptionMappersBuilder
             .getBuilder()
-            .addResource(new GatewayAccountResource(null, null,
+            .addResource(new GatewayAccountResource(null, null, null,
                     null,
                     new GatewayAccountRequestValidator(new RequestValidator()), null,
                     null))
@@ -0,0 +1,64 @@
+package uk.gov.pay.connector.gatewayaccount.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
+
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TelephonePaymentNotificationAccountCacheTest {
+
+    @Mock
+    private GatewayAccountDao mockGatewayAccountDao;
+
+    private TelephonePaymentNotificationAccountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TelephonePaymentNotificationAccountCache(mockGatewayAccountDao);
+    }
+
+    @Test
+    void shouldLoadMerchantCodesOnceAndAnswerFromMemory() {
+        when(mockGatewayAccountDao.findTelephonePaymentNotificationMerchantCodes()).thenReturn(Set.of("MERCHANTCODE"));
+
+        assertThat(cache.isATelephonePaymentNotificationAccount("MERCHANTCODE"), is(true));
+        assertThat(cache.isATelephonePaymentNotificationAccount("OTHERCODE"), is(false));
+
+        verify(mockGatewayAccountDao, times(1)).findTelephonePaymentNotificationMerchantCodes();
+        verify(mockGatewayAccountDao, never()).isATelephonePaymentNotificationAccount(anyString());
+    }
+
+    @Test
+    void shouldReloadMerchantCodesAfterInvalidation() {
+        when(mockGatewayAccountDao.findTelephonePaymentNotificationMerchantCodes())
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("MERCHANTCODE"));
+
+        assertThat(cache.isATelephonePaymentNotificationAccount("MERCHANTCODE"), is(false));
+        cache.invalidate();
+        assertThat(cache.isATelephonePaymentNotificationAccount("MERCHANTCODE"), is(true));
+
+        verify(mockGatewayAccountDao, times(2)).findTelephonePaymentNotificationMerchantCodes();
+    }
+
+    @Test
+    void shouldQueryDatabaseDirectlyWhenMerchantCodesCannotBeLoaded() {
+        when(mockGatewayAccountDao.findTelephonePaymentNotificationMerchantCodes()).thenThrow(new RuntimeException("database unavailable"));
+        when(mockGatewayAccountDao.isATelephonePaymentNotificationAccount("MERCHANTCODE")).thenReturn(true);
+
+        assertThat(cache.isATelephonePaymentNotificationAccount("MERCHANTCODE"), is(true));
+    }
+}
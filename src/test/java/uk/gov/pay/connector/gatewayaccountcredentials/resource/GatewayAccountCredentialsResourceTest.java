@@ -14,9 +14,11 @@ import uk.gov.pay.connector.gateway.worldpay.WorldpayCredentialsValidationServic
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.WorldpayValidatableCredentials;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
+import uk.gov.pay.connector.gatewayaccount.service.TelephonePaymentNotificationAccountCache;
 import uk.gov.pay.connector.gatewayaccount.service.Worldpay3dsFlexCredentialsService;
 import uk.gov.pay.connector.gatewayaccountcredentials.dao.GatewayAccountCredentialsDao;
 import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
+import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsLookupCache;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
 
 import javax.ws.rs.client.Entity;
@@ -52,7 +54,8 @@ public class GatewayAccountCredentialsResourceTest {
     public static ResourceExtension resources = ResourceExtension.builder()
             .addResource(new GatewayAccountCredentialsResource(
                     gatewayAccountService,
-                    new GatewayAccountCredentialsService(credentialDao, new ObjectMapper()),
+                    new GatewayAccountCredentialsService(credentialDao, new ObjectMapper(), mock(TelephonePaymentNotificationAccountCache.class),
+                            new GatewayAccountCredentialsLookupCache()),
                     worldpay3dsFlexCredentialsService,
                     worldpay3dsFlexCredentialsValidationService,
                     worldpayCredentialsValidationService,
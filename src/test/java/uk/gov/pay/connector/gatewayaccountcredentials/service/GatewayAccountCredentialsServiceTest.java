@@ -18,6 +18,7 @@ import uk.gov.pay.connector.gatewayaccount.exception.GatewayAccountCredentialsNo
 import uk.gov.pay.connector.gatewayaccount.exception.GatewayAccountNotFoundException;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.StripeCredentials;
+import uk.gov.pay.connector.gatewayaccount.service.TelephonePaymentNotificationAccountCache;
 import uk.gov.pay.connector.gatewayaccountcredentials.dao.GatewayAccountCredentialsDao;
 import uk.gov.pay.connector.gatewayaccountcredentials.exception.CredentialsNotFoundBadRequestException;
 import uk.gov.pay.connector.gatewayaccountcredentials.exception.NoCredentialsInUsableStateException;
@@ -74,6 +75,9 @@ public class GatewayAccountCredentialsServiceTest {
     @Mock
     GatewayAccountCredentialsDao mockGatewayAccountCredentialsDao;
 
+    @Mock
+    TelephonePaymentNotificationAccountCache mockTelephonePaymentNotificationAccountCache;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     public static final Map<String, Object> WORLDPAY_ONE_OFF_CREDENTIALS = Map.of(ONE_OFF_CUSTOMER_INITIATED, Map.of(CREDENTIALS_MERCHANT_CODE, "some-merchant-code"));
@@ -82,7 +86,8 @@ public class GatewayAccountCredentialsServiceTest {
 
     @BeforeEach
     void setup() {
-        gatewayAccountCredentialsService = new GatewayAccountCredentialsService(mockGatewayAccountCredentialsDao, objectMapper);
+        gatewayAccountCredentialsService = new GatewayAccountCredentialsService(mockGatewayAccountCredentialsDao, objectMapper,
+                mockTelephonePaymentNotificationAccountCache, new GatewayAccountCredentialsLookupCache());
     }
 
     @Nested
@@ -252,6 +257,7 @@ public class GatewayAccountCredentialsServiceTest {
             gatewayAccountCredentialsService.updateGatewayAccountCredentials(credentialsEntity, patchRequests);
 
             verify(mockGatewayAccountCredentialsDao, times(2)).merge(credentialsEntity);
+            verify(mockTelephonePaymentNotificationAccountCache).invalidate();
             Map<String, Object> oneOffCustomerInitiated = (Map<String, Object>) credentialsEntity.getCredentials().get("one_off_customer_initiated");
             assertThat(oneOffCustomerInitiated, hasEntry("merchant_code", "new-merchant-code"));
             assertThat(oneOffCustomerInitiated, hasEntry("username", "new-username"));
@@ -1045,6 +1051,57 @@ public class GatewayAccountCredentialsServiceTest {
             assertThrows(GatewayAccountCredentialsNotFoundException.class,
                     () -> gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue("stripe_account_id", "stripeAccountId"));
         }
+
+        @Test
+        void shouldLoadCredentialsByIdWhenStripeAccountHasBeenLookedUpBefore() {
+            GatewayAccountEntity gatewayAccountEntity = aGatewayAccountEntity()
+                    .withGatewayName(STRIPE.getName())
+                    .build();
+            GatewayAccountCredentialsEntity gatewayAccountCredentialsEntity = aGatewayAccountCredentialsEntity()
+                    .withGatewayAccountEntity(gatewayAccountEntity)
+                    .withCredentials(Map.of("stripe_account_id", "stripeAccountId"))
+                    .withPaymentProvider(STRIPE.getName())
+                    .build();
+            gatewayAccountCredentialsEntity.setId(12L);
+            when(mockGatewayAccountCredentialsDao.findByCredentialsKeyValue("stripe_account_id", "stripeAccountId"))
+                    .thenReturn(Optional.of(gatewayAccountCredentialsEntity));
+            when(mockGatewayAccountCredentialsDao.findById(12L)).thenReturn(Optional.of(gatewayAccountCredentialsEntity));
+
+            gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue("stripe_account_id", "stripeAccountId");
+            GatewayAccountEntity result = gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue("stripe_account_id", "stripeAccountId");
+
+            assertThat(result, is(gatewayAccountEntity));
+            verify(mockGatewayAccountCredentialsDao, times(1)).findByCredentialsKeyValue("stripe_account_id", "stripeAccountId");
+        }
+
+        @Test
+        void shouldSearchCredentialsAgainWhenCachedCredentialsNoLongerHoldStripeAccount() {
+            GatewayAccountEntity gatewayAccountEntity = aGatewayAccountEntity()
+                    .withGatewayName(STRIPE.getName())
+                    .build();
+            GatewayAccountCredentialsEntity originalCredentials = aGatewayAccountCredentialsEntity()
+                    .withGatewayAccountEntity(gatewayAccountEntity)
+                    .withCredentials(Map.of("stripe_account_id", "stripeAccountId"))
+                    .withPaymentProvider(STRIPE.getName())
+                    .build();
+            GatewayAccountCredentialsEntity changedCredentials = aGatewayAccountCredentialsEntity()
+                    .withGatewayAccountEntity(gatewayAccountEntity)
+                    .withCredentials(Map.of("stripe_account_id", "anotherStripeAccountId"))
+                    .withPaymentProvider(STRIPE.getName())
+                    .build();
+            originalCredentials.setId(12L);
+            changedCredentials.setId(12L);
+            when(mockGatewayAccountCredentialsDao.findByCredentialsKeyValue("stripe_account_id", "stripeAccountId"))
+                    .thenReturn(Optional.of(originalCredentials))
+                    .thenReturn(Optional.empty());
+            when(mockGatewayAccountCredentialsDao.findById(12L)).thenReturn(Optional.of(changedCredentials));
+
+            gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue("stripe_account_id", "stripeAccountId");
+
+            assertThrows(GatewayAccountCredentialsNotFoundException.class,
+                    () -> gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue("stripe_account_id", "stripeAccountId"));
+            verify(mockGatewayAccountCredentialsDao, times(2)).findByCredentialsKeyValue("stripe_account_id", "stripeAccountId");
+        }
     }
 
     @DisplayName("getCurrentOrActiveCredential")
@@ -7,13 +7,17 @@ import uk.gov.pay.connector.agreement.dao.AgreementDao;
 import uk.gov.pay.connector.agreement.model.AgreementEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.apache.commons.lang.math.RandomUtils.nextLong;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.TEST;
+import static uk.gov.pay.connector.util.AddAgreementParams.AddAgreementParamsBuilder.anAddAgreementParams;
+import static uk.gov.pay.connector.util.AddPaymentInstrumentParams.AddPaymentInstrumentParamsBuilder.anAddPaymentInstrumentParams;
 
 public class AgreementDaoIT extends DaoITestBase {
 
@@ -78,6 +82,37 @@ public class AgreementDaoIT extends DaoITestBase {
         assertThat(agreement.isPresent(), is(false));
     }
 
+    @Test
+    public void findWithActivePaymentInstrumentByGatewayAccountId_shouldPageThroughAgreementsWithActivePaymentInstruments() {
+        insertTestAgreementWithPaymentInstrument("agreement-1", gatewayAccount1.getId(), 101L, PaymentInstrumentStatus.ACTIVE);
+        insertTestAgreementWithPaymentInstrument("agreement-2", gatewayAccount1.getId(), 102L, PaymentInstrumentStatus.CANCELLED);
+        insertTestAgreementWithPaymentInstrument("agreement-3", gatewayAccount1.getId(), 103L, PaymentInstrumentStatus.ACTIVE);
+        insertTestAgreementWithPaymentInstrument("agreement-4", gatewayAccount2.getId(), 104L, PaymentInstrumentStatus.ACTIVE);
+
+        List<AgreementEntity> firstPage = agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(gatewayAccount1.getId(), 0, 1);
+        List<AgreementEntity> secondPage = agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(gatewayAccount1.getId(), 101L, 1);
+        List<AgreementEntity> lastPage = agreementDao.findWithActivePaymentInstrumentByGatewayAccountId(gatewayAccount1.getId(), 103L, 1);
+
+        assertThat(firstPage.size(), is(1));
+        assertThat(firstPage.get(0).getExternalId(), is("agreement-1"));
+        assertThat(secondPage.size(), is(1));
+        assertThat(secondPage.get(0).getExternalId(), is("agreement-3"));
+        assertThat(lastPage.isEmpty(), is(true));
+    }
+
+    @Test
+    public void findWithActivePaymentInstrumentByExternalIds_shouldOnlyFindGivenAgreementsWithActivePaymentInstruments() {
+        insertTestAgreementWithPaymentInstrument("agreement-1", gatewayAccount1.getId(), 101L, PaymentInstrumentStatus.ACTIVE);
+        insertTestAgreementWithPaymentInstrument("agreement-2", gatewayAccount1.getId(), 102L, PaymentInstrumentStatus.CANCELLED);
+        insertTestAgreementWithPaymentInstrument("agreement-3", gatewayAccount2.getId(), 103L, PaymentInstrumentStatus.ACTIVE);
+
+        List<AgreementEntity> agreements = agreementDao.findWithActivePaymentInstrumentByExternalIds(
+                List.of("agreement-1", "agreement-2"), 0, 10);
+
+        assertThat(agreements.size(), is(1));
+        assertThat(agreements.get(0).getExternalId(), is("agreement-1"));
+    }
+
     @After
     public void clear() {
         databaseTestHelper.truncateAllData();
@@ -94,6 +129,21 @@ public class AgreementDaoIT extends DaoITestBase {
                 .insert();
     }
 
+    private void insertTestAgreementWithPaymentInstrument(String agreementExternalId, long gatewayAccountId,
+                                                          long paymentInstrumentId, PaymentInstrumentStatus status) {
+        databaseTestHelper.addPaymentInstrument(anAddPaymentInstrumentParams()
+                .withPaymentInstrumentId(paymentInstrumentId)
+                .withAgreementExternalId(agreementExternalId)
+                .withPaymentInstrumentStatus(status)
+                .build());
+        databaseTestHelper.addAgreement(anAddAgreementParams()
+                .withAgreementId(nextLong())
+                .withExternalAgreementId(agreementExternalId)
+                .withGatewayAccountId(String.valueOf(gatewayAccountId))
+                .withPaymentInstrumentId(paymentInstrumentId)
+                .build());
+    }
+
     private DatabaseFixtures.TestAccount insertTestAccount() {
         return DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
@@ -13,6 +13,8 @@ import uk.gov.pay.connector.junit.TestContext;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -68,6 +70,17 @@ public class CardTypeDaoJpaIT {
         assertThat(cardTypeDao.findByBrand(noExistingExternalId).size(), is(0));
     }
 
+    @Test
+    public void findByIds_shouldFindCardTypes() {
+        List<CardTypeEntity> masterCards = cardTypeDao.findByBrand("master-card");
+        List<UUID> ids = masterCards.stream().map(CardTypeEntity::getId).collect(Collectors.toList());
+
+        List<CardTypeEntity> cardTypes = cardTypeDao.findByIds(ids);
+
+        assertThat(cardTypes.size(), is(2));
+        assertThat(cardTypeDao.findByIds(List.of()).size(), is(0));
+    }
+
     @Test
     public void findAllNon3ds_shouldFindCardTypes() {
 
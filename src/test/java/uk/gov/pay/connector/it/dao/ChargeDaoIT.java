@@ -10,8 +10,11 @@ import org.junit.rules.ExpectedException;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.ServicePaymentReference;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.charge.model.domain.ChargeLoggingContext;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
+import uk.gov.pay.connector.charge.model.domain.FeeType;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntity;
 import uk.gov.pay.connector.it.dao.DatabaseFixtures.TestCharge;
@@ -35,6 +38,7 @@ import static java.time.ZonedDateTime.now;
 import static junit.framework.TestCase.assertTrue;
 import static org.apache.commons.lang.math.RandomUtils.nextLong;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasProperty;
@@ -153,6 +157,31 @@ public class ChargeDaoIT extends DaoITestBase {
         assertThat(charge.get().getAuthorisationMode(), is(AuthorisationMode.MOTO_API));
     }
 
+    @Test
+    public void findLoggingContextByExternalId_shouldReturnOnlyTheFieldsAddedToTheLoggingContext() {
+        ChargeEntity chargeEntity = aValidChargeEntity()
+                .withId(null)
+                .withGatewayAccountEntity(gatewayAccount)
+                .withGatewayAccountCredentialsEntity(gatewayAccountCredentialsEntity)
+                .withAuthorisationMode(AuthorisationMode.MOTO_API)
+                .build();
+        chargeDao.persist(chargeEntity);
+
+        ChargeLoggingContext loggingContext = chargeDao.findLoggingContextByExternalId(chargeEntity.getExternalId()).get();
+
+        assertThat(loggingContext.getExternalId(), is(chargeEntity.getExternalId()));
+        assertThat(loggingContext.getPaymentProvider(), is(chargeEntity.getPaymentProvider()));
+        assertThat(loggingContext.getAuthorisationMode(), is(AuthorisationMode.MOTO_API));
+        assertThat(loggingContext.getAgreementExternalId().isPresent(), is(false));
+        assertThat(loggingContext.getGatewayAccountId(), is(gatewayAccount.getId()));
+        assertThat(loggingContext.getGatewayAccountType(), is(TEST));
+    }
+
+    @Test
+    public void findLoggingContextByExternalId_shouldReturnEmptyForANonexistentCharge() {
+        assertThat(chargeDao.findLoggingContextByExternalId("nonexistent").isPresent(), is(false));
+    }
+
     @Test
     public void shouldCreateANewChargeWith3dsDetails() {
         String paRequest = "3dsPaRequest";
@@ -851,7 +880,7 @@ public class ChargeDaoIT extends DaoITestBase {
     }
 
     @Test
-    public void findChargeToExpunge_shouldReturnChargeReadyForExpunging() {
+    public void claimChargesToExpunge_shouldReturnChargeReadyForExpunging() {
         TestCharge chargeToExpunge = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
                 .aTestCharge()
@@ -878,17 +907,17 @@ public class ChargeDaoIT extends DaoITestBase {
                 .withParityCheckDate(now(ZoneId.of("UTC")).minusDays(1))
                 .insert();
 
-        Optional<ChargeEntity> maybeChargeToExpunge = chargeDao.findChargeToExpunge(5, 7);
+        List<ChargeEntity> chargesToExpunge = chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 10, Duration.ofHours(1));
 
-        assertThat(maybeChargeToExpunge.isPresent(), is(true));
-        ChargeEntity chargeToExpungeFromDB = maybeChargeToExpunge.get();
+        assertThat(chargesToExpunge, hasSize(1));
+        ChargeEntity chargeToExpungeFromDB = chargesToExpunge.get(0);
         assertThat(chargeToExpungeFromDB.getId(), is(chargeToExpunge.getChargeId()));
         assertThat(chargeToExpungeFromDB.getExternalId(), is(chargeToExpunge.getExternalChargeId()));
         assertThat(chargeToExpungeFromDB.getCreatedDate(), is(chargeToExpunge.getCreatedDate()));
     }
 
     @Test
-    public void findChargeToExpunge_shouldReturnParityCheckedChargeIfFallsWithinExcludeChargesParityCheckedWithinDaysParameter() {
+    public void claimChargesToExpunge_shouldReturnParityCheckedChargeIfFallsWithinExcludeChargesParityCheckedWithinDaysParameter() {
         TestCharge chargeToExpunge = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
                 .aTestCharge()
@@ -898,15 +927,101 @@ public class ChargeDaoIT extends DaoITestBase {
                 .withParityCheckStatus(ParityCheckStatus.MISSING_IN_LEDGER)
                 .insert();
 
-        Optional<ChargeEntity> maybeChargeToExpunge = chargeDao.findChargeToExpunge(5, 0);
+        List<ChargeEntity> chargesToExpunge = chargeDao.claimChargesToExpunge(5, 0, KeysetCursor.start(), 10, Duration.ofHours(1));
 
-        assertThat(maybeChargeToExpunge.isPresent(), is(true));
-        ChargeEntity chargeToExpungeFromDB = maybeChargeToExpunge.get();
+        assertThat(chargesToExpunge, hasSize(1));
+        ChargeEntity chargeToExpungeFromDB = chargesToExpunge.get(0);
         assertThat(chargeToExpungeFromDB.getId(), is(chargeToExpunge.getChargeId()));
         assertThat(chargeToExpungeFromDB.getExternalId(), is(chargeToExpunge.getExternalChargeId()));
         assertThat(chargeToExpungeFromDB.getCreatedDate(), is(chargeToExpunge.getCreatedDate()));
     }
 
+    @Test
+    public void claimChargesToExpunge_shouldReturnChargesAfterCursorInCreatedDateOrder() {
+        Instant createdDate = Instant.now().minus(Duration.ofDays(90));
+        TestCharge oldestCharge = insertChargeCreatedAt(createdDate.minus(Duration.ofDays(1)));
+        TestCharge middleCharge = insertChargeCreatedAt(createdDate);
+        TestCharge newestCharge = insertChargeCreatedAt(createdDate.plus(Duration.ofDays(1)));
+
+        List<ChargeEntity> firstBatch = chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 2, Duration.ofHours(1));
+        ChargeEntity lastOfFirstBatch = firstBatch.get(firstBatch.size() - 1);
+        List<ChargeEntity> secondBatch = chargeDao.claimChargesToExpunge(5, 7,
+                KeysetCursor.after(lastOfFirstBatch.getCreatedDate(), lastOfFirstBatch.getId()), 2, Duration.ofHours(1));
+
+        assertThat(firstBatch, contains(hasProperty("id", is(oldestCharge.getChargeId())), hasProperty("id", is(middleCharge.getChargeId()))));
+        assertThat(secondBatch, contains(hasProperty("id", is(newestCharge.getChargeId()))));
+    }
+
+    @Test
+    public void claimChargesToExpunge_shouldNotReturnChargesClaimedByAnotherExpunger() {
+        TestCharge charge = insertChargeCreatedAt(Instant.now().minus(Duration.ofDays(90)));
+
+        List<ChargeEntity> claimedByFirstExpunger = chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 10, Duration.ofHours(1));
+        List<ChargeEntity> claimedBySecondExpunger = chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 10, Duration.ofHours(1));
+
+        assertThat(claimedByFirstExpunger, contains(hasProperty("id", is(charge.getChargeId()))));
+        assertThat(claimedBySecondExpunger, hasSize(0));
+    }
+
+    @Test
+    public void claimChargesToExpunge_shouldReturnChargeAgainOnceItsClaimHasExpired() {
+        TestCharge charge = insertChargeCreatedAt(Instant.now().minus(Duration.ofDays(90)));
+
+        chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 10, Duration.ZERO);
+        List<ChargeEntity> claimedAgain = chargeDao.claimChargesToExpunge(5, 7, KeysetCursor.start(), 10, Duration.ofHours(1));
+
+        assertThat(claimedAgain, contains(hasProperty("id", is(charge.getChargeId()))));
+    }
+
+    private TestCharge insertChargeCreatedAt(Instant createdDate) {
+        return DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(createdDate)
+                .insert();
+    }
+
+    @Test
+    public void expungeCharges_shouldDeleteChargesAndTheirDependentRowsOnly() {
+        TestCharge chargeToExpunge = insertChargeWithDependentRows();
+        TestCharge otherChargeToExpunge = insertChargeWithDependentRows();
+        TestCharge chargeToKeep = insertChargeWithDependentRows();
+
+        int expunged = chargeDao.expungeCharges(List.of(chargeToExpunge.getChargeId(), otherChargeToExpunge.getChargeId()),
+                Duration.ofSeconds(2));
+
+        assertThat(expunged, is(2));
+        for (TestCharge charge : List.of(chargeToExpunge, otherChargeToExpunge)) {
+            assertThat(databaseTestHelper.containsChargeWithExternalId(charge.getExternalChargeId()), is(false));
+            assertThat(databaseTestHelper.getChargeEvents(charge.getChargeId()), hasSize(0));
+            assertThat(databaseTestHelper.containsTokenWithChargeId(charge.getChargeId()), is(false));
+            assertThat(databaseTestHelper.containsFeeWithChargeId(charge.getChargeId()), is(false));
+            assertThat(databaseTestHelper.containsEmittedEventWithExternalId(charge.getExternalChargeId()), is(false));
+        }
+        assertThat(databaseTestHelper.containsChargeWithExternalId(chargeToKeep.getExternalChargeId()), is(true));
+        assertThat(databaseTestHelper.getChargeEvents(chargeToKeep.getChargeId()), hasSize(1));
+        assertThat(databaseTestHelper.containsTokenWithChargeId(chargeToKeep.getChargeId()), is(true));
+        assertThat(databaseTestHelper.containsFeeWithChargeId(chargeToKeep.getChargeId()), is(true));
+        assertThat(databaseTestHelper.containsEmittedEventWithExternalId(chargeToKeep.getExternalChargeId()), is(true));
+    }
+
+    private TestCharge insertChargeWithDependentRows() {
+        TestCharge charge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(90)))
+                .insert();
+        databaseTestHelper.addEvent(charge.getChargeId(), CREATED.getValue());
+        databaseTestHelper.addToken(charge.getChargeId(), RandomIdGenerator.newId());
+        databaseTestHelper.addFee(RandomIdGenerator.newId(), charge.getChargeId(), 10L, 10L, now(ZoneId.of("UTC")),
+                "gateway-transaction-id", FeeType.TRANSACTION);
+        databaseTestHelper.addEmittedEvent("payment", charge.getExternalChargeId(), Instant.now(),
+                "PAYMENT_CREATED", Instant.now(), null);
+        return charge;
+    }
+
     @Test
     public void shouldFindChargesWithPaymentProviderAndStatuses() {
         DatabaseFixtures.TestAccount epdqAccount = insertTestAccountWithProvider("epdq");
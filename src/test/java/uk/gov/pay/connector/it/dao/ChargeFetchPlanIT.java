@@ -0,0 +1,166 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.google.inject.Provider;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
+import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.it.dao.StatementCountingDataSource.countingRoundTrips;
+
+public class ChargeFetchPlanIT extends DaoITestBase {
+
+    private static final int NUMBER_OF_CHARGES = 3;
+    private static final AtomicInteger roundTrips = new AtomicInteger();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+    private ChargeDao chargeDao;
+    private DatabaseFixtures.TestCharge testCharge;
+
+    @BeforeClass
+    public static void createEntityManagerFactory() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("ConnectorUnit", Map.of(
+                "javax.persistence.nonJtaDataSource", countingRoundTrips(postgres.getConnectionUrl(),
+                        postgres.getUsername(), postgres.getPassword(), roundTrips),
+                "eclipselink.logging.level", "WARNING",
+                "eclipselink.cache.shared.default", "false"));
+    }
+
+    @AfterClass
+    public static void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @Before
+    public void setUp() {
+        var fixtures = DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper);
+        var testAccount = fixtures.aTestAccount().insert();
+        databaseTestHelper.addNotificationCredentialsFor(testAccount.getAccountId(), "username", "password");
+
+        for (int i = 0; i < NUMBER_OF_CHARGES; i++) {
+            testCharge = fixtures.aTestCharge()
+                    .withTestAccount(testAccount)
+                    .withGatewayCredentialId(testAccount.getCredentials().get(0).getId())
+                    .withCreatedDate(Instant.now().minusSeconds(60))
+                    .insert();
+            fixtures.aTestChargeEvent().withTestCharge(testCharge).withChargeStatus(CREATED)
+                    .withDate(ZonedDateTime.now().minusSeconds(30)).insert();
+            fixtures.aTestChargeEvent().withTestCharge(testCharge).withChargeStatus(AUTHORISATION_SUCCESS).insert();
+            fixtures.aTestFee().withTestCharge(testCharge).insert();
+        }
+
+        entityManager = entityManagerFactory.createEntityManager();
+        Provider<EntityManager> entityManagerProvider = () -> entityManager;
+        chargeDao = new ChargeDao(entityManagerProvider);
+    }
+
+    @After
+    public void clear() {
+        entityManager.close();
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void frontendStatusPollShouldLoadTheChargeAndItsFeesInTwoStatements() {
+        int statements = statementsFor(dao -> dao.findByExternalId(testCharge.getExternalChargeId(),
+                ChargeFetchPlan.FRONTEND_STATUS).map(ChargeFetchPlanIT::touchFees).orElseThrow());
+
+        assertThat(statements, is(2));
+        assertThat(statementsWithDefaultPlan(ChargeFetchPlanIT::touchFees), greaterThan(statements));
+    }
+
+    @Test
+    public void apiResponseShouldLoadTheChargeWithItsFeesAndEventsInThreeStatements() {
+        int statements = statementsFor(dao -> dao.findByExternalIdAndGatewayAccount(testCharge.getExternalChargeId(),
+                testCharge.getTestAccount().getAccountId(), ChargeFetchPlan.API_RESPONSE)
+                .map(ChargeFetchPlanIT::touchFeesAndEvents).orElseThrow());
+
+        assertThat(statements, is(3));
+        assertThat(statementsWithDefaultPlan(ChargeFetchPlanIT::touchFeesAndEvents), greaterThan(statements));
+    }
+
+    @Test
+    public void captureShouldLoadTheChargeWithItsFeesAndEventsInThreeStatements() {
+        int statements = statementsFor(dao -> dao.findByExternalId(testCharge.getExternalChargeId(),
+                ChargeFetchPlan.CAPTURE).map(ChargeFetchPlanIT::touchFeesAndEvents).orElseThrow());
+
+        assertThat(statements, is(3));
+    }
+
+    @Test
+    public void expiryShouldLoadAllChargesAndTheirGatewayAccountsInOneStatement() {
+        int statements = statementsFor(dao -> {
+            List<ChargeEntity> charges = dao.findBeforeDateWithStatusIn(Instant.now(), List.of(CREATED));
+            assertThat(charges, hasSize(NUMBER_OF_CHARGES));
+            charges.forEach(ChargeFetchPlanIT::touchGatewayAccount);
+            return charges;
+        });
+
+        assertThat(statements, is(1));
+    }
+
+    @Test
+    public void expungeShouldClaimAndLoadTheChargesWithTheirFeesAndEventsInFourStatements() {
+        int statements = statementsFor(dao -> {
+            List<ChargeEntity> charges = dao.claimChargesToExpunge(0, 0, KeysetCursor.start(), NUMBER_OF_CHARGES, Duration.ofHours(1));
+            assertThat(charges, hasSize(NUMBER_OF_CHARGES));
+            charges.forEach(ChargeFetchPlanIT::touchFeesAndEvents);
+            return charges;
+        });
+
+        assertThat(statements, is(4));
+    }
+
+    private int statementsWithDefaultPlan(Function<ChargeEntity, ChargeEntity> touchAssociations) {
+        entityManager.clear();
+        return statementsFor(dao -> dao.findByExternalId(testCharge.getExternalChargeId())
+                .map(touchAssociations).orElseThrow());
+    }
+
+    private int statementsFor(Function<ChargeDao, Object> useCase) {
+        roundTrips.set(0);
+        useCase.apply(chargeDao);
+        return roundTrips.get();
+    }
+
+    private static ChargeEntity touchGatewayAccount(ChargeEntity charge) {
+        charge.getGatewayAccount().getNotificationCredentials();
+        charge.getGatewayAccount().getWorldpay3dsFlexCredentialsEntity();
+        charge.getGatewayAccountCredentialsEntity();
+        return charge;
+    }
+
+    private static ChargeEntity touchFees(ChargeEntity charge) {
+        touchGatewayAccount(charge).getFees().size();
+        return charge;
+    }
+
+    private static ChargeEntity touchFeesAndEvents(ChargeEntity charge) {
+        touchFees(charge).getEvents().size();
+        return charge;
+    }
+}
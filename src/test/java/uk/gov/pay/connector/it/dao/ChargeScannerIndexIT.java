@@ -0,0 +1,134 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.google.inject.Provider;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import uk.gov.pay.connector.charge.dao.ChargeDao;
+import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AWAITING_CAPTURE_REQUEST;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.EXPIRED;
+import static uk.gov.pay.connector.it.dao.StatementCountingDataSource.recordingSql;
+
+public class ChargeScannerIndexIT extends DaoITestBase {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+    private ChargeDao chargeDao;
+    private Jdbi jdbi;
+
+    @BeforeClass
+    public static void createEntityManagerFactory() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("ConnectorUnit", Map.of(
+                "javax.persistence.nonJtaDataSource", recordingSql(postgres.getConnectionUrl(),
+                        postgres.getUsername(), postgres.getPassword(), statements),
+                "eclipselink.logging.level", "WARNING",
+                "eclipselink.cache.shared.default", "false"));
+    }
+
+    @AfterClass
+    public static void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @Before
+    public void setUp() {
+        var fixtures = DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper);
+        var testAccount = fixtures.aTestAccount().insert();
+        var weekAgo = Instant.now().minus(7, DAYS);
+
+        for (ChargeStatus status : List.of(CAPTURED, EXPIRED, CREATED, ENTERING_CARD_DETAILS, AWAITING_CAPTURE_REQUEST, CAPTURE_APPROVED)) {
+            fixtures.aTestCharge()
+                    .withTestAccount(testAccount)
+                    .withGatewayCredentialId(testAccount.getCredentials().get(0).getId())
+                    .withChargeStatus(status)
+                    .withCreatedDate(weekAgo)
+                    .withUpdatedDate(weekAgo)
+                    .insert();
+        }
+
+        jdbi = Jdbi.create(postgres.getConnectionUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbi.useHandle(handle -> handle.execute("ANALYZE charges; ANALYZE charge_events"));
+
+        entityManager = entityManagerFactory.createEntityManager();
+        Provider<EntityManager> entityManagerProvider = () -> entityManager;
+        chargeDao = new ChargeDao(entityManagerProvider);
+        statements.clear();
+    }
+
+    @After
+    public void clear() {
+        entityManager.close();
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void regularExpirySweepShouldUseExpirableChargesIndex() {
+        var charges = chargeDao.findChargesByCreatedUpdatedDatesAndWithStatusIn(Instant.now().minus(1, DAYS),
+                Instant.now().minus(1, DAYS), List.of(CREATED, ENTERING_CARD_DETAILS));
+
+        assertThat(charges, hasSize(2));
+        assertThat(planForLastChargesQuery(), containsString("idx_charges_expirable_created_date"));
+    }
+
+    @Test
+    public void delayedExpirySweepShouldUseExpirableChargesIndex() {
+        var charges = chargeDao.findBeforeDateWithStatusIn(Instant.now().minus(1, DAYS), List.of(AWAITING_CAPTURE_REQUEST));
+
+        assertThat(charges, hasSize(1));
+        assertThat(planForLastChargesQuery(), containsString("idx_charges_expirable_created_date"));
+    }
+
+    @Test
+    public void countOfChargesForImmediateCaptureShouldUseCaptureIndexes() {
+        int count = chargeDao.countChargesForImmediateCapture(Duration.ofHours(1));
+
+        assertThat(count, is(1));
+        String plan = planForLastChargesQuery();
+        assertThat(plan, containsString("idx_charges_capture_approved"));
+        assertThat(plan, containsString("idx_charge_events_capture_approved_retry"));
+    }
+
+    // The fixture tables are tiny, so sequential scans are disabled to show whether the partial indexes can serve
+    // the queries exactly as JPA sent them
+    private String planForLastChargesQuery() {
+        String sql = statements.stream()
+                .filter(statement -> statement.contains("FROM charges"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        return jdbi.withHandle(handle -> {
+            handle.execute("SET enable_seqscan = off");
+            return handle.createQuery("EXPLAIN " + sql)
+                    .mapTo(String.class)
+                    .stream()
+                    .collect(Collectors.joining("\n"));
+        });
+    }
+}
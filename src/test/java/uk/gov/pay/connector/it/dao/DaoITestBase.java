@@ -43,6 +43,10 @@ abstract public class DaoITestBase {
         properties.put("eclipselink.query-results-cache", "false");
         properties.put("eclipselink.cache.shared.default", "false");
         properties.put("eclipselink.ddl-generation.output-mode", "database");
+        properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+        properties.put("eclipselink.jdbc.batch-writing.size", "100");
+        properties.put("eclipselink.jdbc.cache-statements", "true");
+        properties.put("eclipselink.jdbc.cache-statements.size", "100");
 
         JpaPersistModule jpaModule = new JpaPersistModule("ConnectorUnit");
         jpaModule.properties(properties);
@@ -0,0 +1,168 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.Environment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EntityCacheConfig;
+import uk.gov.pay.connector.common.cache.EntityCacheInvalidationListener;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentEntity;
+import uk.gov.pay.connector.paymentinstrument.model.PaymentInstrumentStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.apache.commons.lang.math.RandomUtils.nextLong;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.it.dao.StatementCountingDataSource.countingRoundTrips;
+
+public class EntityCacheIT extends DaoITestBase {
+
+    private static final long INVALIDATION_TIMEOUT_IN_MILLISECONDS = TimeUnit.SECONDS.toMillis(10);
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private EntityManagerFactory entityManagerFactory;
+    private EntityCacheInvalidationListener listener;
+
+    @Before
+    public void setUp() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("ConnectorUnit", Map.of(
+                "javax.persistence.nonJtaDataSource", countingRoundTrips(postgres.getConnectionUrl(),
+                        postgres.getUsername(), postgres.getPassword(), roundTrips),
+                "eclipselink.logging.level", "WARNING",
+                "eclipselink.cache.shared.default", "false",
+                "eclipselink.cache.shared.PaymentInstrumentEntity", "true"));
+
+        var dataSourceFactory = new DataSourceFactory();
+        dataSourceFactory.setUrl(postgres.getConnectionUrl());
+        dataSourceFactory.setUser(postgres.getUsername());
+        dataSourceFactory.setPassword(postgres.getPassword());
+        var entityCacheConfig = mock(EntityCacheConfig.class);
+        when(entityCacheConfig.getEntityCacheEnabled()).thenReturn(true);
+        when(entityCacheConfig.getExpiryInSeconds()).thenReturn(60);
+        when(entityCacheConfig.getListenerReconnectDelayInSeconds()).thenReturn(1);
+        var configuration = mock(ConnectorConfiguration.class);
+        when(configuration.getEntityCacheConfig()).thenReturn(entityCacheConfig);
+        when(configuration.getDataSourceFactory()).thenReturn(dataSourceFactory);
+        var environment = mock(Environment.class);
+        when(environment.metrics()).thenReturn(metricRegistry);
+        when(environment.lifecycle()).thenReturn(new LifecycleEnvironment(metricRegistry));
+
+        listener = new EntityCacheInvalidationListener(() -> entityManagerFactory, environment, configuration);
+        listener.start();
+        awaitListening();
+    }
+
+    @After
+    public void stopListenerAndTruncate() {
+        listener.stop();
+        entityManagerFactory.close();
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldServeRepeatedLookupsFromTheSharedCache() {
+        long paymentInstrumentId = insertPaymentInstrument();
+        find(paymentInstrumentId);
+
+        roundTrips.set(0);
+        PaymentInstrumentEntity paymentInstrument = find(paymentInstrumentId);
+
+        assertThat(paymentInstrument.getStatus(), is(PaymentInstrumentStatus.CREATED));
+        assertThat(roundTrips.get(), is(0));
+    }
+
+    @Test
+    public void shouldOnlyEvictTheChangedEntityWhenItsRowChanges() {
+        long changedPaymentInstrumentId = insertPaymentInstrument();
+        long unchangedPaymentInstrumentId = insertPaymentInstrument();
+        find(changedPaymentInstrumentId);
+        find(unchangedPaymentInstrumentId);
+
+        updateStatus(changedPaymentInstrumentId, PaymentInstrumentStatus.CANCELLED);
+
+        await(() -> !isCached(changedPaymentInstrumentId));
+        assertThat(isCached(unchangedPaymentInstrumentId), is(true));
+        assertThat(find(changedPaymentInstrumentId).getStatus(), is(PaymentInstrumentStatus.CANCELLED));
+
+        roundTrips.set(0);
+        find(unchangedPaymentInstrumentId);
+        assertThat(roundTrips.get(), is(0));
+    }
+
+    private long insertPaymentInstrument() {
+        long paymentInstrumentId = nextLong();
+        DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper)
+                .aTestPaymentInstrument()
+                .withPaymentInstrumentId(paymentInstrumentId)
+                .withStatus(PaymentInstrumentStatus.CREATED)
+                .insert();
+        return paymentInstrumentId;
+    }
+
+    private PaymentInstrumentEntity find(long paymentInstrumentId) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(PaymentInstrumentEntity.class, paymentInstrumentId);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private boolean isCached(long paymentInstrumentId) {
+        return entityManagerFactory.getCache().contains(PaymentInstrumentEntity.class, paymentInstrumentId);
+    }
+
+    private void updateStatus(long paymentInstrumentId, PaymentInstrumentStatus status) {
+        try (Connection connection = DriverManager.getConnection(postgres.getConnectionUrl(), postgres.getUsername(), postgres.getPassword());
+             PreparedStatement statement = connection.prepareStatement("UPDATE payment_instruments SET status = ? WHERE id = ?")) {
+            statement.setString(1, status.name());
+            statement.setLong(2, paymentInstrumentId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // The listener evicts everything when it connects, so wait until it has handled a notification before caching
+    private void awaitListening() {
+        long paymentInstrumentId = insertPaymentInstrument();
+        await(() -> {
+            updateStatus(paymentInstrumentId, PaymentInstrumentStatus.CREATED);
+            return metricRegistry.counter("entity-cache.invalidations").getCount() > 0;
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + INVALIDATION_TIMEOUT_IN_MILLISECONDS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for the entity cache to be invalidated");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted waiting for the entity cache to be invalidated");
+            }
+        }
+    }
+}
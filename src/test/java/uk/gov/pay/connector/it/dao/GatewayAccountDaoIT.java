@@ -17,6 +17,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.apache.commons.lang.math.RandomUtils.nextLong;
 import static org.hamcrest.CoreMatchers.allOf;
@@ -146,6 +147,14 @@ public class GatewayAccountDaoIT extends DaoITestBase {
         assertThat(gatewayAccount.isAllowTelephonePaymentNotifications(), is(accountRecord.isAllowTelephonePaymentNotifications()));
     }
 
+    @Test
+    public void findTypeById_shouldFindGatewayAccountType() {
+        DatabaseFixtures.TestAccount accountRecord = createAccountRecordWithCards();
+
+        assertThat(gatewayAccountDao.findTypeById(accountRecord.getAccountId()), is(Optional.of(TEST)));
+        assertThat(gatewayAccountDao.findTypeById(1234L).isPresent(), is(false));
+    }
+
     @Test
     public void findById_shouldFindGatewayAccountWithCorporateSurcharges() {
         DatabaseFixtures.TestAccount accountRecord = createAccountRecordWithCorporateSurcharges();
@@ -605,6 +614,37 @@ public class GatewayAccountDaoIT extends DaoITestBase {
         assertThat(result, is(false));
     }
 
+    @Test
+    public void findTelephonePaymentNotificationMerchantCodes_shouldOnlyReturnMerchantCodesForAccountsWithTelephonePaymentNotificationsEnabled() {
+        long telephoneAccountId = nextLong();
+        long otherAccountId = nextLong();
+
+        databaseFixtures.aTestAccount()
+                .withAccountId(telephoneAccountId)
+                .withExternalId(randomUuid())
+                .withAllowTelephonePaymentNotifications(true)
+                .insert();
+        databaseFixtures.aTestAccount()
+                .withAccountId(otherAccountId)
+                .withExternalId(randomUuid())
+                .withAllowTelephonePaymentNotifications(false)
+                .insert();
+
+        gatewayAccountCredentialsDao.persist(aGatewayAccountCredentialsEntity()
+                .withGatewayAccountEntity(gatewayAccountDao.findById(telephoneAccountId).get())
+                .withPaymentProvider("test provider")
+                .withCredentials(Map.of(CREDENTIALS_MERCHANT_ID, "telephone-merchant-id"))
+                .build());
+        gatewayAccountCredentialsDao.persist(aGatewayAccountCredentialsEntity()
+                .withGatewayAccountEntity(gatewayAccountDao.findById(otherAccountId).get())
+                .withPaymentProvider("test provider")
+                .withCredentials(Map.of(CREDENTIALS_MERCHANT_ID, "other-merchant-id"))
+                .build());
+
+        Set<String> result = gatewayAccountDao.findTelephonePaymentNotificationMerchantCodes();
+        assertThat(result, containsInAnyOrder("telephone-merchant-id"));
+    }
+
     private DatabaseFixtures.TestAccount createAccountRecordWithCards(CardTypeEntity... cardTypes) {
         return databaseFixtures
                 .aTestAccount()
@@ -0,0 +1,58 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Test;
+import uk.gov.pay.connector.events.EmittedEventEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static uk.gov.pay.connector.it.dao.StatementCountingDataSource.countingRoundTrips;
+import static uk.gov.pay.connector.util.RandomIdGenerator.randomUuid;
+
+public class JdbcBatchWritingIT extends DaoITestBase {
+
+    private static final int NUMBER_OF_EVENTS = 20;
+
+    @Test
+    public void batchWritingShouldReduceDatabaseRoundTripsWhenPersistingSeveralEntities() {
+        int unbatchedRoundTrips = roundTripsToPersistEmittedEvents("None");
+        int batchedRoundTrips = roundTripsToPersistEmittedEvents("JDBC");
+
+        // One insert per event plus the sequence preallocation
+        assertThat(unbatchedRoundTrips, greaterThanOrEqualTo(NUMBER_OF_EVENTS));
+        // A single batch of inserts plus the sequence preallocation
+        assertThat(batchedRoundTrips, lessThanOrEqualTo(2));
+    }
+
+    private int roundTripsToPersistEmittedEvents(String batchWriting) {
+        var roundTrips = new AtomicInteger();
+        EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("ConnectorUnit", Map.of(
+                "javax.persistence.nonJtaDataSource", countingRoundTrips(postgres.getConnectionUrl(),
+                        postgres.getUsername(), postgres.getPassword(), roundTrips),
+                "eclipselink.logging.level", "WARNING",
+                "eclipselink.cache.shared.default", "false",
+                "eclipselink.jdbc.batch-writing", batchWriting,
+                "eclipselink.jdbc.batch-writing.size", "100"));
+        try {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            entityManager.getTransaction().begin();
+            roundTrips.set(0);
+            for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+                entityManager.persist(new EmittedEventEntity("payment", randomUuid(), "PAYMENT_CREATED",
+                        Instant.now(), Instant.now(), null));
+            }
+            entityManager.getTransaction().commit();
+            entityManager.close();
+            return roundTrips.get();
+        } finally {
+            entityManagerFactory.close();
+        }
+    }
+}
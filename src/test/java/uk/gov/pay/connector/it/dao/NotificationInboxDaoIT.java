@@ -0,0 +1,71 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+import uk.gov.pay.connector.webhook.model.NotificationInboxEntity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class NotificationInboxDaoIT extends DaoITestBase {
+
+    private NotificationInboxDao dao;
+
+    @Before
+    public void setUp() {
+        dao = env.getInstance(NotificationInboxDao.class);
+    }
+
+    @After
+    public void clear() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldNotInsertDuplicateNotification() {
+        assertThat(dao.insertIfAbsent("stripe", "evt_1", "pi_1", "{}"), is(true));
+        assertThat(dao.insertIfAbsent("stripe", "evt_1", "pi_1", "{}"), is(false));
+
+        assertThat(dao.countPending(), is(1L));
+    }
+
+    @Test
+    public void shouldOnlyClaimOldestPendingNotificationForEachOrderingKey() {
+        dao.insertIfAbsent("worldpay", "hash-1", "order-1", "<first/>");
+        dao.insertIfAbsent("worldpay", "hash-2", "order-1", "<second/>");
+        dao.insertIfAbsent("worldpay", "hash-3", "order-2", "<third/>");
+
+        List<NotificationInboxEntity> claimed = dao.claimNextBatch(10, Instant.now().plusSeconds(300));
+
+        assertThat(claimed.stream().map(NotificationInboxEntity::getNotificationId).toArray(),
+                is(new Object[]{"hash-1", "hash-3"}));
+        assertThat(dao.claimNextBatch(10, Instant.now().plusSeconds(300)), is(empty()));
+
+        dao.markAsProcessed(claimed.get(0).getId(), Instant.now());
+
+        List<NotificationInboxEntity> claimedAfterProcessing = dao.claimNextBatch(10, Instant.now().plusSeconds(300));
+        assertThat(claimedAfterProcessing.stream().map(NotificationInboxEntity::getNotificationId).toArray(),
+                is(new Object[]{"hash-2"}));
+    }
+
+    @Test
+    public void shouldDeleteOnlyProcessedAndFailedNotificationsBeforeGivenDate() {
+        dao.insertIfAbsent("stripe", "evt_1", "pi_1", "{}");
+        dao.insertIfAbsent("stripe", "evt_2", "pi_2", "{}");
+        dao.insertIfAbsent("stripe", "evt_3", "pi_3", "{}");
+        List<NotificationInboxEntity> claimed = dao.claimNextBatch(10, Instant.now().plusSeconds(300));
+        dao.markAsProcessed(claimed.get(0).getId(), Instant.now());
+        dao.markAsFailed(claimed.get(1).getId(), Instant.now());
+
+        assertThat(dao.deleteProcessedBefore(Instant.now().minus(1, ChronoUnit.DAYS)), is(0));
+        assertThat(dao.deleteProcessedBefore(Instant.now().plus(1, ChronoUnit.DAYS)), is(2));
+        assertThat(dao.countPending(), is(1L));
+    }
+}
@@ -0,0 +1,124 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.expunge.dao.PartitionDao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static uk.gov.pay.connector.expunge.dao.PartitionedTable.CHARGE_EVENTS;
+import static uk.gov.pay.connector.expunge.dao.PartitionedTable.EMITTED_EVENTS;
+
+public class PartitionDaoIT extends DaoITestBase {
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(2);
+
+    private PartitionDao partitionDao;
+    private DatabaseFixtures.TestCharge testCharge;
+
+    @Before
+    public void setUp() {
+        partitionDao = env.getInstance(PartitionDao.class);
+        DatabaseFixtures.TestAccount testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+        testCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(testAccount)
+                .insert();
+    }
+
+    @After
+    public void truncate() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void findMonthlyPartitions_shouldFindThePartitionsCreatedByTheMigrationInOrder() {
+        List<YearMonth> chargeEventPartitions = partitionDao.findMonthlyPartitions(CHARGE_EVENTS);
+        List<YearMonth> emittedEventPartitions = partitionDao.findMonthlyPartitions(EMITTED_EVENTS);
+
+        assertThat(chargeEventPartitions, hasSize(3));
+        assertThat(chargeEventPartitions.get(1), is(chargeEventPartitions.get(0).plusMonths(1)));
+        assertThat(chargeEventPartitions.get(2), is(chargeEventPartitions.get(1).plusMonths(1)));
+        assertThat(emittedEventPartitions, is(chargeEventPartitions));
+    }
+
+    @Test
+    public void shouldCreateAndDropAnEmptyPartition() {
+        List<YearMonth> partitions = partitionDao.findMonthlyPartitions(CHARGE_EVENTS);
+        YearMonth nextMonth = partitions.get(partitions.size() - 1).plusMonths(1);
+
+        assertThat(partitionDao.createMonthlyPartition(CHARGE_EVENTS, nextMonth, LOCK_TIMEOUT), is(0));
+        assertThat(partitionDao.findMonthlyPartitions(CHARGE_EVENTS), hasItem(nextMonth));
+
+        assertThat(partitionDao.dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, nextMonth, LOCK_TIMEOUT), is(true));
+        assertThat(partitionDao.findMonthlyPartitions(CHARGE_EVENTS), not(hasItem(nextMonth)));
+    }
+
+    @Test
+    public void dropMonthlyPartitionIfEmpty_shouldKeepAPartitionThatStillHasRows() {
+        YearMonth firstPartition = partitionDao.findMonthlyPartitions(CHARGE_EVENTS).get(0);
+        databaseTestHelper.addEvent(testCharge.getChargeId(), "CREATED",
+                firstPartition.atDay(1).atStartOfDay(ZoneOffset.UTC));
+
+        assertThat(partitionDao.dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, firstPartition, LOCK_TIMEOUT), is(false));
+        assertThat(partitionDao.findMonthlyPartitions(CHARGE_EVENTS), hasItem(firstPartition));
+        assertThat(databaseTestHelper.getChargeEvents(testCharge.getChargeId()), hasSize(1));
+    }
+
+    @Test
+    public void dropMonthlyPartitionIfEmpty_shouldNotWaitForTheTableLockForAPartitionThatStillHasRows() throws SQLException {
+        YearMonth firstPartition = partitionDao.findMonthlyPartitions(CHARGE_EVENTS).get(0);
+        databaseTestHelper.addEvent(testCharge.getChargeId(), "CREATED",
+                firstPartition.atDay(1).atStartOfDay(ZoneOffset.UTC));
+
+        try (Connection connection = DriverManager.getConnection(postgres.getConnectionUrl(), postgres.getUsername(), postgres.getPassword());
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("LOCK TABLE charge_events IN ACCESS SHARE MODE");
+
+            assertThat(partitionDao.dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, firstPartition, LOCK_TIMEOUT), is(false));
+
+            connection.rollback();
+        }
+    }
+
+    @Test
+    public void createMonthlyPartition_shouldMoveRowsForTheMonthOutOfTheDefaultPartition() {
+        List<YearMonth> partitions = partitionDao.findMonthlyPartitions(CHARGE_EVENTS);
+        YearMonth nextMonth = partitions.get(partitions.size() - 1).plusMonths(1);
+        databaseTestHelper.addEvent(testCharge.getChargeId(), "CREATED",
+                nextMonth.atDay(1).atStartOfDay(ZoneOffset.UTC));
+
+        assertThat(partitionDao.createMonthlyPartition(CHARGE_EVENTS, nextMonth, LOCK_TIMEOUT), is(1));
+        assertThat(partitionDao.createMonthlyPartition(CHARGE_EVENTS, nextMonth, LOCK_TIMEOUT), is(0));
+        assertThat(databaseTestHelper.getChargeEvents(testCharge.getChargeId()), hasSize(1));
+        assertThat(partitionDao.dropMonthlyPartitionIfEmpty(CHARGE_EVENTS, nextMonth, LOCK_TIMEOUT), is(false));
+    }
+
+    @Test
+    public void shouldFindTheUpperBoundOfTheLegacyPartitionAndDropItOnceEmpty() {
+        YearMonth firstPartition = partitionDao.findMonthlyPartitions(CHARGE_EVENTS).get(0);
+
+        assertThat(partitionDao.findLegacyPartitionUpperBound(CHARGE_EVENTS), is(Optional.of(firstPartition.atDay(1))));
+        assertThat(partitionDao.dropLegacyPartitionIfEmpty(CHARGE_EVENTS, LOCK_TIMEOUT), is(true));
+        assertThat(partitionDao.findLegacyPartitionUpperBound(CHARGE_EVENTS), is(Optional.empty()));
+    }
+}
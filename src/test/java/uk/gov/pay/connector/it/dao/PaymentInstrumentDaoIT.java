@@ -70,6 +70,19 @@ public class PaymentInstrumentDaoIT extends DaoITestBase {
         assertThat(returnedPaymentInstrumentExternalIds, containsInAnyOrder("payment-instrument-1", "payment-instrument-2"));
     }
 
+    @Test
+    public void updateStatus_shouldUpdateOnlyGivenPaymentInstruments() {
+        insertTestPaymentInstrument(PAYMENT_INSTRUMENT_EXTERNAL_ID_ONE);
+        insertTestPaymentInstrument(PAYMENT_INSTRUMENT_EXTERNAL_ID_TWO);
+        Long paymentInstrumentId = paymentInstrumentDao.findByExternalId(PAYMENT_INSTRUMENT_EXTERNAL_ID_ONE).get().getId();
+
+        int updated = paymentInstrumentDao.updateStatus(List.of(paymentInstrumentId), PaymentInstrumentStatus.CANCELLED);
+
+        assertThat(updated, is(1));
+        assertThat(paymentInstrumentDao.findByExternalId(PAYMENT_INSTRUMENT_EXTERNAL_ID_ONE).get().getStatus(), is(PaymentInstrumentStatus.CANCELLED));
+        assertThat(paymentInstrumentDao.findByExternalId(PAYMENT_INSTRUMENT_EXTERNAL_ID_TWO).get().getStatus(), is(PaymentInstrumentStatus.CREATED));
+    }
+
     @After
     public void clear() {
         databaseTestHelper.truncateAllData();
@@ -0,0 +1,51 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.payout.dao.PayoutReconcileCheckpointDao;
+import uk.gov.pay.connector.payout.model.PayoutReconcileCheckpointEntity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PayoutReconcileCheckpointDaoIT extends DaoITestBase {
+
+    private PayoutReconcileCheckpointDao dao;
+
+    @Before
+    public void setUp() {
+        dao = env.getInstance(PayoutReconcileCheckpointDao.class);
+    }
+
+    @After
+    public void clear() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldReturnEmptyWhenNoProgressHasBeenSaved() {
+        assertThat(dao.findByGatewayPayoutId("po_unknown").isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldOverwriteProgressForTheSamePayout() {
+        dao.saveProgress("po_1", "acct_1", "txn_1", 1, 0);
+        dao.saveProgress("po_1", "acct_1", "txn_2", 1, 1);
+
+        PayoutReconcileCheckpointEntity checkpoint = dao.findByGatewayPayoutId("po_1").get();
+        assertThat(checkpoint.getLastBalanceTransactionId(), is("txn_2"));
+        assertThat(checkpoint.getPayments(), is(1));
+        assertThat(checkpoint.getTransfers(), is(1));
+        assertThat(checkpoint.isCompleted(), is(false));
+    }
+
+    @Test
+    public void shouldMarkPayoutAsCompleted() {
+        dao.saveProgress("po_1", "acct_1", "txn_1", 1, 0);
+
+        dao.markAsCompleted("po_1");
+
+        assertThat(dao.findByGatewayPayoutId("po_1").get().isCompleted(), is(true));
+    }
+}
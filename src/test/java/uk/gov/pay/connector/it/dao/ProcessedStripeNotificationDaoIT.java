@@ -0,0 +1,48 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.webhook.dao.ProcessedStripeNotificationDao;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ProcessedStripeNotificationDaoIT extends DaoITestBase {
+
+    private ProcessedStripeNotificationDao dao;
+
+    @Before
+    public void setUp() {
+        dao = env.getInstance(ProcessedStripeNotificationDao.class);
+    }
+
+    @After
+    public void clear() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldFindOnlyNotificationsThatHaveBeenProcessed() {
+        dao.markAsProcessed(Set.of("evt_1", "evt_2"));
+        dao.markAsProcessed(Set.of("evt_2"));
+
+        assertThat(dao.findProcessed(List.of("evt_1", "evt_2", "evt_3")), is(Set.of("evt_1", "evt_2")));
+        assertThat(dao.findProcessed(List.of()), is(empty()));
+    }
+
+    @Test
+    public void shouldDeleteNotificationsProcessedBeforeGivenDate() {
+        dao.markAsProcessed(Set.of("evt_1"));
+
+        assertThat(dao.deleteProcessedBefore(Instant.now().minus(1, ChronoUnit.DAYS)), is(0));
+        assertThat(dao.deleteProcessedBefore(Instant.now().plus(1, ChronoUnit.DAYS)), is(1));
+        assertThat(dao.findProcessed(List.of("evt_1")), is(empty()));
+    }
+}
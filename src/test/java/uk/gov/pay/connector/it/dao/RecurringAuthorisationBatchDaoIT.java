@@ -0,0 +1,67 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.paymentprocessor.dao.RecurringAuthorisationBatchDao;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchProgress;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.FAILED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.SUCCEEDED;
+
+public class RecurringAuthorisationBatchDaoIT extends DaoITestBase {
+
+    private RecurringAuthorisationBatchDao dao;
+
+    @Before
+    public void setUp() {
+        dao = env.getInstance(RecurringAuthorisationBatchDao.class);
+    }
+
+    @After
+    public void clear() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldCountChargesOfBatchByOutcome() {
+        long batchId = dao.create(1L);
+        dao.addCharge(batchId, "charge-1");
+        dao.addCharge(batchId, "charge-2");
+        dao.addCharge(batchId, "charge-3");
+        dao.recordNotCreated(batchId, 2);
+
+        dao.recordOutcome("charge-1", SUCCEEDED);
+        dao.recordOutcome("charge-2", FAILED);
+        dao.recordOutcome("charge-2", SUCCEEDED);
+        dao.recordOutcome("charge-not-in-a-batch", SUCCEEDED);
+
+        RecurringAuthorisationBatchProgress progress = dao.findProgress(1L, batchId).get();
+        assertThat(progress.getSubmitted(), is(5L));
+        assertThat(progress.getQueued(), is(1L));
+        assertThat(progress.getSucceeded(), is(1L));
+        assertThat(progress.getFailed(), is(3L));
+    }
+
+    @Test
+    public void shouldNotFindBatchOfAnotherGatewayAccount() {
+        long batchId = dao.create(1L);
+
+        assertThat(dao.findProgress(2L, batchId).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldDeleteBatchesCreatedBeforeGivenDate() {
+        long batchId = dao.create(1L);
+        dao.addCharge(batchId, "charge-1");
+
+        assertThat(dao.deleteCreatedBefore(Instant.now().minus(1, ChronoUnit.DAYS)), is(0));
+        assertThat(dao.deleteCreatedBefore(Instant.now().plus(1, ChronoUnit.DAYS)), is(1));
+        assertThat(dao.findProgress(1L, batchId).isPresent(), is(false));
+    }
+}
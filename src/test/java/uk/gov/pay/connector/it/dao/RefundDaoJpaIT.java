@@ -6,11 +6,13 @@ import org.junit.Before;
 import org.junit.Test;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
+import uk.gov.pay.connector.common.dao.KeysetCursor;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
 import uk.gov.pay.connector.refund.dao.RefundDao;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.model.domain.RefundHistory;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -322,7 +324,7 @@ public class RefundDaoJpaIT extends DaoITestBase {
     }
 
     @Test
-    public void findRefundToExpunge_shouldReturnRefundReadyForExpunging() {
+    public void claimRefundsToExpunge_shouldReturnRefundReadyForExpunging() {
         String chargeExternalId = randomAlphanumeric(26);
         RefundEntity refundToExpunge = new RefundEntity(100L, userExternalId, userEmail, chargeExternalId);
         refundToExpunge.setStatus(REFUNDED);
@@ -341,10 +343,10 @@ public class RefundDaoJpaIT extends DaoITestBase {
         refundParityCheckedRecentlyAndToBeExcluded.setParityCheckStatus(MISSING_IN_LEDGER);
         refundDao.persist(refundParityCheckedRecentlyAndToBeExcluded);
 
-        Optional<RefundEntity> mayBeRefundToExpunge = refundDao.findRefundToExpunge(5, 7);
+        List<RefundEntity> refundsToExpunge = refundDao.claimRefundsToExpunge(5, 7, KeysetCursor.start(), 1, Duration.ofHours(1));
 
-        assertThat(mayBeRefundToExpunge.isPresent(), Matchers.is(true));
-        RefundEntity refundEntity = mayBeRefundToExpunge.get();
+        assertThat(refundsToExpunge.size(), Matchers.is(1));
+        RefundEntity refundEntity = refundsToExpunge.get(0);
         assertThat(refundEntity.getId(), Matchers.is(refundToExpunge.getId()));
         assertThat(refundEntity.getExternalId(), Matchers.is(refundToExpunge.getExternalId()));
 
@@ -352,7 +354,7 @@ public class RefundDaoJpaIT extends DaoITestBase {
     }
 
     @Test
-    public void findRefundToExpunge_shouldReturnParityCheckedRefundIfEligible() {
+    public void claimRefundsToExpunge_shouldReturnParityCheckedRefundIfEligible() {
         String chargeExternalId = randomAlphanumeric(26);
         RefundEntity refundParityCheckedRecentlyAndNotEligibleForExpunging = new RefundEntity(100L, userExternalId, userEmail, chargeExternalId);
         refundParityCheckedRecentlyAndNotEligibleForExpunging.setStatus(REFUNDED);
@@ -368,16 +370,34 @@ public class RefundDaoJpaIT extends DaoITestBase {
         refundParityCheckedPreviouslyAndIsNowEligibleForExpunging.setParityCheckStatus(MISSING_IN_LEDGER);
         refundDao.persist(refundParityCheckedPreviouslyAndIsNowEligibleForExpunging);
 
-        Optional<RefundEntity> mayBeRefundToExpunge = refundDao.findRefundToExpunge(5, 7);
+        List<RefundEntity> refundsToExpunge = refundDao.claimRefundsToExpunge(5, 7, KeysetCursor.start(), 1, Duration.ofHours(1));
 
-        assertThat(mayBeRefundToExpunge.isPresent(), Matchers.is(true));
-        RefundEntity refundEntity = mayBeRefundToExpunge.get();
+        assertThat(refundsToExpunge.size(), Matchers.is(1));
+        RefundEntity refundEntity = refundsToExpunge.get(0);
         assertThat(refundEntity.getId(), Matchers.is(refundParityCheckedPreviouslyAndIsNowEligibleForExpunging.getId()));
         assertThat(refundEntity.getExternalId(), Matchers.is(refundParityCheckedPreviouslyAndIsNowEligibleForExpunging.getExternalId()));
 
         refundDao.expungeRefund(refundEntity.getExternalId());
     }
 
+    @Test
+    public void claimRefundsToExpunge_shouldNotReturnRefundsClaimedByAnotherExpunger() {
+        RefundEntity refundToExpunge = new RefundEntity(100L, userExternalId, userEmail, randomAlphanumeric(26));
+        refundToExpunge.setStatus(REFUNDED);
+        refundToExpunge.setCreatedDate(ZonedDateTime.now(UTC).minusYears(10));
+        refundDao.persist(refundToExpunge);
+
+        List<RefundEntity> claimedByFirstExpunger = refundDao.claimRefundsToExpunge(5, 7, KeysetCursor.start(), 1, Duration.ofHours(1));
+        List<RefundEntity> claimedBySecondExpunger = refundDao.claimRefundsToExpunge(5, 7,
+                KeysetCursor.start(), 1, Duration.ofHours(1));
+
+        assertThat(claimedByFirstExpunger.get(0).getId(), Matchers.is(refundToExpunge.getId()));
+        assertThat(claimedBySecondExpunger.stream().noneMatch(refund -> refund.getId().equals(refundToExpunge.getId())),
+                Matchers.is(true));
+
+        refundDao.expungeRefund(refundToExpunge.getExternalId());
+    }
+
     @Test
     public void expungeRefund_shouldExpungeRefundRelatedRecordsCorrectly() {
         RefundEntity refundToExpunge = new RefundEntity(100L, userExternalId, userEmail, chargeTestRecord.getExternalChargeId());
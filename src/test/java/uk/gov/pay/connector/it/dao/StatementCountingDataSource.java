@@ -0,0 +1,105 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Postgres data sources that count every statement execution as a database round trip or record the SQL sent, for
+ * tests asserting how many statements JPA issues and what they look like.
+ */
+final class StatementCountingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private StatementCountingDataSource() {
+    }
+
+    static DataSource countingRoundTrips(String url, String user, String password, AtomicInteger roundTrips) {
+        var dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+
+        // Wraps connections and their statements so every statement execution is counted as a round trip
+        return proxy(DataSource.class, dataSource, connection -> connection instanceof Connection
+                ? proxy(Connection.class, connection, statement -> statement instanceof Statement
+                        ? countingStatement((Statement) statement, roundTrips)
+                        : statement)
+                : connection);
+    }
+
+    static DataSource recordingSql(String url, String user, String password, List<String> statements) {
+        var dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+
+        // Wraps connections and their statements so the SQL of every prepared or directly executed statement is recorded
+        return proxy(DataSource.class, dataSource, connection -> connection instanceof Connection
+                ? recordingSql(Connection.class, connection, statements)
+                : connection);
+    }
+
+    private static Object recordingSql(Class<?> type, Object target, List<String> statements) {
+        return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (args != null && args.length > 0 && args[0] instanceof String
+                            && (method.getName().startsWith("prepare") || EXECUTE_METHODS.contains(method.getName()))) {
+                        statements.add((String) args[0]);
+                    }
+                    Object result = invoke(target, method, args);
+                    return result instanceof Statement
+                            ? recordingSql(statementInterfaceOf((Statement) result), result, statements)
+                            : result;
+                });
+    }
+
+    private static Object countingStatement(Statement statement, AtomicInteger roundTrips) {
+        return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{statementInterfaceOf(statement)},
+                (proxy, method, args) -> {
+                    if (EXECUTE_METHODS.contains(method.getName())) {
+                        roundTrips.incrementAndGet();
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Class<?> statementInterfaceOf(Statement statement) {
+        if (statement instanceof CallableStatement) {
+            return CallableStatement.class;
+        }
+        if (statement instanceof PreparedStatement) {
+            return PreparedStatement.class;
+        }
+        return Statement.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, UnaryOperator<Object> resultWrapper) {
+        InvocationHandler handler = (proxy, method, args) -> resultWrapper.apply(invoke(target, method, args));
+        return (T) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.agreement.dao.StoredPaymentDetailsDeletionJobDao;
+import uk.gov.pay.connector.agreement.model.StoredPaymentDetailsDeletionJobEntity;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class StoredPaymentDetailsDeletionJobDaoIT extends DaoITestBase {
+
+    private static final Duration ABANDONED_AFTER = Duration.ofMinutes(15);
+
+    private StoredPaymentDetailsDeletionJobDao dao;
+
+    @Before
+    public void setUp() {
+        dao = env.getInstance(StoredPaymentDetailsDeletionJobDao.class);
+    }
+
+    @After
+    public void clear() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldStartJobAndRecordProgress() {
+        long jobId = dao.start(42L, null, ABANDONED_AFTER).get();
+
+        dao.recordBatch(jobId, 102L, 1, 1);
+        dao.recordBatch(jobId, 103L, 1, 0);
+
+        StoredPaymentDetailsDeletionJobEntity job = dao.findById(jobId).get();
+        assertThat(job.getGatewayAccountId(), is(42L));
+        assertThat(job.getAgreementCount(), is(nullValue()));
+        assertThat(job.getLastPaymentInstrumentId(), is(103L));
+        assertThat(job.getDeleted(), is(2));
+        assertThat(job.getFailed(), is(1));
+        assertThat(job.isCompleted(), is(false));
+    }
+
+    @Test
+    public void shouldNotStartJobWhileAnotherIsRunning() {
+        long runningJobId = dao.start(42L, null, ABANDONED_AFTER).get();
+
+        assertThat(dao.start(null, 3, ABANDONED_AFTER), is(Optional.empty()));
+
+        dao.markAsCompleted(runningJobId);
+        long nextJobId = dao.start(null, 3, ABANDONED_AFTER).get();
+        assertThat(dao.findLatest().get().getId(), is(nextJobId));
+        assertThat(dao.findLatest().get().getAgreementCount(), is(3));
+    }
+
+    @Test
+    public void shouldCompleteAbandonedJobWhenStartingAnother() {
+        long abandonedJobId = dao.start(42L, null, ABANDONED_AFTER).get();
+
+        long nextJobId = dao.start(42L, null, Duration.ZERO).get();
+
+        assertThat(dao.findById(abandonedJobId).get().isCompleted(), is(true));
+        assertThat(dao.findById(nextJobId).get().isCompleted(), is(false));
+    }
+}
@@ -5,6 +5,7 @@ import io.dropwizard.testing.junit5.ResourceExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.common.exception.ConstraintViolationExceptionMapper;
 import uk.gov.pay.connector.common.exception.ValidationExceptionMapper;
 import uk.gov.pay.connector.gatewayaccount.resource.GatewayAccountRequestValidator;
@@ -28,6 +29,7 @@ class GatewayAccountResourceTest {
 
     private static final GatewayAccountService gatewayAccountService = mock(GatewayAccountService.class);
     private static final CardTypeDao cardTypeDao = mock(CardTypeDao.class);
+    private static final CardTypeRegistry cardTypeRegistry = mock(CardTypeRegistry.class);
     private static final GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService = mock(GatewayAccountNotificationCredentialsService.class);
     private static final GatewayAccountRequestValidator gatewayAccountRequestValidator = mock(GatewayAccountRequestValidator.class);
     private static final GatewayAccountServicesFactory gatewayAccountServicesFactory = mock(GatewayAccountServicesFactory.class);
@@ -37,6 +39,7 @@ class GatewayAccountResourceTest {
             .addResource(new GatewayAccountResource(
                     gatewayAccountService,
                     cardTypeDao,
+                    cardTypeRegistry,
                     gatewayAccountNotificationCredentialsService,
                     gatewayAccountRequestValidator,
                     gatewayAccountServicesFactory,
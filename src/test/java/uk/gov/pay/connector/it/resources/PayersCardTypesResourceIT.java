@@ -5,7 +5,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.cardtype.dao.CardTypeEntityBuilder;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.cardtype.resource.CardTypesResource;
@@ -23,20 +23,20 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
 
 public class PayersCardTypesResourceIT {
-    private static final CardTypeDao mockedDao = mock(CardTypeDao.class);
+    private static final CardTypeRegistry mockedRegistry = mock(CardTypeRegistry.class);
     @ClassRule
-    public static ResourceTestRule resources = ResourceTestRule.builder().addResource(new CardTypesResource(mockedDao)).build();
+    public static ResourceTestRule resources = ResourceTestRule.builder().addResource(new CardTypesResource(mockedRegistry)).build();
     private CardTypeEntity cardTypeEntity;
 
     @Before
     public void setUp() {
         cardTypeEntity = CardTypeEntityBuilder.aCardTypeEntity().build();
-        when(mockedDao.findAll()).thenReturn(Collections.singletonList(cardTypeEntity));
+        when(mockedRegistry.findAll()).thenReturn(Collections.singletonList(cardTypeEntity));
     }
 
     @After
     public void tearDown() {
-        reset(mockedDao);
+        reset(mockedRegistry);
     }
 
     @Test
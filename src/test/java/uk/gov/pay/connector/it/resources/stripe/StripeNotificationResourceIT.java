@@ -91,7 +91,7 @@ public class StripeNotificationResourceIT {
     }
 
     @Test
-    public void shouldHandleAPaymentIntentAmountCapturableUpdatedNotification() {
+    public void shouldHandleAPaymentIntentAmountCapturableUpdatedNotification() throws Exception {
         String transactionId = "pi_123" + nextInt();
         String externalChargeId = createNewChargeWith(AUTHORISATION_3DS_REQUIRED, transactionId);
 
@@ -105,11 +105,12 @@ public class StripeNotificationResourceIT {
 
         assertThat(response, is(RESPONSE_EXPECTED_BY_STRIPE));
 
+        waitForChargeToLeaveStatus(externalChargeId, AUTHORISATION_3DS_REQUIRED.getValue());
         assertFrontendChargeStatusIs(externalChargeId, AUTHORISATION_SUCCESS.getValue());
     }
 
     @Test
-    public void shouldHandleAPaymentIntentPaymentFailedNotification() {
+    public void shouldHandleAPaymentIntentPaymentFailedNotification() throws Exception {
         String transactionId = "pi_123" + nextInt();
         String externalChargeId = createNewChargeWith(AUTHORISATION_3DS_REQUIRED, transactionId);
 
@@ -123,6 +124,7 @@ public class StripeNotificationResourceIT {
 
         assertThat(response, is(RESPONSE_EXPECTED_BY_STRIPE));
 
+        waitForChargeToLeaveStatus(externalChargeId, AUTHORISATION_3DS_REQUIRED.getValue());
         assertFrontendChargeStatusIs(externalChargeId, AUTHORISATION_REJECTED.getValue());
     }
 
@@ -171,7 +173,7 @@ public class StripeNotificationResourceIT {
     }
 
     @Test
-    public void shouldHandleAPaymentIntent3DSVersion() {
+    public void shouldHandleAPaymentIntent3DSVersion() throws Exception {
         String transactionId = "pi_123" + nextInt();
         String externalChargeId = createNewChargeWith(AUTHORISATION_3DS_REQUIRED, transactionId);
 
@@ -181,6 +183,7 @@ public class StripeNotificationResourceIT {
                 .then()
                 .statusCode(200);
 
+        waitForChargeToLeaveStatus(externalChargeId, AUTHORISATION_3DS_REQUIRED.getValue());
         Map<String, Object> charge = databaseTestHelper.getChargeByExternalId(externalChargeId);
 
         assertThat(charge.get("version_3ds").toString(), is("2.0.1"));
@@ -244,6 +247,16 @@ public class StripeNotificationResourceIT {
         return externalChargeId;
     }
 
+    // Notifications for charges that are not yet 3DS ready are deferred to the notification inbox and processed once
+    // the configured wait has passed, so the charge is only updated some time after connector has responded to Stripe
+    private void waitForChargeToLeaveStatus(String externalChargeId, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (status.equals(databaseTestHelper.getChargeStatusByExternalId(externalChargeId))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
     protected void assertFrontendChargeStatusIs(String chargeId, String status) {
         connectorRestApiClient
                 .withChargeId(chargeId)
@@ -0,0 +1,136 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.charge.service.ChargeService;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
+
+@ExtendWith(MockitoExtension.class)
+class Authorisation3dsReadyWaiterTest {
+
+    private static final String CHARGE_EXTERNAL_ID = "charge-external-id";
+
+    @Mock
+    private ChargeService mockChargeService;
+
+    @Mock
+    private ChargeEntity mockCharge;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+    private Authorisation3dsReadyWaiter authorisation3dsReadyWaiter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mockChargeService.findChargeByExternalId(CHARGE_EXTERNAL_ID)).thenReturn(mockCharge);
+        authorisation3dsReadyWaiter = new Authorisation3dsReadyWaiter(mockChargeService, executorService, metricRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void shouldRunActionStraightAwayWhenThereIsNoWait() {
+        AtomicInteger runs = new AtomicInteger();
+
+        authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID, Duration.ZERO, runs::incrementAndGet);
+
+        assertThat(runs.get(), is(1));
+        assertThat(metricRegistry.meter("authorisation-3ds-ready-wait.deferred").getCount(), is(0L));
+    }
+
+    @Test
+    void shouldRunActionWhenSignalledWithoutReadingTheCharge() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        CompletableFuture<Void> completion = authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID,
+                Duration.ofSeconds(10), ran::countDown);
+        authorisation3dsReadyWaiter.signalReady(CHARGE_EXTERNAL_ID);
+
+        assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        completion.get(1, TimeUnit.SECONDS);
+        verify(mockChargeService, never()).findChargeByExternalId(CHARGE_EXTERNAL_ID);
+        assertThat(metricRegistry.meter("authorisation-3ds-ready-wait.deferred").getCount(), is(1L));
+        assertThat(metricRegistry.timer("authorisation-3ds-ready-wait.wait-time").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldRunActionWhenRecheckFindsChargeIs3dsReady() throws Exception {
+        when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_READY.getValue());
+        CountDownLatch ran = new CountDownLatch(1);
+
+        authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID, Duration.ofSeconds(10), ran::countDown);
+
+        assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(metricRegistry.meter("authorisation-3ds-ready-wait.timed-out").getCount(), is(0L));
+    }
+
+    @Test
+    void shouldRunActionOnceMaximumWaitHasPassed() throws Exception {
+        when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_REQUIRED.getValue());
+        CountDownLatch ran = new CountDownLatch(1);
+
+        authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID, Duration.ofMillis(500), ran::countDown);
+
+        assertThat(ran.await(2, TimeUnit.SECONDS), is(true));
+        assertThat(metricRegistry.meter("authorisation-3ds-ready-wait.timed-out").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldRunActionOnlyOnceWhenSignalledAfterRecheck() throws Exception {
+        when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_READY.getValue());
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID, Duration.ofSeconds(10), () -> {
+            runs.incrementAndGet();
+            ran.countDown();
+        });
+        assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        authorisation3dsReadyWaiter.signalReady(CHARGE_EXTERNAL_ID);
+        executorService.submit(() -> { }).get();
+
+        assertThat(runs.get(), is(1));
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenTheActionFails() {
+        when(mockCharge.getStatus()).thenReturn(AUTHORISATION_3DS_READY.getValue());
+
+        CompletableFuture<Void> completion = authorisation3dsReadyWaiter.runWhenReady(CHARGE_EXTERNAL_ID,
+                Duration.ofSeconds(10), () -> {
+                    throw new IllegalStateException("gateway unavailable");
+                });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> completion.get(1, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+    }
+}
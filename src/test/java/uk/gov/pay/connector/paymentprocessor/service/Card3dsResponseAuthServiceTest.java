@@ -13,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.Authorisation3dsConfig;
 import uk.gov.pay.connector.app.config.AuthorisationConfig;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
@@ -56,6 +57,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
@@ -96,6 +98,8 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
     private IdempotencyDao mockIdempotencyDao;
     @Mock
     private ExternalTransactionStateFactory mockExternalTransactionStateFactory;
+    @Mock
+    private Authorisation3dsReadyWaiter mockAuthorisation3dsReadyWaiter;
 
     private static final String GENERATED_TRANSACTION_ID = "generated-transaction-id";
 
@@ -129,7 +133,8 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
                 mockExternalTransactionStateFactory, objectMapper, null);
         AuthorisationService authorisationService = new AuthorisationService(mockExecutorService, mockEnvironment, mockConfiguration);
 
-        card3dsResponseAuthService = new Card3dsResponseAuthService(mockedProviders, chargeService, authorisationService, mockConfiguration);
+        card3dsResponseAuthService = new Card3dsResponseAuthService(mockedProviders, chargeService, authorisationService, mockConfiguration,
+                mockAuthorisation3dsReadyWaiter);
     }
 
     public void setupMockExecutorServiceMock() {
@@ -153,6 +158,8 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         Auth3dsResult auth3dsResult = AuthUtils.buildAuth3dsResult();
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT))
+                .thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId()))
                 .thenReturn(Optional.of(charge));
 
@@ -169,13 +176,13 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         assertThat(charge.getGatewayTransactionId(), is(GENERATED_TRANSACTION_ID));
         assertTrue(argumentCaptor.getValue().getTransactionId().isPresent());
         assertThat(argumentCaptor.getValue().getTransactionId().get(), is(GENERATED_TRANSACTION_ID));
-
+        verify(mockAuthorisation3dsReadyWaiter).signalReady(charge.getExternalId());
     }
 
     @Test
     void process3DSecureAuthorisation_shouldRetainGeneratedTransactionId_evenIfAuthorisationAborted() {
 
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedProviders.byName(charge.getPaymentGatewayName())).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.authorise3dsResponse(any())).thenThrow(RuntimeException.class);
 
@@ -200,6 +207,8 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
 
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT))
+                .thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId()))
                 .thenReturn(Optional.of(charge));
 
@@ -268,6 +277,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         Auth3dsResult auth3dsResult = AuthUtils.buildAuth3dsResult();
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthorisation3dsConfig.getMaximumNumberOfTimesToAllowUserToAttempt3ds()).thenReturn(3);
 
@@ -301,6 +311,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         Auth3dsResult auth3dsResult = AuthUtils.buildAuth3dsResult();
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthorisation3dsConfig.getMaximumNumberOfTimesToAllowUserToAttempt3ds()).thenReturn(3);
 
@@ -337,6 +348,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         Auth3dsResult auth3dsResult = AuthUtils.buildAuth3dsResult();
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthorisation3dsConfig.getMaximumNumberOfTimesToAllowUserToAttempt3ds()).thenReturn(3);
         when(mockedChargeDao.count3dsRequiredEventsForChargeExternalId(charge.getExternalId())).thenReturn(2);
@@ -363,6 +375,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         Auth3dsResult auth3dsResult = AuthUtils.buildAuth3dsResult();
         ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor = ArgumentCaptor.forClass(Auth3dsResponseGatewayRequest.class);
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthorisation3dsConfig.getMaximumNumberOfTimesToAllowUserToAttempt3ds()).thenReturn(3);
         when(mockedChargeDao.count3dsRequiredEventsForChargeExternalId(charge.getExternalId())).thenReturn(3);
@@ -400,7 +413,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
             String chargeId = "jgk3erq5sv2i4cds6qqa9f1a8a";
 
             setupMockExecutorServiceMock();
-            when(mockedChargeDao.findByExternalId(chargeId))
+            when(mockedChargeDao.findByExternalId(chargeId, ChargeFetchPlan.DEFAULT))
                     .thenReturn(Optional.empty());
             card3dsResponseAuthService.process3DSecureAuthorisation(chargeId, AuthUtils.buildAuth3dsResult());
         });
@@ -412,7 +425,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         assertThrows(OperationAlreadyInProgressRuntimeException.class, () ->{
             ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.AUTHORISATION_3DS_READY);
 
-            when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+            when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
             setupMockExecutorServiceMock();
             card3dsResponseAuthService.process3DSecureAuthorisation(charge.getExternalId(), AuthUtils.buildAuth3dsResult());
@@ -429,7 +442,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         assertThrows(IllegalStateRuntimeException.class, () -> {
             ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.AUTHORISATION_READY);
 
-            when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+            when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
             setupMockExecutorServiceMock();
 
@@ -445,7 +458,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
         assertThrows( IllegalStateRuntimeException.class, () -> {
             ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.EXPIRED);
 
-            when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+            when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
             setupMockExecutorServiceMock();
 
@@ -471,6 +484,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
     private Gateway3DSAuthorisationResponse anAuthorisedFailedResponse(ChargeEntity charge,
                                                                        String transactionId, AuthoriseStatus authoriseStatus,
                                                                        ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor) {
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         setupMockExecutorServiceMock();
@@ -483,6 +497,7 @@ public class Card3dsResponseAuthServiceTest extends CardServiceTest {
 
     private Gateway3DSAuthorisationResponse anAuthorisationErrorResponse(ChargeEntity charge,
                                                                          ArgumentCaptor<Auth3dsResponseGatewayRequest> argumentCaptor) {
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         setupMockExecutorServiceMock();
@@ -26,6 +26,7 @@ import uk.gov.pay.connector.app.config.AuthorisationConfig;
 import uk.gov.pay.connector.cardtype.dao.CardTypeEntityBuilder;
 import uk.gov.pay.connector.cardtype.model.domain.CardType;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.exception.motoapi.AuthorisationTimedOutException;
 import uk.gov.pay.connector.charge.model.CardDetailsEntity;
@@ -247,7 +248,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         AuthorisationService authorisationService = new AuthorisationService(mockExecutorService, mockEnvironment, mockConfiguration);
         cardAuthorisationService = new CardAuthoriseService(
-                mockedCardTypeDao,
+                mockedCardTypeRegistry,
                 mockedProviders,
                 authorisationService,
                 chargeService,
@@ -292,6 +293,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldPublishEvent() throws Exception {
         mockRecordAuthorisationResult();
         providerWillAuthorise(charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails()
                 .withAddress(null)
@@ -314,6 +316,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         providerWillAuthorise(charge.getPaymentGatewayName());
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseWeb(charge.getExternalId(), authCardDetails);
@@ -339,6 +342,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
                 .withCardType(PayersCardType.CREDIT)
                 .build();
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
 
@@ -369,6 +373,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
                 .build();
 
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         Logger root = (Logger) LoggerFactory.getLogger(CardAuthoriseService.class);
@@ -407,6 +412,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
                 .build();
 
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         charge.getGatewayAccount().setCorporateDebitCardSurchargeAmount(50L);
@@ -440,6 +446,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         CardDetailsEntity cardDetailsEntity = new CardDetailsEntity(FirstDigitsCardNumber.of("424242"), LastDigitsCardNumber.of("4242"),
                 "Mr Test", CardExpiryDate.valueOf("12/99"), "VISA", CardType.DEBIT, null);
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         charge.setAuthorisationMode(authorisationMode);
@@ -473,7 +480,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         CardDetailsEntity cardDetailsEntity = new CardDetailsEntity(FirstDigitsCardNumber.of("424242"), LastDigitsCardNumber.of("4242"),
                 "Mr Test", CardExpiryDate.valueOf("12/99"), "VISA", CardType.DEBIT, null);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         charge.setAuthorisationMode(AuthorisationMode.EXTERNAL);
         charge.getGatewayAccount().setCorporateDebitCardSurchargeAmount(50L);
@@ -491,6 +498,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         when(mockedProviders.byName(charge.getPaymentGatewayName())).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.generateTransactionId()).thenReturn(Optional.of(generatedTransactionId));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -511,6 +519,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldRespondWith3dsResponseForEpdq3dsOrders() throws Exception {
         epdqProviderWillRequire3ds();
         mockRecordAuthorisationResult();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -533,7 +542,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         when(mockedPaymentProvider.generateTransactionId()).thenReturn(Optional.of(generatedTransactionId));
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
         when(mockedPaymentProvider.authorise(any(), any())).thenThrow(RuntimeException.class);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
 
@@ -567,8 +576,8 @@ class CardAuthoriseServiceTest extends CardServiceTest {
                 .build();
         String chargeWithConflicting3dsId = charge.getExternalId();
 
-        when(mockedCardTypeDao.findByBrand(authCardDetails.getCardBrand())).thenReturn(newArrayList(cardTypeEntity));
-        when(mockedChargeDao.findByExternalId(chargeWithConflicting3dsId)).thenReturn(Optional.of(charge));
+        when(mockedCardTypeRegistry.findByBrand(authCardDetails.getCardBrand())).thenReturn(newArrayList(cardTypeEntity));
+        when(mockedChargeDao.findByExternalId(chargeWithConflicting3dsId, ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
 
@@ -581,6 +590,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldRespondAuthorisationRejected_whenProviderAuthorisationIsRejected() throws Exception {
         mockRecordAuthorisationResult();
         providerWillReject(charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation rejected"
@@ -608,6 +618,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         GatewayResponse authResponse = mockProviderRespondedSuccessfullyResponse(TRANSACTION_ID, AuthoriseStatus.CANCELLED);
         mockRecordAuthorisationResult();
         providerWillRespondToAuthoriseWith(authResponse, charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation cancelled"
@@ -632,6 +643,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldRespondAuthorisationError() throws Exception {
         mockRecordAuthorisationResult();
         providerWillError(charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation error"
@@ -659,6 +671,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         cardAuthorisationService.doAuthoriseWeb(charge.getExternalId(), authCardDetails);
@@ -674,6 +687,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
 
@@ -687,6 +701,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldStoreProviderSessionId_evenIfAuthorisationRejected() throws Exception {
         mockRecordAuthorisationResult();
         providerWillReject(charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -699,6 +714,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldNotProviderSessionId_whenAuthorisationError() throws Exception {
         mockRecordAuthorisationResult();
         providerWillError(charge.getPaymentGatewayName());
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -725,7 +741,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
 
-        when(mockedChargeDao.findByExternalId(chargeId))
+        when(mockedChargeDao.findByExternalId(chargeId, ChargeFetchPlan.DEFAULT))
                 .thenReturn(Optional.empty());
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -737,7 +753,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.AUTHORISATION_READY);
         String inProgressChargeId = charge.getExternalId();
-        when(mockedChargeDao.findByExternalId(inProgressChargeId)).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(inProgressChargeId, ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -751,7 +767,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.UNDEFINED);
         String chargeWithInvalidStatusId = charge.getExternalId();
-        when(mockedChargeDao.findByExternalId(chargeWithInvalidStatusId)).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(chargeWithInvalidStatusId, ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
 
         AuthCardDetails authCardDetails = AuthCardDetailsFixture.anAuthCardDetails().build();
@@ -764,6 +780,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldReportAuthorisationTimeout_whenProviderTimeout() throws Exception {
         mockRecordAuthorisationResult();
         providerWillRespondWithError(new GatewayException.GatewayConnectionTimeoutException("Connection timed out"));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation timeout"
@@ -787,6 +804,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseWeb_shouldReportUnexpectedError_whenProviderError() throws Exception {
         mockRecordAuthorisationResult();
         providerWillRespondWithError(new GatewayException.GatewayErrorException("Malformed response received"));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation unexpected error"
@@ -812,6 +830,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillAuthoriseForMotoApiPayment();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseMotoApi(charge, aCardInformation().build(), authoriseRequest);
@@ -832,6 +851,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillAuthoriseForMotoApiPayment();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         charge.getGatewayAccount().setCorporateDebitCardSurchargeAmount(50L);
@@ -855,6 +875,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillAuthoriseForMotoApiPayment();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
                 "sandbox", "test", "without-billing-address", "authorisation success"
@@ -893,7 +914,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         when(mockedPaymentProvider.generateTransactionId()).thenReturn(Optional.of(generatedTransactionId));
         mockExecutorServiceWillReturnCompletedResultWithSupplierReturnValue();
         when(mockedPaymentProvider.authoriseMotoApi(any())).thenThrow(RuntimeException.class);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         CardInformation cardInformation = aCardInformation().build();
         assertThrows(RuntimeException.class, () -> cardAuthorisationService.doAuthoriseMotoApi(charge, cardInformation, authoriseRequest));
@@ -910,6 +931,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillRejectForMotoApiPayment();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseMotoApi(charge, aCardInformation().build(), authoriseRequest);
@@ -939,6 +961,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         GatewayResponse authResponse = mockProviderRespondedSuccessfullyResponse(TRANSACTION_ID, AuthoriseStatus.CANCELLED);
         providerWillRespondToAuthoriseMotoApiWith(authResponse);
         mockRecordAuthorisationResult();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseMotoApi(charge, aCardInformation().build(), authoriseRequest);
@@ -961,6 +984,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         AuthoriseRequest authoriseRequest = new AuthoriseRequest("one-time-token", "4242424242424242", "123", "11/99", "Mr Test");
         mockRecordAuthorisationResult();
         providerWillErrorForMotoApiPayment();
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         double counterBefore = getMetricSample("gateway_operations_authorisation_result_total", new String[]{
@@ -987,6 +1011,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         AuthoriseRequest authoriseRequest = new AuthoriseRequest("one-time-token", "4242424242424242", "123", "11/99", "Mr Test");
         CardDetailsEntity cardDetailsEntity = new CardDetailsEntity(FirstDigitsCardNumber.of("424242"), LastDigitsCardNumber.of("4242"),
                 "Mr. Pay", CardExpiryDate.valueOf("11/99"), "VISA", CardType.DEBIT, null);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(any())).thenReturn(cardDetailsEntity);
         mockRecordAuthorisationResult();
@@ -1005,6 +1030,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         CardDetailsEntity cardDetailsEntity = new CardDetailsEntity(FirstDigitsCardNumber.of("424242"), LastDigitsCardNumber.of("4242"),
                 "Mr. Pay", CardExpiryDate.valueOf("11/99"), "VISA", CardType.DEBIT, null);
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(any())).thenReturn(cardDetailsEntity);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         mockRecordAuthorisationResult();
@@ -1023,6 +1049,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillRespondWithErrorForMotoApiPayment(new GatewayException.GatewayConnectionTimeoutException("Connection timed out"));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseMotoApi(charge, aCardInformation().build(), authoriseRequest);
@@ -1037,7 +1064,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.UNDEFINED);
         AuthoriseRequest authoriseRequest = new AuthoriseRequest("one-time-token", "4242424242424242", "123", "11/99", "Mr Test");
 
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         CardInformation cardInformation = aCardInformation().build();
         assertThrows(IllegalStateRuntimeException.class, () -> cardAuthorisationService.doAuthoriseMotoApi(charge, cardInformation, authoriseRequest));
@@ -1052,6 +1079,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
 
         mockRecordAuthorisationResult();
         providerWillRespondWithErrorForMotoApiPayment(new GatewayException.GatewayErrorException("Malformed response received"));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         AuthorisationResponse response = cardAuthorisationService.doAuthoriseMotoApi(charge, aCardInformation().build(), authoriseRequest);
@@ -1065,6 +1093,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
     void doAuthoriseMotoApi_shouldTransitionToAuthorisationTimeout_andThrowException_whenAuthorisationTimesOut() {
         ChargeEntity charge = createNewChargeWith(1L, CREATED);
         charge.setAuthorisationMode(MOTO_API);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         String cardholderName = "Mr Test";
         AuthoriseRequest authoriseRequest = new AuthoriseRequest("one-time-token", "4242424242424242", "123", "11/99", cardholderName);
@@ -1105,6 +1134,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         chargeLocal.setPaymentProvider(WORLDPAY.getName());
         chargeLocal.setAuthorisationMode(AuthorisationMode.AGREEMENT);
         chargeLocal.setPaymentInstrument(paymentInstrumentEntity);
+        when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(chargeLocal));
         when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId())).thenReturn(Optional.of(chargeLocal));
         when(mockPaymentInstrumentEntityToAuthCardDetailsConverter.convert(paymentInstrumentEntity)).thenReturn(authCardDetails);
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
@@ -1146,6 +1176,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         chargeLocal.setPaymentInstrument(paymentInstrumentEntity);
         chargeLocal.setPaymentProvider(WORLDPAY.getName());
 
+        when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(chargeLocal));
         when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId())).thenReturn(Optional.of(chargeLocal));
         when(mockPaymentInstrumentEntityToAuthCardDetailsConverter.convert(paymentInstrumentEntity)).thenReturn(authCardDetails);
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
@@ -1186,6 +1217,7 @@ class CardAuthoriseServiceTest extends CardServiceTest {
         chargeLocal.setPaymentInstrument(paymentInstrumentEntity);
         chargeLocal.setPaymentProvider(WORLDPAY.getName());
 
+        when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(chargeLocal));
         when(mockedChargeDao.findByExternalId(chargeLocal.getExternalId())).thenReturn(Optional.of(chargeLocal));
         when(mockPaymentInstrumentEntityToAuthCardDetailsConverter.convert(paymentInstrumentEntity)).thenReturn(authCardDetails);
         when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(authCardDetails)).thenReturn(cardDetailsEntity);
@@ -22,6 +22,7 @@ import org.mockito.internal.hamcrest.HamcrestArgumentMatcher;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
@@ -317,6 +318,8 @@ class CardCaptureServiceTest extends CardServiceTest {
 
 
     private void mockChargeDaoOperations(ChargeEntity charge) {
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.CAPTURE))
+                .thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId()))
                 .thenReturn(Optional.of(charge));
     }
@@ -324,7 +327,7 @@ class CardCaptureServiceTest extends CardServiceTest {
     @Test
     void doCapture_shouldGetAChargeNotFound_whenChargeDoesNotExist() {
         String chargeId = "jgk3erq5sv2i4cds6qqa9f1a8a";
-        when(mockedChargeDao.findByExternalId(chargeId))
+        when(mockedChargeDao.findByExternalId(chargeId, ChargeFetchPlan.CAPTURE))
                 .thenReturn(Optional.empty());
         
         assertThrows(ChargeNotFoundRuntimeException.class, () -> cardCaptureService.doCapture(chargeId));
@@ -336,7 +339,7 @@ class CardCaptureServiceTest extends CardServiceTest {
     void doCapture_shouldGetAOperationAlreadyInProgress_whenStatusIsCaptureReady() {
         Long chargeId = 1234L;
         ChargeEntity charge = createNewChargeWith(chargeId, ChargeStatus.CAPTURE_READY);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId()))
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.CAPTURE))
                 .thenReturn(Optional.of(charge));
         assertThrows(OperationAlreadyInProgressRuntimeException.class, () ->
                 cardCaptureService.doCapture(charge.getExternalId()));
@@ -349,7 +352,7 @@ class CardCaptureServiceTest extends CardServiceTest {
     void doCapture_shouldGetAnIllegalError_whenChargeHasInvalidStatus() {
         Long chargeId = 1234L;
         ChargeEntity charge = createNewChargeWith(chargeId, ChargeStatus.ENTERING_CARD_DETAILS);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId()))
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.CAPTURE))
                 .thenReturn(Optional.of(charge));
         
         assertThrows(IllegalStateRuntimeException.class, () -> cardCaptureService.doCapture(charge.getExternalId()));
@@ -371,7 +374,7 @@ class CardCaptureServiceTest extends CardServiceTest {
          * will be in place since there are not evidence (through any test or current logging)
          * that is in reality a subject of a real scenario.
          */
-        when(mockedChargeDao.findByExternalId(charge.getExternalId()))
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.CAPTURE))
                 .thenThrow(new OptimisticLockException());
         assertThrows(ConflictRuntimeException.class, () -> cardCaptureService.doCapture(charge.getExternalId()));
         assertThat(charge.getStatus(), is(ChargeStatus.CREATED.getValue()));
@@ -2,7 +2,7 @@ package uk.gov.pay.connector.paymentprocessor.service;
 
 import com.codahale.metrics.MetricRegistry;
 import org.mockito.Mock;
-import uk.gov.pay.connector.cardtype.dao.CardTypeDao;
+import uk.gov.pay.connector.cardtype.service.CardTypeRegistry;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.CardDetailsEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
@@ -33,7 +33,7 @@ public abstract class CardServiceTest {
     @Mock
     protected ChargeEventDao mockedChargeEventDao;
     @Mock
-    protected CardTypeDao mockedCardTypeDao;
+    protected CardTypeRegistry mockedCardTypeRegistry;
 
     protected ChargeEntity createNewChargeWith(Long chargeId, ChargeStatus status) {
         ChargeEntity entity = ChargeEntityFixture
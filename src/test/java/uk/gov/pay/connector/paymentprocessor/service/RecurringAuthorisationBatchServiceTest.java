@@ -0,0 +1,158 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.charge.model.ChargeCreateRequest;
+import uk.gov.pay.connector.charge.service.ChargeService;
+import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse.AuthoriseStatus;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.paymentprocessor.api.AuthorisationResponse;
+import uk.gov.pay.connector.paymentprocessor.dao.RecurringAuthorisationBatchDao;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchEntity;
+import uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchProgress;
+import uk.gov.service.payments.commons.model.AuthorisationMode;
+
+import javax.ws.rs.core.UriInfo;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.charge.model.ChargeCreateRequestBuilder.aChargeCreateRequest;
+import static uk.gov.pay.connector.charge.model.ChargeResponse.aChargeResponseBuilder;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.FAILED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.QUEUED;
+import static uk.gov.pay.connector.paymentprocessor.model.RecurringAuthorisationBatchChargeStatus.SUCCEEDED;
+
+@ExtendWith(MockitoExtension.class)
+class RecurringAuthorisationBatchServiceTest {
+
+    private static final long GATEWAY_ACCOUNT_ID = 1L;
+    private static final long BATCH_ID = 42L;
+
+    @Mock
+    private ChargeService chargeService;
+    @Mock
+    private GatewayAccountDao gatewayAccountDao;
+    @Mock
+    private RecurringAuthorisationBatchDao batchDao;
+    @Mock
+    private UriInfo uriInfo;
+
+    private RecurringAuthorisationBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RecurringAuthorisationBatchService(chargeService, gatewayAccountDao, batchDao);
+    }
+
+    @Test
+    void shouldRecordEachChargeAgainstTheBatchBeforeQueueingIt() {
+        ChargeCreateRequest first = agreementChargeRequest("first");
+        ChargeCreateRequest second = agreementChargeRequest("second");
+        when(gatewayAccountDao.findById(GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(mock(GatewayAccountEntity.class)));
+        when(batchDao.create(GATEWAY_ACCOUNT_ID)).thenReturn(BATCH_ID);
+        when(chargeService.create(first, GATEWAY_ACCOUNT_ID, uriInfo, null))
+                .thenReturn(Optional.of(aChargeResponseBuilder().withChargeId("charge-1").build()));
+        when(chargeService.create(second, GATEWAY_ACCOUNT_ID, uriInfo, null))
+                .thenReturn(Optional.of(aChargeResponseBuilder().withChargeId("charge-2").build()));
+        when(batchDao.findProgress(GATEWAY_ACCOUNT_ID, BATCH_ID))
+                .thenReturn(Optional.of(RecurringAuthorisationBatchProgress.from(batch(0), Map.of(QUEUED, 2L))));
+
+        RecurringAuthorisationBatchProgress progress = service.submit(GATEWAY_ACCOUNT_ID, List.of(first, second), uriInfo).get();
+
+        InOrder inOrder = inOrder(batchDao, chargeService);
+        inOrder.verify(batchDao).addCharge(BATCH_ID, "charge-1");
+        inOrder.verify(chargeService).markChargeAsEligibleForAuthoriseUserNotPresent("charge-1");
+        inOrder.verify(batchDao).addCharge(BATCH_ID, "charge-2");
+        inOrder.verify(chargeService).markChargeAsEligibleForAuthoriseUserNotPresent("charge-2");
+        verify(batchDao, never()).recordNotCreated(anyLong(), anyInt());
+        assertThat(progress.getBatchId(), is(BATCH_ID));
+        assertThat(progress.getQueued(), is(2L));
+        assertThat(progress.getChargeIds(), contains("charge-1", "charge-2"));
+    }
+
+    @Test
+    void shouldCountChargesThatCannotBeCreatedAsFailedAndCarryOnWithTheRest() {
+        ChargeCreateRequest invalid = agreementChargeRequest("invalid");
+        ChargeCreateRequest valid = agreementChargeRequest("valid");
+        when(gatewayAccountDao.findById(GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(mock(GatewayAccountEntity.class)));
+        when(batchDao.create(GATEWAY_ACCOUNT_ID)).thenReturn(BATCH_ID);
+        when(chargeService.create(invalid, GATEWAY_ACCOUNT_ID, uriInfo, null))
+                .thenThrow(new IllegalStateException("agreement not found"));
+        when(chargeService.create(valid, GATEWAY_ACCOUNT_ID, uriInfo, null))
+                .thenReturn(Optional.of(aChargeResponseBuilder().withChargeId("charge-1").build()));
+        when(batchDao.findProgress(GATEWAY_ACCOUNT_ID, BATCH_ID))
+                .thenReturn(Optional.of(RecurringAuthorisationBatchProgress.from(batch(1), Map.of(QUEUED, 1L))));
+
+        RecurringAuthorisationBatchProgress progress = service.submit(GATEWAY_ACCOUNT_ID, List.of(invalid, valid), uriInfo).get();
+
+        verify(batchDao).recordNotCreated(BATCH_ID, 1);
+        verify(chargeService).markChargeAsEligibleForAuthoriseUserNotPresent("charge-1");
+        assertThat(progress.getSubmitted(), is(2L));
+        assertThat(progress.getFailed(), is(1L));
+        assertThat(progress.getChargeIds(), contains("charge-1"));
+    }
+
+    @Test
+    void shouldNotCreateBatchForUnknownGatewayAccount() {
+        when(gatewayAccountDao.findById(GATEWAY_ACCOUNT_ID)).thenReturn(Optional.empty());
+
+        assertThat(service.submit(GATEWAY_ACCOUNT_ID, List.of(agreementChargeRequest("ref")), uriInfo).isEmpty(), is(true));
+
+        verifyNoInteractions(batchDao, chargeService);
+    }
+
+    @Test
+    void shouldRecordAuthorisedChargeAsSucceeded() {
+        service.recordOutcome("charge-1", authorisationResponse(Optional.of(AuthoriseStatus.AUTHORISED)));
+
+        verify(batchDao).recordOutcome("charge-1", SUCCEEDED);
+    }
+
+    @Test
+    void shouldRecordRejectedOrErroredChargeAsFailed() {
+        service.recordOutcome("charge-1", authorisationResponse(Optional.of(AuthoriseStatus.REJECTED)));
+        service.recordOutcome("charge-2", authorisationResponse(Optional.empty()));
+
+        verify(batchDao).recordOutcome("charge-1", FAILED);
+        verify(batchDao).recordOutcome("charge-2", FAILED);
+        verify(batchDao, never()).recordOutcome(anyString(), eq(SUCCEEDED));
+    }
+
+    private static ChargeCreateRequest agreementChargeRequest(String reference) {
+        return aChargeCreateRequest()
+                .withReference(reference)
+                .withAgreementId("agreement-id")
+                .withAuthorisationMode(AuthorisationMode.AGREEMENT)
+                .build();
+    }
+
+    private static RecurringAuthorisationBatchEntity batch(int notCreated) {
+        return new RecurringAuthorisationBatchEntity(BATCH_ID, GATEWAY_ACCOUNT_ID, notCreated, Instant.parse("2022-06-27T13:07:57Z"));
+    }
+
+    private static AuthorisationResponse authorisationResponse(Optional<AuthoriseStatus> authoriseStatus) {
+        AuthorisationResponse response = mock(AuthorisationResponse.class);
+        when(response.getAuthoriseStatus()).thenReturn(authoriseStatus);
+        return response;
+    }
+}
@@ -0,0 +1,116 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.gov.pay.connector.app.config.RecurringAuthorisationConfig;
+import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
+import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse;
+import uk.gov.pay.connector.paymentprocessor.api.AuthorisationResponse;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntityFixture.aGatewayAccountEntity;
+
+class RecurringAuthorisationSchedulerTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @Test
+    void shouldLimitConcurrentAuthorisationsPerGatewayAccount() {
+        var scheduler = new RecurringAuthorisationScheduler(config(1, Map.of()), metricRegistry);
+        ChargeEntity firstCharge = charge(1L, "sandbox");
+        ChargeEntity secondCharge = charge(1L, "sandbox");
+        ChargeEntity otherAccountCharge = charge(2L, "sandbox");
+
+        Optional<RecurringAuthorisationScheduler.Slot> firstSlot = scheduler.tryAcquireSlot(firstCharge);
+
+        assertThat(firstSlot.isPresent(), is(true));
+        assertThat(scheduler.tryAcquireSlot(secondCharge).isPresent(), is(false));
+        assertThat(scheduler.tryAcquireSlot(otherAccountCharge).isPresent(), is(true));
+        assertThat(metricRegistry.meter("recurring-authorisation.sandbox.throttled").getCount(), is(1L));
+
+        firstSlot.get().close();
+
+        assertThat(scheduler.tryAcquireSlot(secondCharge).isPresent(), is(true));
+    }
+
+    @Test
+    void shouldStopTrackingGatewayAccountsOnceTheyHaveNothingInFlight() {
+        var scheduler = new RecurringAuthorisationScheduler(config(2, Map.of()), metricRegistry);
+
+        Optional<RecurringAuthorisationScheduler.Slot> firstSlot = scheduler.tryAcquireSlot(charge(1L, "sandbox"));
+        Optional<RecurringAuthorisationScheduler.Slot> secondSlot = scheduler.tryAcquireSlot(charge(1L, "sandbox"));
+        assertThat(scheduler.numberOfGatewayAccountsInFlight(), is(1));
+
+        firstSlot.get().close();
+        assertThat(scheduler.numberOfGatewayAccountsInFlight(), is(1));
+
+        secondSlot.get().close();
+        assertThat(scheduler.numberOfGatewayAccountsInFlight(), is(0));
+    }
+
+    @Test
+    void shouldLimitConcurrentAuthorisationsPerPaymentProvider() {
+        var scheduler = new RecurringAuthorisationScheduler(config(5, Map.of("stripe",
+                Map.of("maximumConcurrentAuthorisations", 1, "authorisationsPerSecond", 1000))), metricRegistry);
+
+        Optional<RecurringAuthorisationScheduler.Slot> firstSlot = scheduler.tryAcquireSlot(charge(1L, "stripe"));
+
+        assertThat(firstSlot.isPresent(), is(true));
+        assertThat(scheduler.tryAcquireSlot(charge(2L, "stripe")).isPresent(), is(false));
+        assertThat(scheduler.tryAcquireSlot(charge(2L, "worldpay")).isPresent(), is(true));
+        assertThat(metricRegistry.getGauges().get("recurring-authorisation.stripe.in-flight").getValue(), is(1));
+
+        firstSlot.get().close();
+
+        assertThat(metricRegistry.getGauges().get("recurring-authorisation.stripe.in-flight").getValue(), is(0));
+    }
+
+    @Test
+    void shouldReleaseGatewayAccountSlotWhenPaymentProviderIsRateLimited() {
+        var scheduler = new RecurringAuthorisationScheduler(config(1, Map.of("stripe",
+                Map.of("maximumConcurrentAuthorisations", 10, "authorisationsPerSecond", 0.1))), metricRegistry);
+
+        scheduler.tryAcquireSlot(charge(1L, "stripe")).get().close();
+
+        assertThat(scheduler.tryAcquireSlot(charge(2L, "stripe")).isPresent(), is(false));
+        assertThat(scheduler.tryAcquireSlot(charge(2L, "sandbox")).isPresent(), is(true));
+        assertThat(metricRegistry.meter("recurring-authorisation.stripe.throttled").getCount(), is(1L));
+    }
+
+    @Test
+    void shouldCountOutcomesPerPaymentProvider() {
+        var scheduler = new RecurringAuthorisationScheduler(config(1, Map.of()), metricRegistry);
+        AuthorisationResponse authorised = mock(AuthorisationResponse.class);
+        when(authorised.getAuthoriseStatus()).thenReturn(Optional.of(BaseAuthoriseResponse.AuthoriseStatus.AUTHORISED));
+        AuthorisationResponse error = mock(AuthorisationResponse.class);
+        when(error.getAuthoriseStatus()).thenReturn(Optional.empty());
+
+        scheduler.recordOutcome(charge(1L, "stripe"), authorised);
+        scheduler.recordOutcome(charge(1L, "stripe"), error);
+
+        assertThat(metricRegistry.meter("recurring-authorisation.stripe.authorised").getCount(), is(1L));
+        assertThat(metricRegistry.meter("recurring-authorisation.stripe.error").getCount(), is(1L));
+    }
+
+    private RecurringAuthorisationConfig config(int maximumConcurrentAuthorisationsPerGatewayAccount,
+                                                Map<String, Map<String, Number>> paymentProviders) {
+        return new ObjectMapper().convertValue(Map.of(
+                "maximumConcurrentAuthorisationsPerGatewayAccount", maximumConcurrentAuthorisationsPerGatewayAccount,
+                "paymentProviders", paymentProviders), RecurringAuthorisationConfig.class);
+    }
+
+    private ChargeEntity charge(Long gatewayAccountId, String paymentProvider) {
+        return aValidChargeEntity()
+                .withGatewayAccountEntity(aGatewayAccountEntity().withId(gatewayAccountId).build())
+                .withPaymentProvider(paymentProvider)
+                .build();
+    }
+}
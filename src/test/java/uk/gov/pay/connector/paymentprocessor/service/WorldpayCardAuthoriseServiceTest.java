@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.agreement.dao.AgreementDao;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.AuthorisationConfig;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.service.ChargeEligibleForCaptureService;
 import uk.gov.pay.connector.charge.service.ChargeService;
@@ -126,6 +127,7 @@ class WorldpayCardAuthoriseServiceTest extends CardServiceTest {
         charge.setPaymentProvider("worldpay");
         gatewayAccount = charge.getGatewayAccount();
         gatewayAccount.setRequires3ds(true);
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         ChargeService chargeService = new ChargeService(null, mockedChargeDao, mockedChargeEventDao,
                 null, mock(AgreementDao.class), null, mock(ConnectorConfiguration.class), null,
@@ -138,7 +140,7 @@ class WorldpayCardAuthoriseServiceTest extends CardServiceTest {
         when(mockAuthorisationConfig.getAsynchronousAuthTimeoutInMilliseconds()).thenReturn(1000);
         
         cardAuthorisationService = new CardAuthoriseService(
-                mockedCardTypeDao,
+                mockedCardTypeRegistry,
                 mockedProviders,
                 new AuthorisationService(mockExecutorService, environment, mockConfiguration),
                 chargeService,
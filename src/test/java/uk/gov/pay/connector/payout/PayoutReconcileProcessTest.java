@@ -9,16 +9,18 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.BalanceTransaction;
 import com.stripe.model.Charge;
 import com.stripe.model.Transfer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.PayoutReconcileProcessConfig;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.model.charge.PaymentIncludedInPayout;
 import uk.gov.pay.connector.events.model.dispute.DisputeIncludedInPayout;
@@ -33,15 +35,23 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
 import uk.gov.pay.connector.gatewayaccount.model.StripeCredentials;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
+import uk.gov.pay.connector.payout.dao.PayoutReconcileCheckpointDao;
+import uk.gov.pay.connector.payout.model.PayoutReconcileCheckpointEntity;
 import uk.gov.pay.connector.queue.payout.Payout;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileMessage;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileQueue;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 import uk.gov.service.payments.commons.queue.model.QueueMessage;
 
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -49,7 +59,11 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -85,10 +99,17 @@ class PayoutReconcileProcessTest {
     @Mock
     private PayoutEmitterService payoutEmitterService;
 
+    @Mock
+    private PayoutReconcileCheckpointDao payoutReconcileCheckpointDao;
+
+    @Mock
+    private PayoutReconcileProcessConfig payoutReconcileProcessConfig;
+
     @Mock
     private Appender<ILoggingEvent> logAppender;
 
-    @InjectMocks
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
     private PayoutReconcileProcess payoutReconcileProcess;
 
     @Captor
@@ -105,11 +126,17 @@ class PayoutReconcileProcessTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        when(connectorConfiguration.getPayoutReconcileProcessConfig()).thenReturn(payoutReconcileProcessConfig);
+        when(payoutReconcileProcessConfig.getBalanceTransactionsPerCheckpoint()).thenReturn(100);
+        payoutReconcileProcess = new PayoutReconcileProcess(payoutReconcileQueue, stripeSDKClient, connectorConfiguration,
+                gatewayAccountCredentialsService, eventService, payoutEmitterService, payoutReconcileCheckpointDao,
+                executorService);
+
         GatewayAccountEntity gatewayAccountEntity = aGatewayAccountEntity()
                 .withType(GatewayAccountType.TEST)
                 .build();
 
-        when(gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, stripeAccountId))
+        lenient().when(gatewayAccountCredentialsService.findStripeGatewayAccountForCredentialKeyAndValue(StripeCredentials.STRIPE_ACCOUNT_ID_KEY, stripeAccountId))
                 .thenReturn(gatewayAccountEntity);
 
         setupMockBalanceTransactions("pending");
@@ -119,6 +146,11 @@ class PayoutReconcileProcessTest {
         errorLogger.addAppender(logAppender);
     }
 
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
     @Test
     void shouldEmitEventsForMessageAndMarkAsProcessed() throws Exception {
         var paymentEvent = new PaymentIncludedInPayout(paymentExternalId, payoutId, payoutCreatedDate.toInstant());
@@ -132,13 +164,12 @@ class PayoutReconcileProcessTest {
 
         payoutReconcileProcess.processPayouts();
 
-        verify(eventService).emitEvent(paymentEvent, false);
-        verify(eventService).emitEvent(refundEvent, false);
-        verify(eventService).emitEvent(feeCollectionEvent, false);
-        verify(eventService).emitEvent(disputeEvent, false);
+        verify(eventService).emitEvents(List.of(paymentEvent, refundEvent, feeCollectionEvent, disputeEvent), false);
         verifyNoMoreInteractions(eventService);
         verify(payoutEmitterService).emitPayoutEvent(PayoutCreated.class, stripePayout.getCreated().toInstant(),
                 stripeAccountId, stripePayout);
+        verify(payoutReconcileCheckpointDao).saveProgress(payoutId, stripeAccountId, "txn_payout", 1, 3);
+        verify(payoutReconcileCheckpointDao).markAsCompleted(payoutId);
         verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
     }
 
@@ -192,7 +223,7 @@ class PayoutReconcileProcessTest {
 
         payoutReconcileProcess.processPayouts();
 
-        verify(eventService, never()).emitEvent(any(), anyBoolean());
+        verify(eventService, never()).emitEvents(any(), anyBoolean());
         verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
     }
 
@@ -212,12 +243,13 @@ class PayoutReconcileProcessTest {
         PayoutReconcileMessage payoutReconcileMessage = setupQueueMessage();
         when(connectorConfiguration.getEmitPayoutEvents()).thenReturn(true);
 
-        doThrow(new QueueException()).when(eventService).emitEvent(any(), anyBoolean());
+        doThrow(new QueueException()).when(eventService).emitEvents(any(), anyBoolean());
 
         payoutReconcileProcess.processPayouts();
 
         verify(logAppender).doAppend(loggingEventArgumentCaptor.capture());
-        assertThat(loggingEventArgumentCaptor.getValue().getFormattedMessage(), containsString("Error sending PAYMENT_INCLUDED_IN_PAYOUT event"));
+        assertThat(loggingEventArgumentCaptor.getValue().getFormattedMessage(), containsString("Error sending PAYMENT_INCLUDED_IN_PAYOUT"));
+        verify(payoutReconcileCheckpointDao, never()).saveProgress(any(), any(), any(), anyInt(), anyInt());
         verify(payoutReconcileQueue, never()).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
     }
 
@@ -277,11 +309,101 @@ class PayoutReconcileProcessTest {
         payoutReconcileProcess.processPayouts();
 
         var refundEvent = new RefundIncludedInPayout(refundExternalId, payoutId, payoutCreatedDate.toInstant());
-        verify(eventService).emitEvent(refundEvent, false);
+        verify(eventService).emitEvents(List.of(refundEvent), false);
+        verifyNoMoreInteractions(eventService);
+        verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
+    }
+
+    @Test
+    void shouldEmitEventsAndCheckpointEveryConfiguredNumberOfBalanceTransactions() throws Exception {
+        var paymentEvent = new PaymentIncludedInPayout(paymentExternalId, payoutId, payoutCreatedDate.toInstant());
+        var refundEvent = new RefundIncludedInPayout(refundExternalId, payoutId, payoutCreatedDate.toInstant());
+        var feeCollectionEvent = new PaymentIncludedInPayout(failedPaymentWithFeeExternalId, payoutId, payoutCreatedDate.toInstant());
+        var disputeEvent = new DisputeIncludedInPayout(disputeExternalId, payoutId, payoutCreatedDate.toInstant());
+        when(payoutReconcileProcessConfig.getBalanceTransactionsPerCheckpoint()).thenReturn(2);
+        payoutReconcileProcess = new PayoutReconcileProcess(payoutReconcileQueue, stripeSDKClient, connectorConfiguration,
+                gatewayAccountCredentialsService, eventService, payoutEmitterService, payoutReconcileCheckpointDao,
+                executorService);
+        PayoutReconcileMessage payoutReconcileMessage = setupQueueMessage();
+        when(connectorConfiguration.getEmitPayoutEvents()).thenReturn(true);
+
+        payoutReconcileProcess.processPayouts();
+
+        InOrder inOrder = inOrder(eventService, payoutReconcileCheckpointDao, payoutReconcileQueue);
+        inOrder.verify(eventService).emitEvents(List.of(paymentEvent, refundEvent), false);
+        inOrder.verify(payoutReconcileCheckpointDao).saveProgress(payoutId, stripeAccountId, "txn_refund", 1, 1);
+        inOrder.verify(eventService).emitEvents(List.of(feeCollectionEvent, disputeEvent), false);
+        inOrder.verify(payoutReconcileCheckpointDao).saveProgress(payoutId, stripeAccountId, "txn_dispute", 1, 3);
+        inOrder.verify(payoutReconcileCheckpointDao).saveProgress(payoutId, stripeAccountId, "txn_payout", 1, 3);
+        inOrder.verify(payoutReconcileCheckpointDao).markAsCompleted(payoutId);
+        inOrder.verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @Test
+    void shouldResumeFromCheckpointWhenPayoutWasPartiallyReconciled() throws Exception {
+        PayoutReconcileMessage payoutReconcileMessage = setupQueueMessage();
+        when(payoutReconcileCheckpointDao.findByGatewayPayoutId(payoutId)).thenReturn(Optional.of(
+                new PayoutReconcileCheckpointEntity(payoutId, stripeAccountId, "txn_payment", 1, 0, Instant.now())));
+        BalanceTransaction refundBalanceTransaction = mock(BalanceTransaction.class);
+        Transfer refundTransferSource = mock(Transfer.class);
+        when(refundBalanceTransaction.getId()).thenReturn("txn_refund");
+        when(refundBalanceTransaction.getType()).thenReturn("transfer");
+        when(refundBalanceTransaction.getSourceObject()).thenReturn(refundTransferSource);
+        when(refundTransferSource.getMetadata()).thenReturn(Map.of(
+                GOVUK_PAY_TRANSACTION_EXTERNAL_ID, refundExternalId,
+                REASON_KEY, TRANSFER_REFUND_AMOUNT.toString()));
+        when(stripeSDKClient.getBalanceTransactionsForPayout(payoutId, stripeAccountId, false, "txn_payment"))
+                .thenReturn(List.of(refundBalanceTransaction));
+        when(connectorConfiguration.getEmitPayoutEvents()).thenReturn(true);
+
+        payoutReconcileProcess.processPayouts();
+
+        var refundEvent = new RefundIncludedInPayout(refundExternalId, payoutId, payoutCreatedDate.toInstant());
+        verify(eventService).emitEvents(List.of(refundEvent), false);
         verifyNoMoreInteractions(eventService);
+        verify(stripeSDKClient, never()).getBalanceTransactionsForPayout(payoutId, stripeAccountId, false);
+        verify(payoutReconcileCheckpointDao).saveProgress(payoutId, stripeAccountId, "txn_refund", 1, 1);
         verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
     }
 
+    @Test
+    void shouldOnlyMarkMessageAsProcessedIfPayoutHasAlreadyBeenReconciled() throws Exception {
+        PayoutReconcileMessage payoutReconcileMessage = setupQueueMessage();
+        PayoutReconcileCheckpointEntity completedCheckpoint = mock(PayoutReconcileCheckpointEntity.class);
+        when(completedCheckpoint.isCompleted()).thenReturn(true);
+        when(payoutReconcileCheckpointDao.findByGatewayPayoutId(payoutId)).thenReturn(Optional.of(completedCheckpoint));
+
+        payoutReconcileProcess.processPayouts();
+
+        verify(stripeSDKClient, never()).getBalanceTransactionsForPayout(anyString(), anyString(), anyBoolean());
+        verify(stripeSDKClient, never()).getBalanceTransactionsForPayout(anyString(), anyString(), anyBoolean(), anyString());
+        verify(eventService, never()).emitEvents(any(), anyBoolean());
+        verify(payoutReconcileQueue).markMessageAsProcessed(payoutReconcileMessage.getQueueMessage());
+    }
+
+    @Test
+    void shouldProcessPayoutsFromTheSameBatchConcurrently() throws Exception {
+        String otherPayoutId = "po_other";
+        QueueMessage mockQueueMessage = mock(QueueMessage.class);
+        QueueMessage otherMockQueueMessage = mock(QueueMessage.class);
+        when(payoutReconcileQueue.retrievePayoutMessages()).thenReturn(List.of(
+                PayoutReconcileMessage.of(new Payout(payoutId, stripeAccountId, payoutCreatedDate), mockQueueMessage),
+                PayoutReconcileMessage.of(new Payout(otherPayoutId, stripeAccountId, payoutCreatedDate), otherMockQueueMessage)));
+        CountDownLatch bothPayoutsStarted = new CountDownLatch(2);
+        Iterable<BalanceTransaction> balanceTransactions = stripeSDKClient.getBalanceTransactionsForPayout(payoutId, stripeAccountId, false);
+        when(stripeSDKClient.getBalanceTransactionsForPayout(anyString(), eq(stripeAccountId), eq(false))).thenAnswer(invocation -> {
+            bothPayoutsStarted.countDown();
+            assertThat(bothPayoutsStarted.await(5, TimeUnit.SECONDS), is(true));
+            return balanceTransactions;
+        });
+
+        payoutReconcileProcess.processPayouts();
+
+        verify(payoutReconcileQueue).markMessageAsProcessed(mockQueueMessage);
+        verify(payoutReconcileQueue).markMessageAsProcessed(otherMockQueueMessage);
+    }
+
     private PayoutReconcileMessage setupQueueMessage() throws QueueException {
         Payout payout = new Payout(payoutId, stripeAccountId, payoutCreatedDate);
         QueueMessage mockQueueMessage = mock(QueueMessage.class);
@@ -294,6 +416,7 @@ class PayoutReconcileProcessTest {
         BalanceTransaction paymentBalanceTransaction = mock(BalanceTransaction.class);
         Charge paymentSource = mock(Charge.class);
         Transfer paymentTransferSource = mock(Transfer.class);
+        lenient().when(paymentBalanceTransaction.getId()).thenReturn("txn_payment");
         lenient().when(paymentBalanceTransaction.getType()).thenReturn("payment");
         lenient().when(paymentBalanceTransaction.getSourceObject()).thenReturn(paymentSource);
         lenient().when(paymentSource.getSourceTransferObject()).thenReturn(paymentTransferSource);
@@ -301,6 +424,7 @@ class PayoutReconcileProcessTest {
 
         BalanceTransaction refundBalanceTransaction = mock(BalanceTransaction.class);
         Transfer refundTransferSource = mock(Transfer.class);
+        lenient().when(refundBalanceTransaction.getId()).thenReturn("txn_refund");
         lenient().when(refundBalanceTransaction.getType()).thenReturn("transfer");
         lenient().when(refundBalanceTransaction.getSourceObject()).thenReturn(refundTransferSource);
         lenient().when(refundTransferSource.getMetadata()).thenReturn(Map.of(
@@ -310,6 +434,7 @@ class PayoutReconcileProcessTest {
 
         BalanceTransaction feeBalanceTransaction = mock(BalanceTransaction.class);
         Transfer feeTransferSource = mock(Transfer.class);
+        lenient().when(feeBalanceTransaction.getId()).thenReturn("txn_fee");
         lenient().when(feeBalanceTransaction.getType()).thenReturn("transfer");
         lenient().when(feeBalanceTransaction.getSourceObject()).thenReturn(feeTransferSource);
         lenient().when(feeTransferSource.getMetadata()).thenReturn(Map.of(
@@ -319,6 +444,7 @@ class PayoutReconcileProcessTest {
 
         BalanceTransaction disputeBalanceTransaction = mock(BalanceTransaction.class);
         Transfer disputeTransferSource = mock(Transfer.class);
+        lenient().when(disputeBalanceTransaction.getId()).thenReturn("txn_dispute");
         lenient().when(disputeBalanceTransaction.getType()).thenReturn("transfer");
         lenient().when(disputeBalanceTransaction.getSourceObject()).thenReturn(disputeTransferSource);
         lenient().when(disputeTransferSource.getMetadata()).thenReturn(Map.of(
@@ -342,6 +468,7 @@ class PayoutReconcileProcessTest {
             when(payoutSource.getFailureBalanceTransaction()).thenReturn("ba_1GkZtqDv3CZEaFO2CQhLrluk");
         }
 
+        lenient().when(payoutBalanceTransaction.getId()).thenReturn("txn_payout");
         lenient().when(payoutBalanceTransaction.getType()).thenReturn("payout");
         lenient().when(payoutBalanceTransaction.getSourceObject()).thenReturn(payoutSource);
 
@@ -351,7 +478,7 @@ class PayoutReconcileProcessTest {
                 feeBalanceTransaction,
                 disputeBalanceTransaction,
                 payoutBalanceTransaction);
-        when(stripeSDKClient.getBalanceTransactionsForPayout(payoutId, stripeAccountId, false))
+        lenient().when(stripeSDKClient.getBalanceTransactionsForPayout(payoutId, stripeAccountId, false))
                 .thenReturn(balanceTransactions);
     }
 }
@@ -14,6 +14,7 @@ import uk.gov.pay.connector.charge.model.domain.Charge;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.common.dao.AfterCommit;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.model.ResourceType;
 import uk.gov.pay.connector.events.model.charge.PaymentStarted;
@@ -31,11 +32,16 @@ import java.time.ZonedDateTime;
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.now;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -59,6 +65,8 @@ class StateTransitionServiceTest {
     @Mock
     EventService mockEventService;
     @Mock
+    AfterCommit afterCommit;
+    @Mock
     Environment environment;
     @Mock
     MetricRegistry metricRegistry;
@@ -70,13 +78,17 @@ class StateTransitionServiceTest {
     @BeforeEach
     void setUp() {
         when(environment.metrics()).thenReturn(metricRegistry);
-        stateTransitionService = new StateTransitionService(mockStateTransitionQueue, mockEventService, environment);
+        when(metricRegistry.counter(anyString())).thenReturn(counter);
+        when(metricRegistry.meter(anyString())).thenReturn(meter);
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(afterCommit).run(any(Runnable.class));
+        stateTransitionService = new StateTransitionService(mockStateTransitionQueue, mockEventService, afterCommit, environment);
     }
 
     @Test
     void shouldOfferPaymentStateTransitionMessageForAValidStateTransitionIntoNonLockingState() {
-        when(metricRegistry.counter(anyString())).thenReturn(counter);
-        when(metricRegistry.meter(anyString())).thenReturn(meter);
         ChargeEventEntity chargeEvent = aValidChargeEventEntity()
                 .withId(100L)
                 .build();
@@ -88,9 +100,49 @@ class StateTransitionServiceTest {
         assertThat(paymentStateTransitionArgumentCaptor.getValue().getChargeEventId(), is(100L));
         assertThat(paymentStateTransitionArgumentCaptor.getValue().getStateTransitionEventClass(), is(PaymentStarted.class));
 
+        verify(counter).inc();
+        verify(meter).mark();
         verify(mockEventService).recordOfferedEvent(PAYMENT, "external-id", "PAYMENT_STARTED", chargeEvent.getUpdated().toInstant());
     }
 
+    @Test
+    void shouldRecordPaymentEventInTransactionAndOfferTransitionOnlyAfterCommit() {
+        ChargeEventEntity chargeEvent = aValidChargeEventEntity()
+                .withId(100L)
+                .build();
+        ArgumentCaptor<Runnable> afterCommitAction = ArgumentCaptor.forClass(Runnable.class);
+        doNothing().when(afterCommit).run(afterCommitAction.capture());
+
+        stateTransitionService.offerPaymentStateTransition("external-id", ChargeStatus.CREATED, ENTERING_CARD_DETAILS, chargeEvent);
+
+        verify(mockEventService).recordOfferedEvent(PAYMENT, "external-id", "PAYMENT_STARTED", chargeEvent.getUpdated().toInstant());
+        verify(mockStateTransitionQueue, never()).offer(any(PaymentStateTransition.class));
+
+        afterCommitAction.getValue().run();
+
+        verify(mockStateTransitionQueue).offer(any(PaymentStateTransition.class));
+    }
+
+    @Test
+    void shouldPreCreateStateTransitionMetricsAndIncrementThemOncePerTransition() {
+        MetricRegistry realMetricRegistry = new MetricRegistry();
+        when(environment.metrics()).thenReturn(realMetricRegistry);
+        stateTransitionService = new StateTransitionService(mockStateTransitionQueue, mockEventService, afterCommit, environment);
+
+        String metricName = "state-transition.test.sandbox.to.ENTERING CARD DETAILS";
+        assertThat(realMetricRegistry.getCounters(), hasKey(metricName));
+        assertThat(realMetricRegistry.getCounters(), hasKey("state-transition.live.worldpay.to.AUTHORISATION SUCCESS"));
+        assertThat(realMetricRegistry.getMeters(), hasKey("state-transition.live.stripe.to.CAPTURED.rate"));
+
+        ChargeEventEntity chargeEvent = aValidChargeEventEntity()
+                .withId(100L)
+                .build();
+        stateTransitionService.offerPaymentStateTransition("external-id", ChargeStatus.CREATED, ENTERING_CARD_DETAILS, chargeEvent);
+
+        assertThat(realMetricRegistry.counter(metricName).getCount(), is(1L));
+        assertThat(realMetricRegistry.meter(metricName + ".rate").getCount(), is(1L));
+    }
+
     @Test
     void shouldNotOfferStateTransitionMessageForAValidStateTransitionIntoLockingState() {
         ChargeEventEntity chargeEvent = mock(ChargeEventEntity.class);
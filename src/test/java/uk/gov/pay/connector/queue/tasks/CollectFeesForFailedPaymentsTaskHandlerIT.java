@@ -20,6 +20,7 @@ import uk.gov.pay.connector.util.RandomIdGenerator;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.commons.lang.math.RandomUtils.nextInt;
 import static org.apache.commons.lang.math.RandomUtils.nextLong;
@@ -28,6 +29,7 @@ import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static uk.gov.pay.connector.gateway.PaymentGatewayName.STRIPE;
 import static uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialState.ACTIVE;
 import static uk.gov.pay.connector.util.AddChargeParams.AddChargeParamsBuilder.anAddChargeParams;
@@ -100,7 +102,9 @@ public class CollectFeesForFailedPaymentsTaskHandlerIT {
         stripeMockClient.mockTransferSuccess();
 
         CollectFeesForFailedPaymentsTaskHandler taskHandler = testContext.getInstanceFromGuiceContainer(CollectFeesForFailedPaymentsTaskHandler.class);
-        taskHandler.collectAndPersistFees(paymentTaskData);
+        Set<String> collected = taskHandler.collectAndPersistFees(List.of(paymentTaskData));
+
+        assertThat(collected, is(Set.of(chargeExternalId)));
 
         List<Map<String, Object>> fees = databaseTestHelper.getFeesByChargeId(chargeId);
         assertThat(fees, hasSize(2));
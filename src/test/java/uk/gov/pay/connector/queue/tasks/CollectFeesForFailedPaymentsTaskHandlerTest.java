@@ -1,5 +1,6 @@
 package uk.gov.pay.connector.queue.tasks;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,9 +12,10 @@ import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.events.EventService;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.eventdetails.charge.FeeIncurredEventDetails;
-import uk.gov.pay.connector.events.model.charge.FeeIncurredEvent;
 import uk.gov.pay.connector.fee.model.Fee;
+import uk.gov.pay.connector.gateway.GatewayException;
 import uk.gov.pay.connector.gateway.stripe.StripePaymentProvider;
 import uk.gov.pay.connector.queue.tasks.handlers.CollectFeesForFailedPaymentsTaskHandler;
 import uk.gov.pay.connector.queue.tasks.model.PaymentTaskData;
@@ -22,19 +24,36 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture.aValidChargeEntity;
 import static uk.gov.pay.connector.charge.model.domain.FeeType.RADAR;
 import static uk.gov.pay.connector.charge.model.domain.FeeType.THREE_D_S;
+import static uk.gov.pay.connector.gatewayaccountcredentials.model.GatewayAccountCredentialsEntityFixture.aGatewayAccountCredentialsEntity;
 
 @ExtendWith(MockitoExtension.class)
 class CollectFeesForFailedPaymentsTaskHandlerTest {
@@ -49,7 +68,7 @@ class CollectFeesForFailedPaymentsTaskHandlerTest {
     private EventService eventService;
 
     @Captor
-    private ArgumentCaptor<FeeIncurredEvent> feeIncurredEventArgumentCaptor;
+    private ArgumentCaptor<List<Event>> eventsArgumentCaptor;
 
     private static final Clock clock = Clock.fixed(Instant.parse("2020-01-01T10:10:10.100Z"), ZoneOffset.UTC);
 
@@ -58,14 +77,19 @@ class CollectFeesForFailedPaymentsTaskHandlerTest {
     private final ChargeEntity charge = aValidChargeEntity()
             .withExternalId(chargeExternalId)
             .withStatus(ChargeStatus.EXPIRED)
+            .withGatewayAccountCredentialsEntity(aGatewayAccountCredentialsEntity()
+                    .withPaymentProvider("stripe")
+                    .withCredentials(Map.of("stripe_account_id", "acct_1"))
+                    .build())
             .build();
     
     private CollectFeesForFailedPaymentsTaskHandler collectFeesForFailedPaymentsTaskHandler;
 
     @BeforeEach
     void setUp() {
-        collectFeesForFailedPaymentsTaskHandler = new CollectFeesForFailedPaymentsTaskHandler(stripePaymentProvider, chargeService, eventService, clock);
-        when(chargeService.findChargeByExternalId(chargeExternalId)).thenReturn(charge);
+        collectFeesForFailedPaymentsTaskHandler = new CollectFeesForFailedPaymentsTaskHandler(stripePaymentProvider,
+                chargeService, eventService, MoreExecutors.newDirectExecutorService(), 2, clock);
+        lenient().when(chargeService.findChargeByExternalId(chargeExternalId)).thenReturn(charge);
     }
 
     @Test
@@ -78,8 +102,9 @@ class CollectFeesForFailedPaymentsTaskHandlerTest {
         );
         when(stripePaymentProvider.calculateAndTransferFeesForFailedPayments(charge)).thenReturn(fees);
         
-        collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(paymentTaskData);
-        
+        Set<String> collected = collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(List.of(paymentTaskData));
+
+        assertThat(collected, is(Set.of(chargeExternalId)));
         assertThat(charge.getFees(), hasSize(2));
         assertThat(charge.getFees(), containsInAnyOrder(
                 allOf(
@@ -95,10 +120,99 @@ class CollectFeesForFailedPaymentsTaskHandlerTest {
         ));
         assertThat(charge.getNetAmount(), is(Optional.of(-13L)));
 
-        verify(eventService).emitAndRecordEvent(feeIncurredEventArgumentCaptor.capture());
-        FeeIncurredEventDetails eventDetails = (FeeIncurredEventDetails) feeIncurredEventArgumentCaptor.getValue().getEventDetails();
+        verify(eventService).emitAndRecordEvents(eventsArgumentCaptor.capture());
+        assertThat(eventsArgumentCaptor.getValue(), hasSize(1));
+        FeeIncurredEventDetails eventDetails = (FeeIncurredEventDetails) eventsArgumentCaptor.getValue().get(0).getEventDetails();
         assertThat(eventDetails.getFee(), is(13L));
         assertThat(eventDetails.getNetAmount(), is(-13L));
         assertThat(eventDetails.getFeeBreakdown(), is(fees));
     }
+
+    @Test
+    void shouldCollectFeesForBatchAndEmitEventsTogether() throws Exception {
+        ChargeEntity firstCharge = aStripeCharge("first-charge-external-id", "acct_1");
+        ChargeEntity secondCharge = aStripeCharge("second-charge-external-id", "acct_1");
+        ChargeEntity otherAccountCharge = aStripeCharge("other-account-charge-external-id", "acct_2");
+        when(stripePaymentProvider.calculateAndTransferFeesForFailedPayments(firstCharge)).thenReturn(List.of(Fee.of(RADAR, 6L)));
+        when(stripePaymentProvider.calculateAndTransferFeesForFailedPayments(secondCharge))
+                .thenThrow(new GatewayException.GatewayConnectionTimeoutException("Stripe timed out"));
+        when(stripePaymentProvider.calculateAndTransferFeesForFailedPayments(otherAccountCharge))
+                .thenReturn(List.of(Fee.of(RADAR, 6L), Fee.of(THREE_D_S, 7L)));
+
+        Set<String> collected = collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(List.of(
+                new PaymentTaskData("first-charge-external-id"),
+                new PaymentTaskData("second-charge-external-id"),
+                new PaymentTaskData("other-account-charge-external-id")));
+
+        assertThat(collected, is(Set.of("first-charge-external-id", "other-account-charge-external-id")));
+        assertThat(firstCharge.getFees(), hasSize(1));
+        assertThat(secondCharge.getFees(), is(empty()));
+        assertThat(otherAccountCharge.getNetAmount(), is(Optional.of(-13L)));
+
+        verify(eventService).emitAndRecordEvents(eventsArgumentCaptor.capture());
+        assertThat(eventsArgumentCaptor.getValue(), hasSize(2));
+        assertThat(eventsArgumentCaptor.getValue(), containsInAnyOrder(
+                hasProperty("resourceExternalId", is("first-charge-external-id")),
+                hasProperty("resourceExternalId", is("other-account-charge-external-id"))
+        ));
+    }
+
+    @Test
+    void shouldNotRunMoreTransfersForAConnectAccountThanTheLimit() throws Exception {
+        ExecutorService transferExecutor = Executors.newFixedThreadPool(4);
+        collectFeesForFailedPaymentsTaskHandler = new CollectFeesForFailedPaymentsTaskHandler(stripePaymentProvider,
+                chargeService, eventService, transferExecutor, 2, clock);
+        AtomicInteger runningTransfers = new AtomicInteger();
+        AtomicInteger maximumRunningTransfers = new AtomicInteger();
+        doAnswer(invocation -> {
+            maximumRunningTransfers.accumulateAndGet(runningTransfers.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            runningTransfers.decrementAndGet();
+            return List.of(Fee.of(RADAR, 6L));
+        }).when(stripePaymentProvider).calculateAndTransferFeesForFailedPayments(any(ChargeEntity.class));
+        List<PaymentTaskData> paymentTasks = List.of("a", "b", "c", "d", "e").stream()
+                .map(externalId -> {
+                    aStripeCharge(externalId, "acct_1");
+                    return new PaymentTaskData(externalId);
+                })
+                .collect(toList());
+
+        try {
+            Set<String> collected = collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(paymentTasks);
+            assertThat(collected, hasSize(5));
+        } finally {
+            transferExecutor.shutdown();
+            transferExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(maximumRunningTransfers.get(), is(lessThanOrEqualTo(2)));
+    }
+
+    @Test
+    void shouldLoadChargeEventsBeforeHandingChargesToTransferLanes() {
+        ExecutorService transferExecutor = mock(ExecutorService.class);
+        doReturn(CompletableFuture.completedFuture(null)).when(transferExecutor).submit(any(Runnable.class));
+        collectFeesForFailedPaymentsTaskHandler = new CollectFeesForFailedPaymentsTaskHandler(stripePaymentProvider,
+                chargeService, eventService, transferExecutor, 2, clock);
+        ChargeEntity stripeCharge = spy(aStripeCharge("a-stripe-charge-external-id", "acct_1"));
+        when(chargeService.findChargeByExternalId("a-stripe-charge-external-id")).thenReturn(stripeCharge);
+
+        collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(List.of(new PaymentTaskData("a-stripe-charge-external-id")));
+
+        verify(stripeCharge).getEvents();
+        verify(transferExecutor).submit(any(Runnable.class));
+    }
+
+    private ChargeEntity aStripeCharge(String externalId, String stripeAccountId) {
+        ChargeEntity stripeCharge = aValidChargeEntity()
+                .withExternalId(externalId)
+                .withStatus(ChargeStatus.EXPIRED)
+                .withGatewayAccountCredentialsEntity(aGatewayAccountCredentialsEntity()
+                        .withPaymentProvider("stripe")
+                        .withCredentials(Map.of("stripe_account_id", stripeAccountId))
+                        .build())
+                .build();
+        lenient().when(chargeService.findChargeByExternalId(externalId)).thenReturn(stripeCharge);
+        return stripeCharge;
+    }
 }
@@ -7,12 +7,14 @@ import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.hamcrest.core.Is;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
@@ -25,6 +27,7 @@ import uk.gov.pay.connector.client.ledger.model.LedgerTransaction;
 import uk.gov.pay.connector.client.ledger.service.LedgerService;
 import uk.gov.pay.connector.common.model.api.ExternalChargeRefundAvailability;
 import uk.gov.pay.connector.events.EventService;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.eventdetails.dispute.DisputeEvidenceSubmittedEventDetails;
 import uk.gov.pay.connector.events.eventdetails.dispute.DisputeLostEventDetails;
 import uk.gov.pay.connector.events.model.ResourceType;
@@ -47,21 +50,27 @@ import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCred
 import uk.gov.pay.connector.queue.tasks.handlers.StripeWebhookTaskHandler;
 import uk.gov.pay.connector.util.RandomIdGenerator;
 import uk.gov.pay.connector.util.TestTemplateResourceLoader;
+import uk.gov.pay.connector.webhook.dao.ProcessedStripeNotificationDao;
 
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -93,6 +102,8 @@ public class StripeWebhookTaskHandlerTest {
     @Mock
     private GatewayAccountCredentialsService gatewayAccountCredentialsService;
     @Mock
+    private ProcessedStripeNotificationDao processedStripeNotificationDao;
+    @Mock
     private ConnectorConfiguration configuration;
     @Mock
     private StripeGatewayConfig stripeGatewayConfig;
@@ -118,7 +129,8 @@ public class StripeWebhookTaskHandlerTest {
         payload = TestTemplateResourceLoader.load(STRIPE_NOTIFICATION_CHARGE_DISPUTE);
         when(configuration.getStripeConfig()).thenReturn(stripeGatewayConfig);
         stripeWebhookTaskHandler = new StripeWebhookTaskHandler(ledgerService, chargeService, eventService, stripePaymentProvider,
-                gatewayAccountService, gatewayAccountCredentialsService, configuration, clock);
+                gatewayAccountService, gatewayAccountCredentialsService, processedStripeNotificationDao, configuration,
+                MoreExecutors.newDirectExecutorService(), clock, new ObjectMapper());
     }
 
     @Test
@@ -603,6 +615,95 @@ public class StripeWebhookTaskHandlerTest {
         assertThat(thrown.getMessage(), is("Card details are not yet available on ledger transaction to submit test evidence"));
     }
 
+    @Test
+    void shouldLookUpLedgerTransactionOnceAndEmitEventsTogetherForBurstOfNotifications() throws Exception {
+        LedgerTransaction transaction = buildTransaction(true);
+        StripeNotification disputeUpdated = getDisputeNotification("charge.dispute.updated", "under_review", true, "evt_updated");
+        StripeNotification disputeCreated = getDisputeNotification("charge.dispute.created", "needs_response", true, "evt_created");
+        when(ledgerService.getTransactionForProviderAndGatewayTransactionId("stripe", "pi_1111111111"))
+                .thenReturn(Optional.of(transaction));
+
+        Set<String> processed = stripeWebhookTaskHandler.process(List.of(disputeCreated, disputeUpdated));
+
+        assertThat(processed, is(Set.of("evt_created", "evt_updated")));
+        verify(ledgerService, times(1)).getTransactionForProviderAndGatewayTransactionId(any(), any());
+        ArgumentCaptor<List<Event>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(eventService).emitEvents(eventsCaptor.capture(), eq(true));
+        assertThat(eventsCaptor.getValue().stream().map(Event::getEventType).collect(toList()),
+                contains("DISPUTE_CREATED", "PAYMENT_DISPUTED", "REFUND_AVAILABILITY_UPDATED", "DISPUTE_EVIDENCE_SUBMITTED"));
+        verify(eventService, never()).emitEvent(any(Event.class));
+        verify(processedStripeNotificationDao).markAsProcessed(Set.of("evt_created", "evt_updated"));
+    }
+
+    @Test
+    void shouldLeaveOutFailedNotificationAndStillEmitEventsOfOthersInBurst() throws Exception {
+        LedgerTransaction transaction = buildTransaction(true);
+        StripeNotification disputeCreated = getDisputeNotification("charge.dispute.created", "needs_response", true, "evt_created");
+        StripeNotification unknownPayment = objectMapper.readValue(payload
+                .replace(PLACEHOLDER_TYPE, "charge.dispute.created")
+                .replace(PLACEHOLDER_STATUS, "needs_response")
+                .replace("evt_00000000000000", "evt_unknown_payment")
+                .replace("pi_1111111111", "pi_unknown"), StripeNotification.class);
+        when(ledgerService.getTransactionForProviderAndGatewayTransactionId("stripe", "pi_1111111111"))
+                .thenReturn(Optional.of(transaction));
+        when(ledgerService.getTransactionForProviderAndGatewayTransactionId("stripe", "pi_unknown"))
+                .thenReturn(Optional.empty());
+
+        Set<String> processed = stripeWebhookTaskHandler.process(List.of(unknownPayment, disputeCreated));
+
+        assertThat(processed, is(Set.of("evt_created")));
+        ArgumentCaptor<List<Event>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(eventService).emitEvents(eventsCaptor.capture(), eq(true));
+        assertThat(eventsCaptor.getValue().size(), is(3));
+        verify(processedStripeNotificationDao).markAsProcessed(Set.of("evt_created"));
+    }
+
+    @Test
+    void shouldSkipNotificationThatHasAlreadyBeenProcessed() throws Exception {
+        StripeNotification stripeNotification = getDisputeNotification("charge.dispute.created", "needs_response", true);
+        when(processedStripeNotificationDao.findProcessed(Set.of("evt_00000000000000"))).thenReturn(Set.of("evt_00000000000000"));
+
+        stripeWebhookTaskHandler.process(stripeNotification);
+        Set<String> processed = stripeWebhookTaskHandler.process(List.of(stripeNotification));
+
+        assertThat(processed, is(Set.of("evt_00000000000000")));
+        verifyNoInteractions(ledgerService, eventService);
+        verify(processedStripeNotificationDao, never()).markAsProcessed(any());
+    }
+
+    @Test
+    void shouldRecordNotificationAsProcessedAfterEmittingItsEvents() throws Exception {
+        when(ledgerService.getTransactionForProviderAndGatewayTransactionId(any(), any()))
+                .thenReturn(Optional.of(buildTransaction(true)));
+        StripeNotification stripeNotification = getDisputeNotification("charge.dispute.created", "needs_response", true);
+
+        stripeWebhookTaskHandler.process(stripeNotification);
+
+        InOrder inOrder = inOrder(eventService, processedStripeNotificationDao);
+        inOrder.verify(eventService, times(3)).emitEvent(any(Event.class));
+        inOrder.verify(processedStripeNotificationDao).markAsProcessed(Set.of("evt_00000000000000"));
+    }
+
+    @Test
+    void shouldResolveGatewayAccountOnceForLostDisputesInBurst() throws Exception {
+        LedgerTransaction transaction = buildTransaction(true);
+        Charge charge = Charge.from(transaction);
+        GatewayAccountEntity gatewayAccount = aGatewayAccountEntity().withId(gatewayAccountId).build();
+        GatewayAccountCredentialsEntity gatewayAccountCredentials = aGatewayAccountCredentialsEntity().build();
+        when(stripeGatewayConfig.getRechargeServicesForLivePaymentDisputesFromDate()).thenReturn(Instant.ofEpochSecond(1259539200));
+        when(ledgerService.getTransactionForProviderAndGatewayTransactionId(any(), any())).thenReturn(Optional.of(transaction));
+        when(gatewayAccountService.getGatewayAccount(gatewayAccountId)).thenReturn(Optional.of(gatewayAccount));
+        when(gatewayAccountCredentialsService.findCredentialFromCharge(charge, gatewayAccount)).thenReturn(Optional.of(gatewayAccountCredentials));
+
+        Set<String> processed = stripeWebhookTaskHandler.process(List.of(
+                getDisputeNotification("charge.dispute.closed", "lost", true, "evt_first"),
+                getDisputeNotification("charge.dispute.closed", "lost", true, "evt_second")));
+
+        assertThat(processed, is(Set.of("evt_first", "evt_second")));
+        verify(gatewayAccountService, times(1)).getGatewayAccount(gatewayAccountId);
+        verify(stripePaymentProvider, times(2)).transferDisputeAmount(any(), any(), any(), any());
+    }
+
     private LedgerTransaction buildTransaction(boolean live) {
         return aValidLedgerTransaction()
                 .withExternalId("external-id")
@@ -624,4 +725,16 @@ public class StripeWebhookTaskHandlerTest {
         }
         return objectMapper.readValue(finalPayload, StripeNotification.class);
     }
+
+    private StripeNotification getDisputeNotification(String webhookType, String status, boolean liveStripeAccount,
+                                                      String notificationId) throws JsonProcessingException {
+        String finalPayload = payload
+                .replace(PLACEHOLDER_TYPE, webhookType)
+                .replace(PLACEHOLDER_STATUS, status)
+                .replace("evt_00000000000000", notificationId);
+        if (!liveStripeAccount) {
+            finalPayload = finalPayload.replaceAll("\"livemode\": true", "\"livemode\": false");
+        }
+        return objectMapper.readValue(finalPayload, StripeNotification.class);
+    }
 }
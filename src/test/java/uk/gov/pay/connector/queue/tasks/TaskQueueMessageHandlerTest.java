@@ -6,15 +6,21 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.config.TaskQueueConfig;
+import uk.gov.pay.connector.app.config.TaskTypeConfig;
 import uk.gov.pay.connector.gateway.GatewayException;
 import uk.gov.pay.connector.gateway.stripe.response.StripeNotification;
 import uk.gov.pay.connector.queue.tasks.handlers.AuthoriseWithUserNotPresentHandler;
@@ -26,15 +32,35 @@ import uk.gov.pay.connector.queue.tasks.model.Task;
 import uk.gov.service.payments.commons.queue.exception.QueueException;
 import uk.gov.service.payments.commons.queue.model.QueueMessage;
 
+import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 
 @ExtendWith(MockitoExtension.class)
 class TaskQueueMessageHandlerTest {
@@ -65,6 +91,14 @@ class TaskQueueMessageHandlerTest {
     
     private final String chargeExternalId = "a-charge-external-id";
 
+    private final TaskQueueConfig taskQueueConfig = new TaskQueueConfig();
+
+    private final ScheduledExecutorService visibilityTimeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2023-10-01T10:15:30Z"), ZoneOffset.UTC);
+
     @BeforeEach
     public void setup() {
         taskQueueMessageHandler = new TaskQueueMessageHandler(
@@ -73,26 +107,44 @@ class TaskQueueMessageHandlerTest {
                 stripeWebhookTaskHandler,
                 authoriseWithUserNotPresentHandler,
                 deleteStoredPaymentDetailsHandler,
-                objectMapper);
+                objectMapper,
+                taskQueueConfig,
+                MoreExecutors.newDirectExecutorService(),
+                visibilityTimeoutExecutor,
+                metricRegistry,
+                clock);
 
         Logger logger = (Logger) LoggerFactory.getLogger(TaskQueueMessageHandler.class);
         logger.setLevel(Level.INFO);
         logger.addAppender(mockAppender);
     }
 
+    @AfterEach
+    public void tearDown() {
+        visibilityTimeoutExecutor.shutdownNow();
+    }
+
     @Test
     public void shouldProcessNewCollectFeeTask() throws Exception {
         var paymentTaskData = new PaymentTaskData(chargeExternalId);
         String data = objectMapper.writeValueAsString(paymentTaskData);
         TaskMessage taskMessage = setupQueueMessage(data, TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
+        when(collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(List.of(paymentTaskData))).thenReturn(Set.of(chargeExternalId));
+        // Capture the MDC when each event is logged rather than when it is asserted on
+        doAnswer(invocation -> {
+            invocation.getArgument(0, ILoggingEvent.class).prepareForDeferredProcessing();
+            return null;
+        }).when(mockAppender).doAppend(any());
         taskQueueMessageHandler.processMessages();
-        verify(collectFeesForFailedPaymentsTaskHandler).collectAndPersistFees(paymentTaskData);
-        verify(taskQueue).markMessageAsProcessed(taskMessage.getQueueMessage());
+        verify(collectFeesForFailedPaymentsTaskHandler).collectAndPersistFees(List.of(paymentTaskData));
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
 
         verify(mockAppender, times(3)).doAppend(loggingEventArgumentCaptor.capture());
         List<LoggingEvent> loggingEvents = loggingEventArgumentCaptor.getAllValues();
         assertThat(loggingEvents.get(1).getFormattedMessage(), is("Processing [collect_fee_for_stripe_failed_payment] task."));
         assertThat(loggingEvents.get(2).getFormattedMessage(), is("Successfully processed [collect_fee_for_stripe_failed_payment] task."));
+        assertThat(loggingEvents.get(0).getMDCPropertyMap().get(PAYMENT_EXTERNAL_ID), is(chargeExternalId));
+        assertThat(loggingEvents.get(2).getMDCPropertyMap().get(PAYMENT_EXTERNAL_ID), is(chargeExternalId));
     }
 
     @Test
@@ -104,11 +156,12 @@ class TaskQueueMessageHandlerTest {
         when(taskQueue.retrieveTaskQueueMessages()).thenReturn(List.of(taskMessage));
         when(oldFormatTask.getPaymentExternalId()).thenReturn(chargeExternalId);
         when(oldFormatTask.getTaskType()).thenReturn(TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
+        var paymentTaskData = new PaymentTaskData(chargeExternalId);
+        when(collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(List.of(paymentTaskData))).thenReturn(Set.of(chargeExternalId));
         
         taskQueueMessageHandler.processMessages();
-        var paymentTaskData = new PaymentTaskData(chargeExternalId);
-        verify(collectFeesForFailedPaymentsTaskHandler).collectAndPersistFees(paymentTaskData);
-        verify(taskQueue).markMessageAsProcessed(taskMessage.getQueueMessage());
+        verify(collectFeesForFailedPaymentsTaskHandler).collectAndPersistFees(List.of(paymentTaskData));
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
 
         verify(mockAppender, times(3)).doAppend(loggingEventArgumentCaptor.capture());
         List<LoggingEvent> loggingEvents = loggingEventArgumentCaptor.getAllValues();
@@ -116,12 +169,40 @@ class TaskQueueMessageHandlerTest {
         assertThat(loggingEvents.get(2).getFormattedMessage(), is("Successfully processed [collect_fee_for_stripe_failed_payment] task."));
     }
 
+    @Test
+    public void shouldCollectFeesForReceivedPaymentsTogetherAndDeleteOnlyCollectedMessages() throws Exception {
+        TaskMessage firstMessage = taskMessage(objectMapper.writeValueAsString(new PaymentTaskData("first-charge-id")), TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
+        TaskMessage secondMessage = taskMessage(objectMapper.writeValueAsString(new PaymentTaskData("second-charge-id")), TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
+        TaskMessage duplicateMessage = taskMessage(objectMapper.writeValueAsString(new PaymentTaskData("first-charge-id")), TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
+        when(taskQueue.retrieveTaskQueueMessages()).thenReturn(List.of(firstMessage, secondMessage, duplicateMessage));
+        List<PaymentTaskData> paymentTasks = List.of(new PaymentTaskData("first-charge-id"), new PaymentTaskData("second-charge-id"));
+        when(collectFeesForFailedPaymentsTaskHandler.collectAndPersistFees(paymentTasks)).thenReturn(Set.of("first-charge-id"));
+
+        taskQueueMessageHandler.processMessages();
+
+        verify(collectFeesForFailedPaymentsTaskHandler).collectAndPersistFees(paymentTasks);
+        verify(taskQueue).markMessagesAsProcessed(List.of(firstMessage.getQueueMessage(), duplicateMessage.getQueueMessage()));
+        assertThat(metricRegistry.meter("task-queue.collect_fee_for_stripe_failed_payment.failed").getCount(), is(1L));
+        assertThat(metricRegistry.timer("task-queue.collect_fee_for_stripe_failed_payment.processing-time").getCount(), is(1L));
+    }
+
     @Test
     public void shouldProcessDisputeCreatedTask() throws Exception {
+        TaskMessage taskMessage = setupQueueMessage("{ \"id\": \"evt_123\", \"key\": \"value\"}", TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION);
+        when(stripeWebhookTaskHandler.process(anyList())).thenReturn(Set.of("evt_123"));
+        taskQueueMessageHandler.processMessages();
+        verify(stripeWebhookTaskHandler).process(argThat((List<StripeNotification> notifications) ->
+                notifications.size() == 1 && notifications.get(0).getId().equals("evt_123")));
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
+    }
+
+    @Test
+    public void shouldDeleteStripeWebhookNotificationWithoutIdAsInvalid() throws Exception {
         TaskMessage taskMessage = setupQueueMessage("{ \"key\": \"value\"}", TaskType.HANDLE_STRIPE_WEBHOOK_NOTIFICATION);
         taskQueueMessageHandler.processMessages();
-        verify(stripeWebhookTaskHandler).process(any(StripeNotification.class));
-        verify(taskQueue).markMessageAsProcessed(taskMessage.getQueueMessage());
+        verify(stripeWebhookTaskHandler, never()).process(anyList());
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
+        assertThat(metricRegistry.meter("task-queue.handle_stripe_webhook_notification.failed").getCount(), is(1L));
     }
 
     @Test
@@ -129,7 +210,7 @@ class TaskQueueMessageHandlerTest {
         TaskMessage taskMessage = setupQueueMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
         taskQueueMessageHandler.processMessages();
         verify(authoriseWithUserNotPresentHandler).process("external-charge-id");
-        verify(taskQueue).markMessageAsProcessed(taskMessage.getQueueMessage());
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
     }
 
     @Test
@@ -137,9 +218,153 @@ class TaskQueueMessageHandlerTest {
         TaskMessage taskMessage = setupQueueMessage("{ \"agreement_external_id\": \"external-agreement-id\", \"paymentInstrument_external_id\": \"external-paymentInstrument-id\"}", TaskType.DELETE_STORED_PAYMENT_DETAILS);
         taskQueueMessageHandler.processMessages();
         verify(deleteStoredPaymentDetailsHandler).process("external-agreement-id", "external-paymentInstrument-id");
-        verify(taskQueue).markMessageAsProcessed(taskMessage.getQueueMessage());
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
     }
     
+    @Test
+    public void shouldDispatchHigherPriorityTaskTypesFirst() throws Exception {
+        TaskQueueMessageHandler handler = handlerWithTaskTypes(Map.of(
+                "authorise_with_user_not_present", taskTypeConfig(1, 10)));
+        TaskMessage deleteMessage = taskMessage("{ \"agreement_external_id\": \"external-agreement-id\", \"paymentInstrument_external_id\": \"external-paymentInstrument-id\"}", TaskType.DELETE_STORED_PAYMENT_DETAILS);
+        TaskMessage authoriseMessage = taskMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+        when(taskQueue.retrieveTaskQueueMessages()).thenReturn(List.of(deleteMessage, authoriseMessage));
+
+        handler.processMessages();
+
+        InOrder inOrder = inOrder(authoriseWithUserNotPresentHandler, deleteStoredPaymentDetailsHandler, taskQueue);
+        inOrder.verify(authoriseWithUserNotPresentHandler).process("external-charge-id");
+        inOrder.verify(deleteStoredPaymentDetailsHandler).process("external-agreement-id", "external-paymentInstrument-id");
+        inOrder.verify(taskQueue).markMessagesAsProcessed(List.of(authoriseMessage.getQueueMessage(), deleteMessage.getQueueMessage()));
+    }
+
+    @Test
+    public void shouldDeferMessageWhenAllWorkersForTaskTypeAreBusy() throws Exception {
+        ExecutorService workerExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstTask = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstTaskStarted.countDown();
+            releaseFirstTask.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(authoriseWithUserNotPresentHandler).process("first-charge-id");
+        TaskMessage firstMessage = taskMessage("{ \"payment_external_id\": \"first-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+        TaskMessage secondMessage = taskMessage("{ \"payment_external_id\": \"second-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+        when(taskQueue.retrieveTaskQueueMessages()).thenReturn(List.of(firstMessage), List.of(secondMessage));
+        TaskQueueMessageHandler handler = new TaskQueueMessageHandler(taskQueue, collectFeesForFailedPaymentsTaskHandler,
+                stripeWebhookTaskHandler, authoriseWithUserNotPresentHandler, deleteStoredPaymentDetailsHandler,
+                objectMapper, taskQueueConfig, workerExecutor, visibilityTimeoutExecutor, metricRegistry, clock);
+
+        try {
+            handler.processMessages();
+            assertThat(firstTaskStarted.await(5, TimeUnit.SECONDS), is(true));
+            handler.processMessages();
+        } finally {
+            releaseFirstTask.countDown();
+            handler.awaitRunningTasks(5, TimeUnit.SECONDS);
+        }
+
+        verify(authoriseWithUserNotPresentHandler, never()).process("second-charge-id");
+        verify(taskQueue).requeueTask(secondMessage.getTask(), taskQueueConfig.getBusyTaskTypeRetryDelayInSeconds());
+        verify(taskQueue).markMessagesAsProcessed(List.of(secondMessage.getQueueMessage()));
+        verify(taskQueue).markMessagesAsProcessed(List.of(firstMessage.getQueueMessage()));
+        assertThat(metricRegistry.meter("task-queue.authorise_with_user_not_present.deferred").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldKeepExtendingVisibilityTimeoutOfProcessedMessageUntilItIsDeleted() throws Exception {
+        TaskQueueConfig config = new TaskQueueConfig();
+        Field visibilityTimeoutExtensionField = TaskQueueConfig.class.getDeclaredField("visibilityTimeoutExtensionInSeconds");
+        visibilityTimeoutExtensionField.setAccessible(true);
+        visibilityTimeoutExtensionField.set(config, 2);
+        ExecutorService workerExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch releaseTask = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            releaseTask.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(authoriseWithUserNotPresentHandler).process("external-charge-id");
+        TaskMessage taskMessage = setupQueueMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+        TaskQueueMessageHandler handler = new TaskQueueMessageHandler(taskQueue, collectFeesForFailedPaymentsTaskHandler,
+                stripeWebhookTaskHandler, authoriseWithUserNotPresentHandler, deleteStoredPaymentDetailsHandler,
+                objectMapper, config, workerExecutor, visibilityTimeoutExecutor, metricRegistry, clock);
+
+        handler.processMessages();
+        releaseTask.countDown();
+
+        verify(taskQueue, timeout(5000).atLeastOnce()).changeMessageVisibility(taskMessage.getQueueMessage(), 2);
+        verify(taskQueue, never()).markMessagesAsProcessed(any());
+
+        handler.awaitRunningTasks(5, TimeUnit.SECONDS);
+
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
+    }
+
+    @Test
+    public void shouldNotDeleteMessageWhenTaskFails() throws Exception {
+        doThrow(new RuntimeException("Gateway unavailable")).when(authoriseWithUserNotPresentHandler).process("external-charge-id");
+        setupQueueMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+
+        taskQueueMessageHandler.processMessages();
+
+        verify(taskQueue, never()).markMessagesAsProcessed(any());
+        assertThat(metricRegistry.meter("task-queue.authorise_with_user_not_present.failed").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldDeferMessageWhenTaskHandlerAsksForIt() throws Exception {
+        doThrow(new TaskDeferredException("Recurring authorisation limit reached")).when(authoriseWithUserNotPresentHandler).process("external-charge-id");
+        TaskMessage taskMessage = setupQueueMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+
+        taskQueueMessageHandler.processMessages();
+
+        verify(taskQueue).requeueTask(taskMessage.getTask(), taskQueueConfig.getBusyTaskTypeRetryDelayInSeconds());
+        verify(taskQueue).markMessagesAsProcessed(List.of(taskMessage.getQueueMessage()));
+        verify(taskQueue, never()).changeMessageVisibility(any(), anyInt());
+        assertThat(metricRegistry.meter("task-queue.authorise_with_user_not_present.deferred").getCount(), is(1L));
+        assertThat(metricRegistry.meter("task-queue.authorise_with_user_not_present.failed").getCount(), is(0L));
+    }
+
+    @Test
+    public void shouldMakeDeferredMessageVisibleAgainWhenItCannotBeRequeued() throws Exception {
+        doThrow(new TaskDeferredException("Recurring authorisation limit reached")).when(authoriseWithUserNotPresentHandler).process("external-charge-id");
+        TaskMessage taskMessage = setupQueueMessage("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT);
+        doThrow(new QueueException("SQS unavailable")).when(taskQueue).requeueTask(any(), anyInt());
+
+        taskQueueMessageHandler.processMessages();
+
+        verify(taskQueue).changeMessageVisibility(taskMessage.getQueueMessage(), taskQueueConfig.getBusyTaskTypeRetryDelayInSeconds());
+        verify(taskQueue, never()).markMessagesAsProcessed(any());
+    }
+
+    @Test
+    public void shouldRecordProcessingTimeAndLagForTaskType() throws Exception {
+        Task task = new Task("{ \"payment_external_id\": \"external-charge-id\"}", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT)
+                .withEnqueuedAt(clock.instant().minusSeconds(3));
+        when(taskQueue.retrieveTaskQueueMessages()).thenReturn(List.of(TaskMessage.of(task, mock(QueueMessage.class))));
+
+        taskQueueMessageHandler.processMessages();
+
+        assertThat(metricRegistry.timer("task-queue.authorise_with_user_not_present.processing-time").getCount(), is(1L));
+        assertThat(metricRegistry.histogram("task-queue.authorise_with_user_not_present.lag").getSnapshot().getMax(), is(3000L));
+    }
+
+    private TaskQueueMessageHandler handlerWithTaskTypes(Map<String, TaskTypeConfig> taskTypes) throws Exception {
+        TaskQueueConfig config = new TaskQueueConfig();
+        Field taskTypesField = TaskQueueConfig.class.getDeclaredField("taskTypes");
+        taskTypesField.setAccessible(true);
+        taskTypesField.set(config, taskTypes);
+        return new TaskQueueMessageHandler(taskQueue, collectFeesForFailedPaymentsTaskHandler, stripeWebhookTaskHandler,
+                authoriseWithUserNotPresentHandler, deleteStoredPaymentDetailsHandler, objectMapper, config,
+                MoreExecutors.newDirectExecutorService(), visibilityTimeoutExecutor, metricRegistry, clock);
+    }
+
+    private TaskTypeConfig taskTypeConfig(int threads, int priority) {
+        return objectMapper.convertValue(Map.of("threads", threads, "priority", priority), TaskTypeConfig.class);
+    }
+
+    private TaskMessage taskMessage(String data, TaskType taskType) {
+        return TaskMessage.of(new Task(data, taskType), mock(QueueMessage.class));
+    }
+
     private TaskMessage setupQueueMessage(String data, TaskType taskType) throws QueueException {
         Task paymentTask = new Task(data, taskType);
         QueueMessage mockQueueMessage = mock(QueueMessage.class);
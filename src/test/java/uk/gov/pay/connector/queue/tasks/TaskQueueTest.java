@@ -5,6 +5,11 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,16 +29,26 @@ import uk.gov.service.payments.commons.queue.model.QueueMessage;
 import uk.gov.service.payments.commons.queue.sqs.SqsQueueService;
 import uk.gov.pay.connector.queue.tasks.model.Task;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.jayway.jsonassert.impl.matcher.IsCollectionWithSize.hasSize;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,6 +58,9 @@ public class TaskQueueTest {
     @Mock
     SqsQueueService sqsQueueService;
 
+    @Mock
+    AmazonSQS sqsClient;
+
     @Mock
     ConnectorConfiguration connectorConfiguration;
 
@@ -54,6 +72,8 @@ public class TaskQueueTest {
 
     private static ObjectMapper objectMapper = new ObjectMapper();
 
+    private final Clock clock = Clock.fixed(Instant.parse("2023-10-01T10:15:30Z"), ZoneOffset.UTC);
+
     @BeforeEach
     public void setUp() {
         TaskQueueConfig taskQueueConfig = mock(TaskQueueConfig.class);
@@ -74,7 +94,7 @@ public class TaskQueueTest {
         SendMessageResult messageResult = mock(SendMessageResult.class);
         List<QueueMessage> messages = List.of(QueueMessage.of(messageResult, validJsonMessage));
         when(sqsQueueService.receiveMessages(anyString(), anyString())).thenReturn(messages);
-        TaskQueue queue = new TaskQueue(sqsQueueService, connectorConfiguration, objectMapper);
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
         List<TaskMessage> taskMessages = queue.retrieveTaskQueueMessages();
 
         assertNotNull(taskMessages);
@@ -88,7 +108,7 @@ public class TaskQueueTest {
         SendMessageResult messageResult = mock(SendMessageResult.class);
         List<QueueMessage> messages = List.of(QueueMessage.of(messageResult, validJsonMessage));
         when(sqsQueueService.receiveMessages(anyString(), anyString())).thenReturn(messages);
-        TaskQueue queue = new TaskQueue(sqsQueueService, connectorConfiguration, objectMapper);
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
         List<TaskMessage> taskMessages = queue.retrieveTaskQueueMessages();
 
         assertNotNull(taskMessages);
@@ -103,7 +123,7 @@ public class TaskQueueTest {
         SendMessageResult messageResult = mock(SendMessageResult.class);
         List<QueueMessage> messages = List.of(QueueMessage.of(messageResult, invalidJsonMessage), QueueMessage.of(messageResult, validJsonMessage));
         when(sqsQueueService.receiveMessages(anyString(), anyString())).thenReturn(messages);
-        TaskQueue queue = new TaskQueue(sqsQueueService, connectorConfiguration, objectMapper);
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
         List<TaskMessage> taskMessages = queue.retrieveTaskQueueMessages();
         
         assertThat(taskMessages, hasSize(1));
@@ -120,11 +140,93 @@ public class TaskQueueTest {
     public void shouldSendValidSerialisedChargeToQueue() throws QueueException, JsonProcessingException {
         when(sqsQueueService.sendMessage(anyString(), anyString(), anyInt())).thenReturn(mock(QueueMessage.class));
 
-        TaskQueue queue = new TaskQueue(sqsQueueService, connectorConfiguration, objectMapper);
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
         Task task = new Task("payload data", TaskType.COLLECT_FEE_FOR_STRIPE_FAILED_PAYMENT);
         queue.addTaskToQueue(task);
 
         verify(sqsQueueService).sendMessage(connectorConfiguration.getSqsConfig().getTaskQueueUrl(),
-                "{\"data\":\"payload data\",\"task\":\"collect_fee_for_stripe_failed_payment\"}", 2);
+                "{\"data\":\"payload data\",\"task\":\"collect_fee_for_stripe_failed_payment\",\"enqueued_at\":1696155330000}", 2);
+    }
+
+    @Test
+    public void shouldRequeueTaskAsNewMessageKeepingWhenItWasFirstEnqueued() throws QueueException, JsonProcessingException {
+        when(sqsQueueService.sendMessage(anyString(), anyString(), anyInt())).thenReturn(mock(QueueMessage.class));
+
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+        Task task = new Task("payload data", TaskType.AUTHORISE_WITH_USER_NOT_PRESENT)
+                .withEnqueuedAt(Instant.parse("2023-10-01T09:00:00Z"));
+        queue.requeueTask(task, 5);
+
+        verify(sqsQueueService).sendMessage(connectorConfiguration.getSqsConfig().getTaskQueueUrl(),
+                "{\"data\":\"payload data\",\"task\":\"authorise_with_user_not_present\",\"enqueued_at\":1696150800000}", 5);
+    }
+
+    @Test
+    public void shouldParseEnqueuedAtFromMessage() throws QueueException {
+        String validJsonMessage = "{ \"data\": \"payload data\",\"task\":\"collect_fee_for_stripe_failed_payment\",\"enqueued_at\":1696155330000}";
+        SendMessageResult messageResult = mock(SendMessageResult.class);
+        List<QueueMessage> messages = List.of(QueueMessage.of(messageResult, validJsonMessage));
+        when(sqsQueueService.receiveMessages(anyString(), anyString())).thenReturn(messages);
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+
+        List<TaskMessage> taskMessages = queue.retrieveTaskQueueMessages();
+
+        assertThat(taskMessages.get(0).getTask().getEnqueuedAt(), is(Optional.of(Instant.parse("2023-10-01T10:15:30Z"))));
+    }
+
+    @Test
+    public void shouldDeleteProcessedMessagesInBatchesOfTen() throws QueueException {
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult());
+        List<QueueMessage> queueMessages = IntStream.range(0, 12)
+                .mapToObj(i -> queueMessage("message-" + i, "receipt-" + i))
+                .collect(Collectors.toList());
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+
+        queue.markMessagesAsProcessed(queueMessages);
+
+        ArgumentCaptor<DeleteMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqsClient, times(2)).deleteMessageBatch(requestCaptor.capture());
+        assertThat(requestCaptor.getAllValues().get(0).getEntries(), hasSize(10));
+        assertThat(requestCaptor.getAllValues().get(1).getEntries(), hasSize(2));
+        assertThat(requestCaptor.getAllValues().get(1).getEntries().get(1).getReceiptHandle(), is("receipt-11"));
+    }
+
+    @Test
+    public void shouldLogMessagesThatCouldNotBeDeleted() throws QueueException {
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(new DeleteMessageBatchResult()
+                .withFailed(new BatchResultErrorEntry().withId("1").withMessage("Receipt handle is invalid")));
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+
+        queue.markMessagesAsProcessed(List.of(queueMessage("message-0", "receipt-0"), queueMessage("message-1", "receipt-1")));
+
+        verify(mockAppender).doAppend(loggingEventArgumentCaptor.capture());
+        LoggingEvent loggingEvent = loggingEventArgumentCaptor.getValue();
+        assertThat(loggingEvent.getLevel(), is(Level.ERROR));
+        assertThat(loggingEvent.getMessage(), is("Failed to delete processed message from tasks queue"));
+        assertThat(loggingEvent.getArgumentArray()[0].toString(), is("queueMessageId=message-1"));
+    }
+
+    @Test
+    public void shouldThrowQueueExceptionWhenBatchDeleteFails() {
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenThrow(new AmazonClientException("SQS unavailable"));
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+
+        assertThrows(QueueException.class, () -> queue.markMessagesAsProcessed(List.of(queueMessage("message-0", "receipt-0"))));
+    }
+
+    @Test
+    public void shouldChangeMessageVisibility() throws QueueException {
+        TaskQueue queue = new TaskQueue(sqsQueueService, sqsClient, connectorConfiguration, objectMapper, clock);
+
+        queue.changeMessageVisibility(queueMessage("message-0", "receipt-0"), 60);
+
+        verify(sqsQueueService).deferMessage("", "receipt-0", 60);
+    }
+
+    private QueueMessage queueMessage(String messageId, String receiptHandle) {
+        QueueMessage queueMessage = mock(QueueMessage.class);
+        lenient().when(queueMessage.getMessageId()).thenReturn(messageId);
+        lenient().when(queueMessage.getReceiptHandle()).thenReturn(receiptHandle);
+        return queueMessage;
     }
 }
@@ -15,6 +15,7 @@ import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
 import uk.gov.pay.connector.client.ledger.model.LedgerTransaction;
 import uk.gov.pay.connector.client.ledger.service.LedgerService;
+import uk.gov.pay.connector.common.dao.DatabaseBulkhead;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.dao.EmittedEventDao;
 import uk.gov.pay.connector.fee.model.Fee;
@@ -89,6 +90,9 @@ class ParityCheckerServiceTest {
     private PaymentProviders mockProviders;
     @Mock
     private HistoricalEventEmitter historicalEventEmitter;
+
+    @Mock
+    private DatabaseBulkhead databaseBulkhead;
     @InjectMocks
     ChargeParityChecker chargeParityChecker;
 
@@ -108,7 +112,7 @@ class ParityCheckerServiceTest {
                 chargeParityChecker, refundParityChecker, refundService);
 
         parityCheckerService = new ParityCheckerService(chargeDao, chargeService, emittedEventDao,
-                stateTransitionService, eventService, refundService, refundDao, parityCheckService);
+                stateTransitionService, eventService, refundService, refundDao, parityCheckService, databaseBulkhead);
         chargeEntity = aValidChargeEntity()
                 .withCardDetails(defaultCardDetails())
                 .withGatewayAccountEntity(defaultGatewayAccountEntity())
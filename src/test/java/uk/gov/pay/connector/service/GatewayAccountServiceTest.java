@@ -22,6 +22,7 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountResponse;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountSearchParams;
 import uk.gov.pay.connector.gatewayaccount.model.Worldpay3dsFlexCredentialsEntity;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
+import uk.gov.pay.connector.gatewayaccount.service.TelephonePaymentNotificationAccountCache;
 import uk.gov.pay.connector.gatewayaccountcredentials.service.GatewayAccountCredentialsService;
 import uk.gov.service.payments.commons.model.jsonpatch.JsonPatchRequest;
 
@@ -73,6 +74,9 @@ class GatewayAccountServiceTest {
     @Mock
     private GatewayAccountCredentialsService mockGatewayAccountCredentialsService;
 
+    @Mock
+    private TelephonePaymentNotificationAccountCache mockTelephonePaymentNotificationAccountCache;
+
     private GatewayAccountService gatewayAccountService;
     
     private static final Long GATEWAY_ACCOUNT_ID = 100L;
@@ -81,7 +85,7 @@ class GatewayAccountServiceTest {
     @BeforeEach
     void setUp() {
         gatewayAccountService = new GatewayAccountService(mockGatewayAccountDao, mockCardTypeDao,
-                mockGatewayAccountCredentialsService);
+                mockGatewayAccountCredentialsService, mockTelephonePaymentNotificationAccountCache);
         lenient().when(mockGatewayAccountEntity.getType()).thenReturn("test");
         lenient().when(getMockGatewayAccountEntity1.getType()).thenReturn("test");
         lenient().when(getMockGatewayAccountEntity1.getServiceName()).thenReturn("service one");
@@ -98,6 +102,14 @@ class GatewayAccountServiceTest {
         assertThat(gatewayAccountEntity.get(), is(this.mockGatewayAccountEntity));
     }
 
+    @Test
+    void shouldCheckTelephonePaymentNotificationAccountUsingCache() {
+        when(mockTelephonePaymentNotificationAccountCache.isATelephonePaymentNotificationAccount("MERCHANTCODE")).thenReturn(true);
+
+        assertThat(gatewayAccountService.isATelephonePaymentNotificationAccount("MERCHANTCODE"), is(true));
+        verify(mockGatewayAccountDao, never()).isATelephonePaymentNotificationAccount(anyString());
+    }
+
     @Test
     void shouldSearchGatewayAccounts() {
         GatewayAccountSearchParams gatewayAccountSearchParams = new GatewayAccountSearchParams();
@@ -405,6 +417,7 @@ class GatewayAccountServiceTest {
         assertThat(optionalGatewayAccount.isPresent(), is(true));
         verify(mockGatewayAccountEntity).setAllowTelephonePaymentNotifications(false);
         verify(mockGatewayAccountDao).merge(mockGatewayAccountEntity);
+        verify(mockTelephonePaymentNotificationAccountCache).invalidate();
     }
 
     @Test
@@ -419,6 +432,7 @@ class GatewayAccountServiceTest {
         assertThat(optionalGatewayAccount.isPresent(), is(true));
         verify(mockGatewayAccountEntity).setAllowTelephonePaymentNotifications(true);
         verify(mockGatewayAccountDao).merge(mockGatewayAccountEntity);
+        verify(mockTelephonePaymentNotificationAccountCache).invalidate();
     }
 
     @Test
@@ -977,6 +977,11 @@ public class DatabaseTestHelper {
         jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE agreements CASCADE").execute());
         jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE payment_instruments CASCADE").execute());
         jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE idempotency").execute());
+        jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE notification_inbox").execute());
+        jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE payout_reconcile_checkpoints").execute());
+        jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE stored_payment_details_deletion_jobs").execute());
+        jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE processed_stripe_notifications").execute());
+        jdbi.withHandle(h -> h.createUpdate("TRUNCATE TABLE recurring_authorisation_batches CASCADE").execute());
     }
 
     public Long getChargeIdByExternalId(String externalChargeId) {
@@ -20,6 +20,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.AuthorisationConfig;
+import uk.gov.pay.connector.charge.dao.ChargeFetchPlan;
 import uk.gov.pay.connector.charge.exception.ChargeNotFoundRuntimeException;
 import uk.gov.pay.connector.charge.model.CardDetailsEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
@@ -187,6 +188,7 @@ class WalletAuthoriseServiceTest extends CardServiceTest {
         lenient().when(mockedPaymentProvider.generateTransactionId()).thenReturn(Optional.of(TRANSACTION_ID));
         lenient().when(mockMetricRegistry.counter(anyString())).thenReturn(mockCounter);
         lenient().when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+        lenient().when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         lenient().when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         lenient().when(mockWalletAuthorisationDataToAuthCardDetailsConverter.convert(any(WalletAuthorisationRequest.class), nullable(CardExpiryDate.class))).thenReturn(mockAuthCardDetails);
         lenient().when(mockAuthCardDetailsToCardDetailsEntityConverter.convert(mockAuthCardDetails)).thenReturn(mockCardDetailsEntity);
@@ -347,6 +349,7 @@ class WalletAuthoriseServiceTest extends CardServiceTest {
     void doAuthorise_shouldSetProviderTransactionId_whenProviderAuthorisationIsErroredWithoutProviderId() throws Exception {
         providerWillRejectWithNoTransactionId();
 
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
 
         GatewayResponse response = walletAuthoriseService.doAuthorise(charge.getExternalId(), validApplePayDetails);
@@ -439,7 +442,7 @@ class WalletAuthoriseServiceTest extends CardServiceTest {
     @Test
     void doAuthorise_shouldThrowAChargeNotFoundRuntimeException_whenChargeDoesNotExist() {
         String chargeId = "jgk3erq5sv2i4cds6qqa9f1a8a";
-        when(mockedChargeDao.findByExternalId(chargeId))
+        when(mockedChargeDao.findByExternalId(chargeId, ChargeFetchPlan.DEFAULT))
                 .thenReturn(Optional.empty());
 
         assertThrows(ChargeNotFoundRuntimeException.class, () -> walletAuthoriseService.doAuthorise(chargeId, validApplePayDetails));
@@ -448,7 +451,7 @@ class WalletAuthoriseServiceTest extends CardServiceTest {
     @Test
     void doAuthorise_shouldThrowAnOperationAlreadyInProgressRuntimeException_whenStatusIsAuthorisationReady() {
         ChargeEntity charge = createNewChargeWith(1L, ChargeStatus.AUTHORISATION_READY);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         assertThrows(OperationAlreadyInProgressRuntimeException.class,
                 () -> walletAuthoriseService.doAuthorise(charge.getExternalId(), validApplePayDetails));
@@ -459,7 +462,7 @@ class WalletAuthoriseServiceTest extends CardServiceTest {
     @Test
     void doAuthorise_shouldThrowAnIllegalStateRuntimeException_whenInvalidStatus() {
         ChargeEntity charge = createNewChargeWith(1L, UNDEFINED);
-        when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
+        when(mockedChargeDao.findByExternalId(charge.getExternalId(), ChargeFetchPlan.DEFAULT)).thenReturn(Optional.of(charge));
 
         assertThrows(IllegalStateRuntimeException.class,
                 () -> walletAuthoriseService.doAuthorise(charge.getExternalId(), validApplePayDetails));
@@ -0,0 +1,119 @@
+package uk.gov.pay.connector.webhook.service;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.NotificationInboxConfig;
+import uk.gov.pay.connector.gateway.stripe.StripeNotificationService;
+import uk.gov.pay.connector.gateway.worldpay.WorldpayNotificationService;
+import uk.gov.pay.connector.webhook.dao.NotificationInboxDao;
+import uk.gov.pay.connector.webhook.model.NotificationInboxEntity;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationInboxProcessorTest {
+
+    private static final Instant NOW = Instant.parse("2023-09-01T10:00:00Z");
+    private static final long NOTIFICATION_ID = 1L;
+    private static final String PAYLOAD = "payload";
+
+    @Mock
+    private NotificationInboxDao mockNotificationInboxDao;
+    @Mock
+    private WorldpayNotificationService mockWorldpayNotificationService;
+    @Mock
+    private StripeNotificationService mockStripeNotificationService;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private NotificationInboxConfig mockNotificationInboxConfig;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private NotificationInboxEntity mockNotification;
+
+    private NotificationInboxProcessor notificationInboxProcessor;
+
+    @BeforeEach
+    void setUp() {
+        when(mockConnectorConfiguration.getNotificationInboxConfig()).thenReturn(mockNotificationInboxConfig);
+        when(mockEnvironment.metrics()).thenReturn(new MetricRegistry());
+        when(mockNotificationInboxConfig.getBatchSize()).thenReturn(10);
+        when(mockNotificationInboxConfig.getClaimTimeoutInSeconds()).thenReturn(300);
+
+        notificationInboxProcessor = new NotificationInboxProcessor(mockNotificationInboxDao, mockWorldpayNotificationService,
+                mockStripeNotificationService, mockConnectorConfiguration, mockEnvironment, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        when(mockNotification.getId()).thenReturn(NOTIFICATION_ID);
+        when(mockNotification.getPayload()).thenReturn(PAYLOAD);
+        when(mockNotificationInboxDao.claimNextBatch(10, NOW.plusSeconds(300))).thenReturn(List.of(mockNotification));
+    }
+
+    @Test
+    void shouldMarkNotificationAsProcessed_whenProcessedSuccessfully() {
+        when(mockNotification.getPaymentProvider()).thenReturn("worldpay");
+        when(mockNotification.getReceivedDate()).thenReturn(NOW.minusSeconds(2));
+        when(mockWorldpayNotificationService.processNotification(PAYLOAD)).thenReturn(true);
+
+        int claimed = notificationInboxProcessor.processNextBatch();
+
+        assertThat(claimed, is(1));
+        verify(mockNotificationInboxDao).markAsProcessed(NOTIFICATION_ID, NOW);
+    }
+
+    @Test
+    void shouldScheduleRetryWithIncreasingDelay_whenNotificationCannotBeProcessedYet() {
+        when(mockNotification.getPaymentProvider()).thenReturn("worldpay");
+        when(mockNotification.getAttempts()).thenReturn(3);
+        when(mockNotificationInboxConfig.getMaximumAttempts()).thenReturn(5);
+        when(mockNotificationInboxConfig.getRetryDelayInSeconds()).thenReturn(60);
+        when(mockWorldpayNotificationService.processNotification(PAYLOAD)).thenReturn(false);
+
+        notificationInboxProcessor.processNextBatch();
+
+        verify(mockNotificationInboxDao).scheduleRetry(NOTIFICATION_ID, NOW.plusSeconds(180));
+        verify(mockNotificationInboxDao, never()).markAsProcessed(anyLong(), any());
+    }
+
+    @Test
+    void shouldScheduleRetry_whenProcessingThrowsException() {
+        when(mockNotification.getPaymentProvider()).thenReturn("stripe");
+        when(mockNotification.getAttempts()).thenReturn(1);
+        when(mockNotificationInboxConfig.getMaximumAttempts()).thenReturn(5);
+        when(mockNotificationInboxConfig.getRetryDelayInSeconds()).thenReturn(60);
+        when(mockStripeNotificationService.processNotification(PAYLOAD)).thenThrow(new RuntimeException("boom"));
+
+        notificationInboxProcessor.processNextBatch();
+
+        verify(mockNotificationInboxDao).scheduleRetry(NOTIFICATION_ID, NOW.plusSeconds(60));
+    }
+
+    @Test
+    void shouldMarkNotificationAsFailed_whenMaximumAttemptsReached() {
+        when(mockNotification.getPaymentProvider()).thenReturn("worldpay");
+        when(mockNotification.getAttempts()).thenReturn(5);
+        when(mockNotificationInboxConfig.getMaximumAttempts()).thenReturn(5);
+        when(mockWorldpayNotificationService.processNotification(PAYLOAD)).thenReturn(false);
+
+        notificationInboxProcessor.processNextBatch();
+
+        verify(mockNotificationInboxDao).markAsFailed(NOTIFICATION_ID, NOW);
+    }
+}